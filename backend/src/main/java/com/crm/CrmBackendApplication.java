@@ -2,9 +2,11 @@ package com.crm;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
 @SpringBootApplication
+@EnableScheduling
 @CrossOrigin(origins = "http://localhost:3000")
 public class CrmBackendApplication {
 
@@ -0,0 +1,86 @@
+package com.crm.cache;
+
+import java.util.Arrays;
+
+/**
+ * Approximate access counts for the admission policy of {@link TinyLfuCache}: a count-min
+ * sketch of four rows of counters that saturate at 15.
+ *
+ * <p>Only counters equal to the key's current estimate are incremented (conservative
+ * update), which keeps collisions from inflating the estimates of cold keys. Once the
+ * sketch has counted ten times the cache's capacity, every counter is halved, so frequencies
+ * describe recent traffic rather than all traffic since startup. Not thread-safe; the
+ * cache calls it under its own lock.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int entries = Math.max(16, maximumSize);
+        // Four counters per row and cached entry keep collisions rare among the keys competing for admission
+        int width = Integer.highestOneBit((entries - 1) << 1) * 4;
+        counters = new byte[DEPTH][width];
+        mask = width - 1;
+        sampleSize = 10 * entries;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[row][index(hash, row)]);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = frequency(key);
+        if (frequency == MAX_COUNT) {
+            return;
+        }
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            if (counters[row][index] == frequency) {
+                counters[row][index]++;
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    void clear() {
+        for (byte[] row : counters) {
+            Arrays.fill(row, (byte) 0);
+        }
+        additions = 0;
+    }
+
+    private void reset() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[row];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x45D9F3B;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,154 @@
+package com.crm.cache;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded map with W-TinyLFU eviction.
+ *
+ * <p>New entries go to a small LRU window (1% of the capacity). An entry pushed out of the
+ * window only enters the main space if its estimated access frequency is higher than that
+ * of the main space's eviction victim; otherwise the newcomer is dropped. A burst of
+ * one-off reads, such as a full export or a search over many rows, therefore cannot push
+ * out the entries that are read over and over. The main space is a segmented LRU: entries
+ * read again while on probation move to the protected segment (80% of the main space),
+ * and entries leaving the protected segment get another turn on probation.
+ *
+ * <p>All operations take one lock; they do no I/O and touch a handful of map entries.
+ */
+public class TinyLfuCache<K, V> {
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final int mainMaximum;
+
+    // Insertion-ordered: the first entry is the least recently used
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>();
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public TinyLfuCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.mainMaximum = maximumSize - windowMaximum;
+        this.protectedMaximum = mainMaximum * 4 / 5;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    public synchronized V get(K key) {
+        sketch.increment(key);
+        V value = window.remove(key);
+        if (value != null) {
+            window.put(key, value);
+        } else if ((value = probation.remove(key)) != null) {
+            protect(key, value);
+        } else if ((value = protectedSegment.remove(key)) != null) {
+            protectedSegment.put(key, value);
+        }
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    public synchronized boolean containsKey(K key) {
+        return window.containsKey(key) || probation.containsKey(key) || protectedSegment.containsKey(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        if (window.containsKey(key)) {
+            window.put(key, value);
+            return;
+        }
+        if (probation.containsKey(key)) {
+            probation.put(key, value);
+            return;
+        }
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+            return;
+        }
+        sketch.increment(key);
+        window.put(key, value);
+        if (window.size() > windowMaximum) {
+            admit(evictFirst(window));
+        }
+    }
+
+    public synchronized void remove(K key) {
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    public synchronized void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        sketch.clear();
+    }
+
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    public int getMaximumSize() { return maximumSize; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public long getRejections() { return rejections.sum(); }
+
+    private void protect(K key, V value) {
+        protectedSegment.put(key, value);
+        if (protectedSegment.size() > protectedMaximum) {
+            Map.Entry<K, V> demoted = evictFirst(protectedSegment);
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    /**
+     * Moves {@code candidate}, just pushed out of the window, into the main space if it is
+     * used more often than the entry it would displace there.
+     */
+    private void admit(Map.Entry<K, V> candidate) {
+        if (probation.size() + protectedSegment.size() < mainMaximum) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        evictions.increment();
+        LinkedHashMap<K, V> victims = !probation.isEmpty() ? probation : protectedSegment;
+        if (victims.isEmpty()) {
+            return;
+        }
+        K victim = victims.keySet().iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            victims.remove(victim);
+            probation.put(candidate.getKey(), candidate.getValue());
+        } else {
+            rejections.increment();
+        }
+    }
+
+    private static <K, V> Map.Entry<K, V> evictFirst(LinkedHashMap<K, V> segment) {
+        Iterator<Map.Entry<K, V>> it = segment.entrySet().iterator();
+        Map.Entry<K, V> first = it.next();
+        Map.Entry<K, V> copy = new AbstractMap.SimpleImmutableEntry<>(first);
+        it.remove();
+        return copy;
+    }
+}
@@ -0,0 +1,206 @@
+package com.crm.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hibernate second-level cache regions kept in {@link TinyLfuCache}s on the heap.
+ *
+ * <p>Each entity and query-results region holds at most
+ * {@code crm.cache.regions.<region>.max-entries} entries ({@code crm.cache.max-entries}
+ * when the region has no limit of its own). The update-timestamps region, which tells
+ * Hibernate whether a cached query result is older than the last write to its tables, has
+ * one entry per table and is never evicted: dropping an entry would let stale results
+ * through. Installs itself as the region factory when the second-level cache is enabled.
+ */
+@Component
+public class TinyLfuRegionFactory extends RegionFactoryTemplate implements HibernatePropertiesCustomizer {
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${crm.cache.max-entries:1000}")
+    private int defaultMaxEntries;
+
+    private final Map<String, TinyLfuCache<Object, Object>> regions = new ConcurrentHashMap<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.putIfAbsent(AvailableSettings.CACHE_REGION_FACTORY, this);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        regions.values().forEach(TinyLfuCache::clear);
+        regions.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return new BoundedStorage(region(regionConfig.getRegionName()));
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return new BoundedStorage(region(regionName));
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return new UnboundedStorage();
+    }
+
+    /**
+     * Size and hit, miss and eviction counts of every bounded region.
+     */
+    public List<RegionStats> getStats() {
+        List<RegionStats> stats = new ArrayList<>();
+        regions.forEach((name, cache) -> {
+            RegionStats region = new RegionStats();
+            region.setRegion(name);
+            region.setSize(cache.size());
+            region.setMaxEntries(cache.getMaximumSize());
+            region.setHits(cache.getHits());
+            region.setMisses(cache.getMisses());
+            region.setEvictions(cache.getEvictions());
+            region.setRejectedAdmissions(cache.getRejections());
+            long lookups = region.getHits() + region.getMisses();
+            region.setHitRatio(lookups > 0 ? (double) region.getHits() / lookups : 0.0);
+            stats.add(region);
+        });
+        stats.sort((a, b) -> a.getRegion().compareTo(b.getRegion()));
+        return stats;
+    }
+
+    private TinyLfuCache<Object, Object> region(String regionName) {
+        int maxEntries = environment.getProperty("crm.cache.regions." + regionName + ".max-entries",
+                Integer.class, defaultMaxEntries);
+        return regions.computeIfAbsent(regionName, name -> new TinyLfuCache<>(maxEntries));
+    }
+
+    private static class BoundedStorage implements DomainDataStorageAccess {
+
+        private final TinyLfuCache<Object, Object> cache;
+
+        BoundedStorage(TinyLfuCache<Object, Object> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return cache.get(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return cache.containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            cache.clear();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            cache.remove(key);
+        }
+
+        @Override
+        public void release() {
+            cache.clear();
+        }
+    }
+
+    private static class UnboundedStorage implements StorageAccess {
+
+        private final Map<Object, Object> entries = new ConcurrentHashMap<>();
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return entries.get(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            entries.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return entries.containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            entries.clear();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            entries.remove(key);
+        }
+
+        @Override
+        public void release() {
+            entries.clear();
+        }
+    }
+
+    public static class RegionStats {
+        private String region;
+        private int size;
+        private int maxEntries;
+        private long hits;
+        private long misses;
+        private long evictions;
+        private long rejectedAdmissions;
+        private double hitRatio;
+
+        // Getters and setters
+        public String getRegion() { return region; }
+        public void setRegion(String region) { this.region = region; }
+        public int getSize() { return size; }
+        public void setSize(int size) { this.size = size; }
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+        public long getHits() { return hits; }
+        public void setHits(long hits) { this.hits = hits; }
+        public long getMisses() { return misses; }
+        public void setMisses(long misses) { this.misses = misses; }
+        public long getEvictions() { return evictions; }
+        public void setEvictions(long evictions) { this.evictions = evictions; }
+        public long getRejectedAdmissions() { return rejectedAdmissions; }
+        public void setRejectedAdmissions(long rejectedAdmissions) { this.rejectedAdmissions = rejectedAdmissions; }
+        public double getHitRatio() { return hitRatio; }
+        public void setHitRatio(double hitRatio) { this.hitRatio = hitRatio; }
+    }
+}
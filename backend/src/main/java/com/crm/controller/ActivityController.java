@@ -0,0 +1,376 @@
+package com.crm.controller;
+
+import com.crm.export.ExportColumns;
+import com.crm.export.ExportService;
+import com.crm.model.Activity;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.paging.KeysetPage;
+import com.crm.paging.KeysetPager;
+import com.crm.paging.SlicePage;
+import com.crm.paging.TableStatistics;
+import com.crm.repository.ActivityRepository;
+import com.crm.search.FullTextSearchService;
+import com.crm.search.SearchIndexService;
+import com.crm.service.BulkInsertService;
+import com.crm.service.BulkUpdateService;
+import com.crm.service.ActivityFigures;
+import com.crm.service.ActivityListItem;
+import com.crm.service.CrmCounterStore;
+import com.crm.service.MergePatchService;
+import com.crm.service.MultiGetService;
+import com.crm.service.StatsCache;
+import com.crm.web.EntityTags;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/activities")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ActivityController {
+
+    // The fields PUT replaces; PATCH accepts the same ones
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "subject", "description", "type", "status", "priority", "startDate", "endDate",
+            "outcome");
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private SearchIndexService searchIndex;
+
+    @Autowired
+    private FullTextSearchService fullTextSearch;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private TableStatistics tableStatistics;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BulkInsertService bulkInsertService;
+
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private MultiGetService multiGetService;
+
+    @Autowired
+    private BulkUpdateService bulkUpdateService;
+
+    @Autowired
+    private CrmCounterStore counterStore;
+
+    @Autowired
+    private StatsCache statsCache;
+
+    @Autowired
+    private EntityTags entityTags;
+
+    @GetMapping
+    public ResponseEntity<Page<ActivityListItem>> getAllActivities(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "startDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Activity.class, Customer.class, Contact.class, Opportunity.class, Lead.class)) {
+            return null;
+        }
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        // sortBy=relevance leaves the page unsorted, which full-text search orders by relevance
+        Pageable pageable = "relevance".equals(sortBy) ? PageRequest.of(page, size) : PageRequest.of(page, size, sort);
+        
+        if (search == null || search.trim().isEmpty()) {
+            return ResponseEntity.ok(activityRepository.findListItems(pageable));
+        }
+        
+        Page<ActivityListItem> activities = fullTextSearch.search(search.trim(), pageable,
+                activityRepository::findListItemsByFullText, activityRepository::findListItemsByFullTextOrderByRelevance);
+        if (activities == null) {
+            activities = searchIndex.search(Activity.class, search.trim(), pageable,
+                    activityRepository::findListItemsBySearchTerm, activityRepository::findListItemsBySearchTermAndIdIn);
+        }
+        
+        return ResponseEntity.ok(activities);
+    }
+
+    @GetMapping(params = {"withTotal=false", "!after"})
+    public ResponseEntity<SlicePage<ActivityListItem>> getActivitiesSlice(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "startDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Activity.class, Customer.class, Contact.class, Opportunity.class, Lead.class)) {
+            return null;
+        }
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        Pageable pageable = "relevance".equals(sortBy) ? PageRequest.of(page, size) : PageRequest.of(page, size, sort);
+        
+        if (search == null || search.trim().isEmpty()) {
+            return ResponseEntity.ok(new SlicePage<>(activityRepository.findListItemsAsSlice(pageable),
+                    tableStatistics.estimatedRows("activities")));
+        }
+        
+        String term = search.trim();
+        Slice<ActivityListItem> matches = fullTextSearch.search(term, pageable,
+                activityRepository::findListItemSliceByFullText, activityRepository::findListItemSliceByFullTextOrderByRelevance);
+        if (matches != null) {
+            // Full-text matches come without an estimate; the index candidates are no bound on them
+            return ResponseEntity.ok(new SlicePage<>(matches, null));
+        }
+        return ResponseEntity.ok(searchIndex.searchSlice(Activity.class, term, pageable,
+                activityRepository::findListItemSliceBySearchTerm,
+                (ids, p) -> activityRepository.findListItemSliceBySearchTermAndIdIn(term, ids, p)));
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<KeysetPage<ActivityListItem>> getActivitiesAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "startDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Activity.class, Customer.class, Contact.class, Opportunity.class, Lead.class)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(keysetPager.page(Activity.class, ActivityListItem.class, ActivityListItem::selection,
+                    searchIndex.searchCondition(Activity.class, search, ActivityRepository::searchTerm),
+                    sortBy, sortDir.equalsIgnoreCase("desc"), after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetService.MultiGetResult<Activity>> getActivitiesByIds(@RequestParam List<Long> ids) {
+        return multiGetService.findAll(ids, activityRepository::findWithParentsByIdIn);
+    }
+
+    // For id lists too long for a query string
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetService.MultiGetResult<Activity>> postActivitiesByIds(@RequestBody List<Long> ids) {
+        return multiGetService.findAll(ids, activityRepository::findWithParentsByIdIn);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportActivities(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "startDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search) {
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        String term = search != null ? search.trim() : "";
+        
+        return exportService.export("activities", format, ExportColumns.ACTIVITIES, () -> term.isEmpty()
+                ? activityRepository.streamAll(sort)
+                : searchIndex.searchStream(Activity.class, term, t -> activityRepository.streamBySearchTerm(t, sort),
+                        ids -> activityRepository.streamBySearchTermAndIdIn(term, ids, sort)));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Activity> getActivityById(@PathVariable Long id) {
+        Optional<Activity> activity = activityRepository.findWithParentsById(id);
+        return activity.map(a -> EntityTags.ok(a, a.getCustomer(), a.getContact(), a.getOpportunity(), a.getLead()))
+                      .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/customer/{customerId}")
+    public ResponseEntity<List<Activity>> getActivitiesByCustomer(@PathVariable Long customerId) {
+        List<Activity> activities = activityRepository.findByCustomerIdOrderByStartDateDesc(customerId);
+        return ResponseEntity.ok(activities);
+    }
+
+    @GetMapping("/contact/{contactId}")
+    public ResponseEntity<List<Activity>> getActivitiesByContact(@PathVariable Long contactId) {
+        List<Activity> activities = activityRepository.findByContactIdOrderByStartDateDesc(contactId);
+        return ResponseEntity.ok(activities);
+    }
+
+    @GetMapping("/opportunity/{opportunityId}")
+    public ResponseEntity<List<Activity>> getActivitiesByOpportunity(@PathVariable Long opportunityId) {
+        List<Activity> activities = activityRepository.findByOpportunityId(opportunityId);
+        return ResponseEntity.ok(activities);
+    }
+
+    @GetMapping("/lead/{leadId}")
+    public ResponseEntity<List<Activity>> getActivitiesByLead(@PathVariable Long leadId) {
+        List<Activity> activities = activityRepository.findByLeadId(leadId);
+        return ResponseEntity.ok(activities);
+    }
+
+    @PostMapping
+    public ResponseEntity<Activity> createActivity(@Valid @RequestBody Activity activity) {
+        try {
+            Activity savedActivity = activityRepository.save(activity);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedActivity);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkInsertService.BulkInsertResult> createActivities(@RequestBody List<Activity> activities) {
+        return bulkInsertService.insertAll(activities);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Activity> updateActivity(@PathVariable Long id, 
+                                                 @Valid @RequestBody Activity activityDetails) {
+        Optional<Activity> optionalActivity = activityRepository.findById(id);
+        
+        if (optionalActivity.isPresent()) {
+            Activity activity = optionalActivity.get();
+            activity.setSubject(activityDetails.getSubject());
+            activity.setDescription(activityDetails.getDescription());
+            activity.setType(activityDetails.getType());
+            activity.setStatus(activityDetails.getStatus());
+            activity.setPriority(activityDetails.getPriority());
+            activity.setStartDate(activityDetails.getStartDate());
+            activity.setEndDate(activityDetails.getEndDate());
+            activity.setOutcome(activityDetails.getOutcome());
+            
+            Activity updatedActivity = activityRepository.save(activity);
+            return ResponseEntity.ok(updatedActivity);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Activity> patchActivity(@PathVariable Long id, @RequestBody JsonNode patch) {
+        return mergePatchService.patch(Activity.class, id, patch, PATCHABLE_FIELDS);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteActivity(@PathVariable Long id) {
+        if (activityRepository.existsById(id)) {
+            activityRepository.deleteById(id);
+            return ResponseEntity.noContent().build();
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/by-status/{status}")
+    public ResponseEntity<List<ActivityListItem>> getActivitiesByStatus(@PathVariable Activity.ActivityStatus status) {
+        List<ActivityListItem> activities = activityRepository.findListItemsByStatus(status);
+        return ResponseEntity.ok(activities);
+    }
+
+    @GetMapping("/by-type/{type}")
+    public ResponseEntity<List<Activity>> getActivitiesByType(@PathVariable Activity.ActivityType type) {
+        List<Activity> activities = activityRepository.findByType(type);
+        return ResponseEntity.ok(activities);
+    }
+
+    @GetMapping("/overdue")
+    public ResponseEntity<List<Activity>> getOverdueActivities() {
+        List<Activity> overdueActivities = activityRepository.findOverdueActivities(LocalDateTime.now());
+        return ResponseEntity.ok(overdueActivities);
+    }
+
+    @GetMapping("/upcoming")
+    public ResponseEntity<List<Activity>> getUpcomingActivities(
+            @RequestParam(defaultValue = "24") int hours) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime endTime = now.plusHours(hours);
+        List<Activity> upcomingActivities = activityRepository.findUpcomingActivities(now, endTime);
+        return ResponseEntity.ok(upcomingActivities);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ActivityStats> getActivityStats() {
+        ActivityFigures figures = statsCache.get("activities:stats", Set.of(Activity.class), counterStore::activities);
+        ActivityStats stats = new ActivityStats();
+        stats.setTotalActivities(figures.getTotal());
+        stats.setPlannedActivities(figures.countByStatus(Activity.ActivityStatus.PLANNED));
+        stats.setCompletedActivities(figures.countByStatus(Activity.ActivityStatus.COMPLETED));
+        stats.setOverdueActivities(figures.getOverdue());
+        
+        return ResponseEntity.ok()
+                .header("Server-Timing", figures.serverTiming())
+                .body(stats);
+    }
+
+    @PutMapping("/{id}/complete")
+    public ResponseEntity<Activity> completeActivity(@PathVariable Long id, 
+                                                   @RequestParam(required = false) String outcome) {
+        Optional<Activity> optionalActivity = activityRepository.findById(id);
+        
+        if (optionalActivity.isPresent()) {
+            Activity activity = optionalActivity.get();
+            activity.setStatus(Activity.ActivityStatus.COMPLETED);
+            activity.setCompletedAt(LocalDateTime.now());
+            if (outcome != null) {
+                activity.setOutcome(outcome);
+            }
+            
+            Activity updatedActivity = activityRepository.save(activity);
+            return ResponseEntity.ok(updatedActivity);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/bulk/complete")
+    public ResponseEntity<BulkUpdateService.BulkUpdateResult> completeActivities(
+            @RequestBody BulkUpdateService.ActivitySelection selection,
+            @RequestParam(required = false) String outcome) {
+        return bulkUpdateService.completeActivities(selection, outcome);
+    }
+
+
+    public static class ActivityStats {
+        private Long totalActivities;
+        private Long plannedActivities;
+        private Long completedActivities;
+        private Long overdueActivities;
+
+        // Getters and setters
+        public Long getTotalActivities() { return totalActivities; }
+        public void setTotalActivities(Long totalActivities) { this.totalActivities = totalActivities; }
+        public Long getPlannedActivities() { return plannedActivities; }
+        public void setPlannedActivities(Long plannedActivities) { this.plannedActivities = plannedActivities; }
+        public Long getCompletedActivities() { return completedActivities; }
+        public void setCompletedActivities(Long completedActivities) { this.completedActivities = completedActivities; }
+        public Long getOverdueActivities() { return overdueActivities; }
+        public void setOverdueActivities(Long overdueActivities) { this.overdueActivities = overdueActivities; }
+    }
+}
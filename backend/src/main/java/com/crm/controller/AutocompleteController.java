@@ -0,0 +1,32 @@
+package com.crm.controller;
+
+import com.crm.search.AutocompleteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/autocomplete")
+@CrossOrigin(origins = "http://localhost:3000")
+public class AutocompleteController {
+
+    @Autowired
+    private AutocompleteService autocompleteService;
+
+    @GetMapping("/{entity}")
+    public ResponseEntity<List<AutocompleteService.Suggestion>> autocomplete(
+            @PathVariable String entity,
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (!autocompleteService.supports(entity)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!autocompleteService.isReady(entity)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").build();
+        }
+        return ResponseEntity.ok(autocompleteService.complete(entity, prefix, limit));
+    }
+}
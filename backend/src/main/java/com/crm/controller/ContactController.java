@@ -0,0 +1,348 @@
+package com.crm.controller;
+
+import com.crm.export.ExportColumns;
+import com.crm.export.ExportService;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.paging.KeysetPage;
+import com.crm.paging.KeysetPager;
+import com.crm.paging.SlicePage;
+import com.crm.paging.TableStatistics;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.search.FullTextSearchService;
+import com.crm.search.SearchIndexService;
+import com.crm.service.BulkInsertService;
+import com.crm.service.ContactFigures;
+import com.crm.service.DashboardAggregationService;
+import com.crm.service.ContactListItem;
+import com.crm.service.MergePatchService;
+import com.crm.service.MultiGetService;
+import com.crm.service.StatsCache;
+import com.crm.web.EntityTags;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/contacts")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ContactController {
+
+    // The fields PUT replaces; PATCH accepts the same ones
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "firstName", "lastName", "jobTitle", "email", "phone", "mobile", "linkedinUrl",
+            "status", "isPrimary");
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SearchIndexService searchIndex;
+
+    @Autowired
+    private FullTextSearchService fullTextSearch;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private TableStatistics tableStatistics;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BulkInsertService bulkInsertService;
+
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private MultiGetService multiGetService;
+
+    @Autowired
+    private DashboardAggregationService aggregationService;
+
+    @Autowired
+    private StatsCache statsCache;
+
+    @Autowired
+    private EntityTags entityTags;
+
+    @GetMapping
+    public ResponseEntity<Page<ContactListItem>> getAllContacts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "firstName") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Contact.class, Customer.class)) {
+            return null;
+        }
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        // sortBy=relevance leaves the page unsorted, which full-text search orders by relevance
+        Pageable pageable = "relevance".equals(sortBy) ? PageRequest.of(page, size) : PageRequest.of(page, size, sort);
+        
+        if (search == null || search.trim().isEmpty()) {
+            return ResponseEntity.ok(contactRepository.findListItems(pageable));
+        }
+        
+        Page<ContactListItem> contacts;
+        if (fuzzy) {
+            contacts = searchIndex.fuzzySearch(Contact.class, search.trim(), pageable,
+                    contactRepository::findListItemsBySearchTerm, contactRepository::findListItemsBySearchTermAndIdIn,
+                    contactRepository::findListItemsByIdIn);
+        } else {
+            contacts = fullTextSearch.search(search.trim(), pageable,
+                    contactRepository::findListItemsByFullText, contactRepository::findListItemsByFullTextOrderByRelevance);
+            if (contacts == null) {
+                contacts = searchIndex.search(Contact.class, search.trim(), pageable,
+                        contactRepository::findListItemsBySearchTerm, contactRepository::findListItemsBySearchTermAndIdIn);
+            }
+        }
+        
+        return ResponseEntity.ok(contacts);
+    }
+
+    @GetMapping(params = {"withTotal=false", "!after"})
+    public ResponseEntity<SlicePage<ContactListItem>> getContactsSlice(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "firstName") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Contact.class, Customer.class)) {
+            return null;
+        }
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        Pageable pageable = "relevance".equals(sortBy) ? PageRequest.of(page, size) : PageRequest.of(page, size, sort);
+        
+        if (search != null && !search.trim().isEmpty() && fuzzy) {
+            // Fuzzy matches are loaded by primary key, so their exact count is cheap
+            Page<ContactListItem> matches = searchIndex.fuzzySearch(Contact.class, search.trim(), pageable,
+                    contactRepository::findListItemsBySearchTerm, contactRepository::findListItemsBySearchTermAndIdIn,
+                    contactRepository::findListItemsByIdIn);
+            return ResponseEntity.ok(new SlicePage<>(matches, matches.getTotalElements()));
+        }
+        
+        if (search == null || search.trim().isEmpty()) {
+            return ResponseEntity.ok(new SlicePage<>(contactRepository.findListItemsAsSlice(pageable),
+                    tableStatistics.estimatedRows("contacts")));
+        }
+        
+        String term = search.trim();
+        Slice<ContactListItem> matches = fullTextSearch.search(term, pageable,
+                contactRepository::findListItemSliceByFullText, contactRepository::findListItemSliceByFullTextOrderByRelevance);
+        if (matches != null) {
+            // Full-text matches come without an estimate; the index candidates are no bound on them
+            return ResponseEntity.ok(new SlicePage<>(matches, null));
+        }
+        return ResponseEntity.ok(searchIndex.searchSlice(Contact.class, term, pageable,
+                contactRepository::findListItemSliceBySearchTerm,
+                (ids, p) -> contactRepository.findListItemSliceBySearchTermAndIdIn(term, ids, p)));
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<KeysetPage<ContactListItem>> getContactsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "firstName") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String search,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Contact.class, Customer.class)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(keysetPager.page(Contact.class, ContactListItem.class, ContactListItem::selection,
+                    searchIndex.searchCondition(Contact.class, search, ContactRepository::searchTerm),
+                    sortBy, sortDir.equalsIgnoreCase("desc"), after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetService.MultiGetResult<Contact>> getContactsByIds(@RequestParam List<Long> ids) {
+        return multiGetService.findAll(ids, contactRepository::findWithCustomerByIdIn);
+    }
+
+    // For id lists too long for a query string
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetService.MultiGetResult<Contact>> postContactsByIds(@RequestBody List<Long> ids) {
+        return multiGetService.findAll(ids, contactRepository::findWithCustomerByIdIn);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportContacts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "firstName") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String search) {
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        String term = search != null ? search.trim() : "";
+        
+        return exportService.export("contacts", format, ExportColumns.CONTACTS, () -> term.isEmpty()
+                ? contactRepository.streamAll(sort)
+                : searchIndex.searchStream(Contact.class, term, t -> contactRepository.streamBySearchTerm(t, sort),
+                        ids -> contactRepository.streamBySearchTermAndIdIn(term, ids, sort)));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Contact> getContactById(@PathVariable Long id) {
+        Optional<Contact> contact = contactRepository.findById(id);
+        // Both come from the second-level cache when hot, rather than from one join
+        contact.filter(c -> c.getCustomer() != null)
+               .ifPresent(c -> customerRepository.findById(c.getCustomer().getId()).ifPresent(c::setCustomer));
+        return contact.map(c -> EntityTags.ok(c, c.getCustomer()))
+                     .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/with-activities")
+    public ResponseEntity<Contact> getContactWithActivities(@PathVariable Long id) {
+        Optional<Contact> contact = contactRepository.findByIdWithActivities(id);
+        return contact.map(ResponseEntity::ok)
+                     .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/customer/{customerId}")
+    public ResponseEntity<List<Contact>> getContactsByCustomer(@PathVariable Long customerId) {
+        List<Contact> contacts = contactRepository.findByCustomerId(customerId);
+        return ResponseEntity.ok(contacts);
+    }
+
+    @GetMapping("/customer/{customerId}/primary")
+    public ResponseEntity<Contact> getPrimaryContactByCustomer(@PathVariable Long customerId) {
+        Optional<Contact> contact = contactRepository.findPrimaryContactByCustomerId(customerId);
+        return contact.map(ResponseEntity::ok)
+                     .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public ResponseEntity<Contact> createContact(@Valid @RequestBody Contact contact) {
+        try {
+            Contact savedContact = contactRepository.save(contact);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedContact);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkInsertService.BulkInsertResult> createContacts(@RequestBody List<Contact> contacts) {
+        return bulkInsertService.insertAll(contacts);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Contact> updateContact(@PathVariable Long id, 
+                                               @Valid @RequestBody Contact contactDetails) {
+        Optional<Contact> optionalContact = contactRepository.findById(id);
+        
+        if (optionalContact.isPresent()) {
+            Contact contact = optionalContact.get();
+            contact.setFirstName(contactDetails.getFirstName());
+            contact.setLastName(contactDetails.getLastName());
+            contact.setJobTitle(contactDetails.getJobTitle());
+            contact.setEmail(contactDetails.getEmail());
+            contact.setPhone(contactDetails.getPhone());
+            contact.setMobile(contactDetails.getMobile());
+            contact.setLinkedinUrl(contactDetails.getLinkedinUrl());
+            contact.setStatus(contactDetails.getStatus());
+            contact.setIsPrimary(contactDetails.getIsPrimary());
+            
+            Contact updatedContact = contactRepository.save(contact);
+            return ResponseEntity.ok(updatedContact);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Contact> patchContact(@PathVariable Long id, @RequestBody JsonNode patch) {
+        return mergePatchService.patch(Contact.class, id, patch, PATCHABLE_FIELDS);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteContact(@PathVariable Long id) {
+        if (contactRepository.existsById(id)) {
+            contactRepository.deleteById(id);
+            return ResponseEntity.noContent().build();
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/by-status/{status}")
+    public ResponseEntity<List<ContactListItem>> getContactsByStatus(@PathVariable Contact.ContactStatus status) {
+        List<ContactListItem> contacts = contactRepository.findListItemsByStatus(status);
+        return ResponseEntity.ok(contacts);
+    }
+
+    @GetMapping("/customer/{customerId}/search")
+    public ResponseEntity<List<Contact>> searchContactsByCustomer(
+            @PathVariable Long customerId,
+            @RequestParam String search) {
+        List<Contact> contacts = contactRepository.findByCustomerIdAndSearchTerm(customerId, search);
+        return ResponseEntity.ok(contacts);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ContactStats> getContactStats() {
+        ContactFigures figures = statsCache.get("contacts:stats", Set.of(Contact.class), aggregationService::aggregateContacts);
+        ContactStats stats = new ContactStats();
+        stats.setTotalContacts(figures.getTotal());
+        stats.setActiveContacts(figures.countByStatus(Contact.ContactStatus.ACTIVE));
+        stats.setInactiveContacts(figures.countByStatus(Contact.ContactStatus.INACTIVE));
+        stats.setDoNotContactContacts(figures.countByStatus(Contact.ContactStatus.DO_NOT_CONTACT));
+        return ResponseEntity.ok()
+                .header("Server-Timing", figures.serverTiming())
+                .body(stats);
+    }
+
+
+    public static class ContactStats {
+        private Long totalContacts;
+        private Long activeContacts;
+        private Long inactiveContacts;
+        private Long doNotContactContacts;
+
+        // Getters and setters
+        public Long getTotalContacts() { return totalContacts; }
+        public void setTotalContacts(Long totalContacts) { this.totalContacts = totalContacts; }
+        public Long getActiveContacts() { return activeContacts; }
+        public void setActiveContacts(Long activeContacts) { this.activeContacts = activeContacts; }
+        public Long getInactiveContacts() { return inactiveContacts; }
+        public void setInactiveContacts(Long inactiveContacts) { this.inactiveContacts = inactiveContacts; }
+        public Long getDoNotContactContacts() { return doNotContactContacts; }
+        public void setDoNotContactContacts(Long doNotContactContacts) { this.doNotContactContacts = doNotContactContacts; }
+    }
+}
@@ -1,43 +1,121 @@
 package com.crm.controller;
 
+import com.crm.export.ExportColumns;
+import com.crm.export.ExportService;
 import com.crm.model.Customer;
+import com.crm.paging.KeysetPage;
+import com.crm.paging.KeysetPager;
+import com.crm.paging.SlicePage;
+import com.crm.paging.TableStatistics;
 import com.crm.repository.CustomerRepository;
+import com.crm.search.FullTextSearchService;
+import com.crm.search.SearchIndexService;
+import com.crm.service.BulkInsertService;
+import com.crm.service.CustomerFigures;
+import com.crm.service.CustomerOverviewService;
+import com.crm.service.DashboardAggregationService;
+import com.crm.service.MergePatchService;
+import com.crm.service.MultiGetService;
+import com.crm.service.StatsCache;
+import com.crm.web.EntityTags;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/customers")
 @CrossOrigin(origins = "http://localhost:3000")
 public class CustomerController {
 
+    // The fields PUT replaces; PATCH accepts the same ones
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "companyName", "industry", "companySize", "website", "phone", "email", "address",
+            "city", "state", "postalCode", "country", "status");
+
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private SearchIndexService searchIndex;
+
+    @Autowired
+    private FullTextSearchService fullTextSearch;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private TableStatistics tableStatistics;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BulkInsertService bulkInsertService;
+
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private MultiGetService multiGetService;
+
+    @Autowired
+    private DashboardAggregationService aggregationService;
+
+    @Autowired
+    private StatsCache statsCache;
+
+    @Autowired
+    private CustomerOverviewService customerOverviewService;
+
+    @Autowired
+    private EntityTags entityTags;
+
     @GetMapping
     public ResponseEntity<Page<Customer>> getAllCustomers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "companyName") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Customer.class)) {
+            return null;
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        // sortBy=relevance leaves the page unsorted, which full-text search orders by relevance
+        Pageable pageable = "relevance".equals(sortBy) ? PageRequest.of(page, size) : PageRequest.of(page, size, sort);
         
         Page<Customer> customers;
-        if (search != null && !search.trim().isEmpty()) {
-            customers = customerRepository.findBySearchTerm(search.trim(), pageable);
+        if (search != null && !search.trim().isEmpty() && fuzzy) {
+            customers = searchIndex.fuzzySearch(Customer.class, search.trim(), pageable,
+                    customerRepository::findBySearchTerm, customerRepository::findBySearchTermAndIdIn,
+                    customerRepository::findByIdIn);
+        } else if (search != null && !search.trim().isEmpty()) {
+            customers = fullTextSearch.search(search.trim(), pageable,
+                    customerRepository::findByFullText, customerRepository::findByFullTextOrderByRelevance);
+            if (customers == null) {
+                customers = searchIndex.search(Customer.class, search.trim(), pageable,
+                        customerRepository::findBySearchTerm, customerRepository::findBySearchTermAndIdIn);
+            }
         } else {
             customers = customerRepository.findAll(pageable);
         }
@@ -45,13 +123,114 @@ public class CustomerController {
         return ResponseEntity.ok(customers);
     }
 
+    @GetMapping(params = {"withTotal=false", "!after"})
+    public ResponseEntity<SlicePage<Customer>> getCustomersSlice(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "companyName") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Customer.class)) {
+            return null;
+        }
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        Pageable pageable = "relevance".equals(sortBy) ? PageRequest.of(page, size) : PageRequest.of(page, size, sort);
+        
+        if (search != null && !search.trim().isEmpty() && fuzzy) {
+            // Fuzzy matches are loaded by primary key, so their exact count is cheap
+            Page<Customer> matches = searchIndex.fuzzySearch(Customer.class, search.trim(), pageable,
+                    customerRepository::findBySearchTerm, customerRepository::findBySearchTermAndIdIn,
+                    customerRepository::findByIdIn);
+            return ResponseEntity.ok(new SlicePage<>(matches, matches.getTotalElements()));
+        }
+        
+        SlicePage<Customer> customers;
+        if (search != null && !search.trim().isEmpty()) {
+            String term = search.trim();
+            Slice<Customer> matches = fullTextSearch.search(term, pageable,
+                    customerRepository::findSliceByFullText, customerRepository::findSliceByFullTextOrderByRelevance);
+            if (matches != null) {
+                // Full-text matches come without an estimate; the index candidates are no bound on them
+                customers = new SlicePage<>(matches, null);
+            } else {
+                customers = searchIndex.searchSlice(Customer.class, term, pageable,
+                        customerRepository::findSliceBySearchTerm,
+                        (ids, p) -> customerRepository.findSliceBySearchTermAndIdIn(term, ids, p));
+            }
+        } else {
+            customers = new SlicePage<>(customerRepository.findAllAsSlice(pageable), tableStatistics.estimatedRows("customers"));
+        }
+        
+        return ResponseEntity.ok(customers);
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<KeysetPage<Customer>> getCustomersAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "companyName") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String search,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Customer.class)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(keysetPager.page(Customer.class,
+                    searchIndex.searchCondition(Customer.class, search, CustomerRepository::searchTerm),
+                    sortBy, sortDir.equalsIgnoreCase("desc"), after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetService.MultiGetResult<Customer>> getCustomersByIds(@RequestParam List<Long> ids) {
+        return multiGetService.findAll(ids, customerRepository::findAllById);
+    }
+
+    // For id lists too long for a query string
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetService.MultiGetResult<Customer>> postCustomersByIds(@RequestBody List<Long> ids) {
+        return multiGetService.findAll(ids, customerRepository::findAllById);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "companyName") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String search) {
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        String term = search != null ? search.trim() : "";
+        
+        return exportService.export("customers", format, ExportColumns.CUSTOMERS, () -> term.isEmpty()
+                ? customerRepository.streamAll(sort)
+                : searchIndex.searchStream(Customer.class, term, t -> customerRepository.streamBySearchTerm(t, sort),
+                        ids -> customerRepository.streamBySearchTermAndIdIn(term, ids, sort)));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Customer> getCustomerById(@PathVariable Long id) {
         Optional<Customer> customer = customerRepository.findById(id);
-        return customer.map(ResponseEntity::ok)
+        return customer.map(EntityTags::ok)
                       .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/overview")
+    public ResponseEntity<CustomerOverviewService.Overview> getCustomerOverview(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit) {
+        CustomerOverviewService.Overview overview = customerOverviewService.overview(id, limit);
+        return overview != null ? ResponseEntity.ok(overview) : ResponseEntity.notFound().build();
+    }
+
     @GetMapping("/{id}/with-contacts")
     public ResponseEntity<Customer> getCustomerWithContacts(@PathVariable Long id) {
         Optional<Customer> customer = customerRepository.findByIdWithContacts(id);
@@ -76,6 +255,11 @@ public class CustomerController {
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkInsertService.BulkInsertResult> createCustomers(@RequestBody List<Customer> customers) {
+        return bulkInsertService.insertAll(customers);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Customer> updateCustomer(@PathVariable Long id, 
                                                   @Valid @RequestBody Customer customerDetails) {
@@ -103,6 +287,11 @@ public class CustomerController {
         }
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Customer> patchCustomer(@PathVariable Long id, @RequestBody JsonNode patch) {
+        return mergePatchService.patch(Customer.class, id, patch, PATCHABLE_FIELDS);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCustomer(@PathVariable Long id) {
         if (customerRepository.existsById(id)) {
@@ -127,12 +316,15 @@ public class CustomerController {
 
     @GetMapping("/stats")
     public ResponseEntity<CustomerStats> getCustomerStats() {
+        CustomerFigures figures = statsCache.get("customers:stats", Set.of(Customer.class), aggregationService::aggregateCustomers);
         CustomerStats stats = new CustomerStats();
-        stats.setTotalCustomers(customerRepository.count());
-        stats.setActiveCustomers(customerRepository.countByStatus(Customer.CustomerStatus.ACTIVE));
-        stats.setProspectCustomers(customerRepository.countByStatus(Customer.CustomerStatus.PROSPECT));
-        stats.setInactiveCustomers(customerRepository.countByStatus(Customer.CustomerStatus.INACTIVE));
-        return ResponseEntity.ok(stats);
+        stats.setTotalCustomers(figures.getTotal());
+        stats.setActiveCustomers(figures.countByStatus(Customer.CustomerStatus.ACTIVE));
+        stats.setProspectCustomers(figures.countByStatus(Customer.CustomerStatus.PROSPECT));
+        stats.setInactiveCustomers(figures.countByStatus(Customer.CustomerStatus.INACTIVE));
+        return ResponseEntity.ok()
+                .header("Server-Timing", figures.serverTiming())
+                .body(stats);
     }
 
     public static class CustomerStats {
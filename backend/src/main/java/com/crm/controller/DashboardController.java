@@ -1,19 +1,30 @@
 package com.crm.controller;
 
+import com.crm.cache.TinyLfuRegionFactory;
+import com.crm.model.Activity;
 import com.crm.model.Customer;
 import com.crm.model.Lead;
 import com.crm.model.Opportunity;
-import com.crm.repository.CustomerRepository;
-import com.crm.repository.LeadRepository;
-import com.crm.repository.OpportunityRepository;
-import com.crm.repository.ActivityRepository;
+import com.crm.service.ActivitySummary;
+import com.crm.service.CrmCounterStore;
+import com.crm.service.DashboardAggregate;
+import com.crm.service.DashboardAggregationService;
+import com.crm.service.DashboardStreamService;
+import com.crm.service.LeadFigures;
+import com.crm.service.OpportunityFigures;
+import com.crm.service.RecentActivityFeed;
+import com.crm.service.StatsCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -21,79 +32,89 @@ import java.util.Map;
 public class DashboardController {
 
     @Autowired
-    private CustomerRepository customerRepository;
+    private DashboardAggregationService aggregationService;
 
     @Autowired
-    private LeadRepository leadRepository;
+    private CrmCounterStore counterStore;
 
     @Autowired
-    private OpportunityRepository opportunityRepository;
+    private StatsCache statsCache;
 
     @Autowired
-    private ActivityRepository activityRepository;
+    private TinyLfuRegionFactory entityCache;
+
+    @Autowired
+    private DashboardStreamService streamService;
+
+    @Autowired
+    private RecentActivityFeed recentActivityFeed;
 
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
-        Map<String, Object> stats = new HashMap<>();
-        
-        // Customer stats
-        stats.put("totalCustomers", customerRepository.count());
-        stats.put("activeCustomers", customerRepository.countByStatus(Customer.CustomerStatus.ACTIVE));
-        stats.put("prospectCustomers", customerRepository.countByStatus(Customer.CustomerStatus.PROSPECT));
+        DashboardAggregate aggregate = statsCache.get("dashboard:stats",
+                Set.of(Customer.class, Lead.class, Opportunity.class, Activity.class), counterStore::dashboard);
+        Map<String, Object> stats = aggregate.toStatsMap();
         
-        // Lead stats
-        stats.put("totalLeads", leadRepository.count());
-        stats.put("newLeads", leadRepository.countByStatus(Lead.LeadStatus.NEW));
-        stats.put("qualifiedLeads", leadRepository.countByStatus(Lead.LeadStatus.QUALIFIED));
-        stats.put("convertedLeads", leadRepository.countByStatus(Lead.LeadStatus.CONVERTED));
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("tableTimingsMs", aggregate.tableTimingsMillis());
+        stats.put("meta", meta);
         
-        // Opportunity stats
-        stats.put("totalOpportunities", opportunityRepository.count());
-        BigDecimal totalRevenue = opportunityRepository.sumAmountByStage(Opportunity.OpportunityStage.CLOSED_WON);
-        stats.put("totalRevenue", totalRevenue != null ? totalRevenue : BigDecimal.ZERO);
-        
-        BigDecimal pipelineValue = opportunityRepository.calculateWeightedPipeline();
-        stats.put("pipelineValue", pipelineValue != null ? pipelineValue : BigDecimal.ZERO);
-        
-        BigDecimal avgDealSize = opportunityRepository.getAverageWonDealSize();
-        stats.put("averageDealSize", avgDealSize != null ? avgDealSize : BigDecimal.ZERO);
-        
-        // Activity stats
-        stats.put("totalActivities", activityRepository.count());
-        
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok()
+                .header("Server-Timing", aggregate.serverTiming())
+                .body(stats);
     }
 
     @GetMapping("/lead-sources")
     public ResponseEntity<Map<String, Long>> getLeadSourceStats() {
-        Map<String, Long> sourceStats = new HashMap<>();
-        
-        for (Lead.LeadSource source : Lead.LeadSource.values()) {
-            Long count = leadRepository.countBySource(source);
-            sourceStats.put(source.name(), count);
-        }
+        LeadFigures leads = statsCache.get("dashboard:lead-sources",
+                Set.of(Lead.class), aggregationService::aggregateLeads);
+        Map<String, Long> sourceStats = leads.toSourceCounts();
         
-        return ResponseEntity.ok(sourceStats);
+        return ResponseEntity.ok()
+                .header("Server-Timing", leads.serverTiming())
+                .body(sourceStats);
     }
 
     @GetMapping("/opportunity-stages")
     public ResponseEntity<Map<String, Object>> getOpportunityStageStats() {
-        Map<String, Object> stageStats = new HashMap<>();
+        OpportunityFigures opportunities = statsCache.get("dashboard:opportunity-stages",
+                Set.of(Opportunity.class), aggregationService::aggregateOpportunities);
+        Map<String, Object> stageStats = opportunities.toStageBreakdown();
         
-        for (Opportunity.OpportunityStage stage : Opportunity.OpportunityStage.values()) {
-            Map<String, Object> stageData = new HashMap<>();
-            stageData.put("count", opportunityRepository.countByStage(stage));
-            BigDecimal amount = opportunityRepository.sumAmountByStage(stage);
-            stageData.put("amount", amount != null ? amount : BigDecimal.ZERO);
-            stageStats.put(stage.name(), stageData);
+        return ResponseEntity.ok()
+                .header("Server-Timing", opportunities.serverTiming())
+                .body(stageStats);
+    }
+
+    @GetMapping("/stats-cache")
+    public ResponseEntity<StatsCache.CacheStats> getStatsCacheMetrics() {
+        return ResponseEntity.ok(statsCache.getStats());
+    }
+
+    @GetMapping("/entity-cache")
+    public ResponseEntity<List<TinyLfuRegionFactory.RegionStats>> getEntityCacheMetrics() {
+        return ResponseEntity.ok(entityCache.getStats());
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamDashboard() {
+        SseEmitter emitter = streamService.subscribe();
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
-        
-        return ResponseEntity.ok(stageStats);
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    @GetMapping("/stream/metrics")
+    public ResponseEntity<Map<String, Object>> getStreamMetrics() {
+        return ResponseEntity.ok(streamService.getMetrics());
     }
 
     @GetMapping("/recent-activities")
-    public ResponseEntity<Object> getRecentActivities() {
-        // This would return recent activities - simplified for now
-        return ResponseEntity.ok("Recent activities endpoint - to be implemented");
+    public ResponseEntity<List<ActivitySummary>> getRecentActivities(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(recentActivityFeed.recent(limit));
     }
 }
@@ -0,0 +1,55 @@
+package com.crm.controller;
+
+import com.crm.imports.LeadImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/imports")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ImportController {
+
+    @Autowired
+    private LeadImportService leadImportService;
+
+    @PostMapping(value = "/leads", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<LeadImportService.ImportStatus> importLeads(@RequestParam("file") MultipartFile file)
+            throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try (InputStream content = file.getInputStream()) {
+            return started(leadImportService.startLeadImport(file.getOriginalFilename(), content));
+        }
+    }
+
+    @PostMapping(value = "/leads", consumes = "text/csv")
+    public ResponseEntity<LeadImportService.ImportStatus> importLeadsCsv(
+            @RequestParam(required = false) String fileName, HttpServletRequest request) throws IOException {
+        try (InputStream content = request.getInputStream()) {
+            return started(leadImportService.startLeadImport(fileName, content));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<LeadImportService.ImportStatus> getImport(@PathVariable long id) {
+        LeadImportService.ImportStatus status = leadImportService.getStatus(id);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    private static ResponseEntity<LeadImportService.ImportStatus> started(LeadImportService.ImportStatus status) {
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        return ResponseEntity.accepted().location(URI.create("/api/imports/" + status.getId())).body(status);
+    }
+}
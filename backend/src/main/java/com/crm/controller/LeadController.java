@@ -0,0 +1,370 @@
+package com.crm.controller;
+
+import com.crm.export.ExportColumns;
+import com.crm.export.ExportService;
+import com.crm.model.Lead;
+import com.crm.paging.KeysetPage;
+import com.crm.paging.KeysetPager;
+import com.crm.paging.SlicePage;
+import com.crm.paging.TableStatistics;
+import com.crm.repository.LeadRepository;
+import com.crm.search.FullTextSearchService;
+import com.crm.search.SearchIndexService;
+import com.crm.service.BulkInsertService;
+import com.crm.service.BulkUpdateService;
+import com.crm.service.CrmCounterStore;
+import com.crm.service.LeadFigures;
+import com.crm.service.MergePatchService;
+import com.crm.service.MultiGetService;
+import com.crm.service.StatsCache;
+import com.crm.web.EntityTags;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/leads")
+@CrossOrigin(origins = "http://localhost:3000")
+public class LeadController {
+
+    // The fields PUT replaces; PATCH accepts the same ones
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "firstName", "lastName", "company", "jobTitle", "email", "phone", "status",
+            "source", "score", "estimatedValue", "notes");
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private SearchIndexService searchIndex;
+
+    @Autowired
+    private FullTextSearchService fullTextSearch;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private TableStatistics tableStatistics;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BulkInsertService bulkInsertService;
+
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private MultiGetService multiGetService;
+
+    @Autowired
+    private BulkUpdateService bulkUpdateService;
+
+    @Autowired
+    private CrmCounterStore counterStore;
+
+    @Autowired
+    private StatsCache statsCache;
+
+    @Autowired
+    private EntityTags entityTags;
+
+    @GetMapping
+    public ResponseEntity<Page<Lead>> getAllLeads(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Lead.class)) {
+            return null;
+        }
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        // sortBy=relevance leaves the page unsorted, which full-text search orders by relevance
+        Pageable pageable = "relevance".equals(sortBy) ? PageRequest.of(page, size) : PageRequest.of(page, size, sort);
+        
+        Page<Lead> leads;
+        if (search != null && !search.trim().isEmpty() && fuzzy) {
+            leads = searchIndex.fuzzySearch(Lead.class, search.trim(), pageable,
+                    leadRepository::findBySearchTerm, leadRepository::findBySearchTermAndIdIn,
+                    leadRepository::findByIdIn);
+        } else if (search != null && !search.trim().isEmpty()) {
+            leads = fullTextSearch.search(search.trim(), pageable,
+                    leadRepository::findByFullText, leadRepository::findByFullTextOrderByRelevance);
+            if (leads == null) {
+                leads = searchIndex.search(Lead.class, search.trim(), pageable,
+                        leadRepository::findBySearchTerm, leadRepository::findBySearchTermAndIdIn);
+            }
+        } else {
+            leads = leadRepository.findAll(pageable);
+        }
+        
+        return ResponseEntity.ok(leads);
+    }
+
+    @GetMapping(params = {"withTotal=false", "!after"})
+    public ResponseEntity<SlicePage<Lead>> getLeadsSlice(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Lead.class)) {
+            return null;
+        }
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        Pageable pageable = "relevance".equals(sortBy) ? PageRequest.of(page, size) : PageRequest.of(page, size, sort);
+        
+        if (search != null && !search.trim().isEmpty() && fuzzy) {
+            // Fuzzy matches are loaded by primary key, so their exact count is cheap
+            Page<Lead> matches = searchIndex.fuzzySearch(Lead.class, search.trim(), pageable,
+                    leadRepository::findBySearchTerm, leadRepository::findBySearchTermAndIdIn,
+                    leadRepository::findByIdIn);
+            return ResponseEntity.ok(new SlicePage<>(matches, matches.getTotalElements()));
+        }
+        
+        SlicePage<Lead> leads;
+        if (search != null && !search.trim().isEmpty()) {
+            String term = search.trim();
+            Slice<Lead> matches = fullTextSearch.search(term, pageable,
+                    leadRepository::findSliceByFullText, leadRepository::findSliceByFullTextOrderByRelevance);
+            if (matches != null) {
+                // Full-text matches come without an estimate; the index candidates are no bound on them
+                leads = new SlicePage<>(matches, null);
+            } else {
+                leads = searchIndex.searchSlice(Lead.class, term, pageable,
+                        leadRepository::findSliceBySearchTerm,
+                        (ids, p) -> leadRepository.findSliceBySearchTermAndIdIn(term, ids, p));
+            }
+        } else {
+            leads = new SlicePage<>(leadRepository.findAllAsSlice(pageable), tableStatistics.estimatedRows("leads"));
+        }
+        
+        return ResponseEntity.ok(leads);
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<KeysetPage<Lead>> getLeadsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Lead.class)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(keysetPager.page(Lead.class,
+                    searchIndex.searchCondition(Lead.class, search, LeadRepository::searchTerm),
+                    sortBy, sortDir.equalsIgnoreCase("desc"), after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetService.MultiGetResult<Lead>> getLeadsByIds(@RequestParam List<Long> ids) {
+        return multiGetService.findAll(ids, leadRepository::findAllById);
+    }
+
+    // For id lists too long for a query string
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetService.MultiGetResult<Lead>> postLeadsByIds(@RequestBody List<Long> ids) {
+        return multiGetService.findAll(ids, leadRepository::findAllById);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportLeads(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search) {
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        String term = search != null ? search.trim() : "";
+        
+        return exportService.export("leads", format, ExportColumns.LEADS, () -> term.isEmpty()
+                ? leadRepository.streamAll(sort)
+                : searchIndex.searchStream(Lead.class, term, t -> leadRepository.streamBySearchTerm(t, sort),
+                        ids -> leadRepository.streamBySearchTermAndIdIn(term, ids, sort)));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Lead> getLeadById(@PathVariable Long id) {
+        Optional<Lead> lead = leadRepository.findById(id);
+        return lead.map(EntityTags::ok)
+                  .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public ResponseEntity<Lead> createLead(@Valid @RequestBody Lead lead) {
+        try {
+            Lead savedLead = leadRepository.save(lead);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedLead);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkInsertService.BulkInsertResult> createLeads(@RequestBody List<Lead> leads) {
+        return bulkInsertService.insertAll(leads);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Lead> updateLead(@PathVariable Long id, 
+                                         @Valid @RequestBody Lead leadDetails) {
+        Optional<Lead> optionalLead = leadRepository.findById(id);
+        
+        if (optionalLead.isPresent()) {
+            Lead lead = optionalLead.get();
+            lead.setFirstName(leadDetails.getFirstName());
+            lead.setLastName(leadDetails.getLastName());
+            lead.setCompany(leadDetails.getCompany());
+            lead.setJobTitle(leadDetails.getJobTitle());
+            lead.setEmail(leadDetails.getEmail());
+            lead.setPhone(leadDetails.getPhone());
+            lead.setStatus(leadDetails.getStatus());
+            lead.setSource(leadDetails.getSource());
+            lead.setScore(leadDetails.getScore());
+            lead.setEstimatedValue(leadDetails.getEstimatedValue());
+            lead.setNotes(leadDetails.getNotes());
+            
+            // Set conversion timestamp if status changed to CONVERTED
+            if (leadDetails.getStatus() == Lead.LeadStatus.CONVERTED && 
+                lead.getConvertedAt() == null) {
+                lead.setConvertedAt(LocalDateTime.now());
+            }
+            
+            Lead updatedLead = leadRepository.save(lead);
+            return ResponseEntity.ok(updatedLead);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Lead> patchLead(@PathVariable Long id, @RequestBody JsonNode patch) {
+        return mergePatchService.patch(Lead.class, id, patch, PATCHABLE_FIELDS);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteLead(@PathVariable Long id) {
+        if (leadRepository.existsById(id)) {
+            leadRepository.deleteById(id);
+            return ResponseEntity.noContent().build();
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/by-status/{status}")
+    public ResponseEntity<List<Lead>> getLeadsByStatus(@PathVariable Lead.LeadStatus status) {
+        List<Lead> leads = leadRepository.findByStatusOrderByScoreDesc(status);
+        return ResponseEntity.ok(leads);
+    }
+
+    @GetMapping("/by-source/{source}")
+    public ResponseEntity<List<Lead>> getLeadsBySource(@PathVariable Lead.LeadSource source) {
+        List<Lead> leads = leadRepository.findBySource(source);
+        return ResponseEntity.ok(leads);
+    }
+
+    @GetMapping("/high-score")
+    public ResponseEntity<List<Lead>> getHighScoreLeads(@RequestParam(defaultValue = "70") Integer minScore) {
+        List<Lead> leads = leadRepository.findByScoreGreaterThanEqualOrderByScoreDesc(minScore);
+        return ResponseEntity.ok(leads);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<LeadStats> getLeadStats() {
+        LeadFigures figures = statsCache.get("leads:stats", Set.of(Lead.class), counterStore::leads);
+        LeadStats stats = new LeadStats();
+        stats.setTotalLeads(figures.getTotal());
+        stats.setNewLeads(figures.countByStatus(Lead.LeadStatus.NEW));
+        stats.setContactedLeads(figures.countByStatus(Lead.LeadStatus.CONTACTED));
+        stats.setQualifiedLeads(figures.countByStatus(Lead.LeadStatus.QUALIFIED));
+        stats.setConvertedLeads(figures.countByStatus(Lead.LeadStatus.CONVERTED));
+        stats.setLostLeads(figures.countByStatus(Lead.LeadStatus.LOST));
+        stats.setAverageScore(figures.averageScoreByStatus(Lead.LeadStatus.QUALIFIED));
+        return ResponseEntity.ok()
+                .header("Server-Timing", figures.serverTiming())
+                .body(stats);
+    }
+
+    @PutMapping("/{id}/convert")
+    public ResponseEntity<Lead> convertLead(@PathVariable Long id) {
+        Optional<Lead> optionalLead = leadRepository.findById(id);
+        
+        if (optionalLead.isPresent()) {
+            Lead lead = optionalLead.get();
+            lead.setStatus(Lead.LeadStatus.CONVERTED);
+            lead.setConvertedAt(LocalDateTime.now());
+            
+            Lead updatedLead = leadRepository.save(lead);
+            return ResponseEntity.ok(updatedLead);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/bulk/convert")
+    public ResponseEntity<BulkUpdateService.BulkUpdateResult> convertLeads(
+            @RequestBody BulkUpdateService.LeadSelection selection) {
+        return bulkUpdateService.convertLeads(selection);
+    }
+
+    public static class LeadStats {
+        private Long totalLeads;
+        private Long newLeads;
+        private Long contactedLeads;
+        private Long qualifiedLeads;
+        private Long convertedLeads;
+        private Long lostLeads;
+        private Double averageScore;
+
+        // Getters and setters
+        public Long getTotalLeads() { return totalLeads; }
+        public void setTotalLeads(Long totalLeads) { this.totalLeads = totalLeads; }
+        public Long getNewLeads() { return newLeads; }
+        public void setNewLeads(Long newLeads) { this.newLeads = newLeads; }
+        public Long getContactedLeads() { return contactedLeads; }
+        public void setContactedLeads(Long contactedLeads) { this.contactedLeads = contactedLeads; }
+        public Long getQualifiedLeads() { return qualifiedLeads; }
+        public void setQualifiedLeads(Long qualifiedLeads) { this.qualifiedLeads = qualifiedLeads; }
+        public Long getConvertedLeads() { return convertedLeads; }
+        public void setConvertedLeads(Long convertedLeads) { this.convertedLeads = convertedLeads; }
+        public Long getLostLeads() { return lostLeads; }
+        public void setLostLeads(Long lostLeads) { this.lostLeads = lostLeads; }
+        public Double getAverageScore() { return averageScore; }
+        public void setAverageScore(Double averageScore) { this.averageScore = averageScore; }
+    }
+}
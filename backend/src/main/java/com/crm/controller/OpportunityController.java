@@ -0,0 +1,341 @@
+package com.crm.controller;
+
+import com.crm.export.ExportColumns;
+import com.crm.export.ExportService;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Opportunity;
+import com.crm.paging.KeysetPage;
+import com.crm.paging.KeysetPager;
+import com.crm.paging.SlicePage;
+import com.crm.paging.TableStatistics;
+import com.crm.repository.OpportunityRepository;
+import com.crm.search.FullTextSearchService;
+import com.crm.search.SearchIndexService;
+import com.crm.service.BulkInsertService;
+import com.crm.service.BulkUpdateService;
+import com.crm.service.CrmCounterStore;
+import com.crm.service.MergePatchService;
+import com.crm.service.MultiGetService;
+import com.crm.service.OpportunityFigures;
+import com.crm.service.OpportunityListItem;
+import com.crm.service.StatsCache;
+import com.crm.web.EntityTags;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.Valid;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/opportunities")
+@CrossOrigin(origins = "http://localhost:3000")
+public class OpportunityController {
+
+    // The fields PUT replaces; PATCH accepts the same ones
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "name", "description", "amount", "stage", "probability", "expectedCloseDate",
+            "source", "notes", "primaryContact");
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private SearchIndexService searchIndex;
+
+    @Autowired
+    private FullTextSearchService fullTextSearch;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private TableStatistics tableStatistics;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BulkInsertService bulkInsertService;
+
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private MultiGetService multiGetService;
+
+    @Autowired
+    private BulkUpdateService bulkUpdateService;
+
+    @Autowired
+    private CrmCounterStore counterStore;
+
+    @Autowired
+    private StatsCache statsCache;
+
+    @Autowired
+    private EntityTags entityTags;
+
+    @GetMapping
+    public ResponseEntity<Page<OpportunityListItem>> getAllOpportunities(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Opportunity.class, Customer.class, Contact.class)) {
+            return null;
+        }
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        // sortBy=relevance leaves the page unsorted, which full-text search orders by relevance
+        Pageable pageable = "relevance".equals(sortBy) ? PageRequest.of(page, size) : PageRequest.of(page, size, sort);
+        
+        if (search == null || search.trim().isEmpty()) {
+            return ResponseEntity.ok(opportunityRepository.findListItems(pageable));
+        }
+        
+        Page<OpportunityListItem> opportunities = fullTextSearch.search(search.trim(), pageable,
+                opportunityRepository::findListItemsByFullText, opportunityRepository::findListItemsByFullTextOrderByRelevance);
+        if (opportunities == null) {
+            opportunities = searchIndex.search(Opportunity.class, search.trim(), pageable,
+                    opportunityRepository::findListItemsBySearchTerm, opportunityRepository::findListItemsBySearchTermAndIdIn);
+        }
+        
+        return ResponseEntity.ok(opportunities);
+    }
+
+    @GetMapping(params = {"withTotal=false", "!after"})
+    public ResponseEntity<SlicePage<OpportunityListItem>> getOpportunitiesSlice(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Opportunity.class, Customer.class, Contact.class)) {
+            return null;
+        }
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        Pageable pageable = "relevance".equals(sortBy) ? PageRequest.of(page, size) : PageRequest.of(page, size, sort);
+        
+        if (search == null || search.trim().isEmpty()) {
+            return ResponseEntity.ok(new SlicePage<>(opportunityRepository.findListItemsAsSlice(pageable),
+                    tableStatistics.estimatedRows("opportunities")));
+        }
+        
+        String term = search.trim();
+        Slice<OpportunityListItem> matches = fullTextSearch.search(term, pageable,
+                opportunityRepository::findListItemSliceByFullText, opportunityRepository::findListItemSliceByFullTextOrderByRelevance);
+        if (matches != null) {
+            // Full-text matches come without an estimate; the index candidates are no bound on them
+            return ResponseEntity.ok(new SlicePage<>(matches, null));
+        }
+        return ResponseEntity.ok(searchIndex.searchSlice(Opportunity.class, term, pageable,
+                opportunityRepository::findListItemSliceBySearchTerm,
+                (ids, p) -> opportunityRepository.findListItemSliceBySearchTermAndIdIn(term, ids, p)));
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<KeysetPage<OpportunityListItem>> getOpportunitiesAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search,
+            ServletWebRequest request) {
+        if (entityTags.listNotModified(request, Opportunity.class, Customer.class, Contact.class)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(keysetPager.page(Opportunity.class, OpportunityListItem.class, OpportunityListItem::selection,
+                    searchIndex.searchCondition(Opportunity.class, search, OpportunityRepository::searchTerm),
+                    sortBy, sortDir.equalsIgnoreCase("desc"), after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetService.MultiGetResult<Opportunity>> getOpportunitiesByIds(@RequestParam List<Long> ids) {
+        return multiGetService.findAll(ids, opportunityRepository::findWithParentsByIdIn);
+    }
+
+    // For id lists too long for a query string
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetService.MultiGetResult<Opportunity>> postOpportunitiesByIds(@RequestBody List<Long> ids) {
+        return multiGetService.findAll(ids, opportunityRepository::findWithParentsByIdIn);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOpportunities(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String search) {
+        
+        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        String term = search != null ? search.trim() : "";
+        
+        return exportService.export("opportunities", format, ExportColumns.OPPORTUNITIES, () -> term.isEmpty()
+                ? opportunityRepository.streamAll(sort)
+                : searchIndex.searchStream(Opportunity.class, term, t -> opportunityRepository.streamBySearchTerm(t, sort),
+                        ids -> opportunityRepository.streamBySearchTermAndIdIn(term, ids, sort)));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Opportunity> getOpportunityById(@PathVariable Long id) {
+        Optional<Opportunity> opportunity = opportunityRepository.findWithParentsById(id);
+        return opportunity.map(o -> EntityTags.ok(o, o.getCustomer(), o.getPrimaryContact()))
+                         .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/customer/{customerId}")
+    public ResponseEntity<List<Opportunity>> getOpportunitiesByCustomer(@PathVariable Long customerId) {
+        List<Opportunity> opportunities = opportunityRepository.findByCustomerIdOrderByCreatedAtDesc(customerId);
+        return ResponseEntity.ok(opportunities);
+    }
+
+    @PostMapping
+    public ResponseEntity<Opportunity> createOpportunity(@Valid @RequestBody Opportunity opportunity) {
+        try {
+            Opportunity savedOpportunity = opportunityRepository.save(opportunity);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedOpportunity);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkInsertService.BulkInsertResult> createOpportunities(@RequestBody List<Opportunity> opportunities) {
+        return bulkInsertService.insertAll(opportunities);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Opportunity> updateOpportunity(@PathVariable Long id, 
+                                                       @Valid @RequestBody Opportunity opportunityDetails) {
+        Optional<Opportunity> optionalOpportunity = opportunityRepository.findById(id);
+        
+        if (optionalOpportunity.isPresent()) {
+            Opportunity opportunity = optionalOpportunity.get();
+            opportunity.setName(opportunityDetails.getName());
+            opportunity.setDescription(opportunityDetails.getDescription());
+            opportunity.setAmount(opportunityDetails.getAmount());
+            opportunity.setStage(opportunityDetails.getStage());
+            opportunity.setProbability(opportunityDetails.getProbability());
+            opportunity.setExpectedCloseDate(opportunityDetails.getExpectedCloseDate());
+            opportunity.setSource(opportunityDetails.getSource());
+            opportunity.setNotes(opportunityDetails.getNotes());
+            opportunity.setPrimaryContact(opportunityDetails.getPrimaryContact());
+            
+            Opportunity updatedOpportunity = opportunityRepository.save(opportunity);
+            return ResponseEntity.ok(updatedOpportunity);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Opportunity> patchOpportunity(@PathVariable Long id, @RequestBody JsonNode patch) {
+        return mergePatchService.patch(Opportunity.class, id, patch, PATCHABLE_FIELDS);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteOpportunity(@PathVariable Long id) {
+        if (opportunityRepository.existsById(id)) {
+            opportunityRepository.deleteById(id);
+            return ResponseEntity.noContent().build();
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/bulk/stage")
+    public ResponseEntity<BulkUpdateService.BulkUpdateResult> moveOpportunities(
+            @RequestBody BulkUpdateService.OpportunitySelection selection,
+            @RequestParam Opportunity.OpportunityStage to) {
+        return bulkUpdateService.moveOpportunities(selection, to);
+    }
+
+    @GetMapping("/by-stage/{stage}")
+    public ResponseEntity<List<OpportunityListItem>> getOpportunitiesByStage(@PathVariable Opportunity.OpportunityStage stage) {
+        List<OpportunityListItem> opportunities = opportunityRepository.findListItemsByStage(stage);
+        return ResponseEntity.ok(opportunities);
+    }
+
+    @GetMapping("/pipeline-value")
+    public ResponseEntity<BigDecimal> getPipelineValue() {
+        BigDecimal pipelineValue = opportunityRepository.calculateWeightedPipeline();
+        return ResponseEntity.ok(pipelineValue != null ? pipelineValue : BigDecimal.ZERO);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<OpportunityStats> getOpportunityStats() {
+        OpportunityFigures figures = statsCache.get("opportunities:stats", Set.of(Opportunity.class), counterStore::opportunities);
+        OpportunityStats stats = new OpportunityStats();
+        stats.setTotalOpportunities(figures.getTotal());
+        stats.setTotalValue(figures.amountByStage(Opportunity.OpportunityStage.CLOSED_WON));
+        stats.setPipelineValue(figures.getWeightedPipeline());
+        stats.setAverageDealSize(figures.getAverageWonDealSize());
+        
+        List<Object[]> stageStats = new ArrayList<>();
+        for (Opportunity.OpportunityStage stage : Opportunity.OpportunityStage.values()) {
+            if (figures.countByStage(stage) > 0) {
+                stageStats.add(new Object[] { stage, figures.countByStage(stage), figures.amountByStage(stage) });
+            }
+        }
+        stats.setStageBreakdown(stageStats);
+        
+        return ResponseEntity.ok()
+                .header("Server-Timing", figures.serverTiming())
+                .body(stats);
+    }
+
+    @GetMapping("/overdue")
+    public ResponseEntity<List<Opportunity>> getOverdueOpportunities() {
+        List<Opportunity> overdueOpportunities = opportunityRepository.findOverdueOpportunities(LocalDate.now());
+        return ResponseEntity.ok(overdueOpportunities);
+    }
+
+
+    public static class OpportunityStats {
+        private Long totalOpportunities;
+        private BigDecimal totalValue;
+        private BigDecimal pipelineValue;
+        private BigDecimal averageDealSize;
+        private List<Object[]> stageBreakdown;
+
+        // Getters and setters
+        public Long getTotalOpportunities() { return totalOpportunities; }
+        public void setTotalOpportunities(Long totalOpportunities) { this.totalOpportunities = totalOpportunities; }
+        public BigDecimal getTotalValue() { return totalValue; }
+        public void setTotalValue(BigDecimal totalValue) { this.totalValue = totalValue; }
+        public BigDecimal getPipelineValue() { return pipelineValue; }
+        public void setPipelineValue(BigDecimal pipelineValue) { this.pipelineValue = pipelineValue; }
+        public BigDecimal getAverageDealSize() { return averageDealSize; }
+        public void setAverageDealSize(BigDecimal averageDealSize) { this.averageDealSize = averageDealSize; }
+        public List<Object[]> getStageBreakdown() { return stageBreakdown; }
+        public void setStageBreakdown(List<Object[]> stageBreakdown) { this.stageBreakdown = stageBreakdown; }
+    }
+}
@@ -0,0 +1,76 @@
+package com.crm.controller;
+
+import com.crm.service.DailyRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ReportController {
+
+    @Autowired
+    private DailyRollupService rollupService;
+
+    @GetMapping("/leads/daily")
+    public ResponseEntity<Map<String, Object>> getDailyLeads(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : defaultStart(end);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(rollupService.leadReport(start, end));
+    }
+
+    @GetMapping("/opportunities/daily")
+    public ResponseEntity<Map<String, Object>> getDailyOpportunities(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : defaultStart(end);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(rollupService.opportunityReport(start, end));
+    }
+
+    @GetMapping("/activities/daily")
+    public ResponseEntity<Map<String, Object>> getDailyActivities(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : defaultStart(end);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(rollupService.activityReport(start, end));
+    }
+
+    @PostMapping("/rollups/backfill")
+    public ResponseEntity<DailyRollupService.BackfillStatus> startBackfill(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(rollupService.startBackfill(from, to));
+    }
+
+    @GetMapping("/rollups/backfill")
+    public ResponseEntity<DailyRollupService.BackfillStatus> getBackfillStatus() {
+        DailyRollupService.BackfillStatus status = rollupService.getBackfillStatus();
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    private static LocalDate defaultStart(LocalDate end) {
+        return end.minusYears(1).plusDays(1);
+    }
+}
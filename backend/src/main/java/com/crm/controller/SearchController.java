@@ -0,0 +1,25 @@
+package com.crm.controller;
+
+import com.crm.search.GlobalSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "http://localhost:3000")
+public class SearchController {
+
+    @Autowired
+    private GlobalSearchService globalSearchService;
+
+    @GetMapping
+    public ResponseEntity<GlobalSearchService.Result> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (q.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(globalSearchService.search(q.trim(), limit));
+    }
+}
@@ -0,0 +1,89 @@
+package com.crm.diagnostics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements each HTTP request runs on its own thread and reports requests
+ * that run more than {@code crm.statement-guard.max-per-request}, which is how an N+1
+ * fetch shows up. With {@code crm.statement-guard.fail=true} (the test setting) the
+ * statement over the limit throws instead, so the request fails with 500.
+ *
+ * <p>Statements of streaming responses and background jobs run on other threads and are
+ * not counted. A limit of 0 turns the guard off.
+ */
+@Component
+public class StatementGuard extends OncePerRequestFilter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementGuard.class);
+
+    private final ThreadLocal<int[]> statements = new ThreadLocal<>();
+
+    @Value("${crm.statement-guard.max-per-request:0}")
+    private int maxPerRequest;
+
+    @Value("${crm.statement-guard.fail:false}")
+    private boolean fail;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        if (maxPerRequest <= 0) {
+            return;
+        }
+        if (hibernateProperties.containsKey(AvailableSettings.STATEMENT_INSPECTOR)) {
+            log.info("A statement inspector is already configured; statements are not counted per request");
+            return;
+        }
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (maxPerRequest <= 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        int[] count = {0};
+        statements.set(count);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            statements.remove();
+        }
+        if (count[0] > maxPerRequest) {
+            log.warn("{} {} ran {} SQL statements (limit {})", request.getMethod(), request.getRequestURI(),
+                    count[0], maxPerRequest);
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = statements.get();
+        if (count != null && ++count[0] > maxPerRequest && fail) {
+            throw new IllegalStateException("Request ran more than " + maxPerRequest + " SQL statements: " + sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Statements run so far by the current request, or -1 outside a counted request.
+     */
+    public int currentCount() {
+        int[] count = statements.get();
+        return count != null ? count[0] : -1;
+    }
+}
@@ -0,0 +1,45 @@
+package com.crm.event;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Published whenever a tracked entity is created, updated or deleted. The previous and
+ * current state hold only the fields listed by {@link com.crm.model.TrackedEntity#trackedState()}.
+ * {@code entity} is the managed instance for changes made through the persistence context
+ * and {@code null} for set-based changes that never load the rows.
+ */
+public class EntityChangeEvent {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final ChangeType changeType;
+    private final Class<?> entityType;
+    private final Long entityId;
+    private final Object entity;
+    private final Map<String, Object> previousState;
+    private final Map<String, Object> currentState;
+
+    public EntityChangeEvent(ChangeType changeType, Class<?> entityType, Long entityId, Object entity,
+                             Map<String, Object> previousState, Map<String, Object> currentState) {
+        this.changeType = changeType;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.entity = entity;
+        this.previousState = previousState != null ? previousState : Collections.emptyMap();
+        this.currentState = currentState != null ? currentState : Collections.emptyMap();
+    }
+
+    public ChangeType getChangeType() { return changeType; }
+    public Class<?> getEntityType() { return entityType; }
+    public Long getEntityId() { return entityId; }
+    public Object getEntity() { return entity; }
+    public Map<String, Object> getPreviousState() { return previousState; }
+    public Map<String, Object> getCurrentState() { return currentState; }
+
+    public boolean isAbout(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+}
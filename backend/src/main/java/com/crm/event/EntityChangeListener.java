@@ -0,0 +1,43 @@
+package com.crm.event;
+
+import com.crm.model.TrackedEntity;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that turns lifecycle callbacks into {@link EntityChangeEvent}s.
+ * Hibernate creates it through Spring, so the publisher is injected.
+ */
+public class EntityChangeListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        publish(EntityChangeEvent.ChangeType.CREATED, (TrackedEntity) entity);
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        publish(EntityChangeEvent.ChangeType.UPDATED, (TrackedEntity) entity);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(EntityChangeEvent.ChangeType.DELETED, (TrackedEntity) entity);
+    }
+
+    private void publish(EntityChangeEvent.ChangeType changeType, TrackedEntity entity) {
+        EntityChangeEvent event = new EntityChangeEvent(changeType, Hibernate.getClass(entity), entity.getId(), entity,
+                changeType == EntityChangeEvent.ChangeType.CREATED ? null : entity.loadedState(),
+                changeType == EntityChangeEvent.ChangeType.DELETED ? null : entity.trackedState());
+        entity.markLoaded();
+        eventPublisher.publishEvent(event);
+    }
+}
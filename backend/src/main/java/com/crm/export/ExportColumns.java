@@ -0,0 +1,125 @@
+package com.crm.export;
+
+import com.crm.model.Activity;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The columns of each export, in output order. Rows are flat: associations are exported
+ * as the id of the associated row, which Hibernate reads from the foreign key without
+ * loading the association.
+ */
+public final class ExportColumns {
+
+    public static final Map<String, Function<Customer, Object>> CUSTOMERS = new Builder<Customer>()
+            .add("id", Customer::getId)
+            .add("companyName", Customer::getCompanyName)
+            .add("industry", Customer::getIndustry)
+            .add("companySize", Customer::getCompanySize)
+            .add("website", Customer::getWebsite)
+            .add("phone", Customer::getPhone)
+            .add("email", Customer::getEmail)
+            .add("address", Customer::getAddress)
+            .add("city", Customer::getCity)
+            .add("state", Customer::getState)
+            .add("postalCode", Customer::getPostalCode)
+            .add("country", Customer::getCountry)
+            .add("status", Customer::getStatus)
+            .add("createdAt", Customer::getCreatedAt)
+            .add("updatedAt", Customer::getUpdatedAt)
+            .build();
+
+    public static final Map<String, Function<Contact, Object>> CONTACTS = new Builder<Contact>()
+            .add("id", Contact::getId)
+            .add("firstName", Contact::getFirstName)
+            .add("lastName", Contact::getLastName)
+            .add("jobTitle", Contact::getJobTitle)
+            .add("email", Contact::getEmail)
+            .add("phone", Contact::getPhone)
+            .add("mobile", Contact::getMobile)
+            .add("linkedinUrl", Contact::getLinkedinUrl)
+            .add("status", Contact::getStatus)
+            .add("isPrimary", Contact::getIsPrimary)
+            .add("customerId", c -> c.getCustomer() != null ? c.getCustomer().getId() : null)
+            .add("createdAt", Contact::getCreatedAt)
+            .add("updatedAt", Contact::getUpdatedAt)
+            .build();
+
+    public static final Map<String, Function<Lead, Object>> LEADS = new Builder<Lead>()
+            .add("id", Lead::getId)
+            .add("firstName", Lead::getFirstName)
+            .add("lastName", Lead::getLastName)
+            .add("company", Lead::getCompany)
+            .add("jobTitle", Lead::getJobTitle)
+            .add("email", Lead::getEmail)
+            .add("phone", Lead::getPhone)
+            .add("status", Lead::getStatus)
+            .add("source", Lead::getSource)
+            .add("score", Lead::getScore)
+            .add("estimatedValue", Lead::getEstimatedValue)
+            .add("notes", Lead::getNotes)
+            .add("convertedAt", Lead::getConvertedAt)
+            .add("convertedCustomerId", l -> l.getConvertedCustomer() != null ? l.getConvertedCustomer().getId() : null)
+            .add("createdAt", Lead::getCreatedAt)
+            .add("updatedAt", Lead::getUpdatedAt)
+            .build();
+
+    public static final Map<String, Function<Opportunity, Object>> OPPORTUNITIES = new Builder<Opportunity>()
+            .add("id", Opportunity::getId)
+            .add("name", Opportunity::getName)
+            .add("description", Opportunity::getDescription)
+            .add("amount", Opportunity::getAmount)
+            .add("stage", Opportunity::getStage)
+            .add("probability", Opportunity::getProbability)
+            .add("expectedCloseDate", Opportunity::getExpectedCloseDate)
+            .add("actualCloseDate", Opportunity::getActualCloseDate)
+            .add("source", Opportunity::getSource)
+            .add("notes", Opportunity::getNotes)
+            .add("customerId", o -> o.getCustomer() != null ? o.getCustomer().getId() : null)
+            .add("primaryContactId", o -> o.getPrimaryContact() != null ? o.getPrimaryContact().getId() : null)
+            .add("createdAt", Opportunity::getCreatedAt)
+            .add("updatedAt", Opportunity::getUpdatedAt)
+            .build();
+
+    public static final Map<String, Function<Activity, Object>> ACTIVITIES = new Builder<Activity>()
+            .add("id", Activity::getId)
+            .add("subject", Activity::getSubject)
+            .add("description", Activity::getDescription)
+            .add("type", Activity::getType)
+            .add("status", Activity::getStatus)
+            .add("priority", Activity::getPriority)
+            .add("startDate", Activity::getStartDate)
+            .add("endDate", Activity::getEndDate)
+            .add("completedAt", Activity::getCompletedAt)
+            .add("outcome", Activity::getOutcome)
+            .add("customerId", a -> a.getCustomer() != null ? a.getCustomer().getId() : null)
+            .add("contactId", a -> a.getContact() != null ? a.getContact().getId() : null)
+            .add("opportunityId", a -> a.getOpportunity() != null ? a.getOpportunity().getId() : null)
+            .add("leadId", a -> a.getLead() != null ? a.getLead().getId() : null)
+            .add("createdAt", Activity::getCreatedAt)
+            .add("updatedAt", Activity::getUpdatedAt)
+            .build();
+
+    private ExportColumns() {
+    }
+
+    private static class Builder<T> {
+        private final Map<String, Function<T, Object>> columns = new LinkedHashMap<>();
+
+        Builder<T> add(String name, Function<T, Object> value) {
+            columns.put(name, value);
+            return this;
+        }
+
+        Map<String, Function<T, Object>> build() {
+            return Collections.unmodifiableMap(columns);
+        }
+    }
+}
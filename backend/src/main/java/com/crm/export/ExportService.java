@@ -0,0 +1,188 @@
+package com.crm.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams whole tables (or search results) to the client as NDJSON or CSV.
+ *
+ * <p>Rows come from a repository {@link Stream}, which reads the JDBC result set with a
+ * fetch size instead of materializing it, inside one read-only transaction that lives as
+ * long as the response. Every {@code crm.export.clear-every} rows the output is flushed
+ * and the persistence context cleared, so the heap holds at most one batch of entities
+ * however many rows are exported.
+ */
+@Service
+public class ExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = MediaType.parseMediaType(mediaType + ";charset=UTF-8");
+            this.extension = extension;
+        }
+
+        /**
+         * Returns the format named {@code name} (case-insensitive), or {@code null}.
+         */
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${crm.export.clear-every:1000}")
+    private int clearEvery;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Returns a response that streams {@code rows} as {@code format} (400 for an unknown
+     * format). {@code rows} is only opened once the response body is written.
+     */
+    public <T> ResponseEntity<StreamingResponseBody> export(String name, String format,
+                                                            Map<String, Function<T, Object>> columns,
+                                                            Supplier<Stream<T>> rows) {
+        Format resolved = Format.of(format);
+        if (resolved == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<T> stream = rows.get()) {
+                    write(resolved, columns, stream.iterator(), writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(resolved.mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + name + "." + resolved.extension + "\"")
+                .body(body);
+    }
+
+    private <T> void write(Format format, Map<String, Function<T, Object>> columns, Iterator<T> rows,
+                           Writer writer) throws IOException {
+        JsonGenerator json = null;
+        if (format == Format.NDJSON) {
+            json = objectMapper.getFactory().createGenerator(writer);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Each row ends with its own newline
+            json.setRootValueSeparator(null);
+        } else {
+            writeCsvLine(columns.keySet(), writer);
+        }
+        int written = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            if (json != null) {
+                json.writeStartObject();
+                for (Map.Entry<String, Function<T, Object>> column : columns.entrySet()) {
+                    json.writeFieldName(column.getKey());
+                    json.writeObject(column.getValue().apply(row));
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+            } else {
+                writeCsvLine(columns.values().stream().map(column -> column.apply(row))::iterator, writer);
+            }
+            if (++written % clearEvery == 0) {
+                if (json != null) {
+                    json.flush();
+                }
+                writer.flush();
+                entityManager.clear();
+            }
+        }
+        if (json != null) {
+            json.flush();
+        }
+    }
+
+    private static void writeCsvLine(Iterable<?> values, Writer writer) throws IOException {
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write(csvField(value));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Formats one CSV field as RFC 4180 describes: quoted, with quotes doubled, when it
+     * contains a separator, quote or line break.
+     */
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text;
+        if (value instanceof Enum) {
+            text = ((Enum<?>) value).name();
+        } else if (value instanceof BigDecimal) {
+            text = ((BigDecimal) value).toPlainString();
+        } else {
+            text = value.toString();
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,110 @@
+package com.crm.imports;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 CSV one record at a time: fields may be quoted, quoted fields may
+ * contain commas, doubled quotes and line breaks, and records end with CRLF or LF. A
+ * leading byte order mark is skipped. The reader is not buffered; wrap the source in a
+ * {@link java.io.BufferedReader}.
+ */
+public class CsvReader {
+
+    private final Reader in;
+    private final StringBuilder field = new StringBuilder();
+    private long line = 1;
+    private long recordLine;
+    private int pushedBack = -2;
+    private boolean started;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the fields of the next record, or {@code null} at the end of the input.
+     * Blank lines are skipped.
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c < 0) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        field.setLength(0);
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pushedBack = following;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * The line on which the record last returned by {@link #next()} started.
+     */
+    public long getLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != -2) {
+            c = pushedBack;
+            pushedBack = -2;
+        } else {
+            c = in.read();
+            if (!started) {
+                started = true;
+                if (c == '\uFEFF') {
+                    c = in.read();
+                }
+            }
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+}
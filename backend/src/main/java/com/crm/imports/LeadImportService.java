@@ -0,0 +1,699 @@
+package com.crm.imports;
+
+import com.crm.model.Lead;
+import com.crm.repository.LeadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Imports leads from CSV files in the background.
+ *
+ * <p>The upload is spooled to a temporary file and read as a stream by one parser
+ * thread, which maps the header to lead properties and hands batches of
+ * {@code crm.imports.batch-size} rows to a bounded queue. {@code crm.imports.threads}
+ * workers take batches off the queue, convert and validate the rows against the
+ * {@link Lead} constraints, drop valid rows whose normalised email (trimmed, lower case)
+ * another valid row of the file already claimed, skip emails that already exist in the
+ * database (one query per batch) and insert the rest in one transaction per batch. An
+ * invalid row claims no email, so a valid row with the same email is still imported. A full
+ * queue blocks the parser, so memory stays bounded however large the file is.
+ *
+ * <p>{@code leads.email} has no unique constraint, so the existing-email check and the
+ * insert must not interleave with another import's. A batch therefore claims its emails
+ * in a set shared by all running imports before the check and releases them once its
+ * transaction has committed; a batch sharing an email with one in progress waits for it
+ * and then finds that email stored. Leads created through the API are not covered.
+ *
+ * <p>Progress and the first {@code crm.imports.max-errors} row errors are kept in memory
+ * for the last {@code crm.imports.retained-jobs} imports.
+ */
+@Service
+public class LeadImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadImportService.class);
+
+    private static final List<Row> END = Collections.emptyList();
+
+    /** Importable columns, keyed by the header name folded to lower-case letters and digits. */
+    private static final Map<String, Column> COLUMNS = new LinkedHashMap<>();
+
+    static {
+        column("firstName", Lead::setFirstName);
+        column("lastName", Lead::setLastName);
+        column("email", Lead::setEmail);
+        column("company", Lead::setCompany);
+        column("jobTitle", Lead::setJobTitle);
+        column("phone", Lead::setPhone);
+        column("status", (lead, value) -> lead.setStatus(enumValue(Lead.LeadStatus.class, value)));
+        column("source", (lead, value) -> lead.setSource(enumValue(Lead.LeadSource.class, value)));
+        column("score", (lead, value) -> lead.setScore(integerValue(value)));
+        column("estimatedValue", (lead, value) -> lead.setEstimatedValue(decimalValue(value)));
+        column("notes", Lead::setNotes);
+    }
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${crm.imports.batch-size:500}")
+    private int batchSize;
+
+    @Value("${crm.imports.threads:0}")
+    private int threads;
+
+    @Value("${crm.imports.queue-batches:8}")
+    private int queueBatches;
+
+    @Value("${crm.imports.max-running:2}")
+    private int maxRunning;
+
+    @Value("${crm.imports.max-errors:1000}")
+    private int maxErrors;
+
+    @Value("${crm.imports.retained-jobs:100}")
+    private int retainedJobs;
+
+    private final AtomicLong jobIds = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final Map<Long, ImportJob> jobs = new ConcurrentHashMap<>();
+    // Emails of the batches between their existing-email check and their commit, across imports
+    private final Set<String> claimedEmails = new HashSet<>();
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Copies {@code content} to a temporary file and starts importing it. Returns the
+     * status of the new import, or {@code null} if {@code crm.imports.max-running}
+     * imports are already running.
+     */
+    public ImportStatus startLeadImport(String fileName, InputStream content) throws IOException {
+        if (running.incrementAndGet() > maxRunning) {
+            running.decrementAndGet();
+            return null;
+        }
+        Path file;
+        try {
+            file = Files.createTempFile("lead-import-", ".csv");
+            try {
+                Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            running.decrementAndGet();
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(jobIds.incrementAndGet(), fileName, Files.size(file), maxErrors);
+        jobs.put(job.id, job);
+        evictFinishedJobs();
+
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(workers + 1, importThreads(job.id));
+        BlockingQueue<List<Row>> queue = new ArrayBlockingQueue<>(Math.max(1, queueBatches));
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[workers + 1];
+        SeenEmails seenEmails = new SeenEmails();
+        tasks[0] = CompletableFuture.runAsync(() -> parse(job, file, queue, workers), pool);
+        for (int i = 1; i <= workers; i++) {
+            tasks[i] = CompletableFuture.runAsync(() -> persistBatches(job, queue, seenEmails), pool);
+        }
+        CompletableFuture.allOf(tasks).whenComplete((ignored, error) -> {
+            if (error != null && job.failure == null) {
+                job.failure = "Import stopped unexpectedly";
+                log.error("Lead import {} stopped unexpectedly", job.id, error);
+            }
+            job.finishedAt = LocalDateTime.now();
+            pool.shutdown();
+            running.decrementAndGet();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete {}", file, e);
+            }
+            log.info("Lead import {} of {} finished: {} rows read, {} imported, {} duplicates, {} rejected",
+                    job.id, fileName, job.rowsRead.get(), job.imported.get(),
+                    job.duplicatesInFile.get() + job.duplicatesExisting.get(), job.rejected.get());
+        });
+        return job.toStatus();
+    }
+
+    public ImportStatus getStatus(long id) {
+        ImportJob job = jobs.get(id);
+        return job != null ? job.toStatus() : null;
+    }
+
+    private void parse(ImportJob job, Path file, BlockingQueue<List<Row>> queue, int workers) {
+        try (InputStream raw = new CountingInputStream(Files.newInputStream(file), job.bytesRead);
+             Reader reader = new BufferedReader(new InputStreamReader(raw, StandardCharsets.UTF_8), 1 << 16)) {
+            CsvReader csv = new CsvReader(reader);
+            List<String> header = csv.next();
+            if (header == null) {
+                job.failure = "The file is empty";
+                return;
+            }
+            Column[] columns = new Column[header.size()];
+            List<String> ignored = new ArrayList<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns[i] = COLUMNS.get(fold(header.get(i)));
+                if (columns[i] == null) {
+                    ignored.add(header.get(i));
+                }
+            }
+            job.ignoredColumns = ignored;
+            List<String> present = new ArrayList<>();
+            for (Column column : columns) {
+                if (column != null) {
+                    present.add(column.property);
+                }
+            }
+            if (!present.contains("firstName") || !present.contains("lastName")) {
+                job.failure = "The header must name the firstName and lastName columns";
+                return;
+            }
+            int emailIndex = indexOf(columns, "email");
+
+            List<Row> batch = new ArrayList<>(batchSize);
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                job.rowsRead.incrementAndGet();
+                String email = emailIndex >= 0 && emailIndex < fields.size() ? normaliseEmail(fields.get(emailIndex)) : null;
+                batch.add(new Row(csv.getLine(), fields, email, columns));
+                if (batch.size() == batchSize) {
+                    queue.put(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                queue.put(batch);
+            }
+        } catch (IOException e) {
+            job.failure = "The file could not be read: " + e.getMessage();
+        } catch (InterruptedException e) {
+            job.failure = "Import was interrupted";
+            Thread.currentThread().interrupt();
+        } finally {
+            // Batches already queued are still imported; each worker stops at its marker
+            endBatches(queue, workers);
+        }
+    }
+
+    private void persistBatches(ImportJob job, BlockingQueue<List<Row>> queue, SeenEmails seenEmails) {
+        try {
+            List<Row> batch;
+            while ((batch = queue.take()) != END) {
+                persistBatch(job, batch, seenEmails);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void persistBatch(ImportJob job, List<Row> batch, SeenEmails seenEmails) throws InterruptedException {
+        List<Lead> leads = new ArrayList<>(batch.size());
+        List<String> emails = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            Lead lead = toLead(job, row);
+            if (lead == null) {
+                job.rejected.incrementAndGet();
+                continue;
+            }
+            // Only a valid row claims its email
+            if (row.email != null && !seenEmails.add(row.email)) {
+                job.duplicatesInFile.incrementAndGet();
+                continue;
+            }
+            leads.add(lead);
+            emails.add(row.email);
+        }
+
+        if (leads.isEmpty()) {
+            return;
+        }
+        Set<String> claimed = claimEmails(emails);
+        try {
+            Set<String> existing = existingEmails(leads, emails);
+            List<Lead> fresh = new ArrayList<>(leads.size());
+            for (int i = 0; i < leads.size(); i++) {
+                if (emails.get(i) == null || !existing.contains(emails.get(i))) {
+                    fresh.add(leads.get(i));
+                }
+            }
+            if (!fresh.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> leadRepository.saveAll(fresh));
+            }
+            job.duplicatesExisting.addAndGet(leads.size() - fresh.size());
+            job.imported.addAndGet(fresh.size());
+        } catch (RuntimeException e) {
+            job.rejected.addAndGet(leads.size());
+            job.addError(batch.get(0).line, null, "The batch of " + leads.size() + " rows starting on this line " +
+                    "was rejected by the database");
+            log.warn("Lead import {} failed to insert a batch starting on line {}", job.id, batch.get(0).line, e);
+        } finally {
+            releaseEmails(claimed);
+        }
+    }
+
+    /**
+     * Claims the non-null {@code emails} for one batch, waiting while another batch holds
+     * any of them. All are claimed at once, so two batches can never wait on each other.
+     */
+    private Set<String> claimEmails(List<String> emails) throws InterruptedException {
+        Set<String> wanted = new HashSet<>(emails);
+        wanted.remove(null);
+        synchronized (claimedEmails) {
+            while (!Collections.disjoint(claimedEmails, wanted)) {
+                claimedEmails.wait();
+            }
+            claimedEmails.addAll(wanted);
+        }
+        return wanted;
+    }
+
+    private void releaseEmails(Set<String> claimed) {
+        synchronized (claimedEmails) {
+            claimedEmails.removeAll(claimed);
+            claimedEmails.notifyAll();
+        }
+    }
+
+    /**
+     * Converts and validates one row, recording its errors. Returns {@code null} if the
+     * row is invalid.
+     */
+    private Lead toLead(ImportJob job, Row row) {
+        Lead lead = new Lead();
+        boolean valid = true;
+        for (int i = 0; i < row.columns.length && i < row.fields.size(); i++) {
+            Column column = row.columns[i];
+            String value = row.fields.get(i).trim();
+            if (column == null || value.isEmpty()) {
+                continue;
+            }
+            try {
+                column.setter.accept(lead, value);
+            } catch (IllegalArgumentException e) {
+                job.addError(row.line, column.property, e.getMessage());
+                valid = false;
+            }
+        }
+        for (ConstraintViolation<Lead> violation : validator.validate(lead)) {
+            job.addError(row.line, violation.getPropertyPath().toString(), violation.getMessage());
+            valid = false;
+        }
+        return valid ? lead : null;
+    }
+
+    /**
+     * Returns the normalised emails among {@code emails} that are already stored. Emails
+     * are looked up as written and in lower case, which finds existing rows whatever their
+     * case on case-insensitive collations (the MySQL default) and lower-case ones elsewhere.
+     */
+    private Set<String> existingEmails(List<Lead> leads, List<String> emails) {
+        Set<String> candidates = new HashSet<>();
+        for (int i = 0; i < leads.size(); i++) {
+            if (emails.get(i) != null) {
+                candidates.add(emails.get(i));
+                candidates.add(leads.get(i).getEmail());
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return leadRepository.findEmailsIn(candidates).stream()
+                .map(LeadImportService::normaliseEmail)
+                .collect(Collectors.toSet());
+    }
+
+    private void evictFinishedJobs() {
+        int excess = jobs.size() - retainedJobs;
+        if (excess > 0) {
+            jobs.values().stream()
+                    .filter(job -> job.finishedAt != null)
+                    .map(job -> job.id)
+                    .sorted()
+                    .limit(excess)
+                    .forEach(jobs::remove);
+        }
+    }
+
+    static String normaliseEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        String trimmed = email.trim().toLowerCase(Locale.ROOT);
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String fold(String header) {
+        StringBuilder folded = new StringBuilder(header.length());
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                folded.append(Character.toLowerCase(c));
+            }
+        }
+        return folded.toString();
+    }
+
+    private static void endBatches(BlockingQueue<List<Row>> queue, int workers) {
+        boolean interrupted = false;
+        for (int i = 0; i < workers; ) {
+            try {
+                queue.put(END);
+                i++;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int indexOf(Column[] columns, String property) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null && columns[i].property.equals(property)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void column(String property, BiConsumer<Lead, String> setter) {
+        COLUMNS.put(fold(property), new Column(property, setter));
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        String name = value.trim().toUpperCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equals(name)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value '" + value + "'");
+    }
+
+    private static Integer integerValue(String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a whole number: '" + value + "'");
+        }
+    }
+
+    private static BigDecimal decimalValue(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: '" + value + "'");
+        }
+    }
+
+    private static ThreadFactory importThreads(long jobId) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "lead-import-" + jobId + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Column {
+        final String property;
+        final BiConsumer<Lead, String> setter;
+
+        Column(String property, BiConsumer<Lead, String> setter) {
+            this.property = property;
+            this.setter = setter;
+        }
+    }
+
+    private static final class Row {
+        final long line;
+        final List<String> fields;
+        final String email;
+        final Column[] columns;
+
+        Row(long line, List<String> fields, String email, Column[] columns) {
+            this.line = line;
+            this.fields = fields;
+            this.email = email;
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * The emails claimed by valid rows of the file, kept as 64-bit FNV-1a hashes in an
+     * open-addressing table: 16 bytes per email at most, against about 100 for a
+     * {@code HashSet<String>}. Two distinct emails share a hash with negligible odds
+     * (about 10^-8 for a million rows), which would drop the second as a duplicate.
+     * Shared by the workers of one import; a hash and a lookup are short next to the
+     * validation and insert around them, so one lock is enough.
+     */
+    private static final class SeenEmails {
+        private long[] slots = new long[1024];
+        private int size;
+
+        synchronized boolean add(String email) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < email.length(); i++) {
+                hash = (hash ^ email.charAt(i)) * 0x100000001b3L;
+            }
+            if (hash == 0) {
+                hash = 1; // 0 marks an empty slot
+            }
+            if (size * 2 >= slots.length) {
+                long[] old = slots;
+                slots = new long[old.length * 2];
+                for (long stored : old) {
+                    if (stored != 0) {
+                        insert(stored);
+                    }
+                }
+            }
+            if (!insert(hash)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        private boolean insert(long hash) {
+            int mask = slots.length - 1;
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (slots[slot] != 0) {
+                if (slots[slot] == hash) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = hash;
+            return true;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+    }
+
+    private static final class ImportJob {
+        final long id;
+        final String fileName;
+        final long bytesTotal;
+        final int maxErrors;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicLong bytesRead = new AtomicLong();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong duplicatesInFile = new AtomicLong();
+        final AtomicLong duplicatesExisting = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong errorCount = new AtomicLong();
+        final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile List<String> ignoredColumns = Collections.emptyList();
+        volatile String failure;
+        volatile LocalDateTime finishedAt;
+
+        ImportJob(long id, String fileName, long bytesTotal, int maxErrors) {
+            this.id = id;
+            this.fileName = fileName;
+            this.bytesTotal = bytesTotal;
+            this.maxErrors = maxErrors;
+        }
+
+        void addError(long line, String field, String message) {
+            if (errorCount.getAndIncrement() < maxErrors) {
+                errors.add(new RowError(line, field, message));
+            }
+        }
+
+        ImportStatus toStatus() {
+            ImportStatus status = new ImportStatus();
+            status.setId(id);
+            status.setState(finishedAt == null ? "RUNNING" : failure != null ? "FAILED" : "COMPLETED");
+            status.setFileName(fileName);
+            status.setMessage(failure);
+            status.setProgress(finishedAt != null || bytesTotal == 0 ? 100 : (int) (bytesRead.get() * 100 / bytesTotal));
+            status.setRowsRead(rowsRead.get());
+            status.setImported(imported.get());
+            status.setDuplicatesInFile(duplicatesInFile.get());
+            status.setDuplicatesExisting(duplicatesExisting.get());
+            status.setRejected(rejected.get());
+            status.setErrorCount(errorCount.get());
+            List<RowError> sorted;
+            synchronized (errors) {
+                sorted = new ArrayList<>(errors);
+            }
+            sorted.sort(Comparator.comparingLong(RowError::getLine));
+            status.setErrors(sorted);
+            status.setIgnoredColumns(ignoredColumns);
+            status.setStartedAt(startedAt);
+            status.setFinishedAt(finishedAt);
+            return status;
+        }
+    }
+
+    public static class RowError {
+        private long line;
+        private String field;
+        private String message;
+
+        public RowError(long line, String field, String message) {
+            this.line = line;
+            this.field = field;
+            this.message = message;
+        }
+
+        // Getters and setters
+        public long getLine() { return line; }
+        public void setLine(long line) { this.line = line; }
+        public String getField() { return field; }
+        public void setField(String field) { this.field = field; }
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    public static class ImportStatus {
+        private long id;
+        private String state;
+        private String fileName;
+        private String message;
+        private int progress;
+        private long rowsRead;
+        private long imported;
+        private long duplicatesInFile;
+        private long duplicatesExisting;
+        private long rejected;
+        private long errorCount;
+        private List<RowError> errors;
+        private List<String> ignoredColumns;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+
+        // Getters and setters
+        public long getId() { return id; }
+        public void setId(long id) { this.id = id; }
+        public String getState() { return state; }
+        public void setState(String state) { this.state = state; }
+        public String getFileName() { return fileName; }
+        public void setFileName(String fileName) { this.fileName = fileName; }
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+        public int getProgress() { return progress; }
+        public void setProgress(int progress) { this.progress = progress; }
+        public long getRowsRead() { return rowsRead; }
+        public void setRowsRead(long rowsRead) { this.rowsRead = rowsRead; }
+        public long getImported() { return imported; }
+        public void setImported(long imported) { this.imported = imported; }
+        public long getDuplicatesInFile() { return duplicatesInFile; }
+        public void setDuplicatesInFile(long duplicatesInFile) { this.duplicatesInFile = duplicatesInFile; }
+        public long getDuplicatesExisting() { return duplicatesExisting; }
+        public void setDuplicatesExisting(long duplicatesExisting) { this.duplicatesExisting = duplicatesExisting; }
+        public long getRejected() { return rejected; }
+        public void setRejected(long rejected) { this.rejected = rejected; }
+        public long getErrorCount() { return errorCount; }
+        public void setErrorCount(long errorCount) { this.errorCount = errorCount; }
+        public List<RowError> getErrors() { return errors; }
+        public void setErrors(List<RowError> errors) { this.errors = errors; }
+        public List<String> getIgnoredColumns() { return ignoredColumns; }
+        public void setIgnoredColumns(List<String> ignoredColumns) { this.ignoredColumns = ignoredColumns; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    }
+}
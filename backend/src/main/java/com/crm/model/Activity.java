@@ -1,16 +1,38 @@
 package com.crm.model;
 
+import com.crm.event.EntityChangeListener;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 @Entity
-@Table(name = "activities")
-public class Activity {
+@DynamicUpdate
+@NamedEntityGraph(name = "Activity.parents", attributeNodes = {
+        @NamedAttributeNode("customer"), @NamedAttributeNode("contact"),
+        @NamedAttributeNode("opportunity"), @NamedAttributeNode("lead")})
+@EntityListeners(EntityChangeListener.class)
+@Table(name = "activities", indexes = {
+        @Index(name = "idx_activities_completed_at", columnList = "completed_at"),
+        @Index(name = "idx_activities_start_date_id", columnList = "start_date, id")
+})
+public class Activity implements TrackedEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activities_seq")
+    @GenericGenerator(name = "activities_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "activities_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @NotBlank(message = "Subject is required")
@@ -56,10 +78,12 @@ public class Activity {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
+    @JsonIgnoreProperties({"contacts", "opportunities"})
     private Customer customer;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "contact_id")
+    @JsonIgnoreProperties("activities")
     private Contact contact;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -70,6 +94,9 @@ public class Activity {
     @JoinColumn(name = "lead_id")
     private Lead lead;
 
+    @Transient
+    private Map<String, Object> loadedState = Collections.emptyMap();
+
     public enum ActivityType {
         CALL, EMAIL, MEETING, TASK, NOTE, DEMO, PROPOSAL, FOLLOW_UP
     }
@@ -96,6 +123,11 @@ public class Activity {
         }
     }
 
+    @PostLoad
+    protected void onLoad() {
+        markLoaded();
+    }
+
     // Constructors
     public Activity() {}
 
@@ -160,4 +192,24 @@ public class Activity {
                startDate != null && 
                startDate.isBefore(LocalDateTime.now());
     }
+
+    @Override
+    public Map<String, Object> trackedState() {
+        Map<String, Object> state = new HashMap<>();
+        state.put("status", status);
+        state.put("type", type);
+        state.put("startDate", startDate);
+        state.put("completedAt", completedAt);
+        return state;
+    }
+
+    @Override
+    public Map<String, Object> loadedState() {
+        return loadedState;
+    }
+
+    @Override
+    public void markLoaded() {
+        loadedState = trackedState();
+    }
 }
@@ -0,0 +1,48 @@
+package com.crm.model;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Activities completed per day and type. Maintained by
+ * {@link com.crm.service.DailyRollupService}; never written directly.
+ */
+@Entity
+@Table(name = "activity_daily_rollups", indexes = @Index(name = "idx_activity_rollup_date", columnList = "rollup_date"))
+public class ActivityDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private Activity.ActivityType type;
+
+    @Column(name = "completed_count", nullable = false)
+    private long completed;
+
+    // Constructors
+    public ActivityDailyRollup() {}
+
+    public ActivityDailyRollup(LocalDate day, Activity.ActivityType type, long completed) {
+        this.day = day;
+        this.type = type;
+        this.completed = completed;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+
+    public Activity.ActivityType getType() { return type; }
+    public void setType(Activity.ActivityType type) { this.type = type; }
+
+    public long getCompleted() { return completed; }
+    public void setCompleted(long completed) { this.completed = completed; }
+}
@@ -1,17 +1,38 @@
 package com.crm.model;
 
+import com.crm.event.EntityChangeListener;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Entity
-@Table(name = "contacts")
-public class Contact {
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contacts")
+@NamedEntityGraph(name = "Contact.customer", attributeNodes = @NamedAttributeNode("customer"))
+@EntityListeners(EntityChangeListener.class)
+@Table(name = "contacts", indexes = @Index(name = "idx_contacts_first_name_id", columnList = "first_name, id"))
+public class Contact implements TrackedEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contacts_seq")
+    @GenericGenerator(name = "contacts_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "contacts_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @NotBlank(message = "First name is required")
@@ -60,11 +81,16 @@ public class Contact {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
+    @JsonIgnoreProperties({"contacts", "opportunities"})
     private Customer customer;
 
     @OneToMany(mappedBy = "contact", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @JsonIgnoreProperties("contact")
     private List<Activity> activities;
 
+    @Transient
+    private Map<String, Object> loadedState = Collections.emptyMap();
+
     public enum ContactStatus {
         ACTIVE, INACTIVE, DO_NOT_CONTACT
     }
@@ -80,6 +106,11 @@ public class Contact {
         updatedAt = LocalDateTime.now();
     }
 
+    @PostLoad
+    protected void onLoad() {
+        markLoaded();
+    }
+
     // Constructors
     public Contact() {}
 
@@ -135,4 +166,21 @@ public class Contact {
     public String getFullName() {
         return firstName + " " + lastName;
     }
+
+    @Override
+    public Map<String, Object> trackedState() {
+        Map<String, Object> state = new HashMap<>();
+        state.put("status", status);
+        return state;
+    }
+
+    @Override
+    public Map<String, Object> loadedState() {
+        return loadedState;
+    }
+
+    @Override
+    public void markLoaded() {
+        loadedState = trackedState();
+    }
 }
@@ -1,17 +1,37 @@
 package com.crm.model;
 
+import com.crm.event.EntityChangeListener;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Entity
-@Table(name = "customers")
-public class Customer {
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customers")
+@EntityListeners(EntityChangeListener.class)
+@Table(name = "customers", indexes = @Index(name = "idx_customers_company_name_id", columnList = "company_name, id"))
+public class Customer implements TrackedEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customers_seq")
+    @GenericGenerator(name = "customers_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "customers_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @NotBlank(message = "Company name is required")
@@ -71,11 +91,16 @@ public class Customer {
     private LocalDateTime updatedAt;
 
     @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @JsonIgnoreProperties("customer")
     private List<Contact> contacts;
 
     @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @JsonIgnoreProperties("customer")
     private List<Opportunity> opportunities;
 
+    @Transient
+    private Map<String, Object> loadedState = Collections.emptyMap();
+
     public enum CustomerStatus {
         ACTIVE, INACTIVE, PROSPECT
     }
@@ -91,6 +116,11 @@ public class Customer {
         updatedAt = LocalDateTime.now();
     }
 
+    @PostLoad
+    protected void onLoad() {
+        markLoaded();
+    }
+
     // Constructors
     public Customer() {}
 
@@ -151,4 +181,22 @@ public class Customer {
 
     public List<Opportunity> getOpportunities() { return opportunities; }
     public void setOpportunities(List<Opportunity> opportunities) { this.opportunities = opportunities; }
+
+    @Override
+    public Map<String, Object> trackedState() {
+        Map<String, Object> state = new HashMap<>();
+        state.put("status", status);
+        state.put("companyName", companyName);
+        return state;
+    }
+
+    @Override
+    public Map<String, Object> loadedState() {
+        return loadedState;
+    }
+
+    @Override
+    public void markLoaded() {
+        loadedState = trackedState();
+    }
 }
@@ -0,0 +1,59 @@
+package com.crm.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import org.hibernate.Hibernate;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.Entity;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Leaves associations that the query did not fetch out of the JSON instead of loading
+ * them while the response is written, which would cost one query per row and
+ * association. A list endpoint that should show a parent fetches it with an entity
+ * graph. Registered with Spring's {@code ObjectMapper} as a module bean.
+ */
+@Component
+public class LazyAssociationsModule extends SimpleModule {
+
+    public LazyAssociationsModule() {
+        super("LazyAssociationsModule");
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription description,
+                                                             List<BeanPropertyWriter> properties) {
+                // Proxy classes are subclasses of the entity, so the annotation is looked up the hierarchy
+                if (AnnotationUtils.findAnnotation(description.getBeanClass(), Entity.class) == null) {
+                    return properties;
+                }
+                return properties.stream()
+                        // Present on initialized proxies, which are serialized like the entity
+                        .filter(property -> !property.getName().equals("hibernateLazyInitializer"))
+                        .map(SkipUnfetched::new)
+                        .collect(Collectors.toList());
+            }
+        });
+    }
+
+    private static class SkipUnfetched extends BeanPropertyWriter {
+
+        SkipUnfetched(BeanPropertyWriter property) {
+            super(property);
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator generator, SerializerProvider provider) throws Exception {
+            if (Hibernate.isInitialized(get(bean))) {
+                super.serializeAsField(bean, generator, provider);
+            }
+        }
+    }
+}
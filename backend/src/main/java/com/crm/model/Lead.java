@@ -1,17 +1,37 @@
 package com.crm.model;
 
+import com.crm.event.EntityChangeListener;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 @Entity
-@Table(name = "leads")
-public class Lead {
+@DynamicUpdate
+@EntityListeners(EntityChangeListener.class)
+@Table(name = "leads", indexes = {
+        @Index(name = "idx_leads_created_at", columnList = "created_at, id"),
+        @Index(name = "idx_leads_converted_at", columnList = "converted_at"),
+        @Index(name = "idx_email", columnList = "email")
+})
+public class Lead implements TrackedEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "leads_seq")
+    @GenericGenerator(name = "leads_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "leads_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @NotBlank(message = "First name is required")
@@ -70,8 +90,12 @@ public class Lead {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "converted_customer_id")
+    @JsonIgnoreProperties({"contacts", "opportunities"})
     private Customer convertedCustomer;
 
+    @Transient
+    private Map<String, Object> loadedState = Collections.emptyMap();
+
     public enum LeadStatus {
         NEW, CONTACTED, QUALIFIED, UNQUALIFIED, CONVERTED, LOST
     }
@@ -89,6 +113,14 @@ public class Lead {
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        if (status == LeadStatus.CONVERTED && convertedAt == null) {
+            convertedAt = LocalDateTime.now();
+        }
+    }
+
+    @PostLoad
+    protected void onLoad() {
+        markLoaded();
     }
 
     // Constructors
@@ -153,4 +185,24 @@ public class Lead {
     public String getFullName() {
         return firstName + " " + lastName;
     }
+
+    @Override
+    public Map<String, Object> trackedState() {
+        Map<String, Object> state = new HashMap<>();
+        state.put("status", status);
+        state.put("source", source);
+        state.put("score", score);
+        state.put("convertedAt", convertedAt);
+        return state;
+    }
+
+    @Override
+    public Map<String, Object> loadedState() {
+        return loadedState;
+    }
+
+    @Override
+    public void markLoaded() {
+        loadedState = trackedState();
+    }
 }
@@ -0,0 +1,53 @@
+package com.crm.model;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Leads created and converted per day and source. Maintained by
+ * {@link com.crm.service.DailyRollupService}; never written directly.
+ */
+@Entity
+@Table(name = "lead_daily_rollups", indexes = @Index(name = "idx_lead_rollup_date", columnList = "rollup_date"))
+public class LeadDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source")
+    private Lead.LeadSource source;
+
+    @Column(name = "created_count", nullable = false)
+    private long created;
+
+    @Column(name = "converted_count", nullable = false)
+    private long converted;
+
+    // Constructors
+    public LeadDailyRollup() {}
+
+    public LeadDailyRollup(LocalDate day, Lead.LeadSource source) {
+        this.day = day;
+        this.source = source;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+
+    public Lead.LeadSource getSource() { return source; }
+    public void setSource(Lead.LeadSource source) { this.source = source; }
+
+    public long getCreated() { return created; }
+    public void setCreated(long created) { this.created = created; }
+
+    public long getConverted() { return converted; }
+    public void setConverted(long converted) { this.converted = converted; }
+}
@@ -1,5 +1,11 @@
 package com.crm.model;
 
+import com.crm.event.EntityChangeListener;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -7,12 +13,27 @@ import javax.validation.constraints.Size;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 @Entity
-@Table(name = "opportunities")
-public class Opportunity {
+@DynamicUpdate
+@NamedEntityGraph(name = "Opportunity.parents", attributeNodes = {
+        @NamedAttributeNode("customer"), @NamedAttributeNode("primaryContact")})
+@EntityListeners(EntityChangeListener.class)
+@Table(name = "opportunities", indexes = {
+        @Index(name = "idx_opportunities_actual_close_date", columnList = "actual_close_date"),
+        @Index(name = "idx_opportunities_created_at_id", columnList = "created_at, id")
+})
+public class Opportunity implements TrackedEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "opportunities_seq")
+    @GenericGenerator(name = "opportunities_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "opportunities_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @NotBlank(message = "Opportunity name is required")
@@ -57,12 +78,17 @@ public class Opportunity {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
+    @JsonIgnoreProperties({"contacts", "opportunities"})
     private Customer customer;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "primary_contact_id")
+    @JsonIgnoreProperties("activities")
     private Contact primaryContact;
 
+    @Transient
+    private Map<String, Object> loadedState = Collections.emptyMap();
+
     public enum OpportunityStage {
         PROSPECTING(10),
         QUALIFICATION(25),
@@ -106,6 +132,11 @@ public class Opportunity {
         }
     }
 
+    @PostLoad
+    protected void onLoad() {
+        markLoaded();
+    }
+
     // Constructors
     public Opportunity() {}
 
@@ -169,4 +200,24 @@ public class Opportunity {
         }
         return BigDecimal.ZERO;
     }
+
+    @Override
+    public Map<String, Object> trackedState() {
+        Map<String, Object> state = new HashMap<>();
+        state.put("stage", stage);
+        state.put("amount", amount);
+        state.put("probability", probability);
+        state.put("actualCloseDate", actualCloseDate);
+        return state;
+    }
+
+    @Override
+    public Map<String, Object> loadedState() {
+        return loadedState;
+    }
+
+    @Override
+    public void markLoaded() {
+        loadedState = trackedState();
+    }
 }
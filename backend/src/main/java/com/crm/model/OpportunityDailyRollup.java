@@ -0,0 +1,56 @@
+package com.crm.model;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Opportunities closed per day and closing stage, with their total amount. Maintained by
+ * {@link com.crm.service.DailyRollupService}; never written directly.
+ */
+@Entity
+@Table(name = "opportunity_daily_rollups", indexes = @Index(name = "idx_opportunity_rollup_date", columnList = "rollup_date"))
+public class OpportunityDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stage", nullable = false)
+    private Opportunity.OpportunityStage stage;
+
+    @Column(name = "closed_count", nullable = false)
+    private long count;
+
+    @Column(name = "amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    // Constructors
+    public OpportunityDailyRollup() {}
+
+    public OpportunityDailyRollup(LocalDate day, Opportunity.OpportunityStage stage, long count, BigDecimal amount) {
+        this.day = day;
+        this.stage = stage;
+        this.count = count;
+        this.amount = amount;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+
+    public Opportunity.OpportunityStage getStage() { return stage; }
+    public void setStage(Opportunity.OpportunityStage stage) { this.stage = stage; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+}
@@ -0,0 +1,24 @@
+package com.crm.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * An entity whose derived views (counters, caches, indexes) are kept up to date from
+ * its lifecycle callbacks. {@link #trackedState()} returns the current values of the
+ * fields those views depend on; {@link #loadedState()} returns the same fields as they
+ * were when the entity was last loaded or flushed.
+ */
+public interface TrackedEntity {
+
+    Long getId();
+
+    // Set on every insert and update, bulk updates included; ETags are derived from it
+    LocalDateTime getUpdatedAt();
+
+    Map<String, Object> trackedState();
+
+    Map<String, Object> loadedState();
+
+    void markLoaded();
+}
@@ -0,0 +1,206 @@
+package com.crm.paging;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Keyset ("seek") pagination for the list endpoints.
+ *
+ * <p>A page is the first {@code size} rows ordered by the sort attribute and then by id,
+ * both in the requested direction, that come after the row the cursor names. The query
+ * is a range condition on {@code (sort attribute, id)} rather than an {@code OFFSET},
+ * so with an index on those columns every page costs the same, and rows inserted
+ * elsewhere in the order do not shift later pages. {@code NULL} sort values are
+ * treated as the lowest values, which is how MySQL and H2 order them.
+ *
+ * <p>A page can be restricted by a {@code filter} condition, such as a search. The
+ * cursor does not record it, so clients must repeat the same filter on every page.
+ *
+ * <p>Cursors are opaque to clients: URL-safe Base64 of the sort attribute, direction,
+ * last sort value and last id. A cursor is only valid for the sort it was issued for.
+ */
+@Component
+public class KeysetPager {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Returns the page after {@code after} (the first page when it is blank).
+     *
+     * @throws IllegalArgumentException if the cursor is malformed, was issued for a
+     *         different sort, or {@code sortBy} is not a basic attribute of {@code type}
+     */
+    @Transactional(readOnly = true)
+    public <T> KeysetPage<T> page(Class<T> type, String sortBy, boolean descending, String after, int size) {
+        return page(type, null, sortBy, descending, after, size);
+    }
+
+    /**
+     * Like {@link #page(Class, String, boolean, String, int)}, but only rows matching
+     * {@code filter} are paged; {@code null} pages every row.
+     */
+    @Transactional(readOnly = true)
+    public <T> KeysetPage<T> page(Class<T> type, BiFunction<CriteriaBuilder, Root<T>, Predicate> filter,
+                                  String sortBy, boolean descending, String after, int size) {
+        return page(type, type, (cb, root) -> root, filter, sortBy, descending, after, size);
+    }
+
+    /**
+     * Like {@link #page(Class, String, boolean, String, int)}, but each row is built by
+     * {@code select}, typically a constructor expression, instead of being a managed
+     * entity. {@code rowType} must expose {@code id} and {@code sortBy} as properties.
+     */
+    @Transactional(readOnly = true)
+    public <T, R> KeysetPage<R> page(Class<T> type, Class<R> rowType,
+                                     BiFunction<CriteriaBuilder, Root<T>, Selection<? extends R>> select,
+                                     String sortBy, boolean descending, String after, int size) {
+        return page(type, rowType, select, null, sortBy, descending, after, size);
+    }
+
+    /**
+     * Like {@link #page(Class, Class, BiFunction, String, boolean, String, int)}, but only
+     * rows matching {@code filter} are paged; {@code null} pages every row.
+     */
+    @Transactional(readOnly = true)
+    public <T, R> KeysetPage<R> page(Class<T> type, Class<R> rowType,
+                                     BiFunction<CriteriaBuilder, Root<T>, Selection<? extends R>> select,
+                                     BiFunction<CriteriaBuilder, Root<T>, Predicate> filter,
+                                     String sortBy, boolean descending, String after, int size) {
+        if (BeanUtils.getPropertyDescriptor(rowType, sortBy) == null) {
+            throw new IllegalArgumentException("Cannot page by " + sortBy);
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = cb.createQuery(rowType);
+        Root<T> root = query.from(type);
+        if (root.getModel().getAttribute(sortBy).getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+            throw new IllegalArgumentException("Cannot page by " + sortBy);
+        }
+        Path<Comparable<Object>> sortPath = root.get(sortBy);
+        Path<Long> idPath = root.get("id");
+
+        List<Predicate> conditions = new ArrayList<>();
+        if (filter != null) {
+            conditions.add(filter.apply(cb, root));
+        }
+        if (after != null && !after.isEmpty()) {
+            String[] cursor = decode(after);
+            if (!cursor[0].equals(sortBy) || descending != cursor[1].equals("desc")) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort");
+            }
+            Long lastId = Long.valueOf(cursor[2]);
+            Comparable<Object> lastValue;
+            try {
+                lastValue = cursor.length > 3 ? parse(sortPath.getJavaType(), cursor[3]) : null;
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Malformed cursor", e);
+            }
+            conditions.add(seek(cb, sortPath, idPath, lastValue, lastId, descending));
+        }
+        query.where(conditions.toArray(new Predicate[0]));
+        query.select(select.apply(cb, root)).orderBy(
+                descending ? cb.desc(sortPath) : cb.asc(sortPath),
+                descending ? cb.desc(idPath) : cb.asc(idPath));
+
+        List<R> rows = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasNext = rows.size() > size;
+        List<R> content = hasNext ? rows.subList(0, size) : rows;
+        String next = null;
+        if (hasNext) {
+            BeanWrapper last = PropertyAccessorFactory.forBeanPropertyAccess(content.get(content.size() - 1));
+            next = encode(sortBy, descending, (Long) last.getPropertyValue("id"), last.getPropertyValue(sortBy));
+        }
+        return new KeysetPage<>(content, size, hasNext, next);
+    }
+
+    /**
+     * Rows strictly after {@code (lastValue, lastId)} in the page order, with nulls lowest.
+     */
+    private static Predicate seek(CriteriaBuilder cb, Path<Comparable<Object>> sortPath, Path<Long> idPath,
+                                  Comparable<Object> lastValue, Long lastId, boolean descending) {
+        if (!descending) {
+            if (lastValue == null) {
+                return cb.or(cb.and(cb.isNull(sortPath), cb.greaterThan(idPath, lastId)), cb.isNotNull(sortPath));
+            }
+            return cb.or(cb.greaterThan(sortPath, lastValue),
+                    cb.and(cb.equal(sortPath, lastValue), cb.greaterThan(idPath, lastId)));
+        }
+        if (lastValue == null) {
+            return cb.and(cb.isNull(sortPath), cb.lessThan(idPath, lastId));
+        }
+        return cb.or(cb.lessThan(sortPath, lastValue),
+                cb.and(cb.equal(sortPath, lastValue), cb.lessThan(idPath, lastId)),
+                cb.isNull(sortPath));
+    }
+
+    static String encode(String sortBy, boolean descending, Long id, Object value) {
+        StringBuilder cursor = new StringBuilder()
+                .append(sortBy).append('\n')
+                .append(descending ? "desc" : "asc").append('\n')
+                .append(id);
+        if (value != null) {
+            cursor.append('\n').append(value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decode(String token) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return parts;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparable<Object> parse(Class<?> type, String value) {
+        Object parsed;
+        if (type == String.class) {
+            parsed = value;
+        } else if (type == LocalDateTime.class) {
+            parsed = LocalDateTime.parse(value);
+        } else if (type == LocalDate.class) {
+            parsed = LocalDate.parse(value);
+        } else if (type == BigDecimal.class) {
+            parsed = new BigDecimal(value);
+        } else if (type == Integer.class) {
+            parsed = Integer.valueOf(value);
+        } else if (type == Long.class) {
+            parsed = Long.valueOf(value);
+        } else if (type == Boolean.class) {
+            parsed = Boolean.valueOf(value);
+        } else if (type.isEnum()) {
+            parsed = Enum.valueOf((Class<Enum>) type, value);
+        } else {
+            throw new IllegalArgumentException("Cannot page by an attribute of type " + type.getSimpleName());
+        }
+        return (Comparable<Object>) parsed;
+    }
+}
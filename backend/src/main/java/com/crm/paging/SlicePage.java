@@ -0,0 +1,55 @@
+package com.crm.paging;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a list fetched without a count query; {@code approximateTotal} is an
+ * estimate from table statistics or the search index, or {@code null} when none is available.
+ */
+public class SlicePage<T> {
+    private List<T> content;
+    private int number;
+    private int size;
+    private boolean hasNext;
+    private Long approximateTotal;
+
+    public SlicePage(Slice<T> slice, Long approximateTotal) {
+        this.content = slice.getContent();
+        this.number = slice.getNumber();
+        this.size = slice.getSize();
+        this.hasNext = slice.hasNext();
+        this.approximateTotal = approximateTotal;
+    }
+
+    private SlicePage(List<T> content, int number, int size, boolean hasNext, Long approximateTotal) {
+        this.content = content;
+        this.number = number;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.approximateTotal = approximateTotal;
+    }
+
+    /**
+     * Returns this page with every row converted by {@code converter}.
+     */
+    public <U> SlicePage<U> map(Function<? super T, ? extends U> converter) {
+        List<U> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new SlicePage<>(converted, number, size, hasNext, approximateTotal);
+    }
+
+    // Getters and setters
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+    public int getNumber() { return number; }
+    public void setNumber(int number) { this.number = number; }
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+    public Long getApproximateTotal() { return approximateTotal; }
+    public void setApproximateTotal(Long approximateTotal) { this.approximateTotal = approximateTotal; }
+}
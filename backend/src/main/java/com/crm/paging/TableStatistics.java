@@ -0,0 +1,76 @@
+package com.crm.paging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Row-count estimates from the database's own table statistics
+ * ({@code information_schema.tables.TABLE_ROWS} on MySQL, {@code ROW_COUNT_ESTIMATE}
+ * on H2), cached briefly. On InnoDB the figure can be off by tens of percent, so it is
+ * only for display ("about 3M activities"), never for paging arithmetic.
+ */
+@Component
+public class TableStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(TableStatistics.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${crm.paging.table-stats-ttl-ms:60000}")
+    private long ttlMs;
+
+    private final Map<String, long[]> cache = new ConcurrentHashMap<>();
+    private String query;
+
+    @PostConstruct
+    void init() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("MySQL".equalsIgnoreCase(product)) {
+            query = "SELECT TABLE_ROWS FROM information_schema.tables " +
+                    "WHERE table_schema = DATABASE() AND table_name = ?";
+        } else if ("H2".equalsIgnoreCase(product)) {
+            query = "SELECT ROW_COUNT_ESTIMATE FROM information_schema.tables " +
+                    "WHERE table_schema = SCHEMA() AND table_name = UPPER(?)";
+        }
+    }
+
+    /**
+     * Returns the estimated row count of {@code table}, or {@code null} if the database
+     * does not provide one.
+     */
+    public Long estimatedRows(String table) {
+        if (query == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        // {expiresAt, rows}
+        long[] cached = cache.get(table);
+        if (cached != null && cached[0] > now) {
+            return cached[1];
+        }
+        try {
+            Long rows = jdbcTemplate.queryForObject(query, Long.class, table.toLowerCase(Locale.ROOT));
+            if (rows == null) {
+                return null;
+            }
+            cache.put(table, new long[] {now + ttlMs, rows});
+            return rows;
+        } catch (DataAccessException e) {
+            log.debug("No row estimate for {}", table, e);
+            return null;
+        }
+    }
+}
@@ -1,43 +1,166 @@
 package com.crm.repository;
 
 import com.crm.model.Activity;
+import com.crm.service.ActivityListItem;
+import com.crm.service.ActivitySummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface ActivityRepository extends JpaRepository<Activity, Long> {
     
+    String LIST_ITEM = "SELECT new com.crm.service.ActivityListItem(a.id, a.subject, a.type, a.status, a.priority, " +
+                       "a.startDate, a.endDate, a.completedAt, cu.id, cu.companyName, " +
+                       "co.id, CONCAT(co.firstName, ' ', co.lastName), o.id, o.name, " +
+                       "l.id, CONCAT(l.firstName, ' ', l.lastName), a.createdAt, a.updatedAt) " +
+                       "FROM Activity a LEFT JOIN a.customer cu LEFT JOIN a.contact co " +
+                       "LEFT JOIN a.opportunity o LEFT JOIN a.lead l ";
+    
+    // Conditions shared by the entity and list item searches, so their semantics cannot drift apart
+    String SEARCH_TERM = "(LOWER(a.subject) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(a.description) LIKE LOWER(CONCAT('%', :search, '%')))";
+    String FULL_TEXT = "function('fulltext_match_2', a.subject, a.description, :query) > 0";
+    String RELEVANCE = "function('fulltext_match_2', a.subject, a.description, :query)";
+    
+    /**
+     * The criteria equivalent of {@link #SEARCH_TERM}, for the keyset pages.
+     */
+    static Predicate searchTerm(CriteriaBuilder cb, Root<Activity> activity, String search) {
+        return SearchConditions.containing(cb, search, activity.get("subject"), activity.get("description"));
+    }
+    
     List<Activity> findByCustomerId(Long customerId);
     
+    @EntityGraph("Activity.parents")
+    Optional<Activity> findWithParentsById(Long id);
+    
+    @EntityGraph("Activity.parents")
+    List<Activity> findWithParentsByIdIn(Collection<Long> ids);
+    
     List<Activity> findByContactId(Long contactId);
     
+    @EntityGraph("Activity.parents")
     List<Activity> findByOpportunityId(Long opportunityId);
     
+    @EntityGraph("Activity.parents")
     List<Activity> findByLeadId(Long leadId);
     
     List<Activity> findByStatus(Activity.ActivityStatus status);
     
+    @EntityGraph("Activity.parents")
     List<Activity> findByType(Activity.ActivityType type);
     
-    @Query("SELECT a FROM Activity a WHERE " +
-           "LOWER(a.subject) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(a.description) LIKE LOWER(CONCAT('%', :search, '%'))")
+    @Query("SELECT a FROM Activity a WHERE " + SEARCH_TERM)
     Page<Activity> findBySearchTerm(@Param("search") String search, Pageable pageable);
     
+    @Query("SELECT a FROM Activity a WHERE a.id IN :ids AND " + SEARCH_TERM)
+    Page<Activity> findBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids,
+                                           Pageable pageable);
+    
+    @Query(value = "SELECT a FROM Activity a WHERE " +
+                   "function('fulltext_match_2', a.subject, a.description, :query) > 0 " +
+                   "ORDER BY function('fulltext_match_2', a.subject, a.description, :query) DESC",
+           countQuery = "SELECT COUNT(a) FROM Activity a WHERE " +
+                   "function('fulltext_match_2', a.subject, a.description, :query) > 0")
+    Page<Activity> findByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query("SELECT a FROM Activity a")
+    Slice<Activity> findAllAsSlice(Pageable pageable);
+    
+    @Query(value = LIST_ITEM, countQuery = "SELECT COUNT(a) FROM Activity a")
+    Page<ActivityListItem> findListItems(Pageable pageable);
+    
+    @Query(LIST_ITEM)
+    Slice<ActivityListItem> findListItemsAsSlice(Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE a.id IN :ids")
+    List<ActivityListItem> findListItemsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(LIST_ITEM + "WHERE a.status = :status")
+    List<ActivityListItem> findListItemsByStatus(@Param("status") Activity.ActivityStatus status);
+    
+    @Query(value = LIST_ITEM + "WHERE cu.id = :customerId",
+           countQuery = "SELECT COUNT(a) FROM Activity a WHERE a.customer.id = :customerId")
+    Page<ActivityListItem> findListItemsByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE " + SEARCH_TERM,
+           countQuery = "SELECT COUNT(a) FROM Activity a WHERE " + SEARCH_TERM)
+    Page<ActivityListItem> findListItemsBySearchTerm(@Param("search") String search, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE a.id IN :ids AND " + SEARCH_TERM,
+           countQuery = "SELECT COUNT(a) FROM Activity a WHERE a.id IN :ids AND " + SEARCH_TERM)
+    Page<ActivityListItem> findListItemsBySearchTermAndIdIn(@Param("search") String search,
+                                                            @Param("ids") Collection<Long> ids, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE " + FULL_TEXT,
+           countQuery = "SELECT COUNT(a) FROM Activity a WHERE " + FULL_TEXT)
+    Page<ActivityListItem> findListItemsByFullText(@Param("query") String query, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE " + FULL_TEXT + " ORDER BY " + RELEVANCE + " DESC",
+           countQuery = "SELECT COUNT(a) FROM Activity a WHERE " + FULL_TEXT)
+    Page<ActivityListItem> findListItemsByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE " + SEARCH_TERM)
+    Slice<ActivityListItem> findListItemSliceBySearchTerm(@Param("search") String search, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE a.id IN :ids AND " + SEARCH_TERM)
+    Slice<ActivityListItem> findListItemSliceBySearchTermAndIdIn(@Param("search") String search,
+                                                                 @Param("ids") Collection<Long> ids, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE " + FULL_TEXT)
+    Slice<ActivityListItem> findListItemSliceByFullText(@Param("query") String query, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE " + FULL_TEXT + " ORDER BY " + RELEVANCE + " DESC")
+    Slice<ActivityListItem> findListItemSliceByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query("SELECT MAX(CASE WHEN a.startDate <= :currentTime THEN a.startDate ELSE NULL END), " +
+           "MIN(CASE WHEN a.startDate > :currentTime AND a.status IN ('PLANNED', 'IN_PROGRESS') " +
+           "THEN a.startDate ELSE NULL END) FROM Activity a WHERE a.customer.id = :customerId")
+    List<Object[]> getActivityDatesByCustomerId(@Param("customerId") Long customerId,
+                                                @Param("currentTime") LocalDateTime currentTime);
+    
+    @Query("SELECT a FROM Activity a")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Activity> streamAll(Sort sort);
+    
+    @Query("SELECT a FROM Activity a WHERE " + SEARCH_TERM)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Activity> streamBySearchTerm(@Param("search") String search, Sort sort);
+    
+    @Query("SELECT a FROM Activity a WHERE a.id IN :ids AND " + SEARCH_TERM)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Activity> streamBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids, Sort sort);
+    
     @Query("SELECT a FROM Activity a WHERE a.startDate BETWEEN :startDate AND :endDate ORDER BY a.startDate")
     List<Activity> findByStartDateBetween(@Param("startDate") LocalDateTime startDate, 
                                          @Param("endDate") LocalDateTime endDate);
     
+    @EntityGraph("Activity.parents")
     @Query("SELECT a FROM Activity a WHERE a.status = 'PLANNED' AND a.startDate < :currentTime")
     List<Activity> findOverdueActivities(@Param("currentTime") LocalDateTime currentTime);
     
+    @EntityGraph("Activity.parents")
     @Query("SELECT a FROM Activity a WHERE a.status = 'PLANNED' AND a.startDate BETWEEN :startTime AND :endTime")
     List<Activity> findUpcomingActivities(@Param("startTime") LocalDateTime startTime, 
                                          @Param("endTime") LocalDateTime endTime);
@@ -48,13 +171,39 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     @Query("SELECT COUNT(a) FROM Activity a WHERE a.type = :type")
     Long countByType(@Param("type") Activity.ActivityType type);
     
+    @Query("SELECT a.status, a.type, COUNT(a), SUM(CASE WHEN a.startDate < :currentTime THEN 1 ELSE 0 END) " +
+           "FROM Activity a GROUP BY a.status, a.type")
+    List<Object[]> getActivityStatsByStatusAndType(@Param("currentTime") LocalDateTime currentTime);
+    
+    @Query("SELECT a.startDate, COUNT(a) FROM Activity a WHERE a.status = 'PLANNED' AND a.startDate >= :currentTime GROUP BY a.startDate")
+    List<Object[]> countPlannedByStartDateFrom(@Param("currentTime") LocalDateTime currentTime);
+    
+    @Query("SELECT new com.crm.service.ActivitySummary(a.id, a.subject, a.type, a.status, a.priority, " +
+           "a.startDate, a.completedAt, a.createdAt, a.updatedAt) " +
+           "FROM Activity a ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivitySummary> findRecentSummaries(Pageable pageable);
+    
+    @Query("SELECT new com.crm.service.ActivitySummary(a.id, a.subject, a.type, a.status, a.priority, " +
+           "a.startDate, a.completedAt, a.createdAt, a.updatedAt) " +
+           "FROM Activity a WHERE a.id IN :ids ORDER BY a.id")
+    List<ActivitySummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT a.type, COUNT(a) FROM Activity a WHERE a.completedAt BETWEEN :startDate AND :endDate GROUP BY a.type")
     List<Object[]> getActivityStatsByType(@Param("startDate") LocalDateTime startDate, 
                                          @Param("endDate") LocalDateTime endDate);
     
+    @Query("SELECT CAST(a.completedAt AS date), a.type, COUNT(a) FROM Activity a " +
+           "WHERE a.completedAt >= :from AND a.completedAt < :to GROUP BY CAST(a.completedAt AS date), a.type")
+    List<Object[]> countCompletedByDayAndType(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT MIN(a.completedAt) FROM Activity a")
+    LocalDateTime findEarliestCompletedAt();
+    
+    @EntityGraph("Activity.parents")
     @Query("SELECT a FROM Activity a WHERE a.customer.id = :customerId ORDER BY a.startDate DESC")
     List<Activity> findByCustomerIdOrderByStartDateDesc(@Param("customerId") Long customerId);
     
+    @EntityGraph("Activity.parents")
     @Query("SELECT a FROM Activity a WHERE a.contact.id = :contactId ORDER BY a.startDate DESC")
     List<Activity> findByContactIdOrderByStartDateDesc(@Param("contactId") Long contactId);
     
@@ -1,36 +1,177 @@
 package com.crm.repository;
 
 import com.crm.model.Contact;
+import com.crm.service.ContactListItem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface ContactRepository extends JpaRepository<Contact, Long> {
     
+    String LIST_ITEM = "SELECT new com.crm.service.ContactListItem(c.id, c.firstName, c.lastName, c.jobTitle, " +
+                       "c.email, c.phone, c.status, c.isPrimary, cu.id, cu.companyName, c.createdAt, c.updatedAt) " +
+                       "FROM Contact c LEFT JOIN c.customer cu ";
+    
+    // Conditions shared by the entity and list item searches, so their semantics cannot drift apart
+    String SEARCH_TERM = "(LOWER(c.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(c.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(c.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(c.jobTitle) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(c.customer.companyName) LIKE LOWER(CONCAT('%', :search, '%')))";
+    String FULL_TEXT = "(function('fulltext_match_4', c.firstName, c.lastName, c.email, c.jobTitle, :query) > 0 OR " +
+                       "function('fulltext_match_1', cu.companyName, :query) > 0)";
+    String RELEVANCE = "function('fulltext_match_4', c.firstName, c.lastName, c.email, c.jobTitle, :query) + " +
+                       "function('fulltext_match_1', cu.companyName, :query)";
+    
+    /**
+     * The criteria equivalent of {@link #SEARCH_TERM}, for the keyset pages.
+     */
+    static Predicate searchTerm(CriteriaBuilder cb, Root<Contact> contact, String search) {
+        return SearchConditions.containing(cb, search, contact.get("firstName"), contact.get("lastName"),
+                contact.get("email"), contact.get("jobTitle"), contact.join("customer").get("companyName"));
+    }
+    
+    // Not transactional unless the caller is, so that second-level cache hits need no connection
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    Optional<Contact> findById(Long id);
+    
     Optional<Contact> findByEmail(String email);
     
+    @EntityGraph("Contact.customer")
+    List<Contact> findWithCustomerByIdIn(Collection<Long> ids);
+    
+    @EntityGraph("Contact.customer")
     List<Contact> findByCustomerId(Long customerId);
     
     List<Contact> findByStatus(Contact.ContactStatus status);
     
+    @EntityGraph("Contact.customer")
     @Query("SELECT c FROM Contact c WHERE c.customer.id = :customerId AND c.isPrimary = true")
     Optional<Contact> findPrimaryContactByCustomerId(@Param("customerId") Long customerId);
     
-    @Query("SELECT c FROM Contact c WHERE " +
-           "LOWER(c.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.jobTitle) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.customer.companyName) LIKE LOWER(CONCAT('%', :search, '%'))")
+    @Query("SELECT c FROM Contact c WHERE " + SEARCH_TERM)
     Page<Contact> findBySearchTerm(@Param("search") String search, Pageable pageable);
     
+    @Query("SELECT c FROM Contact c WHERE c.id IN :ids AND " + SEARCH_TERM)
+    Page<Contact> findBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids,
+                                          Pageable pageable);
+    
+    @Query(value = "SELECT c FROM Contact c JOIN c.customer cu WHERE " +
+                   "function('fulltext_match_4', c.firstName, c.lastName, c.email, c.jobTitle, :query) > 0 OR " +
+                   "function('fulltext_match_1', cu.companyName, :query) > 0 " +
+                   "ORDER BY function('fulltext_match_4', c.firstName, c.lastName, c.email, c.jobTitle, :query) + " +
+                   "function('fulltext_match_1', cu.companyName, :query) DESC",
+           countQuery = "SELECT COUNT(c) FROM Contact c JOIN c.customer cu WHERE " +
+                   "function('fulltext_match_4', c.firstName, c.lastName, c.email, c.jobTitle, :query) > 0 OR " +
+                   "function('fulltext_match_1', cu.companyName, :query) > 0")
+    Page<Contact> findByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query("SELECT c FROM Contact c")
+    Slice<Contact> findAllAsSlice(Pageable pageable);
+    
+    @Query(value = LIST_ITEM, countQuery = "SELECT COUNT(c) FROM Contact c")
+    Page<ContactListItem> findListItems(Pageable pageable);
+    
+    @Query(LIST_ITEM)
+    Slice<ContactListItem> findListItemsAsSlice(Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE c.id IN :ids")
+    List<ContactListItem> findListItemsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(LIST_ITEM + "WHERE c.status = :status")
+    List<ContactListItem> findListItemsByStatus(@Param("status") Contact.ContactStatus status);
+    
+    @Query(value = LIST_ITEM + "WHERE cu.id = :customerId",
+           countQuery = "SELECT COUNT(c) FROM Contact c WHERE c.customer.id = :customerId")
+    Page<ContactListItem> findListItemsByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE " + SEARCH_TERM,
+           countQuery = "SELECT COUNT(c) FROM Contact c WHERE " + SEARCH_TERM)
+    Page<ContactListItem> findListItemsBySearchTerm(@Param("search") String search, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE c.id IN :ids AND " + SEARCH_TERM,
+           countQuery = "SELECT COUNT(c) FROM Contact c WHERE c.id IN :ids AND " + SEARCH_TERM)
+    Page<ContactListItem> findListItemsBySearchTermAndIdIn(@Param("search") String search,
+                                                           @Param("ids") Collection<Long> ids, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE " + FULL_TEXT,
+           countQuery = "SELECT COUNT(c) FROM Contact c LEFT JOIN c.customer cu WHERE " + FULL_TEXT)
+    Page<ContactListItem> findListItemsByFullText(@Param("query") String query, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE " + FULL_TEXT + " ORDER BY " + RELEVANCE + " DESC",
+           countQuery = "SELECT COUNT(c) FROM Contact c LEFT JOIN c.customer cu WHERE " + FULL_TEXT)
+    Page<ContactListItem> findListItemsByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE " + SEARCH_TERM)
+    Slice<ContactListItem> findListItemSliceBySearchTerm(@Param("search") String search, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE c.id IN :ids AND " + SEARCH_TERM)
+    Slice<ContactListItem> findListItemSliceBySearchTermAndIdIn(@Param("search") String search,
+                                                                @Param("ids") Collection<Long> ids, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE " + FULL_TEXT)
+    Slice<ContactListItem> findListItemSliceByFullText(@Param("query") String query, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE " + FULL_TEXT + " ORDER BY " + RELEVANCE + " DESC")
+    Slice<ContactListItem> findListItemSliceByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE c.id IN :ids", countQuery = "SELECT COUNT(c) FROM Contact c WHERE c.id IN :ids")
+    Page<ContactListItem> findListItemsByIdIn(@Param("ids") Collection<Long> ids, Pageable pageable);
+    
+    @Query("SELECT c FROM Contact c")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Contact> streamAll(Sort sort);
+    
+    @Query("SELECT c FROM Contact c WHERE " + SEARCH_TERM)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Contact> streamBySearchTerm(@Param("search") String search, Sort sort);
+    
+    @Query("SELECT c FROM Contact c WHERE c.id IN :ids AND " + SEARCH_TERM)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Contact> streamBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids, Sort sort);
+    
+    @Query("SELECT c.id, c.firstName, c.lastName, c.email, c.jobTitle, cu.companyName " +
+           "FROM Contact c LEFT JOIN c.customer cu WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findSearchFieldsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT c.id, c.firstName, c.lastName, c.email, c.jobTitle, cu.companyName " +
+           "FROM Contact c LEFT JOIN c.customer cu WHERE c.id IN :ids")
+    List<Object[]> findSearchFieldsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT c.id, CONCAT(c.firstName, ' ', c.lastName), c.updatedAt FROM Contact c WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findLabelsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT c.id, CONCAT(c.firstName, ' ', c.lastName), c.updatedAt FROM Contact c WHERE c.id IN :ids")
+    List<Object[]> findLabelsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT c.id, c.firstName, c.lastName, c.email, c.jobTitle, cu.companyName " +
+           "FROM Contact c LEFT JOIN c.customer cu WHERE cu.id = :customerId")
+    List<Object[]> findSearchFieldsByCustomerId(@Param("customerId") Long customerId);
+    
+    @EntityGraph("Contact.customer")
     @Query("SELECT c FROM Contact c WHERE c.customer.id = :customerId AND " +
            "(LOWER(c.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(c.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
@@ -41,6 +182,9 @@ public interface ContactRepository extends JpaRepository<Contact, Long> {
     @Query("SELECT COUNT(c) FROM Contact c WHERE c.status = :status")
     Long countByStatus(@Param("status") Contact.ContactStatus status);
     
+    @Query("SELECT c.status, COUNT(c) FROM Contact c GROUP BY c.status")
+    List<Object[]> countGroupedByStatus();
+    
     @Query("SELECT c FROM Contact c LEFT JOIN FETCH c.activities WHERE c.id = :id")
     Optional<Contact> findByIdWithActivities(@Param("id") Long id);
 }
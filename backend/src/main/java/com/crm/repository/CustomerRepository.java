@@ -3,38 +3,132 @@ package com.crm.repository;
 import com.crm.model.Customer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     
+    // Conditions shared by every search variant, so their semantics cannot drift apart
+    String SEARCH_TERM = "(LOWER(c.companyName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(c.industry) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(c.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(c.city) LIKE LOWER(CONCAT('%', :search, '%')))";
+    String FULL_TEXT = "function('fulltext_match_4', c.companyName, c.industry, c.email, c.city, :query) > 0";
+    String RELEVANCE = "function('fulltext_match_4', c.companyName, c.industry, c.email, c.city, :query)";
+    
+    /**
+     * The criteria equivalent of {@link #SEARCH_TERM}, for the keyset pages.
+     */
+    static Predicate searchTerm(CriteriaBuilder cb, Root<Customer> customer, String search) {
+        return SearchConditions.containing(cb, search, customer.get("companyName"), customer.get("industry"),
+                customer.get("email"), customer.get("city"));
+    }
+    
+    // Not transactional unless the caller is: a second-level cache hit then needs no
+    // connection, where a read-only transaction would take one from the pool to commit
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    Optional<Customer> findById(Long id);
+    
     Optional<Customer> findByEmail(String email);
     
     List<Customer> findByStatus(Customer.CustomerStatus status);
     
-    @Query("SELECT c FROM Customer c WHERE " +
-           "LOWER(c.companyName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.industry) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.city) LIKE LOWER(CONCAT('%', :search, '%'))")
+    @Query("SELECT c FROM Customer c WHERE " + SEARCH_TERM)
     Page<Customer> findBySearchTerm(@Param("search") String search, Pageable pageable);
     
+    @Query("SELECT c FROM Customer c WHERE c.id IN :ids AND " + SEARCH_TERM)
+    Page<Customer> findBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids,
+                                           Pageable pageable);
+    
+    @Query("SELECT c FROM Customer c WHERE " + FULL_TEXT)
+    Page<Customer> findByFullText(@Param("query") String query, Pageable pageable);
+    
+    @Query(value = "SELECT c FROM Customer c WHERE " + FULL_TEXT + " ORDER BY " + RELEVANCE + " DESC",
+           countQuery = "SELECT COUNT(c) FROM Customer c WHERE " + FULL_TEXT)
+    Page<Customer> findByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    Page<Customer> findByIdIn(Collection<Long> ids, Pageable pageable);
+    
+    @Query("SELECT c FROM Customer c")
+    Slice<Customer> findAllAsSlice(Pageable pageable);
+    
+    @Query("SELECT c FROM Customer c WHERE " + SEARCH_TERM)
+    Slice<Customer> findSliceBySearchTerm(@Param("search") String search, Pageable pageable);
+    
+    @Query("SELECT c FROM Customer c WHERE c.id IN :ids AND " + SEARCH_TERM)
+    Slice<Customer> findSliceBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids,
+                                                 Pageable pageable);
+    
+    @Query("SELECT c FROM Customer c WHERE " + FULL_TEXT)
+    Slice<Customer> findSliceByFullText(@Param("query") String query, Pageable pageable);
+    
+    @Query("SELECT c FROM Customer c WHERE " + FULL_TEXT + " ORDER BY " + RELEVANCE + " DESC")
+    Slice<Customer> findSliceByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query("SELECT c FROM Customer c")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Customer> streamAll(Sort sort);
+    
+    @Query("SELECT c FROM Customer c WHERE " + SEARCH_TERM)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Customer> streamBySearchTerm(@Param("search") String search, Sort sort);
+    
+    @Query("SELECT c FROM Customer c WHERE c.id IN :ids AND " + SEARCH_TERM)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Customer> streamBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids, Sort sort);
+    
+    @Query("SELECT c.id, c.companyName, c.industry, c.email, c.city " +
+           "FROM Customer c WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findSearchFieldsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT c.id, c.companyName, c.industry, c.email, c.city " +
+           "FROM Customer c WHERE c.id IN :ids")
+    List<Object[]> findSearchFieldsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT c.id, c.companyName, c.updatedAt FROM Customer c WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findLabelsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT c.id, c.companyName, c.updatedAt FROM Customer c WHERE c.id IN :ids")
+    List<Object[]> findLabelsByIdIn(@Param("ids") Collection<Long> ids);
+    
     List<Customer> findByIndustry(String industry);
     
     List<Customer> findByCity(String city);
     
     @Query("SELECT DISTINCT c.industry FROM Customer c WHERE c.industry IS NOT NULL ORDER BY c.industry")
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HINT_CACHE_REGION, value = "reference-queries")})
     List<String> findDistinctIndustries();
     
     @Query("SELECT COUNT(c) FROM Customer c WHERE c.status = :status")
     Long countByStatus(@Param("status") Customer.CustomerStatus status);
     
+    @Query("SELECT c.status, COUNT(c) FROM Customer c GROUP BY c.status")
+    List<Object[]> countGroupedByStatus();
+    
     @Query("SELECT c FROM Customer c LEFT JOIN FETCH c.contacts WHERE c.id = :id")
     Optional<Customer> findByIdWithContacts(@Param("id") Long id);
     
@@ -0,0 +1,21 @@
+package com.crm.repository;
+
+import com.crm.model.LeadDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface LeadDailyRollupRepository extends JpaRepository<LeadDailyRollup, Long> {
+    
+    List<LeadDailyRollup> findByDayBetweenOrderByDayAsc(LocalDate from, LocalDate to);
+    
+    @Modifying
+    @Query("DELETE FROM LeadDailyRollup r WHERE r.day BETWEEN :from AND :to")
+    int deleteByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
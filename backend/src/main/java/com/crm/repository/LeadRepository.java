@@ -3,32 +3,114 @@ package com.crm.repository;
 import com.crm.model.Lead;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface LeadRepository extends JpaRepository<Lead, Long> {
     
+    // Conditions shared by every search variant, so their semantics cannot drift apart
+    String SEARCH_TERM = "(LOWER(l.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(l.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(l.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(l.company) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(l.jobTitle) LIKE LOWER(CONCAT('%', :search, '%')))";
+    String FULL_TEXT = "function('fulltext_match_5', l.firstName, l.lastName, l.email, l.company, l.jobTitle, :query) > 0";
+    String RELEVANCE = "function('fulltext_match_5', l.firstName, l.lastName, l.email, l.company, l.jobTitle, :query)";
+    
+    /**
+     * The criteria equivalent of {@link #SEARCH_TERM}, for the keyset pages.
+     */
+    static Predicate searchTerm(CriteriaBuilder cb, Root<Lead> lead, String search) {
+        return SearchConditions.containing(cb, search, lead.get("firstName"), lead.get("lastName"),
+                lead.get("email"), lead.get("company"), lead.get("jobTitle"));
+    }
+    
     Optional<Lead> findByEmail(String email);
     
+    @Query("SELECT l.email FROM Lead l WHERE l.email IN :emails")
+    List<String> findEmailsIn(@Param("emails") Collection<String> emails);
+    
     List<Lead> findByStatus(Lead.LeadStatus status);
     
     List<Lead> findBySource(Lead.LeadSource source);
     
-    @Query("SELECT l FROM Lead l WHERE " +
-           "LOWER(l.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(l.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(l.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(l.company) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(l.jobTitle) LIKE LOWER(CONCAT('%', :search, '%'))")
+    @Query("SELECT l FROM Lead l WHERE " + SEARCH_TERM)
     Page<Lead> findBySearchTerm(@Param("search") String search, Pageable pageable);
     
+    @Query("SELECT l FROM Lead l WHERE l.id IN :ids AND " + SEARCH_TERM)
+    Page<Lead> findBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids,
+                                       Pageable pageable);
+    
+    @Query("SELECT l FROM Lead l WHERE " + FULL_TEXT)
+    Page<Lead> findByFullText(@Param("query") String query, Pageable pageable);
+    
+    @Query(value = "SELECT l FROM Lead l WHERE " + FULL_TEXT + " ORDER BY " + RELEVANCE + " DESC",
+           countQuery = "SELECT COUNT(l) FROM Lead l WHERE " + FULL_TEXT)
+    Page<Lead> findByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    Page<Lead> findByIdIn(Collection<Long> ids, Pageable pageable);
+    
+    @Query("SELECT l FROM Lead l")
+    Slice<Lead> findAllAsSlice(Pageable pageable);
+    
+    @Query("SELECT l FROM Lead l WHERE " + SEARCH_TERM)
+    Slice<Lead> findSliceBySearchTerm(@Param("search") String search, Pageable pageable);
+    
+    @Query("SELECT l FROM Lead l WHERE l.id IN :ids AND " + SEARCH_TERM)
+    Slice<Lead> findSliceBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids,
+                                             Pageable pageable);
+    
+    @Query("SELECT l FROM Lead l WHERE " + FULL_TEXT)
+    Slice<Lead> findSliceByFullText(@Param("query") String query, Pageable pageable);
+    
+    @Query("SELECT l FROM Lead l WHERE " + FULL_TEXT + " ORDER BY " + RELEVANCE + " DESC")
+    Slice<Lead> findSliceByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query("SELECT l FROM Lead l")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Lead> streamAll(Sort sort);
+    
+    @Query("SELECT l FROM Lead l WHERE " + SEARCH_TERM)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Lead> streamBySearchTerm(@Param("search") String search, Sort sort);
+    
+    @Query("SELECT l FROM Lead l WHERE l.id IN :ids AND " + SEARCH_TERM)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Lead> streamBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids, Sort sort);
+    
+    @Query("SELECT l.id, l.firstName, l.lastName, l.email, l.company, l.jobTitle " +
+           "FROM Lead l WHERE l.id > :afterId ORDER BY l.id")
+    List<Object[]> findSearchFieldsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT l.id, l.firstName, l.lastName, l.email, l.company, l.jobTitle " +
+           "FROM Lead l WHERE l.id IN :ids")
+    List<Object[]> findSearchFieldsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT l.id, l.company, l.updatedAt FROM Lead l WHERE l.id > :afterId ORDER BY l.id")
+    List<Object[]> findLabelsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT l.id, l.company, l.updatedAt FROM Lead l WHERE l.id IN :ids")
+    List<Object[]> findLabelsByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT l FROM Lead l WHERE l.status = :status ORDER BY l.score DESC")
     List<Lead> findByStatusOrderByScoreDesc(@Param("status") Lead.LeadStatus status);
     
@@ -41,6 +123,9 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
     @Query("SELECT COUNT(l) FROM Lead l WHERE l.source = :source")
     Long countBySource(@Param("source") Lead.LeadSource source);
     
+    @Query("SELECT l.status, l.source, COUNT(l), SUM(l.score), COUNT(l.score) FROM Lead l GROUP BY l.status, l.source")
+    List<Object[]> getLeadStatsByStatusAndSource();
+    
     @Query("SELECT l FROM Lead l WHERE l.createdAt BETWEEN :startDate AND :endDate")
     List<Lead> findByCreatedAtBetween(@Param("startDate") LocalDateTime startDate, 
                                      @Param("endDate") LocalDateTime endDate);
@@ -49,6 +134,17 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
     List<Lead> findConvertedLeadsBetween(@Param("startDate") LocalDateTime startDate, 
                                         @Param("endDate") LocalDateTime endDate);
     
+    @Query("SELECT CAST(l.createdAt AS date), l.source, COUNT(l) FROM Lead l " +
+           "WHERE l.createdAt >= :from AND l.createdAt < :to GROUP BY CAST(l.createdAt AS date), l.source")
+    List<Object[]> countCreatedByDayAndSource(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT CAST(l.convertedAt AS date), l.source, COUNT(l) FROM Lead l WHERE l.status = 'CONVERTED' " +
+           "AND l.convertedAt >= :from AND l.convertedAt < :to GROUP BY CAST(l.convertedAt AS date), l.source")
+    List<Object[]> countConvertedByDayAndSource(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT MIN(l.createdAt) FROM Lead l")
+    LocalDateTime findEarliestCreatedAt();
+    
     @Query("SELECT AVG(l.score) FROM Lead l WHERE l.status = :status")
     Double getAverageScoreByStatus(@Param("status") Lead.LeadStatus status);
 }
@@ -1,30 +1,149 @@
 package com.crm.repository;
 
 import com.crm.model.Opportunity;
+import com.crm.service.OpportunityListItem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface OpportunityRepository extends JpaRepository<Opportunity, Long> {
     
+    String LIST_ITEM = "SELECT new com.crm.service.OpportunityListItem(o.id, o.name, o.amount, o.stage, " +
+                       "o.probability, o.expectedCloseDate, o.actualCloseDate, o.source, cu.id, cu.companyName, " +
+                       "pc.id, CONCAT(pc.firstName, ' ', pc.lastName), o.createdAt, o.updatedAt) " +
+                       "FROM Opportunity o LEFT JOIN o.customer cu LEFT JOIN o.primaryContact pc ";
+    
+    // Conditions shared by the entity and list item searches, so their semantics cannot drift apart
+    String SEARCH_TERM = "(LOWER(o.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(o.description) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                         "LOWER(o.customer.companyName) LIKE LOWER(CONCAT('%', :search, '%')))";
+    String FULL_TEXT = "(function('fulltext_match_2', o.name, o.description, :query) > 0 OR " +
+                       "function('fulltext_match_1', cu.companyName, :query) > 0)";
+    String RELEVANCE = "function('fulltext_match_2', o.name, o.description, :query) + " +
+                       "function('fulltext_match_1', cu.companyName, :query)";
+    
+    /**
+     * The criteria equivalent of {@link #SEARCH_TERM}, for the keyset pages.
+     */
+    static Predicate searchTerm(CriteriaBuilder cb, Root<Opportunity> opportunity, String search) {
+        return SearchConditions.containing(cb, search, opportunity.get("name"), opportunity.get("description"),
+                opportunity.join("customer").get("companyName"));
+    }
+    
     List<Opportunity> findByCustomerId(Long customerId);
     
+    @EntityGraph("Opportunity.parents")
+    Optional<Opportunity> findWithParentsById(Long id);
+    
+    @EntityGraph("Opportunity.parents")
+    List<Opportunity> findWithParentsByIdIn(Collection<Long> ids);
+    
     List<Opportunity> findByStage(Opportunity.OpportunityStage stage);
     
-    @Query("SELECT o FROM Opportunity o WHERE " +
-           "LOWER(o.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(o.description) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(o.customer.companyName) LIKE LOWER(CONCAT('%', :search, '%'))")
+    @Query("SELECT o FROM Opportunity o WHERE " + SEARCH_TERM)
     Page<Opportunity> findBySearchTerm(@Param("search") String search, Pageable pageable);
     
+    @Query("SELECT o FROM Opportunity o WHERE o.id IN :ids AND " + SEARCH_TERM)
+    Page<Opportunity> findBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids,
+                                              Pageable pageable);
+    
+    @Query(value = "SELECT o FROM Opportunity o JOIN o.customer cu WHERE " +
+                   "function('fulltext_match_2', o.name, o.description, :query) > 0 OR " +
+                   "function('fulltext_match_1', cu.companyName, :query) > 0 " +
+                   "ORDER BY function('fulltext_match_2', o.name, o.description, :query) + " +
+                   "function('fulltext_match_1', cu.companyName, :query) DESC",
+           countQuery = "SELECT COUNT(o) FROM Opportunity o JOIN o.customer cu WHERE " +
+                   "function('fulltext_match_2', o.name, o.description, :query) > 0 OR " +
+                   "function('fulltext_match_1', cu.companyName, :query) > 0")
+    Page<Opportunity> findByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query("SELECT o FROM Opportunity o")
+    Slice<Opportunity> findAllAsSlice(Pageable pageable);
+    
+    @Query(value = LIST_ITEM, countQuery = "SELECT COUNT(o) FROM Opportunity o")
+    Page<OpportunityListItem> findListItems(Pageable pageable);
+    
+    @Query(LIST_ITEM)
+    Slice<OpportunityListItem> findListItemsAsSlice(Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE o.id IN :ids")
+    List<OpportunityListItem> findListItemsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(LIST_ITEM + "WHERE o.stage = :stage ORDER BY o.amount DESC")
+    List<OpportunityListItem> findListItemsByStage(@Param("stage") Opportunity.OpportunityStage stage);
+    
+    @Query(value = LIST_ITEM + "WHERE cu.id = :customerId",
+           countQuery = "SELECT COUNT(o) FROM Opportunity o WHERE o.customer.id = :customerId")
+    Page<OpportunityListItem> findListItemsByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE " + SEARCH_TERM,
+           countQuery = "SELECT COUNT(o) FROM Opportunity o WHERE " + SEARCH_TERM)
+    Page<OpportunityListItem> findListItemsBySearchTerm(@Param("search") String search, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE o.id IN :ids AND " + SEARCH_TERM,
+           countQuery = "SELECT COUNT(o) FROM Opportunity o WHERE o.id IN :ids AND " + SEARCH_TERM)
+    Page<OpportunityListItem> findListItemsBySearchTermAndIdIn(@Param("search") String search,
+                                                               @Param("ids") Collection<Long> ids, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE " + FULL_TEXT,
+           countQuery = "SELECT COUNT(o) FROM Opportunity o LEFT JOIN o.customer cu WHERE " + FULL_TEXT)
+    Page<OpportunityListItem> findListItemsByFullText(@Param("query") String query, Pageable pageable);
+    
+    @Query(value = LIST_ITEM + "WHERE " + FULL_TEXT + " ORDER BY " + RELEVANCE + " DESC",
+           countQuery = "SELECT COUNT(o) FROM Opportunity o LEFT JOIN o.customer cu WHERE " + FULL_TEXT)
+    Page<OpportunityListItem> findListItemsByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE " + SEARCH_TERM)
+    Slice<OpportunityListItem> findListItemSliceBySearchTerm(@Param("search") String search, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE o.id IN :ids AND " + SEARCH_TERM)
+    Slice<OpportunityListItem> findListItemSliceBySearchTermAndIdIn(@Param("search") String search,
+                                                                    @Param("ids") Collection<Long> ids, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE " + FULL_TEXT)
+    Slice<OpportunityListItem> findListItemSliceByFullText(@Param("query") String query, Pageable pageable);
+    
+    @Query(LIST_ITEM + "WHERE " + FULL_TEXT + " ORDER BY " + RELEVANCE + " DESC")
+    Slice<OpportunityListItem> findListItemSliceByFullTextOrderByRelevance(@Param("query") String query, Pageable pageable);
+    
+    @Query("SELECT COUNT(o), SUM(o.amount), SUM(o.amount * o.probability / 100.0) FROM Opportunity o " +
+           "WHERE o.customer.id = :customerId AND o.stage NOT IN ('CLOSED_WON', 'CLOSED_LOST')")
+    List<Object[]> getOpenPipelineByCustomerId(@Param("customerId") Long customerId);
+    
+    @Query("SELECT o FROM Opportunity o")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Opportunity> streamAll(Sort sort);
+    
+    @Query("SELECT o FROM Opportunity o WHERE " + SEARCH_TERM)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Opportunity> streamBySearchTerm(@Param("search") String search, Sort sort);
+    
+    @Query("SELECT o FROM Opportunity o WHERE o.id IN :ids AND " + SEARCH_TERM)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Opportunity> streamBySearchTermAndIdIn(@Param("search") String search, @Param("ids") Collection<Long> ids, Sort sort);
+    
     @Query("SELECT o FROM Opportunity o WHERE o.stage = :stage ORDER BY o.amount DESC")
     List<Opportunity> findByStageOrderByAmountDesc(@Param("stage") Opportunity.OpportunityStage stage);
     
@@ -36,6 +155,14 @@ public interface OpportunityRepository extends JpaRepository<Opportunity, Long>
     List<Opportunity> findClosedWonBetween(@Param("startDate") LocalDate startDate, 
                                           @Param("endDate") LocalDate endDate);
     
+    @Query("SELECT o.actualCloseDate, o.stage, COUNT(o), SUM(o.amount) FROM Opportunity o " +
+           "WHERE o.stage IN ('CLOSED_WON', 'CLOSED_LOST') AND o.actualCloseDate BETWEEN :from AND :to " +
+           "GROUP BY o.actualCloseDate, o.stage")
+    List<Object[]> getClosedStatsByDayAndStage(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Query("SELECT MIN(o.actualCloseDate) FROM Opportunity o")
+    LocalDate findEarliestActualCloseDate();
+    
     @Query("SELECT COUNT(o) FROM Opportunity o WHERE o.stage = :stage")
     Long countByStage(@Param("stage") Opportunity.OpportunityStage stage);
     
@@ -48,12 +175,17 @@ public interface OpportunityRepository extends JpaRepository<Opportunity, Long>
     @Query("SELECT o.stage, COUNT(o), SUM(o.amount) FROM Opportunity o GROUP BY o.stage")
     List<Object[]> getOpportunityStatsByStage();
     
+    @Query("SELECT o.stage, COUNT(o), SUM(o.amount), SUM(o.amount * o.probability / 100.0) FROM Opportunity o GROUP BY o.stage")
+    List<Object[]> getPipelineStatsByStage();
+    
+    @EntityGraph("Opportunity.parents")
     @Query("SELECT o FROM Opportunity o WHERE o.expectedCloseDate < :date AND o.stage NOT IN ('CLOSED_WON', 'CLOSED_LOST')")
     List<Opportunity> findOverdueOpportunities(@Param("date") LocalDate date);
     
     @Query("SELECT AVG(o.amount) FROM Opportunity o WHERE o.stage = 'CLOSED_WON'")
     BigDecimal getAverageWonDealSize();
     
+    @EntityGraph("Opportunity.parents")
     @Query("SELECT o FROM Opportunity o WHERE o.customer.id = :customerId ORDER BY o.createdAt DESC")
     List<Opportunity> findByCustomerIdOrderByCreatedAtDesc(@Param("customerId") Long customerId);
 }
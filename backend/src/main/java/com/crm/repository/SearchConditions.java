@@ -0,0 +1,27 @@
+package com.crm.repository;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+
+/**
+ * Builds the criteria form of the repositories' {@code SEARCH_TERM} conditions.
+ */
+final class SearchConditions {
+
+    private SearchConditions() {
+    }
+
+    /**
+     * {@code LOWER(field) LIKE LOWER(CONCAT('%', :search, '%'))} for any of {@code fields}.
+     */
+    @SafeVarargs
+    static Predicate containing(CriteriaBuilder cb, String search, Expression<String>... fields) {
+        Expression<String> pattern = cb.lower(cb.literal("%" + search + "%"));
+        Predicate[] matches = new Predicate[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            matches[i] = cb.like(cb.lower(fields[i]), pattern);
+        }
+        return cb.or(matches);
+    }
+}
@@ -0,0 +1,784 @@
+package com.crm.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie of display labels that answers "top K labels starting with a prefix".
+ *
+ * <p>Each label is indexed under every word start (up to {@link #MAX_WORD_STARTS}), so
+ * "acme" finds "New Acme Corp" and "smi" finds "John Smith". Nodes with more than
+ * {@link #LIST_THRESHOLD} times {@code maxResults} keys below them keep the best
+ * {@code maxResults} documents of their subtree, ordered by score; smaller subtrees are
+ * ranked when asked. Either way a lookup does not depend on how many labels share the
+ * prefix. An insert offers the document to the lists on its path, stopping at the first
+ * one that does not take it; a removal rebuilds only the lists that held the document.
+ *
+ * <p>The index is laid out in primitive arrays so that millions of labels stay small:
+ * documents are slots in parallel arrays, each label and its normalized form are written
+ * once into shared {@code char} pages that the trie edges point into, and nodes are
+ * parallel arrays linked by index. Text left behind by renamed or removed documents is
+ * reclaimed by rebuilding the trie once it outweighs the live text. Labels are cut to
+ * {@link #MAX_LABEL_LENGTH} characters.
+ */
+public final class AutocompleteIndex {
+
+    static final int MAX_WORD_STARTS = 4;
+    static final int MAX_LABEL_LENGTH = 1024;
+
+    private static final int LIST_THRESHOLD = 4;
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MIN_COMPACTED_TEXT = 4 * PAGE_SIZE;
+    private static final int NONE = -1;
+    private static final int SHARED = -2;
+    private static final int ROOT = 0;
+
+    private final int maxResults;
+    private final int listedKeys;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Documents, by slot; the normalized label follows the label in the text
+    private final SlotMap slots = new SlotMap();
+    private final IntStack freeSlots = new IntStack();
+    private int slotCount;
+    private long[] documentIds = new long[16];
+    private long[] scores = new long[16];
+    private int[] labelStarts = new int[16];
+    private int[] labelLengths = new int[16];
+    private int[] keyLengths = new int[16];
+
+    // Text pages; a position is the page number shifted above the offset in the page
+    private char[][] text = new char[4][];
+    private int pageCount;
+    private int pageOffset = PAGE_SIZE;
+    private long textUsed;
+    private long liveText;
+
+    // Nodes, by index; children are a sibling chain ordered by their edge's first char
+    private final IntStack freeNodes = new IntStack();
+    private int nodeCount;
+    private int[] edgeStarts = new int[16];
+    private int[] edgeLengths = new int[16];
+    private int[] firstChildren = new int[16];
+    private int[] nextSiblings = new int[16];
+    private int[] terminals = new int[16];
+    private int[] keyCounts = new int[16];
+    private int[] lists = new int[16];
+    private final Map<Integer, PostingList> sharedTerminals = new HashMap<>();
+
+    // Lists of the best slots, maxResults entries per list
+    private final IntStack freeLists = new IntStack();
+    private int listCount;
+    private int[] listEntries;
+    private int[] listSizes = new int[16];
+
+    private int[] path = new int[64];
+
+    public AutocompleteIndex(int maxResults) {
+        this.maxResults = maxResults;
+        this.listedKeys = maxResults * LIST_THRESHOLD;
+        this.listEntries = new int[16 * maxResults];
+        newNode(0, 0);
+    }
+
+    /**
+     * Adds or replaces a document. A {@code null} or blank label removes it.
+     */
+    public void put(long documentId, String label, long score) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(documentId);
+            if (label == null || label.trim().isEmpty()) {
+                if (slot != NONE) {
+                    release(slot);
+                }
+            } else {
+                String kept = label.length() > MAX_LABEL_LENGTH ? label.substring(0, MAX_LABEL_LENGTH) : label;
+                if (slot == NONE) {
+                    slot = allocateSlot(documentId);
+                    write(slot, kept);
+                } else {
+                    unindex(slot);
+                    if (!hasLabel(slot, kept)) {
+                        // Edges may still point into the old text, so it is left in place
+                        liveText -= labelLengths[slot] + keyLengths[slot];
+                        write(slot, kept);
+                    }
+                }
+                scores[slot] = score;
+                index(slot);
+            }
+            compactIfWasteful();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long documentId) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(documentId);
+            if (slot != NONE) {
+                release(slot);
+                compactIfWasteful();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} (at most {@code maxResults}) best-scored documents
+     * with a label word starting with {@code prefix}, as {id, label} pairs.
+     */
+    public List<Object[]> complete(String prefix, int limit) {
+        char[] key = normalize(prefix).toCharArray();
+        lock.readLock().lock();
+        try {
+            int node = find(key);
+            if (node == NONE) {
+                return new ArrayList<>(0);
+            }
+            int[] best;
+            int base;
+            int count;
+            if (lists[node] != NONE) {
+                best = listEntries;
+                base = lists[node] * maxResults;
+                count = listSizes[lists[node]];
+            } else {
+                best = new int[maxResults];
+                base = 0;
+                count = collect(node, best, 0, 0);
+            }
+            count = Math.min(count, Math.min(limit, maxResults));
+            List<Object[]> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int slot = best[base + i];
+                result.add(new Object[] {documentIds[slot], label(slot)});
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int find(char[] key) {
+        int node = ROOT;
+        int offset = 0;
+        while (offset < key.length) {
+            int child = child(node, key[offset]);
+            if (child == NONE) {
+                return NONE;
+            }
+            int common = commonPrefix(child, key, offset, key.length);
+            if (offset + common == key.length) {
+                // The prefix ends inside (or at the end of) this edge
+                return child;
+            }
+            if (common < edgeLengths[child]) {
+                return NONE;
+            }
+            offset += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private void index(int slot) {
+        int start = labelStarts[slot] + labelLengths[slot];
+        int end = start + keyLengths[slot];
+        char[] page = text[start >>> PAGE_BITS];
+        int words = 0;
+        for (int position = start; position < end && words < MAX_WORD_STARTS; position++) {
+            if (position == start || page[(position - 1) & PAGE_MASK] == ' ') {
+                insert(slot, position, end);
+                words++;
+            }
+        }
+    }
+
+    private void unindex(int slot) {
+        int start = labelStarts[slot] + labelLengths[slot];
+        int end = start + keyLengths[slot];
+        char[] page = text[start >>> PAGE_BITS];
+        int words = 0;
+        for (int position = start; position < end && words < MAX_WORD_STARTS; position++) {
+            if (position == start || page[(position - 1) & PAGE_MASK] == ' ') {
+                delete(slot, position, end);
+                words++;
+            }
+        }
+    }
+
+    /**
+     * Indexes the key stored at text positions {@code [from, to)} for {@code slot}.
+     */
+    private void insert(int slot, int from, int to) {
+        char[] page = text[from >>> PAGE_BITS];
+        int pageBase = from & ~PAGE_MASK;
+        int offset = from & PAGE_MASK;
+        int end = offset + (to - from);
+        int node = ROOT;
+        int depth = push(0, node);
+        while (offset < end) {
+            int child = child(node, page[offset]);
+            if (child == NONE) {
+                child = newNode(pageBase | offset, end - offset);
+                addChild(node, child);
+                offset = end;
+            } else {
+                int common = commonPrefix(child, page, offset, end);
+                if (common < edgeLengths[child]) {
+                    child = split(node, child, common);
+                }
+                offset += common;
+            }
+            node = child;
+            depth = push(depth, node);
+        }
+        addTerminal(node, slot);
+        // Deepest first, so a list built here sees its children's updated lists.
+        // A new document can only enter lists; a parent cannot take it if a child did not.
+        boolean taken = true;
+        for (int i = depth - 1; i >= 0; i--) {
+            int current = path[i];
+            keyCounts[current]++;
+            if (lists[current] == NONE) {
+                if (keyCounts[current] > listedKeys) {
+                    addList(current);
+                }
+            } else if (taken) {
+                taken = accept(current, slot);
+            }
+        }
+    }
+
+    private void delete(int slot, int from, int to) {
+        char[] page = text[from >>> PAGE_BITS];
+        int offset = from & PAGE_MASK;
+        int end = offset + (to - from);
+        int node = ROOT;
+        int depth = push(0, node);
+        while (offset < end) {
+            int child = child(node, page[offset]);
+            if (child == NONE || commonPrefix(child, page, offset, end) < edgeLengths[child]) {
+                return;
+            }
+            offset += edgeLengths[child];
+            node = child;
+            depth = push(depth, node);
+        }
+        removeTerminal(node, slot);
+        for (int i = 0; i < depth; i++) {
+            keyCounts[path[i]]--;
+        }
+        while (depth > 1 && terminals[path[depth - 1]] == NONE && firstChildren[path[depth - 1]] == NONE) {
+            removeChild(path[depth - 2], path[depth - 1]);
+            freeNode(path[depth - 1]);
+            depth--;
+        }
+        // Only lists that held the document change, and a parent only holds it via such a child
+        for (int i = depth - 1; i >= 0; i--) {
+            int current = path[i];
+            if (lists[current] == NONE) {
+                continue;
+            }
+            if (!listContains(current, slot)) {
+                break;
+            }
+            recompute(current);
+        }
+    }
+
+    private int split(int parent, int child, int at) {
+        int middle = newNode(edgeStarts[child], at);
+        replaceChild(parent, child, middle);
+        edgeStarts[child] += at;
+        edgeLengths[child] -= at;
+        firstChildren[middle] = child;
+        keyCounts[middle] = keyCounts[child];
+        if (lists[child] != NONE) {
+            int list = newList();
+            System.arraycopy(listEntries, lists[child] * maxResults, listEntries, list * maxResults, maxResults);
+            listSizes[list] = listSizes[lists[child]];
+            lists[middle] = list;
+        }
+        return middle;
+    }
+
+    private void addList(int node) {
+        lists[node] = newList();
+        recompute(node);
+    }
+
+    /**
+     * Offers a newly indexed document to {@code node}'s list; returns whether it was taken.
+     */
+    private boolean accept(int node, int slot) {
+        int list = lists[node];
+        listSizes[list] = offer(listEntries, list * maxResults, listSizes[list], slot);
+        return listContains(node, slot);
+    }
+
+    /**
+     * Rebuilds {@code node}'s list from its own documents and its children's.
+     */
+    private void recompute(int node) {
+        int list = lists[node];
+        listSizes[list] = collect(node, listEntries, list * maxResults, 0);
+    }
+
+    /**
+     * Offers the documents of {@code node}'s subtree to the {@code count} entries of
+     * {@code best} starting at {@code base}, using the children's lists where they have
+     * one, and returns the new count. {@code node}'s own list is not read.
+     */
+    private int collect(int node, int[] best, int base, int count) {
+        int terminal = terminals[node];
+        if (terminal >= 0) {
+            count = offer(best, base, count, terminal);
+        } else if (terminal == SHARED) {
+            for (int slot : sharedTerminals.get(node).toArray()) {
+                count = offer(best, base, count, slot);
+            }
+        }
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            if (lists[child] == NONE) {
+                count = collect(child, best, base, count);
+            } else {
+                int from = lists[child] * maxResults;
+                for (int i = 0; i < listSizes[lists[child]]; i++) {
+                    count = offer(best, base, count, listEntries[from + i]);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inserts {@code slot} into the score-ordered entries of {@code best} starting at
+     * {@code base} unless it is already present or scores lower than a full list's last
+     * entry. Returns the new count.
+     */
+    private int offer(int[] best, int base, int count, int slot) {
+        for (int i = 0; i < count; i++) {
+            if (best[base + i] == slot) {
+                return count;
+            }
+        }
+        int position = count;
+        while (position > 0 && outranks(slot, best[base + position - 1])) {
+            position--;
+        }
+        if (position >= maxResults) {
+            return count;
+        }
+        int moved = Math.min(count, maxResults - 1) - position;
+        System.arraycopy(best, base + position, best, base + position + 1, moved);
+        best[base + position] = slot;
+        return Math.min(count + 1, maxResults);
+    }
+
+    private boolean outranks(int slot, int other) {
+        return scores[slot] > scores[other] || (scores[slot] == scores[other] && documentIds[slot] > documentIds[other]);
+    }
+
+    private boolean listContains(int node, int slot) {
+        int base = lists[node] * maxResults;
+        for (int i = 0; i < listSizes[lists[node]]; i++) {
+            if (listEntries[base + i] == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addTerminal(int node, int slot) {
+        int terminal = terminals[node];
+        if (terminal == NONE) {
+            terminals[node] = slot;
+        } else if (terminal == SHARED) {
+            sharedTerminals.get(node).add(slot);
+        } else {
+            PostingList shared = new PostingList();
+            shared.add(terminal);
+            shared.add(slot);
+            sharedTerminals.put(node, shared);
+            terminals[node] = SHARED;
+        }
+    }
+
+    private void removeTerminal(int node, int slot) {
+        int terminal = terminals[node];
+        if (terminal == slot) {
+            terminals[node] = NONE;
+        } else if (terminal == SHARED) {
+            PostingList shared = sharedTerminals.get(node);
+            shared.remove(slot);
+            if (shared.size() == 1) {
+                terminals[node] = shared.toArray()[0];
+                sharedTerminals.remove(node);
+            }
+        }
+    }
+
+    private int child(int node, char first) {
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            char c = charAt(edgeStarts[child]);
+            if (c >= first) {
+                return c == first ? child : NONE;
+            }
+        }
+        return NONE;
+    }
+
+    private void addChild(int parent, int child) {
+        char first = charAt(edgeStarts[child]);
+        int previous = NONE;
+        int next = firstChildren[parent];
+        while (next != NONE && charAt(edgeStarts[next]) < first) {
+            previous = next;
+            next = nextSiblings[next];
+        }
+        link(parent, previous, child);
+        nextSiblings[child] = next;
+    }
+
+    private void replaceChild(int parent, int existing, int replacement) {
+        int previous = previousSibling(parent, existing);
+        link(parent, previous, replacement);
+        nextSiblings[replacement] = nextSiblings[existing];
+        nextSiblings[existing] = NONE;
+    }
+
+    private void removeChild(int parent, int child) {
+        link(parent, previousSibling(parent, child), nextSiblings[child]);
+        nextSiblings[child] = NONE;
+    }
+
+    private int previousSibling(int parent, int child) {
+        int previous = NONE;
+        for (int current = firstChildren[parent]; current != child; current = nextSiblings[current]) {
+            previous = current;
+        }
+        return previous;
+    }
+
+    private void link(int parent, int previous, int child) {
+        if (previous == NONE) {
+            firstChildren[parent] = child;
+        } else {
+            nextSiblings[previous] = child;
+        }
+    }
+
+    private int commonPrefix(int node, char[] key, int offset, int end) {
+        char[] page = text[edgeStarts[node] >>> PAGE_BITS];
+        int start = edgeStarts[node] & PAGE_MASK;
+        int max = Math.min(edgeLengths[node], end - offset);
+        int i = 0;
+        while (i < max && page[start + i] == key[offset + i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private int newNode(int edgeStart, int edgeLength) {
+        int node;
+        if (freeNodes.isEmpty()) {
+            node = nodeCount++;
+            if (node == edgeStarts.length) {
+                int capacity = node + (node >> 1);
+                edgeStarts = Arrays.copyOf(edgeStarts, capacity);
+                edgeLengths = Arrays.copyOf(edgeLengths, capacity);
+                firstChildren = Arrays.copyOf(firstChildren, capacity);
+                nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+                terminals = Arrays.copyOf(terminals, capacity);
+                keyCounts = Arrays.copyOf(keyCounts, capacity);
+                lists = Arrays.copyOf(lists, capacity);
+            }
+        } else {
+            node = freeNodes.pop();
+        }
+        edgeStarts[node] = edgeStart;
+        edgeLengths[node] = edgeLength;
+        firstChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        terminals[node] = NONE;
+        keyCounts[node] = 0;
+        lists[node] = NONE;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        if (lists[node] != NONE) {
+            freeLists.push(lists[node]);
+        }
+        freeNodes.push(node);
+    }
+
+    private int newList() {
+        if (!freeLists.isEmpty()) {
+            return freeLists.pop();
+        }
+        int list = listCount++;
+        if (list == listSizes.length) {
+            int capacity = list + (list >> 1);
+            listSizes = Arrays.copyOf(listSizes, capacity);
+            listEntries = Arrays.copyOf(listEntries, capacity * maxResults);
+        }
+        return list;
+    }
+
+    private int push(int depth, int node) {
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth] = node;
+        return depth + 1;
+    }
+
+    private int allocateSlot(long documentId) {
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = slotCount++;
+            if (slot == documentIds.length) {
+                int capacity = slot + (slot >> 1);
+                documentIds = Arrays.copyOf(documentIds, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                labelStarts = Arrays.copyOf(labelStarts, capacity);
+                labelLengths = Arrays.copyOf(labelLengths, capacity);
+                keyLengths = Arrays.copyOf(keyLengths, capacity);
+            }
+        } else {
+            slot = freeSlots.pop();
+        }
+        documentIds[slot] = documentId;
+        slots.put(documentId, slot);
+        return slot;
+    }
+
+    private void release(int slot) {
+        unindex(slot);
+        liveText -= labelLengths[slot] + keyLengths[slot];
+        slots.remove(documentIds[slot]);
+        labelStarts[slot] = NONE;
+        freeSlots.push(slot);
+    }
+
+    private void write(int slot, String label) {
+        String key = normalize(label);
+        int start = reserve(label.length() + key.length());
+        char[] page = text[start >>> PAGE_BITS];
+        label.getChars(0, label.length(), page, start & PAGE_MASK);
+        key.getChars(0, key.length(), page, (start & PAGE_MASK) + label.length());
+        labelStarts[slot] = start;
+        labelLengths[slot] = label.length();
+        keyLengths[slot] = key.length();
+        liveText += label.length() + key.length();
+    }
+
+    private boolean hasLabel(int slot, String label) {
+        if (labelLengths[slot] != label.length()) {
+            return false;
+        }
+        char[] page = text[labelStarts[slot] >>> PAGE_BITS];
+        int start = labelStarts[slot] & PAGE_MASK;
+        for (int i = 0; i < label.length(); i++) {
+            if (page[start + i] != label.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String label(int slot) {
+        return new String(text[labelStarts[slot] >>> PAGE_BITS], labelStarts[slot] & PAGE_MASK, labelLengths[slot]);
+    }
+
+    private char charAt(int position) {
+        return text[position >>> PAGE_BITS][position & PAGE_MASK];
+    }
+
+    private int reserve(int length) {
+        if (pageOffset + length > PAGE_SIZE) {
+            if (pageCount == text.length) {
+                text = Arrays.copyOf(text, pageCount * 2);
+            }
+            text[pageCount++] = new char[PAGE_SIZE];
+            pageOffset = 0;
+        }
+        int position = ((pageCount - 1) << PAGE_BITS) | pageOffset;
+        pageOffset += length;
+        textUsed += length;
+        return position;
+    }
+
+    /**
+     * Rewrites the live text into fresh pages and rebuilds the trie over it once more than
+     * half of the written text belongs to old labels.
+     */
+    private void compactIfWasteful() {
+        if (textUsed < MIN_COMPACTED_TEXT || textUsed < 2 * liveText) {
+            return;
+        }
+        char[][] previous = text;
+        text = new char[4][];
+        pageCount = 0;
+        pageOffset = PAGE_SIZE;
+        textUsed = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (labelStarts[slot] != NONE) {
+                int length = labelLengths[slot] + keyLengths[slot];
+                int start = reserve(length);
+                System.arraycopy(previous[labelStarts[slot] >>> PAGE_BITS], labelStarts[slot] & PAGE_MASK,
+                        text[start >>> PAGE_BITS], start & PAGE_MASK, length);
+                labelStarts[slot] = start;
+            }
+        }
+        nodeCount = 0;
+        freeNodes.clear();
+        listCount = 0;
+        freeLists.clear();
+        sharedTerminals.clear();
+        newNode(0, 0);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (labelStarts[slot] != NONE) {
+                index(slot);
+            }
+        }
+    }
+
+    static List<String> keysOf(String label) {
+        String[] words = normalize(label).split(" ");
+        List<String> keys = new ArrayList<>(Math.min(words.length, MAX_WORD_STARTS));
+        for (int i = 0; i < words.length && i < MAX_WORD_STARTS; i++) {
+            if (!words[i].isEmpty()) {
+                String key = String.join(" ", Arrays.asList(words).subList(i, words.length));
+                if (!keys.contains(key)) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return SearchText.fold(text).trim().replaceAll("\\s+", " ");
+    }
+
+    private static final class IntStack {
+        private int[] values = new int[16];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int pop() {
+            return values[--size];
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Open-addressing map from document id to slot, with linear probing.
+     */
+    private static final class SlotMap {
+        private long[] keys = new long[16];
+        private int[] values = new int[16]; // slot + 1, or 0 for an empty cell
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = home(key, mask); values[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i] - 1;
+                }
+            }
+            return NONE;
+        }
+
+        /**
+         * Adds {@code key}, which must not be present.
+         */
+        void put(long key, int slot) {
+            if ((size + 1) * 3 > keys.length * 2) {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new int[oldKeys.length * 2];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldValues[i] != 0) {
+                        put(oldKeys[i], oldValues[i] - 1);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int i = home(key, mask);
+            while (values[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = slot + 1;
+            size++;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int gap = home(key, mask);
+            while (values[gap] != 0 && keys[gap] != key) {
+                gap = (gap + 1) & mask;
+            }
+            if (values[gap] == 0) {
+                return;
+            }
+            // Pull later entries of the run back so no lookup stops early at the gap
+            for (int i = (gap + 1) & mask; values[i] != 0; i = (i + 1) & mask) {
+                if (((i - home(keys[i], mask)) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            values[gap] = 0;
+            size--;
+        }
+
+        private static int home(long key, int mask) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.crm.search;
+
+import com.crm.event.AfterCommitBuffer;
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Type-ahead suggestions for customer, contact and lead pickers.
+ *
+ * <p>Labels are customer company names, contact full names and lead companies, held in
+ * one {@link AutocompleteIndex} per entity and ranked by most recent write. The indexes
+ * are built in the background on startup and kept current by entity change events.
+ */
+@Service
+public class AutocompleteService {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompleteService.class);
+
+    private static final int RELOAD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Value("${crm.autocomplete.max-results:10}")
+    private int maxResults;
+
+    @Value("${crm.search.build-batch-size:5000}")
+    private int buildBatchSize;
+
+    private final Map<String, Source> sources = new LinkedHashMap<>();
+    private final AfterCommitBuffer<EntityChangeEvent> pendingChanges = new AfterCommitBuffer<>(this::applyChanges);
+
+    @PostConstruct
+    void init() {
+        sources.put("customers", new Source(Customer.class, customerRepository::findLabelsAfter,
+                customerRepository::findLabelsByIdIn));
+        sources.put("contacts", new Source(Contact.class, contactRepository::findLabelsAfter,
+                contactRepository::findLabelsByIdIn));
+        sources.put("leads", new Source(Lead.class, leadRepository::findLabelsAfter,
+                leadRepository::findLabelsByIdIn));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        Thread builder = new Thread(() -> sources.forEach(this::build), "autocomplete-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        for (Source source : sources.values()) {
+            if (event.isAbout(source.entityType)) {
+                pendingChanges.add(event);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies a committed transaction's changes, reloading the rows it wrote in batches.
+     */
+    private void applyChanges(List<EntityChangeEvent> events) {
+        Map<Source, Set<Long>> reloads = new LinkedHashMap<>();
+        for (EntityChangeEvent event : events) {
+            for (Source source : sources.values()) {
+                if (!event.isAbout(source.entityType)) {
+                    continue;
+                }
+                if (source.building) {
+                    source.changedDuringBuild.add(event.getEntityId());
+                }
+                if (event.getChangeType() == EntityChangeEvent.ChangeType.DELETED) {
+                    reloads.getOrDefault(source, Collections.emptySet()).remove(event.getEntityId());
+                    source.index.remove(event.getEntityId());
+                } else {
+                    reloads.computeIfAbsent(source, s -> new LinkedHashSet<>()).add(event.getEntityId());
+                }
+            }
+        }
+        reloads.forEach(Source::reload);
+    }
+
+    public boolean supports(String entity) {
+        return sources.containsKey(entity);
+    }
+
+    public boolean isReady(String entity) {
+        Source source = sources.get(entity);
+        return source != null && source.ready;
+    }
+
+    /**
+     * Returns up to {@code limit} suggestions for {@code prefix}, most recently written first.
+     */
+    public List<Suggestion> complete(String entity, String prefix, int limit) {
+        Source source = sources.get(entity);
+        List<Object[]> matches = source.index.complete(prefix != null ? prefix : "", limit);
+        List<Suggestion> suggestions = new ArrayList<>(matches.size());
+        for (Object[] match : matches) {
+            suggestions.add(new Suggestion((Long) match[0], (String) match[1]));
+        }
+        return suggestions;
+    }
+
+    private void build(String entity, Source source) {
+        long started = System.nanoTime();
+        source.building = true;
+        try {
+            Long afterId = 0L;
+            List<Object[]> rows;
+            while (!(rows = source.batchLoader.apply(afterId, PageRequest.of(0, buildBatchSize))).isEmpty()) {
+                source.index(rows);
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } catch (RuntimeException e) {
+            source.building = false;
+            log.warn("Autocomplete index for {} could not be built", entity, e);
+            return;
+        }
+        source.building = false;
+        Set<Long> changed = new HashSet<>(source.changedDuringBuild);
+        source.changedDuringBuild.removeAll(changed);
+        source.reload(changed);
+        source.ready = true;
+        log.info("Autocomplete index for {} built: {} labels in {} ms", entity, source.index.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private final class Source {
+        final Class<?> entityType;
+        final AutocompleteIndex index = new AutocompleteIndex(maxResults);
+        final BiFunction<Long, Pageable, List<Object[]>> batchLoader;
+        final Function<Collection<Long>, List<Object[]>> idLoader;
+        final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+        volatile boolean building;
+        volatile boolean ready;
+
+        Source(Class<?> entityType, BiFunction<Long, Pageable, List<Object[]>> batchLoader,
+               Function<Collection<Long>, List<Object[]>> idLoader) {
+            this.entityType = entityType;
+            this.batchLoader = batchLoader;
+            this.idLoader = idLoader;
+        }
+
+        void reload(Collection<Long> ids) {
+            List<Long> pending = new ArrayList<>(ids);
+            for (int from = 0; from < pending.size(); from += RELOAD_BATCH_SIZE) {
+                List<Long> batch = pending.subList(from, Math.min(pending.size(), from + RELOAD_BATCH_SIZE));
+                List<Object[]> rows = idLoader.apply(batch);
+                Set<Long> missing = new HashSet<>(batch);
+                for (Object[] row : rows) {
+                    missing.remove((Long) row[0]);
+                }
+                index(rows);
+                missing.forEach(index::remove);
+            }
+        }
+
+        void index(List<Object[]> rows) {
+            for (Object[] row : rows) {
+                LocalDateTime touched = (LocalDateTime) row[2];
+                long score = touched != null ? touched.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+                index.put((Long) row[0], (String) row[1], score);
+            }
+        }
+    }
+
+    public static class Suggestion {
+        private Long id;
+        private String label;
+
+        public Suggestion(Long id, String label) {
+            this.id = id;
+            this.label = label;
+        }
+
+        // Getters and setters
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getLabel() { return label; }
+        public void setLabel(String label) { this.label = label; }
+    }
+}
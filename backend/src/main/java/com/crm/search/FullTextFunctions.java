@@ -0,0 +1,42 @@
+package com.crm.search;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Registers {@code fulltext_match_1} .. {@code fulltext_match_5} for JPQL, rendered as
+ * MySQL's {@code MATCH(col, ...) AGAINST(query IN BOOLEAN MODE)} with the query as the
+ * last argument. The column list must be exactly the column list of a FULLTEXT index.
+ *
+ * <p>The functions are registered on every database so the repository queries parse
+ * everywhere, but only {@link FullTextSearchService} on MySQL calls them.
+ */
+@Component
+public class FullTextFunctions implements MetadataBuilderContributor, HibernatePropertiesCustomizer {
+
+    static final int MAX_COLUMNS = 5;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.metadata_builder_contributor", this);
+    }
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        for (int columns = 1; columns <= MAX_COLUMNS; columns++) {
+            StringBuilder template = new StringBuilder("MATCH(");
+            for (int i = 1; i <= columns; i++) {
+                template.append(i > 1 ? ", " : "").append('?').append(i);
+            }
+            template.append(") AGAINST(?").append(columns + 1).append(" IN BOOLEAN MODE)");
+            metadataBuilder.applySqlFunction("fulltext_match_" + columns,
+                    new SQLFunctionTemplate(StandardBasicTypes.DOUBLE, template.toString()));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.crm.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * MySQL FULLTEXT search for the list endpoints.
+ *
+ * <p>When enabled and the database is MySQL, searches run as {@code MATCH ... AGAINST} in
+ * boolean mode, every word of
+ * the term required as a word prefix ("acm corp" matches "Acme Corporation"). Unsorted
+ * requests ({@code sortBy=relevance}) are ordered by relevance. Unlike the {@code LIKE}
+ * queries this does not find text in the middle of a word, so terms with a word shorter
+ * than the server's minimum token size, or without any letters or digits, return
+ * {@code null} and the caller falls back to the regular search. On any other database
+ * the service stays disabled.
+ *
+ * <p>The FULLTEXT indexes below come from {@code database/mysql-setup.sql} (or
+ * {@code mysql-fulltext-indexes.sql} for existing databases), never from the application:
+ * adding one rebuilds the table. Startup only checks that they all exist, and stays
+ * disabled if any is missing.
+ */
+@Service
+public class FullTextSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(FullTextSearchService.class);
+
+    // Table, index name, columns; the column lists must match the fulltext_match_N calls in the repositories
+    private static final List<String[]> INDEXES = List.of(
+            new String[] {"customers", "ft_customers_search", "company_name, industry, email, city"},
+            new String[] {"customers", "ft_customers_company_name", "company_name"},
+            new String[] {"contacts", "ft_contacts_search", "first_name, last_name, email, job_title"},
+            new String[] {"leads", "ft_leads_search", "first_name, last_name, email, company, job_title"},
+            new String[] {"opportunities", "ft_opportunities_search", "name, description"},
+            new String[] {"activities", "ft_activities_search", "subject, description"});
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${crm.search.fulltext-enabled:false}")
+    private boolean requested;
+
+    @Value("${crm.search.fulltext-min-token-length:3}")
+    private int minTokenLength;
+
+    private volatile boolean enabled;
+
+    @PostConstruct
+    void init() {
+        if (!requested) {
+            return;
+        }
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(product)) {
+            log.info("Full-text search requested but the database is {}; using the regular search", product);
+            return;
+        }
+        try {
+            List<String> missing = new ArrayList<>();
+            for (String[] index : INDEXES) {
+                if (!indexExists(index[0], index[1])) {
+                    missing.add(index[0] + "." + index[1] + " (" + index[2] + ")");
+                }
+            }
+            if (!missing.isEmpty()) {
+                log.warn("Full-text search requested but indexes {} are missing (see database/mysql-fulltext-indexes.sql); "
+                        + "using the regular search", missing);
+                return;
+            }
+            enabled = true;
+        } catch (DataAccessException e) {
+            log.warn("Full-text indexes could not be checked; using the regular search", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs a full-text search, or returns {@code null} when full-text search is disabled
+     * or cannot express {@code term}. The result is whatever the query methods return,
+     * a {@code Page} or a count-free {@code Slice}.
+     */
+    public <R> R search(String term, Pageable pageable, BiFunction<String, Pageable, R> matching,
+                        BiFunction<String, Pageable, R> byRelevance) {
+        if (!enabled) {
+            return null;
+        }
+        String query = booleanQuery(term, minTokenLength);
+        if (query == null) {
+            return null;
+        }
+        return pageable.getSort().isUnsorted() ? byRelevance.apply(query, pageable) : matching.apply(query, pageable);
+    }
+
+    /**
+     * Builds a boolean-mode query requiring every word of {@code term} as a prefix, or
+     * returns {@code null} if a word is too short to be indexed or there are no words.
+     */
+    static String booleanQuery(String term, int minTokenLength) {
+        List<String> words = TokenIndex.tokenize(term);
+        if (words.isEmpty()) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String word : words) {
+            if (word.length() < minTokenLength) {
+                return null;
+            }
+            query.append(query.length() > 0 ? " " : "").append('+').append(word).append('*');
+        }
+        return query.toString();
+    }
+
+    private boolean indexExists(String table, String name) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ? AND index_type = 'FULLTEXT'",
+                Integer.class, table, name);
+        return existing != null && existing > 0;
+    }
+}
@@ -0,0 +1,326 @@
+package com.crm.search;
+
+import com.crm.model.Activity;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.paging.SlicePage;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * One search box for all five entity types.
+ *
+ * <p>A query runs the per-entity searches of the list endpoints concurrently on a bounded
+ * pool. Every source has the same time budget, counted from the start of the fan-out, so
+ * the call as a whole returns within roughly that budget: sources still running when it
+ * runs out are left out of the response and reported as timed out. The hits that did
+ * arrive are ranked by where the term matched their title, then by most recent write.
+ * Each source loads one count-free slice of list rows, so no source pays for a
+ * {@code COUNT}; its total is only the search index's estimate, where there is one.
+ */
+@Service
+public class GlobalSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(GlobalSearchService.class);
+
+    @Autowired
+    private SearchIndexService searchIndex;
+
+    @Autowired
+    private FullTextSearchService fullTextSearch;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Value("${crm.global-search.timeout-ms:300}")
+    private long timeoutMs;
+
+    @Value("${crm.global-search.max-results:50}")
+    private int maxResults;
+
+    @Value("${crm.global-search.threads:10}")
+    private int threads;
+
+    @Value("${crm.global-search.queue-size:100}")
+    private int queueSize;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), searchThreads());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Searches every entity type for {@code term} and returns at most {@code limit}
+     * ranked hits, with per-source status.
+     */
+    public Result search(String term, int limit) {
+        int cap = Math.max(1, Math.min(limit, maxResults));
+        // The best {@code cap} hits overall can all come from one source
+        Pageable pageable = PageRequest.of(0, cap, Sort.by("updatedAt").descending().and(Sort.by("id").descending()));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        Map<String, CompletableFuture<SlicePage<Hit>>> running = new LinkedHashMap<>();
+        running.put("customers", submit(() -> find(Customer.class, term, pageable,
+                customerRepository::findSliceBySearchTerm,
+                (ids, p) -> customerRepository.findSliceBySearchTermAndIdIn(term, ids, p),
+                customerRepository::findSliceByFullTextOrderByRelevance,
+                customer -> hit("customer", customer.getId(), customer.getCompanyName(),
+                        customer.getIndustry(), customer.getUpdatedAt(), term))));
+        running.put("contacts", submit(() -> find(Contact.class, term, pageable,
+                contactRepository::findListItemSliceBySearchTerm,
+                (ids, p) -> contactRepository.findListItemSliceBySearchTermAndIdIn(term, ids, p),
+                contactRepository::findListItemSliceByFullTextOrderByRelevance,
+                contact -> hit("contact", contact.getId(), contact.getFirstName() + " " + contact.getLastName(),
+                        contact.getEmail(), contact.getUpdatedAt(), term))));
+        running.put("leads", submit(() -> find(Lead.class, term, pageable,
+                leadRepository::findSliceBySearchTerm,
+                (ids, p) -> leadRepository.findSliceBySearchTermAndIdIn(term, ids, p),
+                leadRepository::findSliceByFullTextOrderByRelevance,
+                lead -> hit("lead", lead.getId(), lead.getFirstName() + " " + lead.getLastName(),
+                        lead.getCompany(), lead.getUpdatedAt(), term))));
+        running.put("opportunities", submit(() -> find(Opportunity.class, term, pageable,
+                opportunityRepository::findListItemSliceBySearchTerm,
+                (ids, p) -> opportunityRepository.findListItemSliceBySearchTermAndIdIn(term, ids, p),
+                opportunityRepository::findListItemSliceByFullTextOrderByRelevance,
+                opportunity -> hit("opportunity", opportunity.getId(), opportunity.getName(),
+                        name(opportunity.getStage()), opportunity.getUpdatedAt(), term))));
+        running.put("activities", submit(() -> find(Activity.class, term, pageable,
+                activityRepository::findListItemSliceBySearchTerm,
+                (ids, p) -> activityRepository.findListItemSliceBySearchTermAndIdIn(term, ids, p),
+                activityRepository::findListItemSliceByFullTextOrderByRelevance,
+                activity -> hit("activity", activity.getId(), activity.getSubject(),
+                        name(activity.getType()), activity.getUpdatedAt(), term))));
+
+        Result result = new Result(term);
+        List<Hit> hits = new ArrayList<>();
+        running.forEach((source, future) -> {
+            SourceStatus status = new SourceStatus();
+            try {
+                long remaining = Math.max(0L, deadline - System.nanoTime());
+                SlicePage<Hit> page = future.get(remaining, TimeUnit.NANOSECONDS);
+                hits.addAll(page.getContent());
+                status.setStatus("OK");
+                status.setApproximateTotal(page.getApproximateTotal());
+            } catch (TimeoutException e) {
+                // Not interrupted: the query finishes on its pool thread and its result is dropped
+                future.cancel(false);
+                status.setStatus("TIMED_OUT");
+                result.setPartial(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status.setStatus("TIMED_OUT");
+                result.setPartial(true);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    status.setStatus("REJECTED");
+                } else {
+                    log.warn("Global search of {} for '{}' failed", source, term, e.getCause());
+                    status.setStatus("FAILED");
+                }
+                result.setPartial(true);
+            }
+            result.getSources().put(source, status);
+        });
+
+        result.setHits(hits.stream()
+                .sorted(Comparator.comparingInt(Hit::getScore).reversed()
+                        .thenComparing(Comparator.comparingLong(Hit::getUpdatedAtMillis).reversed()))
+                .limit(cap)
+                .collect(Collectors.toList()));
+        return result;
+    }
+
+    /**
+     * Fetches one source's hits without counting its matches; the approximate total is
+     * the index estimate, if there is one.
+     */
+    private <T> SlicePage<Hit> find(Class<?> type, String term, Pageable pageable,
+                                    BiFunction<String, Pageable, Slice<T>> scan,
+                                    BiFunction<Collection<Long>, Pageable, Slice<T>> narrowed,
+                                    BiFunction<String, Pageable, Slice<T>> byRelevance,
+                                    Function<T, Hit> hit) {
+        // Full-text results are fetched by relevance; the indexed search by recency
+        Slice<T> matches = fullTextSearch.search(term, PageRequest.of(0, pageable.getPageSize()), byRelevance, byRelevance);
+        SlicePage<T> page = matches != null ? new SlicePage<>(matches, null)
+                : searchIndex.searchSlice(type, term, pageable, scan, narrowed);
+        return page.map(hit);
+    }
+
+    private CompletableFuture<SlicePage<Hit>> submit(Supplier<SlicePage<Hit>> search) {
+        try {
+            return CompletableFuture.supplyAsync(search, executor);
+        } catch (RejectedExecutionException e) {
+            // The pool and its queue are full; the source is skipped rather than queued unboundedly
+            CompletableFuture<SlicePage<Hit>> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    private static Hit hit(String type, Long id, String title, String subtitle, LocalDateTime updatedAt, String term) {
+        Hit hit = new Hit();
+        hit.setType(type);
+        hit.setId(id);
+        hit.setTitle(title);
+        hit.setSubtitle(subtitle);
+        hit.setScore(score(title, term));
+        hit.setUpdatedAtMillis(updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L);
+        return hit;
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    /**
+     * Ranks where {@code term} occurs in {@code title}: the whole title, its start, the
+     * start of one of its words, anywhere in it, or only in another searched field.
+     */
+    static int score(String title, String term) {
+        if (title == null) {
+            return 0;
+        }
+        String folded = SearchText.fold(title);
+        String query = SearchText.fold(term);
+        if (folded.equals(query)) {
+            return 4;
+        }
+        if (folded.startsWith(query)) {
+            return 3;
+        }
+        int position = folded.indexOf(query);
+        while (position > 0) {
+            if (!Character.isLetterOrDigit(folded.charAt(position - 1))) {
+                return 2;
+            }
+            position = folded.indexOf(query, position + 1);
+        }
+        return folded.contains(query) ? 1 : 0;
+    }
+
+    private static ThreadFactory searchThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "global-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static class Hit {
+        private String type;
+        private Long id;
+        private String title;
+        private String subtitle;
+        private int score;
+        private long updatedAtMillis;
+
+        // Getters and setters
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+        public String getSubtitle() { return subtitle; }
+        public void setSubtitle(String subtitle) { this.subtitle = subtitle; }
+        public int getScore() { return score; }
+        public void setScore(int score) { this.score = score; }
+        public long getUpdatedAtMillis() { return updatedAtMillis; }
+        public void setUpdatedAtMillis(long updatedAtMillis) { this.updatedAtMillis = updatedAtMillis; }
+    }
+
+    /**
+     * How one source fared; {@code approximateTotal} is an upper bound on its matches
+     * from the search index, or {@code null} when the source was not narrowed by it.
+     */
+    public static class SourceStatus {
+        private String status;
+        private Long approximateTotal;
+
+        // Getters and setters
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+        public Long getApproximateTotal() { return approximateTotal; }
+        public void setApproximateTotal(Long approximateTotal) { this.approximateTotal = approximateTotal; }
+    }
+
+    public static class Result {
+        private String query;
+        private boolean partial;
+        private List<Hit> hits = new ArrayList<>();
+        private Map<String, SourceStatus> sources = new LinkedHashMap<>();
+
+        public Result(String query) {
+            this.query = query;
+        }
+
+        // Getters and setters
+        public String getQuery() { return query; }
+        public void setQuery(String query) { this.query = query; }
+        public boolean isPartial() { return partial; }
+        public void setPartial(boolean partial) { this.partial = partial; }
+        public List<Hit> getHits() { return hits; }
+        public void setHits(List<Hit> hits) { this.hits = hits; }
+        public Map<String, SourceStatus> getSources() { return sources; }
+        public void setSources(Map<String, SourceStatus> sources) { this.sources = sources; }
+    }
+}
@@ -0,0 +1,58 @@
+package com.crm.search;
+
+/**
+ * Accepts the strings within {@code maxEdits} insertions, deletions or substitutions of
+ * one word.
+ *
+ * <p>A state is the row of edit distances between the input read so far and every
+ * prefix of the word, with values above {@code maxEdits} clamped, so there are finitely
+ * many states and each step is a pure function of the state and the next character.
+ * {@link #canMatch} lets a caller walking a sorted dictionary drop every term sharing a
+ * prefix as soon as that prefix is out of reach, which is what keeps lookups from
+ * touching most of the dictionary.
+ */
+public final class LevenshteinAutomaton {
+
+    private final String word;
+    private final int maxEdits;
+
+    public LevenshteinAutomaton(String word, int maxEdits) {
+        this.word = word;
+        this.maxEdits = maxEdits;
+    }
+
+    public int[] start() {
+        int[] state = new int[word.length() + 1];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = Math.min(i, maxEdits + 1);
+        }
+        return state;
+    }
+
+    public int[] step(int[] state, char c) {
+        int[] next = new int[state.length];
+        next[0] = Math.min(state[0] + 1, maxEdits + 1);
+        for (int i = 1; i < state.length; i++) {
+            int substitution = state[i - 1] + (word.charAt(i - 1) == c ? 0 : 1);
+            int distance = Math.min(substitution, Math.min(state[i] + 1, next[i - 1] + 1));
+            next[i] = Math.min(distance, maxEdits + 1);
+        }
+        return next;
+    }
+
+    public boolean isMatch(int[] state) {
+        return state[state.length - 1] <= maxEdits;
+    }
+
+    /**
+     * Returns whether some continuation of the input read so far can still be accepted.
+     */
+    public boolean canMatch(int[] state) {
+        for (int distance : state) {
+            if (distance <= maxEdits) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,134 @@
+package com.crm.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, growable list of document ids backed by a primitive {@code int[]}.
+ * Not thread-safe; the owning index guards access.
+ */
+public final class PostingList {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] ids = EMPTY;
+    private int size;
+
+    public boolean add(int id) {
+        if (size > 0 && ids[size - 1] < id) {
+            // Documents are mostly indexed in id order, so appending is the common case
+            ensureCapacity(size + 1);
+            ids[size++] = id;
+            return true;
+        }
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return false;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        if (size == 0) {
+            ids = EMPTY;
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Appends this list's ids to {@code target} starting at {@code offset} and returns
+     * the new offset. {@code target} must have room.
+     */
+    int copyTo(int[] target, int offset) {
+        System.arraycopy(ids, 0, target, offset, size);
+        return offset + size;
+    }
+
+    /**
+     * Returns the ids of the sorted {@code candidates} array that are also in this list.
+     */
+    int[] retain(int[] candidates) {
+        if ((long) candidates.length * 8 < size) {
+            // Few candidates against a long list: probe instead of walking the whole list
+            int[] result = new int[candidates.length];
+            int count = 0;
+            for (int id : candidates) {
+                if (Arrays.binarySearch(ids, 0, size, id) >= 0) {
+                    result[count++] = id;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        return intersect(candidates, ids, size);
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (ids.length < capacity) {
+            ids = Arrays.copyOf(ids, Math.max(4, Math.max(capacity, ids.length + (ids.length >> 1))));
+        }
+    }
+
+    static int[] intersect(int[] left, int[] right) {
+        return intersect(left, right, right.length);
+    }
+
+    private static int[] intersect(int[] left, int[] right, int rightLength) {
+        int[] result = new int[Math.min(left.length, rightLength)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < rightLength) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    static int[] sortedDistinct(int[] ids, int length) {
+        return Arrays.copyOf(ids, sortedDistinctInPlace(ids, length));
+    }
+
+    /**
+     * Sorts the first {@code length} ids, moves the distinct ones to the front and returns
+     * how many there are.
+     */
+    static int sortedDistinctInPlace(int[] ids, int length) {
+        Arrays.sort(ids, 0, length);
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (count == 0 || ids[count - 1] != ids[i]) {
+                ids[count++] = ids[i];
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,400 @@
+package com.crm.search;
+
+import com.crm.event.AfterCommitBuffer;
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.paging.SlicePage;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Serves the {@code search} parameter of the list endpoints from in-memory indexes.
+ *
+ * <p>Terms of three or more characters are matched in a {@link TrigramIndex}; shorter
+ * ones are narrowed by a {@link TokenIndex}. Either way the page itself is still loaded
+ * with the original {@code LIKE} predicate restricted to the resulting ids, so results,
+ * sorting and totals are exactly what the full scan would return. Terms the indexes
+ * cannot narrow ({@code LIKE} wildcards, short terms without letters or digits, too many
+ * candidates) and searches issued before the index has been built fall back to the
+ * full scan. The indexes key rows by {@code int}; once a row id outgrows that, the type
+ * is logged as an error and searched by scanning from then on.
+ *
+ * <p>Only customers, contacts and leads are indexed. Opportunity and activity searches
+ * include their free-text descriptions, which would cost kilobytes of heap per row and
+ * cannot be left out without losing matches, so those types always take the scan (or the
+ * full-text search where it is enabled).
+ */
+@Service
+public class SearchIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexService.class);
+
+    private static final int RELOAD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Value("${crm.search.index-enabled:true}")
+    private boolean enabled;
+
+    @Value("${crm.search.max-candidates:2000}")
+    private int maxCandidates;
+
+    @Value("${crm.search.build-batch-size:5000}")
+    private int buildBatchSize;
+
+    private final Map<Class<?>, IndexedType> types = new LinkedHashMap<>();
+    private final AfterCommitBuffer<EntityChangeEvent> pendingChanges = new AfterCommitBuffer<>(this::applyChanges);
+
+    @FunctionalInterface
+    public interface NarrowedSearch<T> {
+        Page<T> find(String search, Collection<Long> ids, Pageable pageable);
+    }
+
+    @FunctionalInterface
+    public interface SearchCondition<T> {
+        Predicate of(CriteriaBuilder cb, Root<T> root, String search);
+    }
+
+    @PostConstruct
+    void init() {
+        // Contact searches inner-join the customer, whose company name is the last field
+        types.put(Customer.class, new IndexedType(Customer.class, customerRepository::findSearchFieldsAfter,
+                customerRepository::findSearchFieldsByIdIn, false));
+        types.put(Contact.class, new IndexedType(Contact.class, contactRepository::findSearchFieldsAfter,
+                contactRepository::findSearchFieldsByIdIn, true));
+        types.put(Lead.class, new IndexedType(Lead.class, leadRepository::findSearchFieldsAfter,
+                leadRepository::findSearchFieldsByIdIn, false));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(() -> types.forEach(this::build), "search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (enabled && types.containsKey(event.getEntityType())) {
+            pendingChanges.add(event);
+        }
+    }
+
+    /**
+     * Applies a committed transaction's changes, reloading the rows it wrote in batches.
+     */
+    private void applyChanges(List<EntityChangeEvent> events) {
+        Map<IndexedType, Set<Long>> reloads = new LinkedHashMap<>();
+        for (EntityChangeEvent event : events) {
+            IndexedType type = types.get(event.getEntityType());
+            if (type.building) {
+                type.changedDuringBuild.add(event.getEntityId());
+            }
+            if (event.getChangeType() == EntityChangeEvent.ChangeType.DELETED) {
+                reloads.getOrDefault(type, Collections.emptySet()).remove(event.getEntityId());
+                type.remove(event.getEntityId());
+            } else {
+                reloads.computeIfAbsent(type, t -> new LinkedHashSet<>()).add(event.getEntityId());
+            }
+
+            // Contacts are also found by their customer's company name
+            if (event.isAbout(Customer.class) && event.getChangeType() == EntityChangeEvent.ChangeType.UPDATED
+                    && !Objects.equals(event.getPreviousState().get("companyName"),
+                            event.getCurrentState().get("companyName"))) {
+                types.get(Contact.class).index(contactRepository.findSearchFieldsByCustomerId(event.getEntityId()));
+            }
+        }
+        reloads.forEach(IndexedType::reload);
+    }
+
+    /**
+     * Runs a search for {@code term}, through the index when it can narrow the candidates
+     * and through {@code scan} otherwise.
+     */
+    public <T> Page<T> search(Class<?> type, String term, Pageable pageable,
+                              BiFunction<String, Pageable, Page<T>> scan, NarrowedSearch<T> narrowed) {
+        List<Long> ids = candidates(type, term);
+        if (ids == null) {
+            return scan.apply(term, pageable);
+        }
+        if (ids.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        return narrowed.find(term, ids, pageable);
+    }
+
+    /**
+     * Same as {@link #search}, but returns a page without counting the matches. Its
+     * approximate total is the number of index candidates, an upper bound on the matches,
+     * or {@code null} when the index cannot narrow the search.
+     */
+    public <T> SlicePage<T> searchSlice(Class<?> type, String term, Pageable pageable,
+                                        BiFunction<String, Pageable, Slice<T>> scan,
+                                        BiFunction<Collection<Long>, Pageable, Slice<T>> narrowed) {
+        List<Long> ids = candidates(type, term);
+        if (ids == null) {
+            return new SlicePage<>(scan.apply(term, pageable), null);
+        }
+        if (ids.isEmpty()) {
+            return new SlicePage<>(new SliceImpl<>(Collections.emptyList(), pageable, false), 0L);
+        }
+        return new SlicePage<>(narrowed.apply(ids, pageable), (long) ids.size());
+    }
+
+    /**
+     * Same as {@link #search}, but streams every match; used by the exports.
+     */
+    public <T> Stream<T> searchStream(Class<?> type, String term,
+                                      Function<String, Stream<T>> scan,
+                                      Function<Collection<Long>, Stream<T>> narrowed) {
+        List<Long> ids = candidates(type, term);
+        if (ids == null) {
+            return scan.apply(term);
+        }
+        if (ids.isEmpty()) {
+            return Stream.empty();
+        }
+        return narrowed.apply(ids);
+    }
+
+    /**
+     * Same as {@link #search}, but as a criteria condition for the keyset pages:
+     * {@code condition} restricted to the index candidates when the index can narrow the
+     * search, and on its own otherwise. Returns {@code null}, no condition, when
+     * {@code search} is blank.
+     */
+    public <T> BiFunction<CriteriaBuilder, Root<T>, Predicate> searchCondition(Class<T> type, String search,
+                                                                               SearchCondition<T> condition) {
+        if (search == null || search.trim().isEmpty()) {
+            return null;
+        }
+        String term = search.trim();
+        List<Long> ids = candidates(type, term);
+        if (ids == null) {
+            return (cb, root) -> condition.of(cb, root, term);
+        }
+        if (ids.isEmpty()) {
+            return (cb, root) -> cb.disjunction();
+        }
+        return (cb, root) -> cb.and(root.get("id").in(ids), condition.of(cb, root, term));
+    }
+
+    /**
+     * Runs a typo-tolerant search: rows where every word of {@code term} is within one or
+     * two edits of a word in a searched field, plus the rows the plain search finds. The
+     * page is loaded by id through {@code byIds}. Terms too short for fuzzy matching,
+     * terms with {@code LIKE} wildcards and searches before the index is built run as a
+     * plain {@link #search}.
+     */
+    public <T> Page<T> fuzzySearch(Class<?> type, String term, Pageable pageable,
+                                   BiFunction<String, Pageable, Page<T>> scan, NarrowedSearch<T> narrowed,
+                                   BiFunction<Collection<Long>, Pageable, Page<T>> byIds) {
+        IndexedType indexed = types.get(type);
+        int[] exact = indexed != null && indexed.ready && !hasLikeWildcard(term) ? indexed.trigrams.matches(term) : null;
+        int[] similar = exact != null ? indexed.tokens.similar(term) : null;
+        if (similar == null) {
+            return search(type, term, pageable, scan, narrowed);
+        }
+        int[] merged = new int[exact.length + similar.length];
+        System.arraycopy(exact, 0, merged, 0, exact.length);
+        System.arraycopy(similar, 0, merged, exact.length, similar.length);
+        int[] ids = PostingList.sortedDistinct(merged, merged.length);
+        if (ids.length > maxCandidates) {
+            log.debug("Fuzzy search for '{}' matched {} {} rows; searching without typo tolerance",
+                    term, ids.length, type.getSimpleName());
+            return search(type, term, pageable, scan, narrowed);
+        }
+        if (ids.length == 0) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        List<Long> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add((long) id);
+        }
+        return byIds.apply(result, pageable);
+    }
+
+    /**
+     * Returns the ids of {@code type} rows that may contain {@code term}, or {@code null}
+     * when the index cannot narrow the search.
+     */
+    public List<Long> candidates(Class<?> type, String term) {
+        IndexedType indexed = types.get(type);
+        if (indexed == null || !indexed.ready || hasLikeWildcard(term)) {
+            return null;
+        }
+        int[] ids = indexed.trigrams.matches(term);
+        if (ids == null) {
+            ids = indexed.tokens.candidates(term, maxCandidates);
+        }
+        if (ids == null || ids.length > maxCandidates) {
+            return null;
+        }
+        List<Long> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add((long) id);
+        }
+        return result;
+    }
+
+    public boolean isReady(Class<?> type) {
+        IndexedType indexed = types.get(type);
+        return indexed != null && indexed.ready;
+    }
+
+    private void build(Class<?> entityType, IndexedType type) {
+        long started = System.nanoTime();
+        type.building = true;
+        try {
+            Long afterId = 0L;
+            List<Object[]> rows;
+            // Rows come in id order, so nothing after an out-of-range id can be indexed either
+            while (!type.outOfRange
+                    && !(rows = type.batchLoader.apply(afterId, PageRequest.of(0, buildBatchSize))).isEmpty()) {
+                type.index(rows);
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } catch (RuntimeException e) {
+            type.building = false;
+            log.warn("Search index for {} could not be built; searches will scan the table",
+                    entityType.getSimpleName(), e);
+            return;
+        }
+        type.building = false;
+        // Rows written while the build was reading may have been indexed from a stale batch
+        Set<Long> changed = new HashSet<>(type.changedDuringBuild);
+        type.changedDuringBuild.removeAll(changed);
+        type.reload(changed);
+        if (type.outOfRange) {
+            return;
+        }
+        type.ready = true;
+        log.info("Search index for {} built: {} documents, {} trigrams, {} tokens in {} ms",
+                entityType.getSimpleName(), type.trigrams.size(), type.trigrams.trigramCount(),
+                type.tokens.vocabularySize(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static boolean hasLikeWildcard(String term) {
+        return term.indexOf('%') >= 0 || term.indexOf('_') >= 0 || term.indexOf('\\') >= 0;
+    }
+
+    private static final class IndexedType {
+        final Class<?> entityType;
+        final TrigramIndex trigrams;
+        final TokenIndex tokens = new TokenIndex();
+        final BiFunction<Long, Pageable, List<Object[]>> batchLoader;
+        final Function<Collection<Long>, List<Object[]>> idLoader;
+        final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+        volatile boolean building;
+        volatile boolean ready;
+        // Set for good once a row id does not fit the int postings
+        volatile boolean outOfRange;
+
+        IndexedType(Class<?> entityType, BiFunction<Long, Pageable, List<Object[]>> batchLoader,
+                    Function<Collection<Long>, List<Object[]>> idLoader, boolean customerJoined) {
+            this.entityType = entityType;
+            this.trigrams = new TrigramIndex(customerJoined);
+            this.batchLoader = batchLoader;
+            this.idLoader = idLoader;
+        }
+
+        void reload(Collection<Long> ids) {
+            List<Long> pending = new ArrayList<>(ids);
+            for (int from = 0; from < pending.size(); from += RELOAD_BATCH_SIZE) {
+                List<Long> batch = pending.subList(from, Math.min(pending.size(), from + RELOAD_BATCH_SIZE));
+                List<Object[]> rows = idLoader.apply(batch);
+                Set<Long> missing = new HashSet<>(batch);
+                for (Object[] row : rows) {
+                    missing.remove((Long) row[0]);
+                }
+                index(rows);
+                missing.forEach(this::remove);
+            }
+        }
+
+        void index(List<Object[]> rows) {
+            for (Object[] row : rows) {
+                String[] fields = new String[row.length - 1];
+                for (int i = 1; i < row.length; i++) {
+                    fields[i - 1] = (String) row[i];
+                }
+                Long id = (Long) row[0];
+                if (!fits(id)) {
+                    continue;
+                }
+                int documentId = id.intValue();
+                trigrams.put(documentId, fields);
+                tokens.put(documentId, fields);
+            }
+        }
+
+        void remove(Long id) {
+            if (fits(id)) {
+                trigrams.remove(id.intValue());
+                tokens.remove(id.intValue());
+            }
+        }
+
+        /**
+         * Returns whether {@code id} can be indexed. The first id that cannot takes the type
+         * out of service, so its searches scan instead of silently missing the row.
+         */
+        boolean fits(Long id) {
+            if (id <= Integer.MAX_VALUE) {
+                return true;
+            }
+            if (!outOfRange) {
+                outOfRange = true;
+                ready = false;
+                log.error("{} id {} does not fit the search index; {} searches will scan the table from now on",
+                        entityType.getSimpleName(), id, entityType.getSimpleName());
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.crm.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalises text the same way for indexing and querying: accents are stripped and the
+ * result is lower-cased. Folding accents makes the indexes match at least everything an
+ * accent-insensitive database collation would; the database query still decides the
+ * exact result.
+ */
+final class SearchText {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private SearchText() {
+    }
+
+    static String fold(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+                return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+            }
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,308 @@
+package com.crm.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Word-level inverted index over the searchable text fields of one entity type.
+ *
+ * <p>Text is folded with {@link SearchText#fold} and split into runs of letters and
+ * digits. A "contains" query is answered by finding every token that contains each
+ * letter/digit run of the query and intersecting their posting lists. That set is a
+ * superset of the rows {@code LOWER(field) LIKE '%term%'} matches, because every such
+ * run of the term has to sit inside a single token of the matching field, so callers
+ * must still verify candidates. {@link TrigramIndex} answers longer terms more tightly;
+ * this index covers terms of one or two characters.
+ *
+ * <p>{@link #similar} answers typo-tolerant queries by running a {@link LevenshteinAutomaton}
+ * per query word against the sorted token dictionary.
+ *
+ * <p>A token is dropped once no document contains it, and its id is reused by the next new
+ * token, so the dictionary tracks the live documents rather than every value ever indexed.
+ */
+public final class TokenIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Sorted, so fuzzy lookups can skip every token under a prefix that is out of reach
+    private final TreeMap<String, Integer> tokenIds = new TreeMap<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<PostingList> postings = new ArrayList<>();
+    private final Deque<Integer> freeTokenIds = new ArrayDeque<>();
+    private final Map<Integer, int[]> documents = new HashMap<>();
+
+    /**
+     * Indexes (or re-indexes) a document from its field values; {@code null} fields are skipped.
+     */
+    public void put(int documentId, String... fields) {
+        Set<String> documentTokens = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (field != null) {
+                documentTokens.addAll(tokenize(field));
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(documentId);
+            int[] ids = new int[documentTokens.size()];
+            int i = 0;
+            for (String token : documentTokens) {
+                int tokenId = tokenIds.computeIfAbsent(token, this::newToken);
+                postings.get(tokenId).add(documentId);
+                ids[i++] = tokenId;
+            }
+            documents.put(documentId, ids);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int documentId) {
+        lock.writeLock().lock();
+        try {
+            unindex(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int vocabularySize() {
+        lock.readLock().lock();
+        try {
+            return tokenIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sorted ids of documents that may contain {@code term}, or {@code null}
+     * when the term has no letters or digits, or when more than {@code limit} documents
+     * may contain it, so that the index cannot usefully narrow the search.
+     */
+    public int[] candidates(String term, int limit) {
+        List<String> pieces = tokenize(term);
+        if (pieces.isEmpty()) {
+            return null;
+        }
+        // Longer pieces match fewer tokens, so start with them and stop as soon as nothing is left
+        pieces.sort(Comparator.comparingInt(String::length).reversed());
+        lock.readLock().lock();
+        try {
+            int[] result = null;
+            for (String piece : pieces) {
+                int[] matches = documentsWithTokenContaining(piece, limit);
+                if (matches == null) {
+                    // Leaving out a piece that narrows nothing keeps the result a superset
+                    continue;
+                }
+                result = result == null ? matches : PostingList.intersect(result, matches);
+                if (result.length == 0) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sorted ids of documents in which every word of {@code term} is within
+     * {@link #maxEdits} edits of some token, or {@code null} when the term has no words.
+     */
+    public int[] similar(String term) {
+        List<String> words = tokenize(term);
+        if (words.isEmpty()) {
+            return null;
+        }
+        words.sort(Comparator.comparingInt(String::length).reversed());
+        lock.readLock().lock();
+        try {
+            int[] result = null;
+            for (String word : words) {
+                int[] matches = union(tokensNear(word, maxEdits(word.length())));
+                result = result == null ? matches : PostingList.intersect(result, matches);
+                if (result.length == 0) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Edits allowed for a query word: none up to two characters, one up to five, then two.
+     */
+    static int maxEdits(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    private List<PostingList> tokensNear(String word, int maxEdits) {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(word, maxEdits);
+        List<PostingList> matching = new ArrayList<>();
+        // states[d] is the automaton state after the first d characters of previous
+        List<int[]> states = new ArrayList<>();
+        states.add(automaton.start());
+        String previous = "";
+        Map.Entry<String, Integer> entry = tokenIds.firstEntry();
+        while (entry != null) {
+            String token = entry.getKey();
+            int depth = Math.min(states.size() - 1, commonPrefix(previous, token));
+            states.subList(depth + 1, states.size()).clear();
+            boolean reachable = true;
+            while (reachable && depth < token.length()) {
+                states.add(automaton.step(states.get(depth), token.charAt(depth)));
+                depth++;
+                reachable = automaton.canMatch(states.get(depth));
+            }
+            previous = token;
+            if (!reachable) {
+                // No token starting with this prefix can match; seek past all of them
+                String next = successor(token.substring(0, depth));
+                entry = next != null ? tokenIds.ceilingEntry(next) : null;
+                continue;
+            }
+            if (automaton.isMatch(states.get(depth))) {
+                matching.add(postings.get(entry.getValue()));
+            }
+            entry = tokenIds.higherEntry(token);
+        }
+        return matching;
+    }
+
+    /**
+     * Returns the sorted ids of documents with a token containing {@code piece}, or
+     * {@code null} as soon as there are more than {@code limit} of them.
+     */
+    private int[] documentsWithTokenContaining(String piece, int limit) {
+        int[] ids = new int[Math.max(16, Math.min(limit, 1024))];
+        int count = 0;
+        for (int tokenId = 0; tokenId < tokens.size(); tokenId++) {
+            PostingList list = postings.get(tokenId);
+            if (list == null || !tokens.get(tokenId).contains(piece)) {
+                continue;
+            }
+            if (count + list.size() > ids.length) {
+                // Duplicates are only collapsed when the buffer fills, so the work stays bounded by the limit
+                count = PostingList.sortedDistinctInPlace(ids, count);
+                if (count > limit || list.size() > limit) {
+                    return null;
+                }
+                if (count + list.size() > ids.length) {
+                    ids = Arrays.copyOf(ids, (int) Math.max(count + list.size(), Math.min(2L * ids.length, 2L * limit)));
+                }
+            }
+            count = list.copyTo(ids, count);
+        }
+        int[] result = PostingList.sortedDistinct(ids, count);
+        return result.length > limit ? null : result;
+    }
+
+    private static int[] union(List<PostingList> matching) {
+        int total = 0;
+        for (PostingList list : matching) {
+            total += list.size();
+        }
+        if (matching.size() == 1) {
+            return matching.get(0).toArray();
+        }
+        int[] ids = new int[total];
+        int offset = 0;
+        for (PostingList list : matching) {
+            offset = list.copyTo(ids, offset);
+        }
+        return PostingList.sortedDistinct(ids, offset);
+    }
+
+    private void unindex(int documentId) {
+        int[] previous = documents.remove(documentId);
+        if (previous != null) {
+            for (int tokenId : previous) {
+                PostingList list = postings.get(tokenId);
+                list.remove(documentId);
+                if (list.isEmpty()) {
+                    tokenIds.remove(tokens.get(tokenId));
+                    tokens.set(tokenId, null);
+                    postings.set(tokenId, null);
+                    freeTokenIds.push(tokenId);
+                }
+            }
+        }
+    }
+
+    private int newToken(String token) {
+        Integer free = freeTokenIds.poll();
+        if (free != null) {
+            tokens.set(free, token);
+            postings.set(free, new PostingList());
+            return free;
+        }
+        tokens.add(token);
+        postings.add(new PostingList());
+        return tokens.size() - 1;
+    }
+
+    private static int commonPrefix(String left, String right) {
+        int max = Math.min(left.length(), right.length());
+        int i = 0;
+        while (i < max && left.charAt(i) == right.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the smallest string greater than every string starting with {@code prefix},
+     * or {@code null} if there is none.
+     */
+    private static String successor(String prefix) {
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+            end--;
+        }
+        if (end == 0) {
+            return null;
+        }
+        return prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+    }
+
+    /**
+     * Folds {@code text} and splits it into distinct runs of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        String lower = SearchText.fold(text);
+        Set<String> result = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean tokenChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                result.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(result);
+    }
+}
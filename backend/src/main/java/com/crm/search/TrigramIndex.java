@@ -0,0 +1,331 @@
+package com.crm.search;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Substring index over the searchable text fields of one entity type.
+ *
+ * <p>Every field is folded with {@link SearchText#fold} and split into overlapping
+ * three-character windows. A document can only contain a term if it has all of the
+ * term's trigrams, so the posting lists of those trigrams are intersected (smallest
+ * first) and each surviving document is then checked with {@link String#contains}
+ * against its stored fields. The work is proportional to the shortest posting list and
+ * the number of matches, not to the size of the table. Terms shorter than three
+ * characters have no trigrams and are not answered here.
+ *
+ * <p>The whole index lives on the heap, so it is laid out for size: trigrams and
+ * documents are kept in open-addressing tables over primitive keys, and a document's
+ * folded fields are stored as one string. Every row costs about four bytes per distinct
+ * trigram plus its text, so only short fields belong here; long free text such as
+ * descriptions would multiply both.
+ */
+public final class TrigramIndex {
+
+    public static final int GRAM = 3;
+
+    // Joins a document's folded fields; no trigram spans it, so no term without it can either
+    private static final char SEPARATOR = '\u0000';
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final GramMap postings = new GramMap();
+    private final DocumentMap documents = new DocumentMap();
+    private final boolean lastFieldRequired;
+
+    /**
+     * @param lastFieldRequired whether a document whose last field is {@code null} can
+     *                          never match, mirroring an inner join on that field
+     */
+    public TrigramIndex(boolean lastFieldRequired) {
+        this.lastFieldRequired = lastFieldRequired;
+    }
+
+    public void put(int documentId, String... fields) {
+        String text = lastFieldRequired && fields[fields.length - 1] == null ? null : join(fields);
+        long[] grams = text != null ? trigramsOf(text) : null;
+        lock.writeLock().lock();
+        try {
+            unindex(documentId);
+            if (text == null) {
+                return;
+            }
+            for (long gram : grams) {
+                PostingList list = postings.get(gram);
+                if (list == null) {
+                    list = new PostingList();
+                    postings.put(gram, list);
+                }
+                list.add(documentId);
+            }
+            documents.put(documentId, text);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int documentId) {
+        lock.writeLock().lock();
+        try {
+            unindex(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int trigramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sorted ids of documents with a field containing {@code term}, or
+     * {@code null} if the folded term is shorter than {@link #GRAM} or cannot be matched
+     * against the stored fields.
+     */
+    public int[] matches(String term) {
+        String folded = SearchText.fold(term);
+        if (folded.length() < GRAM || folded.indexOf(SEPARATOR) >= 0) {
+            return null;
+        }
+        long[] grams = trigramsOf(folded);
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null || lists[i].isEmpty()) {
+                    return new int[0];
+                }
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+            int[] candidates = lists[0].toArray();
+            for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+                candidates = lists[i].retain(candidates);
+            }
+
+            int count = 0;
+            for (int id : candidates) {
+                String text = documents.get(id);
+                if (text != null && text.contains(folded)) {
+                    candidates[count++] = id;
+                }
+            }
+            return Arrays.copyOf(candidates, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unindex(int documentId) {
+        String previous = documents.remove(documentId);
+        if (previous != null) {
+            for (long gram : trigramsOf(previous)) {
+                PostingList list = postings.get(gram);
+                if (list != null && list.remove(documentId) && list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static String join(String[] fields) {
+        StringBuilder text = new StringBuilder();
+        for (String field : fields) {
+            if (field != null) {
+                if (text.length() > 0) {
+                    text.append(SEPARATOR);
+                }
+                text.append(SearchText.fold(field));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the distinct trigrams of {@code text}, skipping windows across a separator.
+     */
+    private static long[] trigramsOf(String text) {
+        long[] grams = new long[Math.max(0, text.length() - GRAM + 1)];
+        int count = 0;
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            char c0 = text.charAt(i);
+            char c1 = text.charAt(i + 1);
+            char c2 = text.charAt(i + 2);
+            if (c0 != SEPARATOR && c1 != SEPARATOR && c2 != SEPARATOR) {
+                grams[count++] = ((long) c0 << 32) | ((long) c1 << 16) | c2;
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Open-addressing map from a trigram to its posting list, so the keys are not boxed.
+     */
+    private static final class GramMap {
+        private long[] keys = new long[16];
+        private PostingList[] values = new PostingList[16]; // null for an empty cell
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        PostingList get(long key) {
+            int mask = keys.length - 1;
+            for (int i = home(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Adds {@code key}, which must not be present.
+         */
+        void put(long key, PostingList value) {
+            if ((size + 1) * 3 > keys.length * 2) {
+                long[] oldKeys = keys;
+                PostingList[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new PostingList[oldKeys.length * 2];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldValues[i] != null) {
+                        put(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int i = home(key, mask);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int gap = home(key, mask);
+            while (values[gap] != null && keys[gap] != key) {
+                gap = (gap + 1) & mask;
+            }
+            if (values[gap] == null) {
+                return;
+            }
+            // Pull later entries of the run back so no lookup stops early at the gap
+            for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+                if (((i - home(keys[i], mask)) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            values[gap] = null;
+            size--;
+        }
+
+        private static int home(long key, int mask) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+    }
+
+    /**
+     * Open-addressing map from a document id to its joined folded fields.
+     */
+    private static final class DocumentMap {
+        private int[] keys = new int[16];
+        private String[] values = new String[16]; // null for an empty cell
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        String get(int key) {
+            int mask = keys.length - 1;
+            for (int i = home(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Adds {@code key}, which must not be present.
+         */
+        void put(int key, String value) {
+            if ((size + 1) * 3 > keys.length * 2) {
+                int[] oldKeys = keys;
+                String[] oldValues = values;
+                keys = new int[oldKeys.length * 2];
+                values = new String[oldKeys.length * 2];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldValues[i] != null) {
+                        put(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int i = home(key, mask);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        String remove(int key) {
+            int mask = keys.length - 1;
+            int gap = home(key, mask);
+            while (values[gap] != null && keys[gap] != key) {
+                gap = (gap + 1) & mask;
+            }
+            String removed = values[gap];
+            if (removed == null) {
+                return null;
+            }
+            for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+                if (((i - home(keys[i], mask)) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            values[gap] = null;
+            size--;
+            return removed;
+        }
+
+        private static int home(int key, int mask) {
+            int mixed = key * 0x9E3779B9;
+            return (mixed ^ (mixed >>> 16)) & mask;
+        }
+    }
+}
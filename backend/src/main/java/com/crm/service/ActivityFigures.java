@@ -0,0 +1,55 @@
+package com.crm.service;
+
+import com.crm.model.Activity;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class ActivityFigures extends TableFigures {
+
+    private final Map<Activity.ActivityStatus, Long> byStatus = new EnumMap<>(Activity.ActivityStatus.class);
+    private final Map<Activity.ActivityType, Long> byType = new EnumMap<>(Activity.ActivityType.class);
+    private long overdue;
+    private long total;
+
+    public ActivityFigures() {
+        super("activities");
+    }
+
+    public void add(Activity.ActivityStatus status, Activity.ActivityType type, long count) {
+        addStatus(status, count);
+        addType(type, count);
+    }
+
+    /**
+     * Adds activities by status only; every activity must be added here exactly once to keep the total right.
+     */
+    public void addStatus(Activity.ActivityStatus status, long count) {
+        if (status != null) {
+            byStatus.merge(status, count, Long::sum);
+        }
+        total += count;
+    }
+
+    public void addType(Activity.ActivityType type, long count) {
+        if (type != null) {
+            byType.merge(type, count, Long::sum);
+        }
+    }
+
+    public void addOverdue(long count) {
+        overdue += count;
+    }
+
+    public long getTotal() { return total; }
+
+    public long getOverdue() { return overdue; }
+
+    public long countByStatus(Activity.ActivityStatus status) {
+        return byStatus.getOrDefault(status, 0L);
+    }
+
+    public long countByType(Activity.ActivityType type) {
+        return byType.getOrDefault(type, 0L);
+    }
+}
@@ -0,0 +1,102 @@
+package com.crm.service;
+
+import com.crm.model.Activity;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.time.LocalDateTime;
+
+/**
+ * An activity as shown in the activity lists, with the names of the customer, contact,
+ * opportunity and lead it belongs to; {@code description} and {@code outcome} are left out.
+ */
+public class ActivityListItem {
+
+    private final Long id;
+    private final String subject;
+    private final Activity.ActivityType type;
+    private final Activity.ActivityStatus status;
+    private final Activity.ActivityPriority priority;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+    private final LocalDateTime completedAt;
+    private final Long customerId;
+    private final String customerName;
+    private final Long contactId;
+    private final String contactName;
+    private final Long opportunityId;
+    private final String opportunityName;
+    private final Long leadId;
+    private final String leadName;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    public ActivityListItem(Long id, String subject, Activity.ActivityType type, Activity.ActivityStatus status,
+                            Activity.ActivityPriority priority, LocalDateTime startDate, LocalDateTime endDate,
+                            LocalDateTime completedAt, Long customerId, String customerName,
+                            Long contactId, String contactName, Long opportunityId, String opportunityName,
+                            Long leadId, String leadName, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.subject = subject;
+        this.type = type;
+        this.status = status;
+        this.priority = priority;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.completedAt = completedAt;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.contactId = contactId;
+        this.contactName = contactName;
+        this.opportunityId = opportunityId;
+        this.opportunityName = opportunityName;
+        this.leadId = leadId;
+        this.leadName = leadName;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * The criteria equivalent of the repository's {@code SELECT new ActivityListItem(...)}.
+     */
+    public static Selection<ActivityListItem> selection(CriteriaBuilder cb, Root<Activity> activity) {
+        Join<Activity, Customer> customer = activity.join("customer", JoinType.LEFT);
+        Join<Activity, Contact> contact = activity.join("contact", JoinType.LEFT);
+        Join<Activity, Opportunity> opportunity = activity.join("opportunity", JoinType.LEFT);
+        Join<Activity, Lead> lead = activity.join("lead", JoinType.LEFT);
+        return cb.construct(ActivityListItem.class, activity.get("id"), activity.get("subject"),
+                activity.get("type"), activity.get("status"), activity.get("priority"), activity.get("startDate"),
+                activity.get("endDate"), activity.get("completedAt"), customer.get("id"), customer.get("companyName"),
+                contact.get("id"), cb.concat(cb.concat(contact.<String>get("firstName"), " "), contact.<String>get("lastName")),
+                opportunity.get("id"), opportunity.get("name"),
+                lead.get("id"), cb.concat(cb.concat(lead.<String>get("firstName"), " "), lead.<String>get("lastName")),
+                activity.get("createdAt"), activity.get("updatedAt"));
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getSubject() { return subject; }
+    public Activity.ActivityType getType() { return type; }
+    public Activity.ActivityStatus getStatus() { return status; }
+    public Activity.ActivityPriority getPriority() { return priority; }
+    public LocalDateTime getStartDate() { return startDate; }
+    public LocalDateTime getEndDate() { return endDate; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public Long getCustomerId() { return customerId; }
+    public String getCustomerName() { return customerName; }
+    public Long getContactId() { return contactId; }
+    public String getContactName() { return contactName; }
+    public Long getOpportunityId() { return opportunityId; }
+    public String getOpportunityName() { return opportunityName; }
+    public Long getLeadId() { return leadId; }
+    public String getLeadName() { return leadName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,52 @@
+package com.crm.service;
+
+import com.crm.model.Activity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of an activity as shown in the recent activities feed.
+ */
+public class ActivitySummary {
+
+    private final Long id;
+    private final String subject;
+    private final Activity.ActivityType type;
+    private final Activity.ActivityStatus status;
+    private final Activity.ActivityPriority priority;
+    private final LocalDateTime startDate;
+    private final LocalDateTime completedAt;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    public ActivitySummary(Long id, String subject, Activity.ActivityType type, Activity.ActivityStatus status,
+                           Activity.ActivityPriority priority, LocalDateTime startDate, LocalDateTime completedAt,
+                           LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.subject = subject;
+        this.type = type;
+        this.status = status;
+        this.priority = priority;
+        this.startDate = startDate;
+        this.completedAt = completedAt;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public static ActivitySummary of(Activity activity) {
+        return new ActivitySummary(activity.getId(), activity.getSubject(), activity.getType(),
+                activity.getStatus(), activity.getPriority(), activity.getStartDate(),
+                activity.getCompletedAt(), activity.getCreatedAt(), activity.getUpdatedAt());
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getSubject() { return subject; }
+    public Activity.ActivityType getType() { return type; }
+    public Activity.ActivityStatus getStatus() { return status; }
+    public Activity.ActivityPriority getPriority() { return priority; }
+    public LocalDateTime getStartDate() { return startDate; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,182 @@
+package com.crm.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts many new rows of one entity type in a single transaction.
+ *
+ * <p>Rows are persisted in batches of {@code hibernate.jdbc.batch_size}; each batch is
+ * flushed as JDBC batches (the entities draw their ids from pooled generators, so
+ * Hibernate does not need to execute each insert to learn its id) and then cleared
+ * from the persistence context. Associations given by id, such as
+ * {@code "customer": {"id": 3}}, are attached as references, so they cost no query.
+ * Either every row is inserted or none is.
+ */
+@Service
+public class BulkInsertService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkInsertService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Value("${crm.bulk.max-rows:10000}")
+    private int maxRows;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Validates and inserts {@code rows}. Returns 201 with the new ids in request order,
+     * 400 with the validation errors (nothing is inserted), or 413 when there are more
+     * than {@code crm.bulk.max-rows} rows.
+     */
+    public <T> ResponseEntity<BulkInsertResult> insertAll(List<T> rows) {
+        if (rows.size() > maxRows) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        List<RowError> errors = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            T row = rows.get(i);
+            if (row == null) {
+                errors.add(new RowError(i, null, "Row is empty"));
+                continue;
+            }
+            for (ConstraintViolation<T> violation : validator.validate(row)) {
+                errors.add(new RowError(i, violation.getPropertyPath().toString(), violation.getMessage()));
+            }
+        }
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(new BulkInsertResult(0, null, errors));
+        }
+
+        long start = System.nanoTime();
+        List<Long> ids;
+        try {
+            ids = transactionTemplate.execute(status -> persistAll(rows));
+        } catch (DataAccessException | PersistenceException e) {
+            log.debug("Bulk insert of {} rows rejected", rows.size(), e);
+            return ResponseEntity.badRequest().body(new BulkInsertResult(0, null,
+                    List.of(new RowError(-1, null, "Rows were rejected by the database"))));
+        }
+        log.debug("Inserted {} {} rows in {} ms", ids.size(), rows.get(0).getClass().getSimpleName(),
+                (System.nanoTime() - start) / 1_000_000);
+        return ResponseEntity.status(HttpStatus.CREATED).body(new BulkInsertResult(ids.size(), ids, null));
+    }
+
+    private <T> List<Long> persistAll(List<T> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            T row = rows.get(i);
+            attachReferences(row);
+            entityManager.persist(row);
+            ids.add((Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(row));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return ids;
+    }
+
+    /**
+     * Replaces associated entities that only carry an id with references, which do not
+     * load the row (persist would otherwise select each one to see if it exists).
+     */
+    private void attachReferences(Object row) {
+        EntityType<?> type = entityManager.getMetamodel().entity(row.getClass());
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(row);
+        for (SingularAttribute<?, ?> attribute : type.getSingularAttributes()) {
+            if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.MANY_TO_ONE
+                    && attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.ONE_TO_ONE) {
+                continue;
+            }
+            Object associated = wrapper.getPropertyValue(attribute.getName());
+            if (associated == null || entityManager.contains(associated)) {
+                continue;
+            }
+            Object id = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(associated);
+            if (id != null) {
+                wrapper.setPropertyValue(attribute.getName(), entityManager.getReference(attribute.getJavaType(), id));
+            }
+        }
+    }
+
+    public static class RowError {
+        private int index;
+        private String field;
+        private String message;
+
+        public RowError(int index, String field, String message) {
+            this.index = index;
+            this.field = field;
+            this.message = message;
+        }
+
+        // Getters and setters
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+        public String getField() { return field; }
+        public void setField(String field) { this.field = field; }
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    public static class BulkInsertResult {
+        private int inserted;
+        private List<Long> ids;
+        private List<RowError> errors;
+
+        public BulkInsertResult(int inserted, List<Long> ids, List<RowError> errors) {
+            this.inserted = inserted;
+            this.ids = ids;
+            this.errors = errors;
+        }
+
+        // Getters and setters
+        public int getInserted() { return inserted; }
+        public void setInserted(int inserted) { this.inserted = inserted; }
+        public List<Long> getIds() { return ids; }
+        public void setIds(List<Long> ids) { this.ids = ids; }
+        public List<RowError> getErrors() { return errors; }
+        public void setErrors(List<RowError> errors) { this.errors = errors; }
+    }
+}
@@ -0,0 +1,351 @@
+package com.crm.service;
+
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.Activity;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.model.TrackedEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Applies a status transition to many rows with one set-based {@code UPDATE}.
+ *
+ * <p>The rows are chosen by id list or by filter. The side effects the entities apply
+ * in their {@code @PreUpdate} callbacks ({@code updatedAt}, {@code completedAt},
+ * {@code convertedAt}, {@code actualCloseDate}) are part of the statement, since a bulk
+ * update bypasses the callbacks. Before updating, the tracked fields of the matching rows
+ * are read with {@code SELECT ... FOR UPDATE} (one query, no entities loaded), so that an
+ * {@link EntityChangeEvent} with the previous and new state can be published per row for
+ * the counters, caches and indexes. The events carry no entity. The {@code UPDATE} then
+ * targets exactly those ids.
+ *
+ * <p>At most {@code crm.bulk.max-rows} rows are changed per request. A selection that
+ * matches more is rejected as a whole.
+ */
+@Service
+public class BulkUpdateService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkUpdateService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${crm.bulk.max-rows:10000}")
+    private int maxRows;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Marks the selected activities that are not completed yet as completed now.
+     */
+    public ResponseEntity<BulkUpdateResult> completeActivities(ActivitySelection selection, String outcome) {
+        LocalDateTime now = LocalDateTime.now();
+        return update(Activity.class, selection,
+                (cb, root) -> {
+                    List<Predicate> filters = idFilter(selection, root);
+                    if (selection.getStatus() != null) {
+                        filters.add(cb.equal(root.get("status"), selection.getStatus()));
+                    }
+                    if (selection.getType() != null) {
+                        filters.add(cb.equal(root.get("type"), selection.getType()));
+                    }
+                    if (selection.getCustomerId() != null) {
+                        filters.add(cb.equal(root.get("customer").get("id"), selection.getCustomerId()));
+                    }
+                    if (selection.getStartBefore() != null) {
+                        filters.add(cb.lessThan(root.<LocalDateTime>get("startDate"), selection.getStartBefore()));
+                    }
+                    filters.add(notAlready(cb, root, "status", Activity.ActivityStatus.COMPLETED));
+                    return filters;
+                },
+                (update, root) -> {
+                    update.set(root.<Activity.ActivityStatus>get("status"), Activity.ActivityStatus.COMPLETED);
+                    update.set(root.<LocalDateTime>get("completedAt"), now);
+                    update.set(root.<LocalDateTime>get("updatedAt"), now);
+                    if (outcome != null) {
+                        update.set(root.<String>get("outcome"), outcome);
+                    }
+                },
+                state -> {
+                    state.put("status", Activity.ActivityStatus.COMPLETED);
+                    state.put("completedAt", now);
+                });
+    }
+
+    /**
+     * Marks the selected leads that are not converted yet as converted now.
+     */
+    public ResponseEntity<BulkUpdateResult> convertLeads(LeadSelection selection) {
+        LocalDateTime now = LocalDateTime.now();
+        return update(Lead.class, selection,
+                (cb, root) -> {
+                    List<Predicate> filters = idFilter(selection, root);
+                    if (selection.getStatus() != null) {
+                        filters.add(cb.equal(root.get("status"), selection.getStatus()));
+                    }
+                    if (selection.getSource() != null) {
+                        filters.add(cb.equal(root.get("source"), selection.getSource()));
+                    }
+                    if (selection.getMinScore() != null) {
+                        filters.add(cb.greaterThanOrEqualTo(root.<Integer>get("score"), selection.getMinScore()));
+                    }
+                    filters.add(notAlready(cb, root, "status", Lead.LeadStatus.CONVERTED));
+                    return filters;
+                },
+                (update, root) -> {
+                    update.set(root.<Lead.LeadStatus>get("status"), Lead.LeadStatus.CONVERTED);
+                    update.set(root.<LocalDateTime>get("convertedAt"), now);
+                    update.set(root.<LocalDateTime>get("updatedAt"), now);
+                },
+                state -> {
+                    state.put("status", Lead.LeadStatus.CONVERTED);
+                    state.put("convertedAt", now);
+                });
+    }
+
+    /**
+     * Moves the selected opportunities that are not in {@code stage} yet to it. Closing
+     * stages set {@code actualCloseDate} to today unless it is already set.
+     */
+    public ResponseEntity<BulkUpdateResult> moveOpportunities(OpportunitySelection selection,
+                                                              Opportunity.OpportunityStage stage) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        boolean closing = stage == Opportunity.OpportunityStage.CLOSED_WON
+                || stage == Opportunity.OpportunityStage.CLOSED_LOST;
+        return update(Opportunity.class, selection,
+                (cb, root) -> {
+                    List<Predicate> filters = idFilter(selection, root);
+                    if (selection.getStage() != null) {
+                        filters.add(cb.equal(root.get("stage"), selection.getStage()));
+                    }
+                    if (selection.getCustomerId() != null) {
+                        filters.add(cb.equal(root.get("customer").get("id"), selection.getCustomerId()));
+                    }
+                    filters.add(notAlready(cb, root, "stage", stage));
+                    return filters;
+                },
+                (update, root) -> {
+                    update.set(root.<Opportunity.OpportunityStage>get("stage"), stage);
+                    update.set(root.<LocalDateTime>get("updatedAt"), now);
+                    if (closing) {
+                        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+                        update.set(root.<LocalDate>get("actualCloseDate"),
+                                cb.coalesce(root.<LocalDate>get("actualCloseDate"), today));
+                    }
+                },
+                state -> {
+                    state.put("stage", stage);
+                    if (closing && state.get("actualCloseDate") == null) {
+                        state.put("actualCloseDate", today);
+                    }
+                });
+    }
+
+    private <T extends TrackedEntity> ResponseEntity<BulkUpdateResult> update(
+            Class<T> type, BulkSelection selection, Filters<T> filters, Assignments<T> assignments,
+            Consumer<Map<String, Object>> transition) {
+        if (selection.getIds() != null && selection.getIds().size() > maxRows) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        if (selection.getIds() == null && !selection.hasFilter()) {
+            // An empty selection would otherwise change every row of the table
+            return ResponseEntity.badRequest().build();
+        }
+        List<String> tracked = new ArrayList<>(BeanUtils.instantiateClass(type).trackedState().keySet());
+
+        return transactionTemplate.execute(status -> {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+            Root<T> root = query.from(type);
+            List<Selection<?>> columns = new ArrayList<>();
+            columns.add(root.get("id"));
+            tracked.forEach(field -> columns.add(root.get(field)));
+            query.multiselect(columns).where(filters.build(cb, root).toArray(new Predicate[0]));
+            List<Object[]> rows = entityManager.createQuery(query)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .setMaxResults(maxRows + 1)
+                    .getResultList();
+            if (rows.size() > maxRows) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).<BulkUpdateResult>build();
+            }
+            if (rows.isEmpty()) {
+                return ResponseEntity.ok(new BulkUpdateResult(0, List.of()));
+            }
+
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                ids.add((Long) row[0]);
+            }
+
+            // Only the locked rows: re-applying the filters could also match rows committed since
+            CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+            Root<T> updateRoot = update.from(type);
+            assignments.apply(update, updateRoot);
+            update.where(updateRoot.get("id").in(ids));
+            int updated = entityManager.createQuery(update).executeUpdate();
+            if (updated != rows.size()) {
+                log.debug("Bulk update of {} locked {} rows but changed {}", type.getSimpleName(),
+                        rows.size(), updated);
+            }
+
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                Map<String, Object> previous = new HashMap<>();
+                for (int i = 0; i < tracked.size(); i++) {
+                    previous.put(tracked.get(i), row[i + 1]);
+                }
+                Map<String, Object> current = new HashMap<>(previous);
+                transition.accept(current);
+                eventPublisher.publishEvent(new EntityChangeEvent(EntityChangeEvent.ChangeType.UPDATED, type, id,
+                        null, previous, current));
+            }
+            return ResponseEntity.ok(new BulkUpdateResult(updated, ids));
+        });
+    }
+
+    private static <T> List<Predicate> idFilter(BulkSelection selection, Root<T> root) {
+        List<Predicate> filters = new ArrayList<>();
+        if (selection.getIds() != null) {
+            filters.add(root.get("id").in(selection.getIds().isEmpty() ? List.of(-1L) : selection.getIds()));
+        }
+        return filters;
+    }
+
+    private static <T> Predicate notAlready(CriteriaBuilder cb, Root<T> root, String attribute, Object value) {
+        return cb.or(cb.isNull(root.get(attribute)), cb.notEqual(root.get(attribute), value));
+    }
+
+    private interface Filters<T> {
+        List<Predicate> build(CriteriaBuilder cb, Root<T> root);
+    }
+
+    private interface Assignments<T> {
+        void apply(CriteriaUpdate<T> update, Root<T> root);
+    }
+
+    /**
+     * Rows chosen by id, by filter, or both (ids that also match the filter).
+     */
+    public abstract static class BulkSelection {
+        private List<Long> ids;
+
+        abstract boolean hasFilter();
+
+        // Getters and setters
+        public List<Long> getIds() { return ids; }
+        public void setIds(List<Long> ids) { this.ids = ids; }
+    }
+
+    public static class ActivitySelection extends BulkSelection {
+        private Activity.ActivityStatus status;
+        private Activity.ActivityType type;
+        private Long customerId;
+        private LocalDateTime startBefore;
+
+        @Override
+        boolean hasFilter() {
+            return status != null || type != null || customerId != null || startBefore != null;
+        }
+
+        // Getters and setters
+        public Activity.ActivityStatus getStatus() { return status; }
+        public void setStatus(Activity.ActivityStatus status) { this.status = status; }
+        public Activity.ActivityType getType() { return type; }
+        public void setType(Activity.ActivityType type) { this.type = type; }
+        public Long getCustomerId() { return customerId; }
+        public void setCustomerId(Long customerId) { this.customerId = customerId; }
+        public LocalDateTime getStartBefore() { return startBefore; }
+        public void setStartBefore(LocalDateTime startBefore) { this.startBefore = startBefore; }
+    }
+
+    public static class LeadSelection extends BulkSelection {
+        private Lead.LeadStatus status;
+        private Lead.LeadSource source;
+        private Integer minScore;
+
+        @Override
+        boolean hasFilter() {
+            return status != null || source != null || minScore != null;
+        }
+
+        // Getters and setters
+        public Lead.LeadStatus getStatus() { return status; }
+        public void setStatus(Lead.LeadStatus status) { this.status = status; }
+        public Lead.LeadSource getSource() { return source; }
+        public void setSource(Lead.LeadSource source) { this.source = source; }
+        public Integer getMinScore() { return minScore; }
+        public void setMinScore(Integer minScore) { this.minScore = minScore; }
+    }
+
+    public static class OpportunitySelection extends BulkSelection {
+        private Opportunity.OpportunityStage stage;
+        private Long customerId;
+
+        @Override
+        boolean hasFilter() {
+            return stage != null || customerId != null;
+        }
+
+        // Getters and setters
+        public Opportunity.OpportunityStage getStage() { return stage; }
+        public void setStage(Opportunity.OpportunityStage stage) { this.stage = stage; }
+        public Long getCustomerId() { return customerId; }
+        public void setCustomerId(Long customerId) { this.customerId = customerId; }
+    }
+
+    public static class BulkUpdateResult {
+        private int updated;
+        private List<Long> ids;
+
+        public BulkUpdateResult(int updated, List<Long> ids) {
+            this.updated = updated;
+            this.ids = ids;
+        }
+
+        // Getters and setters
+        public int getUpdated() { return updated; }
+        public void setUpdated(int updated) { this.updated = updated; }
+        public List<Long> getIds() { return ids; }
+        public void setIds(List<Long> ids) { this.ids = ids; }
+    }
+}
@@ -0,0 +1,29 @@
+package com.crm.service;
+
+import com.crm.model.Contact;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class ContactFigures extends TableFigures {
+
+    private final Map<Contact.ContactStatus, Long> byStatus = new EnumMap<>(Contact.ContactStatus.class);
+    private long total;
+
+    public ContactFigures() {
+        super("contacts");
+    }
+
+    public void add(Contact.ContactStatus status, long count) {
+        if (status != null) {
+            byStatus.merge(status, count, Long::sum);
+        }
+        total += count;
+    }
+
+    public long getTotal() { return total; }
+
+    public long countByStatus(Contact.ContactStatus status) {
+        return byStatus.getOrDefault(status, 0L);
+    }
+}
@@ -0,0 +1,74 @@
+package com.crm.service;
+
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.time.LocalDateTime;
+
+/**
+ * A contact as shown in the contact lists: the table columns and the company name of
+ * its customer, selected with a constructor expression instead of loading entities.
+ */
+public class ContactListItem {
+
+    private final Long id;
+    private final String firstName;
+    private final String lastName;
+    private final String jobTitle;
+    private final String email;
+    private final String phone;
+    private final Contact.ContactStatus status;
+    private final Boolean isPrimary;
+    private final Long customerId;
+    private final String customerName;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    public ContactListItem(Long id, String firstName, String lastName, String jobTitle, String email, String phone,
+                           Contact.ContactStatus status, Boolean isPrimary, Long customerId, String customerName,
+                           LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.jobTitle = jobTitle;
+        this.email = email;
+        this.phone = phone;
+        this.status = status;
+        this.isPrimary = isPrimary;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * The criteria equivalent of the repository's {@code SELECT new ContactListItem(...)}.
+     */
+    public static Selection<ContactListItem> selection(CriteriaBuilder cb, Root<Contact> contact) {
+        Join<Contact, Customer> customer = contact.join("customer", JoinType.LEFT);
+        return cb.construct(ContactListItem.class, contact.get("id"), contact.get("firstName"),
+                contact.get("lastName"), contact.get("jobTitle"), contact.get("email"), contact.get("phone"),
+                contact.get("status"), contact.get("isPrimary"), customer.get("id"), customer.get("companyName"),
+                contact.get("createdAt"), contact.get("updatedAt"));
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public String getFullName() { return firstName + " " + lastName; }
+    public String getJobTitle() { return jobTitle; }
+    public String getEmail() { return email; }
+    public String getPhone() { return phone; }
+    public Contact.ContactStatus getStatus() { return status; }
+    public Boolean getIsPrimary() { return isPrimary; }
+    public Long getCustomerId() { return customerId; }
+    public String getCustomerName() { return customerName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
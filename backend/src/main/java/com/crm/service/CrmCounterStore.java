@@ -0,0 +1,380 @@
+package com.crm.service;
+
+import com.crm.event.AfterCommitBuffer;
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.Activity;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.repository.ActivityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Running totals for the stats endpoints, kept current from {@link EntityChangeEvent}s
+ * so that polling them does not scan any table.
+ *
+ * <p>The totals are seeded from {@link DashboardAggregationService} at startup and
+ * replaced with a fresh aggregation on a fixed schedule, which repairs any drift from
+ * changes that bypass the entity callbacks or race with a reconcile. Until the first
+ * seed completes, reads fall through to the database.
+ */
+@Service
+public class CrmCounterStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CrmCounterStore.class);
+
+    @Autowired
+    private DashboardAggregationService aggregationService;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    // Applied before StatsCache invalidates, so a recomputed result already sees the change
+    private final AfterCommitBuffer<EntityChangeEvent> pendingChanges =
+            new AfterCommitBuffer<>(Ordered.HIGHEST_PRECEDENCE, this::applyChanges);
+    private volatile Counters counters;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${crm.counters.reconcile-interval-ms:300000}",
+               initialDelayString = "${crm.counters.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Counters fresh = new Counters(now);
+        fresh.load(aggregationService.aggregateCustomers());
+        fresh.load(aggregationService.aggregateLeads());
+        fresh.load(aggregationService.aggregateOpportunities());
+        fresh.load(aggregationService.aggregateActivities(now));
+        for (Object[] row : activityRepository.countPlannedByStartDateFrom(now)) {
+            fresh.overdue.add((LocalDateTime) row[0], ((Number) row[1]).longValue());
+        }
+        counters = fresh;
+        log.debug("Reconciled CRM counters in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        pendingChanges.add(event);
+    }
+
+    private void applyChanges(List<EntityChangeEvent> events) {
+        Counters current = counters;
+        if (current != null) {
+            events.forEach(current::apply);
+        }
+    }
+
+    public boolean isReady() {
+        return counters != null;
+    }
+
+    public DashboardAggregate dashboard() {
+        Counters current = counters;
+        if (current == null) {
+            return aggregationService.aggregate();
+        }
+        return new DashboardAggregate(current.customers(), current.leads(),
+                current.opportunities(), current.activities());
+    }
+
+    public CustomerFigures customers() {
+        Counters current = counters;
+        return current != null ? current.customers() : aggregationService.aggregateCustomers();
+    }
+
+    public LeadFigures leads() {
+        Counters current = counters;
+        return current != null ? current.leads() : aggregationService.aggregateLeads();
+    }
+
+    public OpportunityFigures opportunities() {
+        Counters current = counters;
+        return current != null ? current.opportunities() : aggregationService.aggregateOpportunities();
+    }
+
+    public ActivityFigures activities() {
+        Counters current = counters;
+        return current != null ? current.activities() : aggregationService.aggregateActivities();
+    }
+
+    /**
+     * One generation of counters. Every enum-keyed array has an extra trailing slot for
+     * rows whose key is null, so totals still match COUNT(*).
+     */
+    private static final class Counters {
+
+        private static final Customer.CustomerStatus[] CUSTOMER_STATUSES = Customer.CustomerStatus.values();
+        private static final Lead.LeadStatus[] LEAD_STATUSES = Lead.LeadStatus.values();
+        private static final Lead.LeadSource[] LEAD_SOURCES = Lead.LeadSource.values();
+        private static final Opportunity.OpportunityStage[] STAGES = Opportunity.OpportunityStage.values();
+        private static final Activity.ActivityStatus[] ACTIVITY_STATUSES = Activity.ActivityStatus.values();
+        private static final Activity.ActivityType[] ACTIVITY_TYPES = Activity.ActivityType.values();
+
+        final AtomicLongArray customersByStatus = new AtomicLongArray(CUSTOMER_STATUSES.length + 1);
+
+        final AtomicLongArray leadsByStatus = new AtomicLongArray(LEAD_STATUSES.length + 1);
+        final AtomicLongArray leadScoreSumByStatus = new AtomicLongArray(LEAD_STATUSES.length + 1);
+        final AtomicLongArray leadsScoredByStatus = new AtomicLongArray(LEAD_STATUSES.length + 1);
+        final AtomicLongArray leadsBySource = new AtomicLongArray(LEAD_SOURCES.length + 1);
+
+        final AtomicLongArray opportunitiesByStage = new AtomicLongArray(STAGES.length + 1);
+        final AtomicReferenceArray<BigDecimal> amountByStage = zeroes(STAGES.length + 1);
+        final AtomicReferenceArray<BigDecimal> weightedByStage = zeroes(STAGES.length + 1);
+
+        final AtomicLongArray activitiesByStatus = new AtomicLongArray(ACTIVITY_STATUSES.length + 1);
+        final AtomicLongArray activitiesByType = new AtomicLongArray(ACTIVITY_TYPES.length + 1);
+        final OverdueTracker overdue;
+
+        Counters(LocalDateTime seededAt) {
+            this.overdue = new OverdueTracker(seededAt);
+        }
+
+        void load(CustomerFigures figures) {
+            long counted = 0;
+            for (Customer.CustomerStatus status : CUSTOMER_STATUSES) {
+                customersByStatus.set(status.ordinal(), figures.countByStatus(status));
+                counted += figures.countByStatus(status);
+            }
+            customersByStatus.set(CUSTOMER_STATUSES.length, figures.getTotal() - counted);
+        }
+
+        void load(LeadFigures figures) {
+            long counted = 0;
+            for (Lead.LeadStatus status : LEAD_STATUSES) {
+                leadsByStatus.set(status.ordinal(), figures.countByStatus(status));
+                leadScoreSumByStatus.set(status.ordinal(), figures.scoreSumByStatus(status));
+                leadsScoredByStatus.set(status.ordinal(), figures.scoredByStatus(status));
+                counted += figures.countByStatus(status);
+            }
+            leadsByStatus.set(LEAD_STATUSES.length, figures.getTotal() - counted);
+            counted = 0;
+            for (Lead.LeadSource source : LEAD_SOURCES) {
+                leadsBySource.set(source.ordinal(), figures.countBySource(source));
+                counted += figures.countBySource(source);
+            }
+            leadsBySource.set(LEAD_SOURCES.length, figures.getTotal() - counted);
+        }
+
+        void load(OpportunityFigures figures) {
+            long counted = 0;
+            for (Opportunity.OpportunityStage stage : STAGES) {
+                opportunitiesByStage.set(stage.ordinal(), figures.countByStage(stage));
+                amountByStage.set(stage.ordinal(), figures.amountByStage(stage));
+                weightedByStage.set(stage.ordinal(), figures.weightedAmountByStage(stage));
+                counted += figures.countByStage(stage);
+            }
+            opportunitiesByStage.set(STAGES.length, figures.getTotal() - counted);
+        }
+
+        void load(ActivityFigures figures) {
+            long counted = 0;
+            for (Activity.ActivityStatus status : ACTIVITY_STATUSES) {
+                activitiesByStatus.set(status.ordinal(), figures.countByStatus(status));
+                counted += figures.countByStatus(status);
+            }
+            activitiesByStatus.set(ACTIVITY_STATUSES.length, figures.getTotal() - counted);
+            counted = 0;
+            for (Activity.ActivityType type : ACTIVITY_TYPES) {
+                activitiesByType.set(type.ordinal(), figures.countByType(type));
+                counted += figures.countByType(type);
+            }
+            activitiesByType.set(ACTIVITY_TYPES.length, figures.getTotal() - counted);
+            overdue.seedOverdue(figures.getOverdue());
+        }
+
+        void apply(EntityChangeEvent event) {
+            Map<String, Object> previous = event.getPreviousState();
+            Map<String, Object> current = event.getCurrentState();
+            if (event.getChangeType() == EntityChangeEvent.ChangeType.UPDATED && previous.isEmpty()) {
+                // Nothing to subtract from; leave it to the next reconcile rather than double count
+                return;
+            }
+            if (event.isAbout(Customer.class)) {
+                applyCustomer(previous, -1);
+                applyCustomer(current, 1);
+            } else if (event.isAbout(Lead.class)) {
+                applyLead(previous, -1);
+                applyLead(current, 1);
+            } else if (event.isAbout(Opportunity.class)) {
+                applyOpportunity(previous, -1);
+                applyOpportunity(current, 1);
+            } else if (event.isAbout(Activity.class)) {
+                applyActivity(previous, -1);
+                applyActivity(current, 1);
+            }
+        }
+
+        private void applyCustomer(Map<String, Object> state, int sign) {
+            if (state.isEmpty()) {
+                return;
+            }
+            customersByStatus.addAndGet(slot(state.get("status"), CUSTOMER_STATUSES.length), sign);
+        }
+
+        private void applyLead(Map<String, Object> state, int sign) {
+            if (state.isEmpty()) {
+                return;
+            }
+            int statusSlot = slot(state.get("status"), LEAD_STATUSES.length);
+            leadsByStatus.addAndGet(statusSlot, sign);
+            Integer score = (Integer) state.get("score");
+            if (score != null) {
+                leadScoreSumByStatus.addAndGet(statusSlot, (long) sign * score);
+                leadsScoredByStatus.addAndGet(statusSlot, sign);
+            }
+            leadsBySource.addAndGet(slot(state.get("source"), LEAD_SOURCES.length), sign);
+        }
+
+        private void applyOpportunity(Map<String, Object> state, int sign) {
+            if (state.isEmpty()) {
+                return;
+            }
+            int stageSlot = slot(state.get("stage"), STAGES.length);
+            opportunitiesByStage.addAndGet(stageSlot, sign);
+            BigDecimal amount = (BigDecimal) state.get("amount");
+            Integer probability = (Integer) state.get("probability");
+            if (amount != null) {
+                BigDecimal signed = sign < 0 ? amount.negate() : amount;
+                amountByStage.accumulateAndGet(stageSlot, signed, BigDecimal::add);
+                if (probability != null) {
+                    BigDecimal weighted = signed.multiply(BigDecimal.valueOf(probability)).movePointLeft(2);
+                    weightedByStage.accumulateAndGet(stageSlot, weighted, BigDecimal::add);
+                }
+            }
+        }
+
+        private void applyActivity(Map<String, Object> state, int sign) {
+            if (state.isEmpty()) {
+                return;
+            }
+            Object status = state.get("status");
+            activitiesByStatus.addAndGet(slot(status, ACTIVITY_STATUSES.length), sign);
+            activitiesByType.addAndGet(slot(state.get("type"), ACTIVITY_TYPES.length), sign);
+            LocalDateTime startDate = (LocalDateTime) state.get("startDate");
+            if (status == Activity.ActivityStatus.PLANNED && startDate != null) {
+                overdue.add(startDate, sign);
+            }
+        }
+
+        CustomerFigures customers() {
+            long start = System.nanoTime();
+            CustomerFigures figures = new CustomerFigures();
+            for (int i = 0; i < customersByStatus.length(); i++) {
+                figures.add(i < CUSTOMER_STATUSES.length ? CUSTOMER_STATUSES[i] : null, customersByStatus.get(i));
+            }
+            figures.setElapsedNanos(System.nanoTime() - start);
+            return figures;
+        }
+
+        LeadFigures leads() {
+            long start = System.nanoTime();
+            LeadFigures figures = new LeadFigures();
+            for (int i = 0; i < leadsByStatus.length(); i++) {
+                figures.addStatus(i < LEAD_STATUSES.length ? LEAD_STATUSES[i] : null, leadsByStatus.get(i),
+                        leadScoreSumByStatus.get(i), leadsScoredByStatus.get(i));
+            }
+            for (int i = 0; i < LEAD_SOURCES.length; i++) {
+                figures.addSource(LEAD_SOURCES[i], leadsBySource.get(i));
+            }
+            figures.setElapsedNanos(System.nanoTime() - start);
+            return figures;
+        }
+
+        OpportunityFigures opportunities() {
+            long start = System.nanoTime();
+            OpportunityFigures figures = new OpportunityFigures();
+            for (int i = 0; i < opportunitiesByStage.length(); i++) {
+                figures.add(i < STAGES.length ? STAGES[i] : null, opportunitiesByStage.get(i),
+                        amountByStage.get(i), weightedByStage.get(i));
+            }
+            figures.setElapsedNanos(System.nanoTime() - start);
+            return figures;
+        }
+
+        ActivityFigures activities() {
+            long start = System.nanoTime();
+            ActivityFigures figures = new ActivityFigures();
+            for (int i = 0; i < activitiesByStatus.length(); i++) {
+                figures.addStatus(i < ACTIVITY_STATUSES.length ? ACTIVITY_STATUSES[i] : null, activitiesByStatus.get(i));
+            }
+            for (int i = 0; i < ACTIVITY_TYPES.length; i++) {
+                figures.addType(ACTIVITY_TYPES[i], activitiesByType.get(i));
+            }
+            figures.addOverdue(overdue.overdueAt(LocalDateTime.now()));
+            figures.setElapsedNanos(System.nanoTime() - start);
+            return figures;
+        }
+
+        private static int slot(Object key, int nullSlot) {
+            return key != null ? ((Enum<?>) key).ordinal() : nullSlot;
+        }
+
+        private static AtomicReferenceArray<BigDecimal> zeroes(int length) {
+            AtomicReferenceArray<BigDecimal> array = new AtomicReferenceArray<>(length);
+            for (int i = 0; i < length; i++) {
+                array.set(i, BigDecimal.ZERO);
+            }
+            return array;
+        }
+    }
+
+    /**
+     * Counts planned activities whose start date has passed. Start dates still in the
+     * future are kept in a sorted map and folded into the overdue count as time reaches
+     * them, so a read only touches the activities that became overdue since the last one.
+     */
+    private static final class OverdueTracker {
+
+        private final TreeMap<LocalDateTime, Long> upcoming = new TreeMap<>();
+        private LocalDateTime cutoff;
+        private long overdue;
+
+        OverdueTracker(LocalDateTime cutoff) {
+            this.cutoff = cutoff;
+        }
+
+        synchronized void seedOverdue(long count) {
+            overdue = count;
+        }
+
+        synchronized void add(LocalDateTime startDate, long delta) {
+            if (startDate.isBefore(cutoff)) {
+                overdue += delta;
+            } else {
+                upcoming.merge(startDate, delta, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+
+        synchronized long overdueAt(LocalDateTime now) {
+            if (now.isAfter(cutoff)) {
+                SortedMap<LocalDateTime, Long> due = upcoming.headMap(now);
+                for (Long count : due.values()) {
+                    overdue += count;
+                }
+                due.clear();
+                cutoff = now;
+            }
+            return overdue;
+        }
+    }
+}
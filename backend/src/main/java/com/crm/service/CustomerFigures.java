@@ -0,0 +1,29 @@
+package com.crm.service;
+
+import com.crm.model.Customer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class CustomerFigures extends TableFigures {
+
+    private final Map<Customer.CustomerStatus, Long> byStatus = new EnumMap<>(Customer.CustomerStatus.class);
+    private long total;
+
+    public CustomerFigures() {
+        super("customers");
+    }
+
+    public void add(Customer.CustomerStatus status, long count) {
+        if (status != null) {
+            byStatus.merge(status, count, Long::sum);
+        }
+        total += count;
+    }
+
+    public long getTotal() { return total; }
+
+    public long countByStatus(Customer.CustomerStatus status) {
+        return byStatus.getOrDefault(status, 0L);
+    }
+}
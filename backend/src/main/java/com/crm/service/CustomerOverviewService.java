@@ -0,0 +1,268 @@
+package com.crm.service;
+
+import com.crm.model.Customer;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.OpportunityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Everything the customer page shows in one response: the customer, its first contacts,
+ * opportunities and activities, and summary figures.
+ *
+ * <p>The sections are independent queries run concurrently on a bounded pool, so the
+ * response takes about as long as the slowest of them rather than their sum. As in the
+ * global search, every section has the same time budget counted from the start; sections
+ * still running when it runs out are left empty and reported as timed out.
+ */
+@Service
+public class CustomerOverviewService {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerOverviewService.class);
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Value("${crm.customer-overview.timeout-ms:500}")
+    private long timeoutMs;
+
+    @Value("${crm.customer-overview.max-limit:50}")
+    private int maxLimit;
+
+    @Value("${crm.customer-overview.threads:6}")
+    private int threads;
+
+    @Value("${crm.customer-overview.queue-size:60}")
+    private int queueSize;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), overviewThreads());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The overview of customer {@code id} with at most {@code limit} rows per list, or
+     * {@code null} when there is no such customer.
+     */
+    public Overview overview(Long id, int limit) {
+        int cap = Math.max(1, Math.min(limit, maxLimit));
+        LocalDateTime now = LocalDateTime.now();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        // Primary contacts sort first, so the primary contact is the first row when there is one
+        PageRequest contactPage = PageRequest.of(0, cap, Sort.by(Sort.Order.desc("isPrimary"),
+                Sort.Order.asc("lastName"), Sort.Order.asc("firstName"), Sort.Order.asc("id")));
+        PageRequest opportunityPage = PageRequest.of(0, cap, Sort.by("createdAt").descending().and(Sort.by("id").descending()));
+        PageRequest activityPage = PageRequest.of(0, cap, Sort.by("startDate").descending().and(Sort.by("id").descending()));
+
+        CompletableFuture<Optional<Customer>> customer = submit(() -> customerRepository.findById(id));
+        CompletableFuture<Page<ContactListItem>> contacts = submit(() -> contactRepository.findListItemsByCustomerId(id, contactPage));
+        CompletableFuture<Page<OpportunityListItem>> opportunities = submit(() -> opportunityRepository.findListItemsByCustomerId(id, opportunityPage));
+        CompletableFuture<List<Object[]>> pipeline = submit(() -> opportunityRepository.getOpenPipelineByCustomerId(id));
+        CompletableFuture<Page<ActivityListItem>> activities = submit(() -> activityRepository.findListItemsByCustomerId(id, activityPage));
+        CompletableFuture<List<Object[]>> activityDates = submit(() -> activityRepository.getActivityDatesByCustomerId(id, now));
+
+        Overview overview = new Overview();
+        Summary summary = overview.getSummary();
+        Optional<Customer> found = collect(overview, "customer", customer, deadline, null);
+        if (found != null && found.isEmpty()) {
+            return null;
+        }
+        overview.setCustomer(found != null ? found.get() : null);
+        collect(overview, "contacts", contacts, deadline, page -> {
+            overview.setContacts(page.getContent());
+            summary.setContactCount(page.getTotalElements());
+            if (!page.isEmpty() && Boolean.TRUE.equals(page.getContent().get(0).getIsPrimary())) {
+                overview.setPrimaryContact(page.getContent().get(0));
+            }
+        });
+        collect(overview, "opportunities", opportunities, deadline, page -> {
+            overview.setOpportunities(page.getContent());
+            summary.setOpportunityCount(page.getTotalElements());
+        });
+        collect(overview, "pipeline", pipeline, deadline, rows -> {
+            Object[] row = rows.get(0);
+            summary.setOpenOpportunityCount(((Number) row[0]).longValue());
+            summary.setOpenPipeline(decimal(row[1]));
+            summary.setWeightedPipeline(decimal(row[2]));
+        });
+        collect(overview, "activities", activities, deadline, page -> {
+            overview.setRecentActivities(page.getContent());
+            summary.setActivityCount(page.getTotalElements());
+        });
+        collect(overview, "activityDates", activityDates, deadline, rows -> {
+            Object[] row = rows.get(0);
+            summary.setLastActivityAt((LocalDateTime) row[0]);
+            summary.setNextActivityAt((LocalDateTime) row[1]);
+        });
+        return overview;
+    }
+
+    /**
+     * Waits for {@code future} until {@code deadline}, records the section's status and
+     * hands the result to {@code apply}; returns the result, or {@code null} if it did not arrive.
+     */
+    private <T> T collect(Overview overview, String section, CompletableFuture<T> future, long deadline,
+                          Consumer<T> apply) {
+        String status;
+        T result = null;
+        try {
+            long remaining = Math.max(0L, deadline - System.nanoTime());
+            result = future.get(remaining, TimeUnit.NANOSECONDS);
+            if (apply != null) {
+                apply.accept(result);
+            }
+            status = "OK";
+        } catch (TimeoutException e) {
+            // Not interrupted: the query finishes on its pool thread and its result is dropped
+            future.cancel(false);
+            status = "TIMED_OUT";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = "TIMED_OUT";
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                status = "REJECTED";
+            } else {
+                log.warn("Customer overview section {} failed", section, e.getCause());
+                status = "FAILED";
+            }
+        }
+        overview.getSections().put(section, status);
+        if (!"OK".equals(status)) {
+            overview.setPartial(true);
+        }
+        return result;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(query, executor);
+        } catch (RejectedExecutionException e) {
+            // The pool and its queue are full; the section is skipped rather than queued unboundedly
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    private static BigDecimal decimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+    }
+
+    private static ThreadFactory overviewThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "customer-overview-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static class Summary {
+        private Long contactCount;
+        private Long opportunityCount;
+        private Long openOpportunityCount;
+        private BigDecimal openPipeline;
+        private BigDecimal weightedPipeline;
+        private Long activityCount;
+        private LocalDateTime lastActivityAt;
+        private LocalDateTime nextActivityAt;
+
+        // Getters and setters
+        public Long getContactCount() { return contactCount; }
+        public void setContactCount(Long contactCount) { this.contactCount = contactCount; }
+        public Long getOpportunityCount() { return opportunityCount; }
+        public void setOpportunityCount(Long opportunityCount) { this.opportunityCount = opportunityCount; }
+        public Long getOpenOpportunityCount() { return openOpportunityCount; }
+        public void setOpenOpportunityCount(Long openOpportunityCount) { this.openOpportunityCount = openOpportunityCount; }
+        public BigDecimal getOpenPipeline() { return openPipeline; }
+        public void setOpenPipeline(BigDecimal openPipeline) { this.openPipeline = openPipeline; }
+        public BigDecimal getWeightedPipeline() { return weightedPipeline; }
+        public void setWeightedPipeline(BigDecimal weightedPipeline) { this.weightedPipeline = weightedPipeline; }
+        public Long getActivityCount() { return activityCount; }
+        public void setActivityCount(Long activityCount) { this.activityCount = activityCount; }
+        public LocalDateTime getLastActivityAt() { return lastActivityAt; }
+        public void setLastActivityAt(LocalDateTime lastActivityAt) { this.lastActivityAt = lastActivityAt; }
+        public LocalDateTime getNextActivityAt() { return nextActivityAt; }
+        public void setNextActivityAt(LocalDateTime nextActivityAt) { this.nextActivityAt = nextActivityAt; }
+    }
+
+    public static class Overview {
+        private Customer customer;
+        private ContactListItem primaryContact;
+        private List<ContactListItem> contacts = new ArrayList<>();
+        private List<OpportunityListItem> opportunities = new ArrayList<>();
+        private List<ActivityListItem> recentActivities = new ArrayList<>();
+        private Summary summary = new Summary();
+        private boolean partial;
+        private Map<String, String> sections = new LinkedHashMap<>();
+
+        // Getters and setters
+        public Customer getCustomer() { return customer; }
+        public void setCustomer(Customer customer) { this.customer = customer; }
+        public ContactListItem getPrimaryContact() { return primaryContact; }
+        public void setPrimaryContact(ContactListItem primaryContact) { this.primaryContact = primaryContact; }
+        public List<ContactListItem> getContacts() { return contacts; }
+        public void setContacts(List<ContactListItem> contacts) { this.contacts = contacts; }
+        public List<OpportunityListItem> getOpportunities() { return opportunities; }
+        public void setOpportunities(List<OpportunityListItem> opportunities) { this.opportunities = opportunities; }
+        public List<ActivityListItem> getRecentActivities() { return recentActivities; }
+        public void setRecentActivities(List<ActivityListItem> recentActivities) { this.recentActivities = recentActivities; }
+        public Summary getSummary() { return summary; }
+        public void setSummary(Summary summary) { this.summary = summary; }
+        public boolean isPartial() { return partial; }
+        public void setPartial(boolean partial) { this.partial = partial; }
+        public Map<String, String> getSections() { return sections; }
+        public void setSections(Map<String, String> sections) { this.sections = sections; }
+    }
+}
@@ -0,0 +1,498 @@
+package com.crm.service;
+
+import com.crm.event.AfterCommitBuffer;
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.Activity;
+import com.crm.model.ActivityDailyRollup;
+import com.crm.model.Lead;
+import com.crm.model.LeadDailyRollup;
+import com.crm.model.Opportunity;
+import com.crm.model.OpportunityDailyRollup;
+import com.crm.repository.ActivityDailyRollupRepository;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.LeadDailyRollupRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityDailyRollupRepository;
+import com.crm.repository.OpportunityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the per-day rollup tables behind the time-range reports.
+ *
+ * <p>A rollup day is always rebuilt from the source rows with one grouped query, so a
+ * refresh is idempotent. Writes refresh only the days they touch (for example the old
+ * and the new conversion day of a lead), and the backfill job rebuilds history in
+ * chunks of {@code crm.rollups.backfill-chunk-days} on a small thread pool. Days are
+ * guarded by striped locks so an incremental refresh and a backfill chunk covering the
+ * same day cannot interleave.
+ */
+@Service
+public class DailyRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyRollupService.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private LeadDailyRollupRepository leadRollupRepository;
+
+    @Autowired
+    private OpportunityDailyRollupRepository opportunityRollupRepository;
+
+    @Autowired
+    private ActivityDailyRollupRepository activityRollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${crm.rollups.backfill-chunk-days:31}")
+    private int chunkDays;
+
+    @Value("${crm.rollups.backfill-threads:4}")
+    private int backfillThreads;
+
+    @Value("${crm.rollups.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    private final ReentrantLock[] dayLocks = new ReentrantLock[LOCK_STRIPES];
+    private final AtomicReference<BackfillJob> backfill = new AtomicReference<>();
+    private final AfterCommitBuffer<EntityChangeEvent> pendingChanges = new AfterCommitBuffer<>(this::refreshChangedDays);
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        for (int i = 0; i < dayLocks.length; i++) {
+            dayLocks[i] = new ReentrantLock();
+        }
+        // Incremental refreshes run after the writing transaction has committed
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (backfillOnStartup && leadRollupRepository.count() == 0
+                && opportunityRollupRepository.count() == 0 && activityRollupRepository.count() == 0) {
+            startBackfill(null, null);
+        }
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isAbout(Lead.class) || event.isAbout(Opportunity.class) || event.isAbout(Activity.class)) {
+            pendingChanges.add(event);
+        }
+    }
+
+    /**
+     * Refreshes each day a committed transaction touched once, however many of its rows
+     * fall on that day.
+     */
+    private void refreshChangedDays(List<EntityChangeEvent> events) {
+        Set<LocalDate> leadDays = new TreeSet<>();
+        Set<LocalDate> opportunityDays = new TreeSet<>();
+        Set<LocalDate> activityDays = new TreeSet<>();
+        for (EntityChangeEvent event : events) {
+            Map<String, Object> previous = event.getPreviousState() != null ? event.getPreviousState() : Map.of();
+            Map<String, Object> current = event.getCurrentState() != null ? event.getCurrentState() : Map.of();
+            if (event.isAbout(Lead.class)) {
+                if (event.getChangeType() != EntityChangeEvent.ChangeType.UPDATED
+                        || !Objects.equals(previous.get("source"), current.get("source"))) {
+                    addDay(leadDays, ((Lead) event.getEntity()).getCreatedAt());
+                }
+                addDay(leadDays, previous.get("convertedAt"));
+                addDay(leadDays, current.get("convertedAt"));
+            } else if (event.isAbout(Opportunity.class)) {
+                addDay(opportunityDays, previous.get("actualCloseDate"));
+                addDay(opportunityDays, current.get("actualCloseDate"));
+            } else if (event.isAbout(Activity.class)) {
+                addDay(activityDays, previous.get("completedAt"));
+                addDay(activityDays, current.get("completedAt"));
+            }
+        }
+        leadDays.forEach(day -> refreshLeads(day, day));
+        opportunityDays.forEach(day -> refreshOpportunities(day, day));
+        activityDays.forEach(day -> refreshActivities(day, day));
+    }
+
+    /**
+     * Starts a backfill of all rollups between {@code from} and {@code to} (inclusive).
+     * Missing bounds default to the earliest source row and today. If a backfill is
+     * already running, its status is returned instead.
+     */
+    public BackfillStatus startBackfill(LocalDate from, LocalDate to) {
+        BackfillJob running = backfill.get();
+        if (running != null && running.finishedAt == null) {
+            return running.toStatus();
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : earliestSourceDay(end);
+        List<LocalDate[]> chunks = new ArrayList<>();
+        for (LocalDate chunkStart = start; !chunkStart.isAfter(end); chunkStart = chunkStart.plusDays(chunkDays)) {
+            LocalDate chunkEnd = chunkStart.plusDays(chunkDays - 1L);
+            chunks.add(new LocalDate[] {chunkStart, chunkEnd.isAfter(end) ? end : chunkEnd});
+        }
+
+        BackfillJob job = new BackfillJob(start, end, chunks.size());
+        if (!backfill.compareAndSet(running, job)) {
+            return backfill.get().toStatus();
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, backfillThreads));
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            LocalDate[] chunk = chunks.get(i);
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    refreshLeads(chunk[0], chunk[1]);
+                    refreshOpportunities(chunk[0], chunk[1]);
+                    refreshActivities(chunk[0], chunk[1]);
+                    job.chunksCompleted.incrementAndGet();
+                } catch (RuntimeException e) {
+                    job.chunksFailed.incrementAndGet();
+                    log.warn("Rollup backfill failed for {}..{}", chunk[0], chunk[1], e);
+                }
+            }, pool);
+        }
+        CompletableFuture.allOf(tasks).whenComplete((ignored, error) -> {
+            job.finishedAt = LocalDateTime.now();
+            pool.shutdown();
+            log.info("Rollup backfill {}..{} finished: {} chunks, {} failed",
+                    start, end, job.chunksTotal, job.chunksFailed.get());
+        });
+        return job.toStatus();
+    }
+
+    public BackfillStatus getBackfillStatus() {
+        BackfillJob job = backfill.get();
+        return job != null ? job.toStatus() : null;
+    }
+
+    public void refreshLeads(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        withDaysLocked(from, to, () -> transactionTemplate.executeWithoutResult(status -> {
+            Map<LocalDate, Map<Lead.LeadSource, LeadDailyRollup>> rows = new HashMap<>();
+            for (Object[] row : leadRepository.countCreatedByDayAndSource(start, end)) {
+                leadRow(rows, toLocalDate(row[0]), (Lead.LeadSource) row[1]).setCreated(TableFigures.toLong(row[2]));
+            }
+            for (Object[] row : leadRepository.countConvertedByDayAndSource(start, end)) {
+                leadRow(rows, toLocalDate(row[0]), (Lead.LeadSource) row[1]).setConverted(TableFigures.toLong(row[2]));
+            }
+            leadRollupRepository.deleteByDayBetween(from, to);
+            for (Map<Lead.LeadSource, LeadDailyRollup> bySource : rows.values()) {
+                leadRollupRepository.saveAll(bySource.values());
+            }
+        }));
+    }
+
+    public void refreshOpportunities(LocalDate from, LocalDate to) {
+        withDaysLocked(from, to, () -> transactionTemplate.executeWithoutResult(status -> {
+            List<OpportunityDailyRollup> rows = new ArrayList<>();
+            for (Object[] row : opportunityRepository.getClosedStatsByDayAndStage(from, to)) {
+                BigDecimal amount = row[3] != null ? (BigDecimal) row[3] : BigDecimal.ZERO;
+                rows.add(new OpportunityDailyRollup(toLocalDate(row[0]), (Opportunity.OpportunityStage) row[1],
+                        TableFigures.toLong(row[2]), amount));
+            }
+            opportunityRollupRepository.deleteByDayBetween(from, to);
+            opportunityRollupRepository.saveAll(rows);
+        }));
+    }
+
+    public void refreshActivities(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        withDaysLocked(from, to, () -> transactionTemplate.executeWithoutResult(status -> {
+            List<ActivityDailyRollup> rows = new ArrayList<>();
+            for (Object[] row : activityRepository.countCompletedByDayAndType(start, end)) {
+                rows.add(new ActivityDailyRollup(toLocalDate(row[0]), (Activity.ActivityType) row[1],
+                        TableFigures.toLong(row[2])));
+            }
+            activityRollupRepository.deleteByDayBetween(from, to);
+            activityRollupRepository.saveAll(rows);
+        }));
+    }
+
+    public Map<String, Object> leadReport(LocalDate from, LocalDate to) {
+        Map<LocalDate, long[]> days = new TreeMap<>();
+        Map<String, long[]> bySource = new LinkedHashMap<>();
+        for (Lead.LeadSource source : Lead.LeadSource.values()) {
+            bySource.put(source.name(), new long[2]);
+        }
+        long created = 0;
+        long converted = 0;
+        for (LeadDailyRollup rollup : leadRollupRepository.findByDayBetweenOrderByDayAsc(from, to)) {
+            long[] day = days.computeIfAbsent(rollup.getDay(), d -> new long[2]);
+            day[0] += rollup.getCreated();
+            day[1] += rollup.getConverted();
+            if (rollup.getSource() != null) {
+                long[] source = bySource.get(rollup.getSource().name());
+                source[0] += rollup.getCreated();
+                source[1] += rollup.getConverted();
+            }
+            created += rollup.getCreated();
+            converted += rollup.getConverted();
+        }
+
+        List<Map<String, Object>> daily = new ArrayList<>();
+        days.forEach((day, counts) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("day", day);
+            entry.put("created", counts[0]);
+            entry.put("converted", counts[1]);
+            daily.add(entry);
+        });
+        Map<String, Object> sources = new LinkedHashMap<>();
+        bySource.forEach((source, counts) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("created", counts[0]);
+            entry.put("converted", counts[1]);
+            sources.put(source, entry);
+        });
+
+        Map<String, Object> report = reportHeader(from, to);
+        report.put("created", created);
+        report.put("converted", converted);
+        report.put("bySource", sources);
+        report.put("days", daily);
+        return report;
+    }
+
+    public Map<String, Object> opportunityReport(LocalDate from, LocalDate to) {
+        Map<LocalDate, Map<String, Object>> days = new TreeMap<>();
+        long wonCount = 0;
+        long lostCount = 0;
+        BigDecimal wonAmount = BigDecimal.ZERO;
+        BigDecimal lostAmount = BigDecimal.ZERO;
+        for (OpportunityDailyRollup rollup : opportunityRollupRepository.findByDayBetweenOrderByDayAsc(from, to)) {
+            Map<String, Object> day = days.computeIfAbsent(rollup.getDay(), this::emptyOpportunityDay);
+            String prefix = rollup.getStage() == Opportunity.OpportunityStage.CLOSED_WON ? "won" : "lost";
+            day.put(prefix + "Count", rollup.getCount());
+            day.put(prefix + "Amount", rollup.getAmount());
+            if (rollup.getStage() == Opportunity.OpportunityStage.CLOSED_WON) {
+                wonCount += rollup.getCount();
+                wonAmount = wonAmount.add(rollup.getAmount());
+            } else {
+                lostCount += rollup.getCount();
+                lostAmount = lostAmount.add(rollup.getAmount());
+            }
+        }
+
+        Map<String, Object> report = reportHeader(from, to);
+        report.put("wonCount", wonCount);
+        report.put("wonAmount", wonAmount);
+        report.put("lostCount", lostCount);
+        report.put("lostAmount", lostAmount);
+        long closed = wonCount + lostCount;
+        report.put("winRate", closed > 0 ? (double) wonCount / closed * 100 : 0.0);
+        report.put("days", new ArrayList<>(days.values()));
+        return report;
+    }
+
+    public Map<String, Object> activityReport(LocalDate from, LocalDate to) {
+        Map<LocalDate, Long> days = new TreeMap<>();
+        Map<String, Long> byType = new LinkedHashMap<>();
+        for (Activity.ActivityType type : Activity.ActivityType.values()) {
+            byType.put(type.name(), 0L);
+        }
+        long completed = 0;
+        for (ActivityDailyRollup rollup : activityRollupRepository.findByDayBetweenOrderByDayAsc(from, to)) {
+            days.merge(rollup.getDay(), rollup.getCompleted(), Long::sum);
+            byType.merge(rollup.getType().name(), rollup.getCompleted(), Long::sum);
+            completed += rollup.getCompleted();
+        }
+
+        List<Map<String, Object>> daily = new ArrayList<>();
+        days.forEach((day, count) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("day", day);
+            entry.put("completed", count);
+            daily.add(entry);
+        });
+
+        Map<String, Object> report = reportHeader(from, to);
+        report.put("completed", completed);
+        report.put("byType", byType);
+        report.put("days", daily);
+        return report;
+    }
+
+    private Map<String, Object> emptyOpportunityDay(LocalDate day) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("day", day);
+        entry.put("wonCount", 0L);
+        entry.put("wonAmount", BigDecimal.ZERO);
+        entry.put("lostCount", 0L);
+        entry.put("lostAmount", BigDecimal.ZERO);
+        return entry;
+    }
+
+    private static Map<String, Object> reportHeader(LocalDate from, LocalDate to) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("from", from);
+        report.put("to", to);
+        return report;
+    }
+
+    private static LeadDailyRollup leadRow(Map<LocalDate, Map<Lead.LeadSource, LeadDailyRollup>> rows,
+                                           LocalDate day, Lead.LeadSource source) {
+        return rows.computeIfAbsent(day, d -> new HashMap<>())
+                .computeIfAbsent(source, s -> new LeadDailyRollup(day, s));
+    }
+
+    private LocalDate earliestSourceDay(LocalDate fallback) {
+        LocalDate earliest = fallback;
+        LocalDateTime leadCreated = leadRepository.findEarliestCreatedAt();
+        if (leadCreated != null && leadCreated.toLocalDate().isBefore(earliest)) {
+            earliest = leadCreated.toLocalDate();
+        }
+        LocalDate opportunityClosed = opportunityRepository.findEarliestActualCloseDate();
+        if (opportunityClosed != null && opportunityClosed.isBefore(earliest)) {
+            earliest = opportunityClosed;
+        }
+        LocalDateTime activityCompleted = activityRepository.findEarliestCompletedAt();
+        if (activityCompleted != null && activityCompleted.toLocalDate().isBefore(earliest)) {
+            earliest = activityCompleted.toLocalDate();
+        }
+        return earliest;
+    }
+
+    private void withDaysLocked(LocalDate from, LocalDate to, Runnable action) {
+        // Acquire stripes in index order so overlapping ranges cannot deadlock
+        Set<Integer> stripes = new TreeSet<>();
+        for (LocalDate day = from; !day.isAfter(to) && stripes.size() < LOCK_STRIPES; day = day.plusDays(1)) {
+            stripes.add((int) Math.floorMod(day.toEpochDay(), (long) LOCK_STRIPES));
+        }
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            for (int stripe : stripes) {
+                dayLocks[stripe].lock();
+                held.add(dayLocks[stripe]);
+            }
+            action.run();
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    private static void addDay(Set<LocalDate> days, Object value) {
+        LocalDate day = toLocalDate(value);
+        if (day != null) {
+            days.add(day);
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value == null || value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toLocalDate();
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        if (value instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) value).toLocalDateTime().toLocalDate();
+        }
+        return LocalDate.parse(value.toString().substring(0, 10));
+    }
+
+    private static final class BackfillJob {
+        final LocalDate from;
+        final LocalDate to;
+        final int chunksTotal;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicInteger chunksCompleted = new AtomicInteger();
+        final AtomicInteger chunksFailed = new AtomicInteger();
+        volatile LocalDateTime finishedAt;
+
+        BackfillJob(LocalDate from, LocalDate to, int chunksTotal) {
+            this.from = from;
+            this.to = to;
+            this.chunksTotal = chunksTotal;
+        }
+
+        BackfillStatus toStatus() {
+            BackfillStatus status = new BackfillStatus();
+            status.setState(finishedAt == null ? "RUNNING" : chunksFailed.get() > 0 ? "FAILED" : "COMPLETED");
+            status.setFrom(from);
+            status.setTo(to);
+            status.setChunksTotal(chunksTotal);
+            status.setChunksCompleted(chunksCompleted.get());
+            status.setChunksFailed(chunksFailed.get());
+            status.setStartedAt(startedAt);
+            status.setFinishedAt(finishedAt);
+            return status;
+        }
+    }
+
+    public static class BackfillStatus {
+        private String state;
+        private LocalDate from;
+        private LocalDate to;
+        private int chunksTotal;
+        private int chunksCompleted;
+        private int chunksFailed;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+
+        // Getters and setters
+        public String getState() { return state; }
+        public void setState(String state) { this.state = state; }
+        public LocalDate getFrom() { return from; }
+        public void setFrom(LocalDate from) { this.from = from; }
+        public LocalDate getTo() { return to; }
+        public void setTo(LocalDate to) { this.to = to; }
+        public int getChunksTotal() { return chunksTotal; }
+        public void setChunksTotal(int chunksTotal) { this.chunksTotal = chunksTotal; }
+        public int getChunksCompleted() { return chunksCompleted; }
+        public void setChunksCompleted(int chunksCompleted) { this.chunksCompleted = chunksCompleted; }
+        public int getChunksFailed() { return chunksFailed; }
+        public void setChunksFailed(int chunksFailed) { this.chunksFailed = chunksFailed; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    }
+}
@@ -0,0 +1,78 @@
+package com.crm.service;
+
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Figures for every table the dashboard reads, plus the time spent on each.
+ */
+public class DashboardAggregate {
+
+    private final CustomerFigures customers;
+    private final LeadFigures leads;
+    private final OpportunityFigures opportunities;
+    private final ActivityFigures activities;
+
+    public DashboardAggregate(CustomerFigures customers, LeadFigures leads,
+                              OpportunityFigures opportunities, ActivityFigures activities) {
+        this.customers = customers;
+        this.leads = leads;
+        this.opportunities = opportunities;
+        this.activities = activities;
+    }
+
+    public CustomerFigures getCustomers() { return customers; }
+    public LeadFigures getLeads() { return leads; }
+    public OpportunityFigures getOpportunities() { return opportunities; }
+    public ActivityFigures getActivities() { return activities; }
+
+    /**
+     * The figures shown by the dashboard, keyed the way /api/dashboard/stats returns them.
+     */
+    public Map<String, Object> toStatsMap() {
+        Map<String, Object> stats = new HashMap<>();
+        
+        // Customer stats
+        stats.put("totalCustomers", customers.getTotal());
+        stats.put("activeCustomers", customers.countByStatus(Customer.CustomerStatus.ACTIVE));
+        stats.put("prospectCustomers", customers.countByStatus(Customer.CustomerStatus.PROSPECT));
+        
+        // Lead stats
+        stats.put("totalLeads", leads.getTotal());
+        stats.put("newLeads", leads.countByStatus(Lead.LeadStatus.NEW));
+        stats.put("qualifiedLeads", leads.countByStatus(Lead.LeadStatus.QUALIFIED));
+        stats.put("convertedLeads", leads.countByStatus(Lead.LeadStatus.CONVERTED));
+        
+        // Opportunity stats
+        stats.put("totalOpportunities", opportunities.getTotal());
+        stats.put("totalRevenue", opportunities.amountByStage(Opportunity.OpportunityStage.CLOSED_WON));
+        stats.put("pipelineValue", opportunities.getWeightedPipeline());
+        stats.put("averageDealSize", opportunities.getAverageWonDealSize());
+        
+        // Activity stats
+        stats.put("totalActivities", activities.getTotal());
+        
+        return stats;
+    }
+
+    public Map<String, Double> tableTimingsMillis() {
+        Map<String, Double> timings = new LinkedHashMap<>();
+        tables().forEach(figures -> timings.put(figures.getTable(), figures.getElapsedMillis()));
+        return timings;
+    }
+
+    public String serverTiming() {
+        return tables().map(TableFigures::serverTiming).collect(Collectors.joining(", "));
+    }
+
+    private Stream<TableFigures> tables() {
+        return Stream.of(customers, leads, opportunities, activities);
+    }
+}
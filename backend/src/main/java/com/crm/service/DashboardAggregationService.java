@@ -0,0 +1,120 @@
+package com.crm.service;
+
+import com.crm.model.Activity;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Computes dashboard and per-entity statistics with a single grouped scan per table,
+ * instead of one COUNT/SUM query per figure.
+ */
+@Service
+@Transactional(readOnly = true)
+public class DashboardAggregationService {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    public DashboardAggregate aggregate() {
+        return new DashboardAggregate(aggregateCustomers(), aggregateLeads(),
+                aggregateOpportunities(), aggregateActivities());
+    }
+
+    public CustomerFigures aggregateCustomers() {
+        long start = System.nanoTime();
+        CustomerFigures figures = new CustomerFigures();
+        for (Object[] row : customerRepository.countGroupedByStatus()) {
+            figures.add((Customer.CustomerStatus) row[0], TableFigures.toLong(row[1]));
+        }
+        figures.setElapsedNanos(System.nanoTime() - start);
+        return figures;
+    }
+
+    public ContactFigures aggregateContacts() {
+        long start = System.nanoTime();
+        ContactFigures figures = new ContactFigures();
+        for (Object[] row : contactRepository.countGroupedByStatus()) {
+            figures.add((Contact.ContactStatus) row[0], TableFigures.toLong(row[1]));
+        }
+        figures.setElapsedNanos(System.nanoTime() - start);
+        return figures;
+    }
+
+    public LeadFigures aggregateLeads() {
+        long start = System.nanoTime();
+        LeadFigures figures = new LeadFigures();
+        for (Object[] row : leadRepository.getLeadStatsByStatusAndSource()) {
+            figures.add((Lead.LeadStatus) row[0], (Lead.LeadSource) row[1],
+                    TableFigures.toLong(row[2]), TableFigures.toLong(row[3]), TableFigures.toLong(row[4]));
+        }
+        figures.setElapsedNanos(System.nanoTime() - start);
+        return figures;
+    }
+
+    public OpportunityFigures aggregateOpportunities() {
+        long start = System.nanoTime();
+        OpportunityFigures figures = new OpportunityFigures();
+        for (Object[] row : opportunityRepository.getPipelineStatsByStage()) {
+            figures.add((Opportunity.OpportunityStage) row[0], TableFigures.toLong(row[1]),
+                    toBigDecimal(row[2]), toBigDecimal(row[3]));
+        }
+        figures.setElapsedNanos(System.nanoTime() - start);
+        return figures;
+    }
+
+    public ActivityFigures aggregateActivities() {
+        return aggregateActivities(LocalDateTime.now());
+    }
+
+    public ActivityFigures aggregateActivities(LocalDateTime currentTime) {
+        long start = System.nanoTime();
+        ActivityFigures figures = new ActivityFigures();
+        List<Object[]> rows = activityRepository.getActivityStatsByStatusAndType(currentTime);
+        for (Object[] row : rows) {
+            Activity.ActivityStatus status = (Activity.ActivityStatus) row[0];
+            figures.add(status, (Activity.ActivityType) row[1], TableFigures.toLong(row[2]));
+            // Matches ActivityRepository.findOverdueActivities: planned and already started
+            if (status == Activity.ActivityStatus.PLANNED) {
+                figures.addOverdue(TableFigures.toLong(row[3]));
+            }
+        }
+        figures.setElapsedNanos(System.nanoTime() - start);
+        return figures;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(value.toString());
+    }
+}
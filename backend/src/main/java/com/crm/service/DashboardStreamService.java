@@ -0,0 +1,260 @@
+package com.crm.service;
+
+import com.crm.event.AfterCommitBuffer;
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.Activity;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes dashboard figures to Server-Sent Events subscribers.
+ *
+ * <p>Entity changes only mark the dashboard dirty. Every
+ * {@code crm.dashboard-stream.flush-interval-ms} the figures are read from the
+ * {@link CrmCounterStore}, diffed against the last frame, and only the changed values
+ * are queued to each subscriber, so a burst of writes costs one frame. Each subscriber
+ * has a bounded buffer drained by a small sender pool; a subscriber whose buffer
+ * overflows is disconnected and can reconnect to get a fresh snapshot.
+ */
+@Service
+public class DashboardStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStreamService.class);
+
+    private static final Set<Class<?>> DASHBOARD_ENTITIES =
+            Set.of(Customer.class, Lead.class, Opportunity.class, Activity.class);
+
+    @Autowired
+    private CrmCounterStore counterStore;
+
+    @Value("${crm.dashboard-stream.buffer-size:16}")
+    private int bufferSize;
+
+    @Value("${crm.dashboard-stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${crm.dashboard-stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AfterCommitBuffer<EntityChangeEvent> pendingChanges =
+            new AfterCommitBuffer<>(events -> dirty.set(true));
+    private final ExecutorService senders = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), senderThreads());
+    private final LongAdder framesPublished = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private Map<String, Map<String, Object>> lastFrame;
+
+    /**
+     * Registers a new subscriber and queues the full current snapshot as its first event.
+     * Returns {@code null} when the subscriber limit has been reached.
+     */
+    public synchronized SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        // Deltas are diffed against lastFrame, so the snapshot must be exactly that frame
+        if (lastFrame == null) {
+            lastFrame = currentFigures();
+        }
+        enqueue(subscriber, SseEmitter.event().name("snapshot").data(lastFrame));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Creates the emitter of a new subscriber; package-private so tests can watch what is sent.
+     */
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        for (Class<?> type : DASHBOARD_ENTITIES) {
+            if (event.isAbout(type)) {
+                pendingChanges.add(event);
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${crm.dashboard-stream.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (lastFrame == null || !dirty.getAndSet(false)) {
+            return;
+        }
+        Map<String, Map<String, Object>> previous = lastFrame;
+        Map<String, Map<String, Object>> figures = currentFigures();
+        lastFrame = figures;
+        Map<String, Map<String, Object>> delta = diff(previous, figures);
+        if (delta.isEmpty()) {
+            return;
+        }
+        framesPublished.increment();
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().name("delta").data(delta));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${crm.dashboard-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("subscribers", subscribers.size());
+        metrics.put("framesPublished", framesPublished.sum());
+        metrics.put("slowConsumerEvictions", evictions.sum());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private Map<String, Map<String, Object>> currentFigures() {
+        DashboardAggregate aggregate = counterStore.dashboard();
+        Map<String, Map<String, Object>> figures = new HashMap<>();
+        figures.put("stats", aggregate.toStatsMap());
+        figures.put("leadSources", new HashMap<>(aggregate.getLeads().toSourceCounts()));
+        figures.put("opportunityStages", aggregate.getOpportunities().toStageBreakdown());
+        return figures;
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.buffer.offer(event)) {
+            evict(subscriber);
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.buffer.poll()) != null) {
+                subscriber.emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // An event may have been queued after the last poll but before the flag was cleared
+        if (!subscriber.buffer.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void evict(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            evictions.increment();
+            log.debug("Disconnecting slow dashboard stream subscriber");
+            subscriber.buffer.clear();
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static Map<String, Map<String, Object>> diff(Map<String, Map<String, Object>> previous,
+                                                        Map<String, Map<String, Object>> current) {
+        Map<String, Map<String, Object>> delta = new HashMap<>();
+        for (Map.Entry<String, Map<String, Object>> section : current.entrySet()) {
+            Map<String, Object> before = previous.getOrDefault(section.getKey(), Map.of());
+            Map<String, Object> changed = new HashMap<>();
+            for (Map.Entry<String, Object> figure : section.getValue().entrySet()) {
+                if (!sameValue(before.get(figure.getKey()), figure.getValue())) {
+                    changed.put(figure.getKey(), figure.getValue());
+                }
+            }
+            if (!changed.isEmpty()) {
+                delta.put(section.getKey(), changed);
+            }
+        }
+        return delta;
+    }
+
+    private static boolean sameValue(Object a, Object b) {
+        if (a instanceof BigDecimal && b instanceof BigDecimal) {
+            return ((BigDecimal) a).compareTo((BigDecimal) b) == 0;
+        }
+        if (a instanceof Map && b instanceof Map) {
+            Map<?, ?> left = (Map<?, ?>) a;
+            Map<?, ?> right = (Map<?, ?>) b;
+            if (!left.keySet().equals(right.keySet())) {
+                return false;
+            }
+            for (Object key : left.keySet()) {
+                if (!sameValue(left.get(key), right.get(key))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Objects.equals(a, b);
+    }
+
+    private static ThreadFactory senderThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-stream-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final Queue<SseEmitter.SseEventBuilder> buffer;
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
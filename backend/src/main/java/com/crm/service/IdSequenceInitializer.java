@@ -0,0 +1,66 @@
+package com.crm.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Moves the id sequences of the tracked entities past the ids already in their tables.
+ *
+ * <p>The entities draw ids from pooled sequences (a {@code *_seq} table on MySQL, which
+ * has no sequences) so that inserts can be batched. Rows written before the switch from
+ * {@code AUTO_INCREMENT}, or by scripts such as {@code data.sql}, bypass the sequence, so
+ * on startup each sequence is advanced to {@code MAX(id) + 1} if it is behind. Sequences
+ * are only ever moved forward.
+ *
+ * <p>It depends on the entity manager factory, whose schema generation creates the
+ * sequences, and on the database initialization that runs {@code data.sql} after it, so
+ * it sees both; and it runs before the application takes requests.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@DependsOnDatabaseInitialization
+public class IdSequenceInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    private static final List<String> TABLES = List.of("customers", "contacts", "leads", "opportunities", "activities");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void alignSequences() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        for (String table : TABLES) {
+            String sequence = table + "_seq";
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            long next = maxId != null ? maxId + 1 : 1;
+            if ("MySQL".equalsIgnoreCase(product)) {
+                if (jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", next, next) == 0
+                        && jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + sequence, Long.class) == 0) {
+                    jdbcTemplate.update("INSERT INTO " + sequence + " (next_val) VALUES (?)", next);
+                }
+            } else if ("H2".equalsIgnoreCase(product)) {
+                List<Long> current = jdbcTemplate.queryForList("SELECT BASE_VALUE FROM information_schema.sequences " +
+                        "WHERE sequence_schema = SCHEMA() AND sequence_name = ?", Long.class,
+                        sequence.toUpperCase(Locale.ROOT));
+                if (!current.isEmpty() && current.get(0) < next) {
+                    jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+                }
+            } else {
+                log.warn("Cannot check {} on {}; ids may collide with existing rows", sequence, product);
+            }
+        }
+    }
+}
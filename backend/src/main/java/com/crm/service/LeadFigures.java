@@ -0,0 +1,78 @@
+package com.crm.service;
+
+import com.crm.model.Lead;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+public class LeadFigures extends TableFigures {
+
+    private final Map<Lead.LeadStatus, Long> byStatus = new EnumMap<>(Lead.LeadStatus.class);
+    private final Map<Lead.LeadSource, Long> bySource = new EnumMap<>(Lead.LeadSource.class);
+    private final Map<Lead.LeadStatus, Long> scoreSumByStatus = new EnumMap<>(Lead.LeadStatus.class);
+    private final Map<Lead.LeadStatus, Long> scoredByStatus = new EnumMap<>(Lead.LeadStatus.class);
+    private long total;
+
+    public LeadFigures() {
+        super("leads");
+    }
+
+    /**
+     * Adds one (status, source) group. {@code scored} is the number of leads in the
+     * group with a non-null score, so averages ignore nulls the same way SQL AVG does.
+     */
+    public void add(Lead.LeadStatus status, Lead.LeadSource source, long count, long scoreSum, long scored) {
+        addStatus(status, count, scoreSum, scored);
+        addSource(source, count);
+    }
+
+    /**
+     * Adds leads by status only; every lead must be added here exactly once to keep the total right.
+     */
+    public void addStatus(Lead.LeadStatus status, long count, long scoreSum, long scored) {
+        if (status != null) {
+            byStatus.merge(status, count, Long::sum);
+            scoreSumByStatus.merge(status, scoreSum, Long::sum);
+            scoredByStatus.merge(status, scored, Long::sum);
+        }
+        total += count;
+    }
+
+    public void addSource(Lead.LeadSource source, long count) {
+        if (source != null) {
+            bySource.merge(source, count, Long::sum);
+        }
+    }
+
+    public long getTotal() { return total; }
+
+    public long countByStatus(Lead.LeadStatus status) {
+        return byStatus.getOrDefault(status, 0L);
+    }
+
+    public long countBySource(Lead.LeadSource source) {
+        return bySource.getOrDefault(source, 0L);
+    }
+
+    public Map<String, Long> toSourceCounts() {
+        Map<String, Long> sourceCounts = new HashMap<>();
+        for (Lead.LeadSource source : Lead.LeadSource.values()) {
+            sourceCounts.put(source.name(), countBySource(source));
+        }
+        return sourceCounts;
+    }
+
+    public long scoreSumByStatus(Lead.LeadStatus status) {
+        return scoreSumByStatus.getOrDefault(status, 0L);
+    }
+
+    public long scoredByStatus(Lead.LeadStatus status) {
+        return scoredByStatus.getOrDefault(status, 0L);
+    }
+
+    public Double averageScoreByStatus(Lead.LeadStatus status) {
+        long scored = scoredByStatus.getOrDefault(status, 0L);
+        return scored > 0 ? (double) scoreSumByStatus.get(status) / scored : null;
+    }
+}
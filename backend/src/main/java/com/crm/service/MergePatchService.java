@@ -0,0 +1,122 @@
+package com.crm.service;
+
+import com.crm.model.TrackedEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies a JSON Merge Patch (RFC 7396) to an entity.
+ *
+ * <p>Only the members present in the patch are set; {@code null} clears a field. The
+ * entities use {@code @DynamicUpdate}, so the resulting {@code UPDATE} writes just the
+ * columns whose values changed (plus {@code updated_at}), and two patches of different
+ * fields of the same row do not overwrite each other. An association is patched with
+ * {@code {"id": ...}} or {@code null}.
+ *
+ * <p>Members outside {@code patchable}, values that do not convert to the field type and
+ * patches that leave the entity invalid are rejected with 400 and nothing is written.
+ */
+@Service
+public class MergePatchService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public <T extends TrackedEntity> ResponseEntity<T> patch(Class<T> type, Long id, JsonNode patch,
+                                                            Set<String> patchable) {
+        if (patch == null || !patch.isObject()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Iterator<String> names = patch.fieldNames();
+        while (names.hasNext()) {
+            if (!patchable.contains(names.next())) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        return transactionTemplate.execute(status -> {
+            T entity = entityManager.find(type, id);
+            if (entity == null) {
+                return ResponseEntity.notFound().build();
+            }
+            BeanWrapper bean = new BeanWrapperImpl(entity);
+            Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!apply(bean, field.getKey(), field.getValue())) {
+                    status.setRollbackOnly();
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+            if (!validator.validate(entity).isEmpty()) {
+                status.setRollbackOnly();
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(entity);
+        });
+    }
+
+    private boolean apply(BeanWrapper bean, String name, JsonNode value) {
+        Class<?> propertyType = bean.getPropertyType(name);
+        if (propertyType == null || !bean.isWritableProperty(name)) {
+            return false;
+        }
+        if (value.isNull()) {
+            if (propertyType.isPrimitive()) {
+                return false;
+            }
+            bean.setPropertyValue(name, null);
+            return true;
+        }
+        if (TrackedEntity.class.isAssignableFrom(propertyType)) {
+            JsonNode referenced = value.get("id");
+            if (referenced == null || !referenced.canConvertToLong()) {
+                return false;
+            }
+            Object target = entityManager.find(propertyType, referenced.longValue());
+            if (target == null) {
+                return false;
+            }
+            bean.setPropertyValue(name, target);
+            return true;
+        }
+        try {
+            bean.setPropertyValue(name, objectMapper.convertValue(value,
+                    objectMapper.constructType(bean.getPropertyTypeDescriptor(name).getResolvableType().getType())));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.crm.service;
+
+import com.crm.model.TrackedEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Loads many rows of one entity type by id, for callers that would otherwise request
+ * {@code GET /api/{entity}/{id}} in a loop.
+ *
+ * <p>The ids are looked up with {@code IN} queries of at most
+ * {@code crm.multi-get.chunk-size} ids. With {@code in_clause_parameter_padding} the lists
+ * are padded to a power of two, so the few statement shapes that result stay in the
+ * statement caches. Rows are returned in the order of their first request; ids that
+ * match no row are reported in {@code missing}.
+ */
+@Service
+public class MultiGetService {
+
+    @Value("${crm.multi-get.chunk-size:128}")
+    private int chunkSize;
+
+    @Value("${crm.multi-get.max-ids:1000}")
+    private int maxIds;
+
+    /**
+     * Looks up {@code ids} with {@code finder}, one chunk at a time. Returns 200 with the
+     * rows and the missing ids, 400 when the list is empty or holds a null, or 413 when it
+     * has more than {@code crm.multi-get.max-ids} distinct ids.
+     */
+    public <T extends TrackedEntity> ResponseEntity<MultiGetResult<T>> findAll(
+            List<Long> ids, Function<List<Long>, List<T>> finder) {
+        if (ids == null || ids.isEmpty() || ids.contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.size() > maxIds) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        Map<Long, T> found = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+            for (T row : finder.apply(chunk)) {
+                found.put(row.getId(), row);
+            }
+        }
+
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinct) {
+            T row = found.get(id);
+            if (row != null) {
+                items.add(row);
+            } else {
+                missing.add(id);
+            }
+        }
+        return ResponseEntity.ok(new MultiGetResult<>(items, missing));
+    }
+
+    public static class MultiGetResult<T> {
+        private List<T> items;
+        private List<Long> missing;
+
+        public MultiGetResult(List<T> items, List<Long> missing) {
+            this.items = items;
+            this.missing = missing;
+        }
+
+        // Getters and setters
+        public List<T> getItems() { return items; }
+        public void setItems(List<T> items) { this.items = items; }
+        public List<Long> getMissing() { return missing; }
+        public void setMissing(List<Long> missing) { this.missing = missing; }
+    }
+}
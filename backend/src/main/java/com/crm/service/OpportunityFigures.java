@@ -0,0 +1,81 @@
+package com.crm.service;
+
+import com.crm.model.Opportunity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+public class OpportunityFigures extends TableFigures {
+
+    private final Map<Opportunity.OpportunityStage, Long> countByStage = new EnumMap<>(Opportunity.OpportunityStage.class);
+    private final Map<Opportunity.OpportunityStage, BigDecimal> amountByStage = new EnumMap<>(Opportunity.OpportunityStage.class);
+    private final Map<Opportunity.OpportunityStage, BigDecimal> weightedByStage = new EnumMap<>(Opportunity.OpportunityStage.class);
+    private long total;
+
+    public OpportunityFigures() {
+        super("opportunities");
+    }
+
+    public void add(Opportunity.OpportunityStage stage, long count, BigDecimal amount, BigDecimal weightedAmount) {
+        if (stage != null) {
+            countByStage.merge(stage, count, Long::sum);
+            amountByStage.merge(stage, amount != null ? amount : BigDecimal.ZERO, BigDecimal::add);
+            weightedByStage.merge(stage, weightedAmount != null ? weightedAmount : BigDecimal.ZERO, BigDecimal::add);
+        }
+        total += count;
+    }
+
+    public long getTotal() { return total; }
+
+    public long countByStage(Opportunity.OpportunityStage stage) {
+        return countByStage.getOrDefault(stage, 0L);
+    }
+
+    public BigDecimal amountByStage(Opportunity.OpportunityStage stage) {
+        return amountByStage.getOrDefault(stage, BigDecimal.ZERO);
+    }
+
+    public Map<String, Object> toStageBreakdown() {
+        Map<String, Object> stageStats = new HashMap<>();
+        for (Opportunity.OpportunityStage stage : Opportunity.OpportunityStage.values()) {
+            Map<String, Object> stageData = new HashMap<>();
+            stageData.put("count", countByStage(stage));
+            stageData.put("amount", amountByStage(stage));
+            stageStats.put(stage.name(), stageData);
+        }
+        return stageStats;
+    }
+
+    public BigDecimal weightedAmountByStage(Opportunity.OpportunityStage stage) {
+        return weightedByStage.getOrDefault(stage, BigDecimal.ZERO);
+    }
+
+    /**
+     * Sum of amount * probability / 100 over every stage that is still open.
+     */
+    public BigDecimal getWeightedPipeline() {
+        BigDecimal pipeline = BigDecimal.ZERO;
+        for (Map.Entry<Opportunity.OpportunityStage, BigDecimal> entry : weightedByStage.entrySet()) {
+            if (isOpen(entry.getKey())) {
+                pipeline = pipeline.add(entry.getValue());
+            }
+        }
+        return pipeline.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal getAverageWonDealSize() {
+        long won = countByStage(Opportunity.OpportunityStage.CLOSED_WON);
+        if (won == 0) {
+            return BigDecimal.ZERO;
+        }
+        return amountByStage(Opportunity.OpportunityStage.CLOSED_WON)
+                .divide(BigDecimal.valueOf(won), 2, RoundingMode.HALF_UP);
+    }
+
+    public static boolean isOpen(Opportunity.OpportunityStage stage) {
+        return stage != Opportunity.OpportunityStage.CLOSED_WON && stage != Opportunity.OpportunityStage.CLOSED_LOST;
+    }
+}
@@ -0,0 +1,87 @@
+package com.crm.service;
+
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Opportunity;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * An opportunity as shown in the opportunity lists, with the names of its customer and
+ * primary contact; {@code description} and {@code notes} are left out.
+ */
+public class OpportunityListItem {
+
+    private final Long id;
+    private final String name;
+    private final BigDecimal amount;
+    private final Opportunity.OpportunityStage stage;
+    private final Integer probability;
+    private final LocalDate expectedCloseDate;
+    private final LocalDate actualCloseDate;
+    private final Opportunity.OpportunitySource source;
+    private final Long customerId;
+    private final String customerName;
+    private final Long primaryContactId;
+    private final String primaryContactName;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    public OpportunityListItem(Long id, String name, BigDecimal amount, Opportunity.OpportunityStage stage,
+                               Integer probability, LocalDate expectedCloseDate, LocalDate actualCloseDate,
+                               Opportunity.OpportunitySource source, Long customerId, String customerName,
+                               Long primaryContactId, String primaryContactName,
+                               LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.amount = amount;
+        this.stage = stage;
+        this.probability = probability;
+        this.expectedCloseDate = expectedCloseDate;
+        this.actualCloseDate = actualCloseDate;
+        this.source = source;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.primaryContactId = primaryContactId;
+        this.primaryContactName = primaryContactName;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * The criteria equivalent of the repository's {@code SELECT new OpportunityListItem(...)}.
+     */
+    public static Selection<OpportunityListItem> selection(CriteriaBuilder cb, Root<Opportunity> opportunity) {
+        Join<Opportunity, Customer> customer = opportunity.join("customer", JoinType.LEFT);
+        Join<Opportunity, Contact> contact = opportunity.join("primaryContact", JoinType.LEFT);
+        return cb.construct(OpportunityListItem.class, opportunity.get("id"), opportunity.get("name"),
+                opportunity.get("amount"), opportunity.get("stage"), opportunity.get("probability"),
+                opportunity.get("expectedCloseDate"), opportunity.get("actualCloseDate"), opportunity.get("source"),
+                customer.get("id"), customer.get("companyName"), contact.get("id"),
+                cb.concat(cb.concat(contact.<String>get("firstName"), " "), contact.<String>get("lastName")),
+                opportunity.get("createdAt"), opportunity.get("updatedAt"));
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public BigDecimal getAmount() { return amount; }
+    public Opportunity.OpportunityStage getStage() { return stage; }
+    public Integer getProbability() { return probability; }
+    public LocalDate getExpectedCloseDate() { return expectedCloseDate; }
+    public LocalDate getActualCloseDate() { return actualCloseDate; }
+    public Opportunity.OpportunitySource getSource() { return source; }
+    public Long getCustomerId() { return customerId; }
+    public String getCustomerName() { return customerName; }
+    public Long getPrimaryContactId() { return primaryContactId; }
+    public String getPrimaryContactName() { return primaryContactName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
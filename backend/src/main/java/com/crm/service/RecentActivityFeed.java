@@ -0,0 +1,141 @@
+package com.crm.service;
+
+import com.crm.event.AfterCommitBuffer;
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.Activity;
+import com.crm.repository.ActivityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Most recently written activities, kept in a fixed-size lock-free ring buffer.
+ *
+ * <p>Writers claim a sequence number and store an immutable slot at that position;
+ * readers walk backwards from the head and never touch the database. An activity that
+ * is written again appears once, at its latest position, and a deleted activity drops
+ * out of the feed. The buffer is seeded on startup with the newest activities by
+ * {@code createdAt}.
+ */
+@Service
+public class RecentActivityFeed {
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong head = new AtomicLong();
+    private final Map<Long, Long> latestSequence = new ConcurrentHashMap<>();
+    private final AfterCommitBuffer<EntityChangeEvent> pendingChanges = new AfterCommitBuffer<>(this::applyChanges);
+
+    public RecentActivityFeed(@Value("${crm.recent-activities.capacity:256}") int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        List<ActivitySummary> newest = activityRepository.findRecentSummaries(PageRequest.of(0, capacity));
+        for (int i = newest.size() - 1; i >= 0; i--) {
+            ActivitySummary summary = newest.get(i);
+            // Anything written since startup is already newer than the seed
+            if (!latestSequence.containsKey(summary.getId())) {
+                publish(summary);
+            }
+        }
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isAbout(Activity.class)) {
+            pendingChanges.add(event);
+        }
+    }
+
+    private void applyChanges(List<EntityChangeEvent> events) {
+        List<Long> unloaded = new ArrayList<>();
+        for (EntityChangeEvent event : events) {
+            if (event.getChangeType() == EntityChangeEvent.ChangeType.DELETED) {
+                latestSequence.remove(event.getEntityId());
+            } else if (event.getEntity() != null) {
+                publish(ActivitySummary.of((Activity) event.getEntity()));
+            } else {
+                unloaded.add(event.getEntityId());
+            }
+        }
+        if (!unloaded.isEmpty()) {
+            // Set-based updates carry no entity; only the last capacity of them can stay in the feed
+            List<Long> newest = unloaded.subList(Math.max(0, unloaded.size() - capacity), unloaded.size());
+            activityRepository.findSummariesByIdIn(newest).forEach(this::publish);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} activities, most recently written first.
+     */
+    public List<ActivitySummary> recent(int limit) {
+        int wanted = Math.min(Math.max(limit, 0), capacity);
+        List<ActivitySummary> result = new ArrayList<>(wanted);
+        long newest = head.get() - 1;
+        long oldest = Math.max(0, newest - capacity + 1);
+        for (long sequence = newest; sequence >= oldest && result.size() < wanted; sequence--) {
+            Slot slot = slots.get((int) (sequence & mask));
+            // Skip slots not yet filled by their writer or already overwritten by a newer lap
+            if (slot == null || slot.sequence != sequence) {
+                continue;
+            }
+            Long latest = latestSequence.get(slot.summary.getId());
+            if (latest != null && latest == sequence) {
+                result.add(slot.summary);
+            }
+        }
+        return result;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void publish(ActivitySummary summary) {
+        long sequence = head.getAndIncrement();
+        latestSequence.merge(summary.getId(), sequence, Math::max);
+        int index = (int) (sequence & mask);
+        Slot slot = new Slot(sequence, summary);
+        Slot previous;
+        do {
+            previous = slots.get(index);
+            // A writer that stalled for a whole lap must not overwrite a newer slot
+            if (previous != null && previous.sequence > sequence) {
+                latestSequence.remove(summary.getId(), sequence);
+                return;
+            }
+        } while (!slots.compareAndSet(index, previous, slot));
+        if (previous != null) {
+            latestSequence.remove(previous.summary.getId(), previous.sequence);
+        }
+    }
+
+    private static final class Slot {
+        final long sequence;
+        final ActivitySummary summary;
+
+        Slot(long sequence, ActivitySummary summary) {
+            this.sequence = sequence;
+            this.summary = summary;
+        }
+    }
+}
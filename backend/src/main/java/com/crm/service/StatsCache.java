@@ -0,0 +1,245 @@
+package com.crm.service;
+
+import com.crm.event.AfterCommitBuffer;
+import com.crm.event.EntityChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache for stats results with request coalescing.
+ *
+ * <p>Concurrent callers asking for the same key while it is being computed wait for the
+ * one in-flight computation instead of starting their own. Results are kept for
+ * {@code crm.stats-cache.ttl-ms} and dropped as soon as an entity they depend on changes.
+ * A result whose dependencies changed while it was being computed is handed to the
+ * waiting callers but not cached.
+ */
+@Service
+public class StatsCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AfterCommitBuffer<Class<?>> pendingChanges = new AfterCommitBuffer<>(this::invalidate);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalescedWaiters = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StatsCache(@Value("${crm.stats-cache.ttl-ms:5000}") long ttlMillis,
+                      @Value("${crm.stats-cache.max-entries:64}") int maxEntries) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached value for {@code key}, computing it with {@code loader} if absent
+     * or expired. {@code dependsOn} lists the entity types whose changes invalidate it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Set<Class<?>> dependsOn, Supplier<T> loader) {
+        Object cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return (T) cached;
+        }
+        misses.increment();
+
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalescedWaiters.increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw propagate(e.getCause());
+            }
+        }
+
+        long generation = generationOf(dependsOn);
+        try {
+            T value = loader.get();
+            store(key, new Entry(value, dependsOn, System.nanoTime() + ttlNanos), generation);
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        pendingChanges.add(event.getEntityType());
+    }
+
+    private void invalidate(List<Class<?>> changedTypes) {
+        for (Class<?> changed : new HashSet<>(changedTypes)) {
+            generations.computeIfAbsent(changed, type -> new AtomicLong()).incrementAndGet();
+            synchronized (entries) {
+                Iterator<Entry> it = entries.values().iterator();
+                while (it.hasNext()) {
+                    if (it.next().dependsOn(changed)) {
+                        it.remove();
+                        invalidations.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        CacheStats stats = new CacheStats();
+        stats.setHits(hits.sum());
+        stats.setMisses(misses.sum());
+        stats.setCoalescedWaiters(coalescedWaiters.sum());
+        stats.setInvalidations(invalidations.sum());
+        stats.setEvictions(evictions.sum());
+        long lookups = stats.getHits() + stats.getMisses();
+        stats.setHitRatio(lookups > 0 ? (double) stats.getHits() / lookups : 0.0);
+        synchronized (entries) {
+            stats.setSize(entries.size());
+        }
+        stats.setInFlight(inFlight.size());
+        stats.setTtlMillis(ttlNanos / 1_000_000L);
+        stats.setMaxEntries(maxEntries);
+        return stats;
+    }
+
+    private Object lookup(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - System.nanoTime() <= 0) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * Caches {@code entry} unless its dependencies changed since {@code generation} was read.
+     * The comparison is made under the lock: {@link #invalidate} advances the generation
+     * before it takes the lock to drop dependent entries, so an entry stored here either
+     * sees the new generation or is dropped right after.
+     */
+    private void store(String key, Entry entry, long generation) {
+        synchronized (entries) {
+            if (generation != generationOf(entry.dependsOn)) {
+                return;
+            }
+            entries.put(key, entry);
+            Iterator<Entry> it = entries.values().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private long generationOf(Set<Class<?>> types) {
+        long sum = 0;
+        for (Class<?> type : types) {
+            AtomicLong generation = generations.get(type);
+            sum += generation != null ? generation.get() : 0;
+        }
+        return sum;
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private static final class Entry {
+        final Object value;
+        final Set<Class<?>> dependsOn;
+        final long expiresAt;
+
+        Entry(Object value, Set<Class<?>> dependsOn, long expiresAt) {
+            this.value = value;
+            this.dependsOn = dependsOn;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean dependsOn(Class<?> type) {
+            for (Class<?> dependency : dependsOn) {
+                if (dependency.isAssignableFrom(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public static class CacheStats {
+        private long hits;
+        private long misses;
+        private long coalescedWaiters;
+        private long invalidations;
+        private long evictions;
+        private double hitRatio;
+        private int size;
+        private int inFlight;
+        private long ttlMillis;
+        private int maxEntries;
+
+        // Getters and setters
+        public long getHits() { return hits; }
+        public void setHits(long hits) { this.hits = hits; }
+        public long getMisses() { return misses; }
+        public void setMisses(long misses) { this.misses = misses; }
+        public long getCoalescedWaiters() { return coalescedWaiters; }
+        public void setCoalescedWaiters(long coalescedWaiters) { this.coalescedWaiters = coalescedWaiters; }
+        public long getInvalidations() { return invalidations; }
+        public void setInvalidations(long invalidations) { this.invalidations = invalidations; }
+        public long getEvictions() { return evictions; }
+        public void setEvictions(long evictions) { this.evictions = evictions; }
+        public double getHitRatio() { return hitRatio; }
+        public void setHitRatio(double hitRatio) { this.hitRatio = hitRatio; }
+        public int getSize() { return size; }
+        public void setSize(int size) { this.size = size; }
+        public int getInFlight() { return inFlight; }
+        public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+        public long getTtlMillis() { return ttlMillis; }
+        public void setTtlMillis(long ttlMillis) { this.ttlMillis = ttlMillis; }
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+    }
+}
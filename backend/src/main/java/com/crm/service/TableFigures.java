@@ -0,0 +1,34 @@
+package com.crm.service;
+
+import java.util.Locale;
+
+/**
+ * Base for the per-table figures produced by {@link DashboardAggregationService}.
+ * Records which table the figures came from and how long it took to compute them.
+ */
+public abstract class TableFigures {
+
+    private final String table;
+    private long elapsedNanos;
+
+    protected TableFigures(String table) {
+        this.table = table;
+    }
+
+    public String getTable() { return table; }
+
+    public long getElapsedNanos() { return elapsedNanos; }
+    public void setElapsedNanos(long elapsedNanos) { this.elapsedNanos = elapsedNanos; }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    public String serverTiming() {
+        return String.format(Locale.ROOT, "%s;dur=%.3f", table, getElapsedMillis());
+    }
+
+    protected static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
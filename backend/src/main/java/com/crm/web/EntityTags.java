@@ -0,0 +1,123 @@
+package com.crm.web;
+
+import com.crm.event.AfterCommitBuffer;
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.TrackedEntity;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ETags and {@code Last-Modified} headers, so that clients polling a detail pane or a list
+ * get an empty {@code 304 Not Modified} when nothing changed.
+ *
+ * <p>A single entity gets a strong ETag from its id and the {@code updatedAt} of itself and
+ * of every parent embedded in its JSON; Spring answers a matching {@code If-None-Match} or
+ * {@code If-Modified-Since} with a 304 without writing the body. {@code updated_at} keeps
+ * microseconds, so two writes within one second give two tags.
+ *
+ * <p>A list page gets a weak ETag from per-entity-type generations kept in memory and
+ * advanced by every committed {@link EntityChangeEvent}, bulk changes included, as
+ * {@link com.crm.service.StatsCache} does. Checking it costs no SQL, so a 304 skips the
+ * page query and the count, and a 200 adds nothing to them. Generations restart with the
+ * process, so the tag also carries a value drawn at startup; a tag issued before a restart
+ * never matches after it.
+ *
+ * <p>Like the other in-memory views, generations only see writes made through this
+ * process: another instance behind the same load balancer, or SQL run against the
+ * database directly, does not advance them. This is a single-instance design, so the
+ * tag also carries the current period of {@code crm.etags.list-max-age-ms}; a list tag
+ * stops matching when the period ends, which bounds how long a missed write can be
+ * answered with a 304.
+ */
+@Component
+public class EntityTags {
+
+    private final String instance = Long.toHexString(new SecureRandom().nextLong());
+    @Value("${crm.etags.list-max-age-ms:60000}")
+    private long listMaxAgeMs;
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AfterCommitBuffer<Class<?>> pendingChanges = new AfterCommitBuffer<>(this::advance);
+
+    /**
+     * A 200 response for {@code entity} with a strong ETag and {@code Last-Modified}.
+     * {@code parents} are the associations serialized with it; ones not loaded are skipped,
+     * as they are left out of the JSON.
+     */
+    public static <T extends TrackedEntity> ResponseEntity<T> ok(T entity, TrackedEntity... parents) {
+        StringJoiner version = new StringJoiner("|");
+        version.add(entity.getClass().getSimpleName()).add(entity.getId() + "@" + entity.getUpdatedAt());
+        LocalDateTime lastModified = entity.getUpdatedAt();
+        for (TrackedEntity parent : parents) {
+            if (parent == null || !Hibernate.isInitialized(parent)) {
+                version.add("-");
+                continue;
+            }
+            version.add(parent.getId() + "@" + parent.getUpdatedAt());
+            if (parent.getUpdatedAt() != null && (lastModified == null || parent.getUpdatedAt().isAfter(lastModified))) {
+                lastModified = parent.getUpdatedAt();
+            }
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(digest(version.toString()));
+        if (lastModified != null) {
+            response.lastModified(lastModified.atZone(ZoneId.systemDefault()));
+        }
+        return response.body(entity);
+    }
+
+    /**
+     * Checks the request's {@code If-None-Match} against the weak ETag of a list showing data
+     * of {@code types}, the listed type first. Returns {@code true} when the response has
+     * been set to 304 and the handler should return {@code null}; otherwise the ETag has been
+     * added to the response. The path and query string are part of the tag, so every page,
+     * sort order and search gets its own.
+     */
+    public boolean listNotModified(ServletWebRequest request, Class<?>... types) {
+        HttpServletRequest servletRequest = request.getRequest();
+        StringJoiner version = new StringJoiner("|");
+        version.add(instance).add(String.valueOf(System.currentTimeMillis() / listMaxAgeMs))
+                .add(servletRequest.getRequestURI()).add(String.valueOf(servletRequest.getQueryString()));
+        for (Class<?> type : types) {
+            AtomicLong generation = generations.get(type);
+            version.add(type.getSimpleName() + "@" + (generation != null ? generation.get() : 0));
+        }
+        String etag = "W/" + digest(version.toString());
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            request.getResponse().setHeader(HttpHeaders.ETAG, etag);
+            return false;
+        }
+        return request.checkNotModified(etag);
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        pendingChanges.add(event.getEntityType());
+    }
+
+    private void advance(List<Class<?>> changedTypes) {
+        for (Class<?> changed : new HashSet<>(changedTypes)) {
+            generations.computeIfAbsent(changed, type -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private static String digest(String version) {
+        return "\"" + DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
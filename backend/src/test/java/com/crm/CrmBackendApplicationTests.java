@@ -0,0 +1,13 @@
+package com.crm;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class CrmBackendApplicationTests {
+
+    @Test
+    void contextLoads() {
+    }
+
+}
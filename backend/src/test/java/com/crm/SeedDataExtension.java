@@ -0,0 +1,46 @@
+package com.crm;
+
+import com.crm.model.TrackedEntity;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityRepository;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes the rows a test class added once it has finished, so every test class can run
+ * in the one shared application context against the database seeded from data.sql.
+ * The rows are deleted through the repositories, so counters, caches, rollups and search
+ * indexes follow as they do in production. Tests must not change the seed rows.
+ */
+public class SeedDataExtension implements AfterAllCallback {
+
+    // data.sql inserts ids 1..5 into every table
+    private static final long LAST_SEED_ID = 5;
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        ApplicationContext applicationContext = SpringExtension.getApplicationContext(context);
+        // Children first, so no delete is refused by a foreign key
+        deleteAdded(applicationContext.getBean(ActivityRepository.class));
+        deleteAdded(applicationContext.getBean(OpportunityRepository.class));
+        deleteAdded(applicationContext.getBean(ContactRepository.class));
+        deleteAdded(applicationContext.getBean(LeadRepository.class));
+        deleteAdded(applicationContext.getBean(CustomerRepository.class));
+    }
+
+    private static <T extends TrackedEntity> void deleteAdded(JpaRepository<T, Long> repository) {
+        List<T> added = repository.findAll().stream()
+                .filter(entity -> entity.getId() > LAST_SEED_ID)
+                .collect(Collectors.toList());
+        repository.deleteAll(added);
+    }
+}
@@ -0,0 +1,73 @@
+package com.crm.benchmark;
+
+import com.crm.SeedDataExtension;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Lead insert throughput through the single and bulk endpoints. Not part of the regular
+ * build; run it with
+ * {@code mvn test -Dtest=BulkInsertBenchmark -Dcrm.benchmark=true}
+ * and compare the printed rows per second between revisions on the same machine. The
+ * first bulk requests are dominated by JIT warm-up, so only the later ones are worth
+ * comparing.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "crm.benchmark", matches = "true")
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class BulkInsertBenchmark {
+
+    private static final int SINGLE_REQUESTS = 2000;
+    private static final int BULK_REQUESTS = 6;
+    private static final int BULK_ROWS = 10_000;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Test
+    void insertThroughput() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        int row = 0;
+
+        long started = System.nanoTime();
+        for (int i = 0; i < SINGLE_REQUESTS; i++) {
+            mockMvc.perform(post("/api/leads").contentType(MediaType.APPLICATION_JSON).content(lead(row++)))
+                    .andExpect(status().isCreated());
+        }
+        report("single", SINGLE_REQUESTS, started);
+
+        for (int request = 1; request <= BULK_REQUESTS; request++) {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < BULK_ROWS; i++) {
+                body.append(i > 0 ? "," : "").append(lead(row++));
+            }
+            body.append(']');
+            started = System.nanoTime();
+            mockMvc.perform(post("/api/leads/bulk").contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                    .andExpect(status().isCreated());
+            report("bulk " + request, BULK_ROWS, started);
+        }
+    }
+
+    private static String lead(int row) {
+        return "{\"firstName\":\"Bench\",\"lastName\":\"Lead " + row + "\",\"email\":\"bench" + row
+                + "@example.com\",\"company\":\"Benchmark Co\"}";
+    }
+
+    private static void report(String label, int rows, long started) {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-8s %6d rows in %6.2f s: %8.0f rows/s%n", label, rows, seconds, rows / seconds);
+    }
+}
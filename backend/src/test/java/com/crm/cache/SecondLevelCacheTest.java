@@ -0,0 +1,111 @@
+package com.crm.cache;
+
+import com.crm.SeedDataExtension;
+import com.crm.diagnostics.StatementGuard;
+import com.crm.model.Customer;
+import com.crm.repository.CustomerRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private StatementGuard statementGuard;
+
+    @Autowired
+    private TinyLfuRegionFactory regionFactory;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void hotLookupsRunNoStatementsAndTakeNoConnections() throws Exception {
+        customerRepository.findById(1L);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long connections = statistics.getConnectCount();
+
+        int statements = statementsRunBy(() -> {
+            for (int i = 0; i < 100; i++) {
+                assertEquals("TechCorp Solutions", customerRepository.findById(1L).get().getCompanyName());
+            }
+        });
+
+        assertEquals(0, statements);
+        // Background jobs of the test context may take a few; the lookups themselves take none
+        assertTrue(statistics.getConnectCount() - connections < 10);
+        TinyLfuRegionFactory.RegionStats customers = regionFactory.getStats().stream()
+                .filter(region -> region.getRegion().equals("customers")).findFirst().get();
+        assertTrue(customers.getHits() >= 100);
+    }
+
+    @Test
+    void writesGoThroughToTheCache() throws Exception {
+        Customer customer = customerRepository.save(new Customer("Cached Industries", "Retail", "cached@example.com"));
+        customerRepository.findById(customer.getId());
+        customer.setCompanyName("Renamed Industries");
+        customerRepository.save(customer);
+
+        String[] name = new String[1];
+        int statements = statementsRunBy(() -> name[0] = customerRepository.findById(customer.getId()).get().getCompanyName());
+
+        assertEquals("Renamed Industries", name[0]);
+        assertEquals(0, statements);
+    }
+
+    @Test
+    void referenceQueriesAreCachedUntilTheirTableChanges() throws Exception {
+        customerRepository.findDistinctIndustries();
+        assertEquals(0, statementsRunBy(customerRepository::findDistinctIndustries));
+
+        customerRepository.save(new Customer("Zoo Partners", "Zoology", "zoo@example.com"));
+
+        AtomicReference<List<String>> industries = new AtomicReference<>();
+        int statements = statementsRunBy(() -> industries.set(customerRepository.findDistinctIndustries()));
+        assertEquals(1, statements);
+        assertTrue(industries.get().contains("Zoology"));
+    }
+
+    @Test
+    void deletedRowsLeaveTheCache() throws Exception {
+        Customer customer = customerRepository.save(new Customer("Short Lived", "Retail", "short@example.com"));
+        customerRepository.findById(customer.getId());
+        customerRepository.deleteById(customer.getId());
+
+        boolean[] present = new boolean[1];
+        statementsRunBy(() -> present[0] = customerRepository.findById(customer.getId()).isPresent());
+        assertFalse(present[0]);
+    }
+
+    /**
+     * Statements {@code work} runs on this thread, counted by the statement guard as if it
+     * were a request.
+     */
+    private int statementsRunBy(Runnable work) throws Exception {
+        int[] count = new int[1];
+        statementGuard.doFilter(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(),
+                (request, response) -> {
+                    work.run();
+                    count[0] = statementGuard.currentCount();
+                });
+        return count[0];
+    }
+}
@@ -0,0 +1,68 @@
+package com.crm.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TinyLfuCacheTest {
+
+    @Test
+    void neverHoldsMoreThanItsMaximum() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "v" + i);
+        }
+
+        assertTrue(cache.size() <= 100);
+        assertEquals(900, cache.getEvictions());
+    }
+
+    @Test
+    void keepsFrequentlyReadEntriesThroughAScan() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100);
+        for (int hot = 0; hot < 50; hot++) {
+            cache.put(hot, "hot" + hot);
+        }
+
+        // Many one-off reads, as an export or a wide search causes, while the hot entries stay
+        // in use; 150 cold keys pass between two reads of a hot key, more than an LRU would hold
+        int misses = 0;
+        for (int i = 0; i < 3000; i++) {
+            int cold = 1000 + i;
+            if (cache.get(cold) == null) {
+                cache.put(cold, "cold" + cold);
+            }
+            if (i % 3 == 0) {
+                int hot = (i / 3) % 50;
+                if (cache.get(hot) == null) {
+                    misses++;
+                    cache.put(hot, "hot" + hot);
+                }
+            }
+        }
+
+        assertTrue(misses <= 50, "hot entries were missed " + misses + " times");
+        for (int hot = 0; hot < 50; hot++) {
+            assertNotNull(cache.get(hot), "hot entry " + hot + " was evicted");
+        }
+        assertTrue(cache.getRejections() > 0);
+    }
+
+    @Test
+    void countsHitsAndMissesAndForgetsRemovedEntries() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+        cache.put("a", "1");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        cache.remove("a");
+        assertNull(cache.get("a"));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,188 @@
+package com.crm.controller;
+
+import com.crm.SeedDataExtension;
+import com.crm.diagnostics.StatementGuard;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.web.EntityTags;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class ConditionalGetTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private StatementGuard statementGuard;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityTags entityTags;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).addFilters(statementGuard).build();
+    }
+
+    @Test
+    void singleEntityIsNotModifiedUntilItOrAnEmbeddedParentChanges() throws Exception {
+        Customer customer = customerRepository.save(new Customer("Tagged Parent", "Retail", "tagged@example.com"));
+        Contact contact = new Contact("Tagged", "Child", "tagged.child@example.com");
+        contact.setCustomer(customer);
+        String url = "/api/contacts/" + contactRepository.save(contact).getId();
+        MvcResult first = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("\""), etag);
+        String lastModified = first.getResponse().getHeader("Last-Modified");
+        assertNotNull(lastModified);
+
+        MvcResult unchanged = mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified()).andReturn();
+        assertEquals(0, unchanged.getResponse().getContentLength());
+        mockMvc.perform(get(url).header("If-Modified-Since", lastModified))
+                .andExpect(status().isNotModified());
+
+        customer.setCompanyName(customer.getCompanyName() + " Group");
+        customerRepository.save(customer);
+
+        MvcResult changed = mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isOk()).andReturn();
+        assertNotEquals(etag, changed.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    void writesWithinOneSecondGetDistinctTags() throws Exception {
+        Customer customer = customerRepository.save(new Customer("Busy Parent", "Retail", "busy@example.com"));
+        Contact contact = new Contact("Busy", "Child", "busy.child@example.com");
+        contact.setCustomer(customer);
+        contact = contactRepository.save(contact);
+        String url = "/api/contacts/" + contact.getId();
+        String etag = tagFromDatabase(url, contact.getId());
+        LocalDateTime previous = updatedAt(contact.getId());
+
+        boolean sameSecond = false;
+        for (int revision = 0; revision < 20 && !sameSecond; revision++) {
+            contact.setJobTitle("Revision " + revision);
+            contact = contactRepository.save(contact);
+            LocalDateTime current = updatedAt(contact.getId());
+            sameSecond = current.withNano(0).equals(previous.withNano(0));
+            previous = current;
+
+            String next = tagFromDatabase(url, contact.getId());
+            assertNotEquals(etag, next);
+            etag = next;
+        }
+        assertTrue(sameSecond, "no two updates landed in the same second");
+    }
+
+    @Test
+    void listPageIsNotModifiedUntilItsTablesChange() throws Exception {
+        Customer customer = customerRepository.save(new Customer("Listed Parent", "Retail", "listed@example.com"));
+        String etag = mockMvc.perform(get("/api/contacts?page=0&size=3"))
+                .andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("W/\""), etag);
+
+        mockMvc.perform(get("/api/contacts?page=0&size=3").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        // Every page, sort order and search has its own tag
+        mockMvc.perform(get("/api/contacts?page=1&size=3").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+
+        // A parent whose name the list shows
+        customer.setCompanyName("Listed Parent International");
+        customerRepository.save(customer);
+        String afterUpdate = mockMvc.perform(get("/api/contacts?page=0&size=3").header("If-None-Match", etag))
+                .andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, afterUpdate);
+
+        Contact contact = new Contact("Short", "Lived", "short.lived@example.com");
+        contact.setCustomer(customer);
+        contact = contactRepository.save(contact);
+        String afterInsert = mockMvc.perform(get("/api/contacts?page=0&size=3").header("If-None-Match", afterUpdate))
+                .andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+        contactRepository.deleteById(contact.getId());
+        mockMvc.perform(get("/api/contacts?page=0&size=3").header("If-None-Match", afterInsert))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void keysetAndSlicePagesAreTaggedToo() throws Exception {
+        for (String url : new String[] {"/api/activities?withTotal=false&size=2", "/api/opportunities?after=&size=2"}) {
+            MvcResult result = mockMvc.perform(get(url)).andReturn();
+            String etag = result.getResponse().getHeader("ETag");
+            assertEquals(200, result.getResponse().getStatus(), url);
+            assertNotNull(etag, url);
+            mockMvc.perform(get(url).header("If-None-Match", etag)).andExpect(status().isNotModified());
+        }
+    }
+
+    @Test
+    void listTagsExpireSoWritesTheyMissCannotHideForever() throws Exception {
+        long maxAge = (long) ReflectionTestUtils.getField(entityTags, "listMaxAgeMs");
+        ReflectionTestUtils.setField(entityTags, "listMaxAgeMs", 200L);
+        try {
+            Customer customer = customerRepository.save(new Customer("Expiring Tag", "Retail", "expiring@example.com"));
+            String url = "/api/customers?search=expiring tag";
+            String etag = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+            // Bypasses the entities, as another instance would, so no generation moves
+            jdbcTemplate.update("UPDATE customers SET industry = 'Plain SQL' WHERE id = ?", customer.getId());
+            entityManagerFactory.getCache().evict(Customer.class, customer.getId());
+
+            Thread.sleep(250);
+            mockMvc.perform(get(url).header("If-None-Match", etag)).andExpect(status().isOk());
+        } finally {
+            ReflectionTestUtils.setField(entityTags, "listMaxAgeMs", maxAge);
+        }
+    }
+
+    // Reads the contact past the second-level cache, so the tag comes from the stored updated_at
+    private String tagFromDatabase(String url, Long id) throws Exception {
+        entityManagerFactory.getCache().evict(Contact.class, id);
+        return mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+    }
+
+    private LocalDateTime updatedAt(Long id) {
+        return jdbcTemplate.queryForObject("SELECT updated_at FROM contacts WHERE id = ?", Timestamp.class, id)
+                .toLocalDateTime();
+    }
+}
@@ -0,0 +1,143 @@
+package com.crm.controller;
+
+import com.crm.SeedDataExtension;
+import com.crm.diagnostics.StatementGuard;
+import com.crm.model.Activity;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Opportunity;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.OpportunityRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.servlet.FilterChain;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the by-parent endpoints over more rows than the statement guard allows per request,
+ * so an association loaded row by row fails the request.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FetchPlanTest {
+
+    private static final int ROWS = 40;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private StatementGuard statementGuard;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    private MockMvc mockMvc;
+
+    private Customer customer;
+
+    @BeforeAll
+    void createRows() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).addFilters(statementGuard).build();
+        customer = customerRepository.save(new Customer("Fetch Plan Ltd", "Software", "plan@example.com"));
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Contact contact = new Contact("Contact", "No" + i, "contact" + i + "@fetchplan.example.com");
+            contact.setCustomer(customer);
+            contacts.add(contact);
+        }
+        contactRepository.saveAll(contacts);
+        List<Opportunity> opportunities = new ArrayList<>();
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Opportunity opportunity = new Opportunity("Deal " + i, BigDecimal.valueOf(1000 + i), customer);
+            opportunity.setPrimaryContact(contacts.get(i));
+            opportunities.add(opportunity);
+            Activity activity = new Activity("Call " + i, Activity.ActivityType.CALL, LocalDateTime.now().plusDays(i));
+            activity.setCustomer(customer);
+            activity.setContact(contacts.get(i));
+            activities.add(activity);
+        }
+        opportunityRepository.saveAll(opportunities);
+        for (int i = 0; i < ROWS; i++) {
+            activities.get(i).setOpportunity(opportunities.get(i));
+        }
+        activityRepository.saveAll(activities);
+    }
+
+    @Test
+    void byParentListsFetchParentsInTheSameQuery() throws Exception {
+        mockMvc.perform(get("/api/activities/customer/" + customer.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(ROWS)))
+                .andExpect(jsonPath("$[*].customer.companyName", hasSize(ROWS)))
+                .andExpect(jsonPath("$[*].contact.firstName", hasSize(ROWS)))
+                .andExpect(jsonPath("$[*].contact.firstName", everyItem(is("Contact"))));
+        mockMvc.perform(get("/api/contacts/customer/" + customer.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(ROWS)))
+                .andExpect(jsonPath("$[*].customer.companyName", hasSize(ROWS)))
+                .andExpect(jsonPath("$[*].customer.companyName", everyItem(is("Fetch Plan Ltd"))));
+        mockMvc.perform(get("/api/opportunities/customer/" + customer.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(ROWS)))
+                .andExpect(jsonPath("$[*].primaryContact.lastName", hasSize(ROWS)));
+    }
+
+    @Test
+    void unfetchedAssociationsAreLeftOut() throws Exception {
+        mockMvc.perform(get("/api/customers/" + customer.getId() + "/with-contacts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contacts.length()", is(ROWS)))
+                .andExpect(jsonPath("$.opportunities").doesNotExist())
+                .andExpect(jsonPath("$.contacts[0].activities").doesNotExist());
+        mockMvc.perform(get("/api/opportunities/overdue"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", greaterThanOrEqualTo(0)));
+    }
+
+    @Test
+    void guardFailsTheStatementOverTheLimit() {
+        FilterChain chain = (request, response) -> {
+            for (int i = 0; i <= 30; i++) {
+                statementGuard.inspect("select 1");
+            }
+        };
+        assertThrows(IllegalStateException.class,
+                () -> statementGuard.doFilter(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(), chain));
+    }
+}
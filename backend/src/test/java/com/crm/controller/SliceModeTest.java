@@ -0,0 +1,132 @@
+package com.crm.controller;
+
+import com.crm.SeedDataExtension;
+import com.crm.diagnostics.StatementGuard;
+import com.crm.model.Customer;
+import com.crm.repository.CustomerRepository;
+import com.crm.search.SearchIndexService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.servlet.Filter;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the statements each list request runs through the statement guard, so the
+ * count-free mode is held to exactly one statement fewer than the paged one.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SliceModeTest {
+
+    private static final int MATCHES = 3;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private StatementGuard statementGuard;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SearchIndexService searchIndex;
+
+    private MockMvc mockMvc;
+
+    private int statements;
+
+    @BeforeAll
+    void createRows() {
+        // Inside the guard, so the request's count is still there when the chain returns
+        Filter counter = (request, response, chain) -> {
+            chain.doFilter(request, response);
+            statements = statementGuard.currentCount();
+        };
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(statementGuard, counter).build();
+        for (int i = 0; i < MATCHES; i++) {
+            customerRepository.save(new Customer("Slice Probe " + i, "Logistics", "probe" + i + "@slice.example.com"));
+        }
+    }
+
+    @Test
+    void sliceModeRunsNoCountQuery() throws Exception {
+        // Warms the cached table estimate, which would otherwise cost the first slice a statement
+        mockMvc.perform(get("/api/customers?withTotal=false")).andExpect(status().isOk());
+
+        int paged = statementsRunBy("/api/customers?page=0&size=2");
+        int sliced = statementsRunBy("/api/customers?page=0&size=2&withTotal=false");
+        assertEquals(paged - 1, sliced);
+
+        paged = statementsRunBy("/api/customers?page=0&size=2&search=slice probe");
+        sliced = statementsRunBy("/api/customers?page=0&size=2&search=slice probe&withTotal=false");
+        assertEquals(paged - 1, sliced);
+    }
+
+    @Test
+    void searchesEstimateTheTotalFromTheIndexCandidates() throws Exception {
+        for (int attempt = 0; attempt < 200 && !searchIndex.isReady(Customer.class); attempt++) {
+            Thread.sleep(50);
+        }
+        slice("/api/customers?page=0&size=1&search=slice probe&withTotal=false")
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(jsonPath("$.approximateTotal", is(MATCHES)));
+        slice("/api/customers?page=0&size=1&search=no such probe&withTotal=false")
+                .andExpect(jsonPath("$.content.length()", is(0)))
+                .andExpect(jsonPath("$.approximateTotal", is(0)));
+        // A wildcard cannot be narrowed, so there is nothing to estimate from
+        slice("/api/customers?page=0&size=1&search=slice%25probe&withTotal=false")
+                .andExpect(jsonPath("$.approximateTotal", nullValue()));
+    }
+
+    @Test
+    void hasNextFollowsTheRowsBeyondThePage() throws Exception {
+        slice("/api/customers?page=0&size=2&sortBy=companyName&search=slice probe&withTotal=false")
+                .andExpect(jsonPath("$.content.length()", is(2)))
+                .andExpect(jsonPath("$.content[0].companyName", is("Slice Probe 0")))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+        slice("/api/customers?page=1&size=2&sortBy=companyName&search=slice probe&withTotal=false")
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(jsonPath("$.content[0].companyName", is("Slice Probe 2")))
+                .andExpect(jsonPath("$.hasNext", is(false)));
+        // A page that ends exactly on the last match has nothing after it
+        slice("/api/customers?page=0&size=" + MATCHES + "&search=slice probe&withTotal=false")
+                .andExpect(jsonPath("$.content.length()", is(MATCHES)))
+                .andExpect(jsonPath("$.hasNext", is(false)));
+
+        long customers = customerRepository.count();
+        slice("/api/customers?page=0&size=" + (customers - 1) + "&withTotal=false")
+                .andExpect(jsonPath("$.hasNext", is(true)));
+        slice("/api/customers?page=0&size=" + customers + "&withTotal=false")
+                .andExpect(jsonPath("$.content.length()", is((int) customers)))
+                .andExpect(jsonPath("$.hasNext", is(false)));
+    }
+
+    private ResultActions slice(String url) throws Exception {
+        return mockMvc.perform(get(url)).andExpect(status().isOk());
+    }
+
+    private int statementsRunBy(String url) throws Exception {
+        statements = -1;
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return statements;
+    }
+}
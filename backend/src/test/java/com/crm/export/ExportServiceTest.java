@@ -0,0 +1,100 @@
+package com.crm.export;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Activity;
+import com.crm.repository.ActivityRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports more rows than one persistence-context batch and checks nothing is lost or
+ * reordered across the clears.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ExportServiceTest {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    void createRows() {
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < 420; i++) {
+            activities.add(new Activity("Export " + i, Activity.ActivityType.CALL, null));
+        }
+        activities.get(7).setSubject("Export \"quoted\", with comma");
+        activities.get(8).setDescription("two\nlines");
+        activityRepository.saveAll(activities);
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerRowInOrder() throws IOException {
+        Sort sort = Sort.by("id").descending();
+        String body = run(exportService.export("activities", "ndjson", ExportColumns.ACTIVITIES,
+                () -> activityRepository.streamAll(sort)));
+        List<Long> ids = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            JsonNode row = objectMapper.readTree(line);
+            assertEquals(ExportColumns.ACTIVITIES.size(), row.size());
+            ids.add(row.get("id").asLong());
+        }
+        List<Long> expected = activityRepository.findAll(sort).stream().map(Activity::getId).collect(Collectors.toList());
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void csvQuotesFieldsAndAppliesTheSearch() throws IOException {
+        Sort sort = Sort.by("id");
+        String body = run(exportService.export("activities", "csv", ExportColumns.ACTIVITIES,
+                () -> activityRepository.streamBySearchTerm("export", sort)));
+        assertTrue(body.startsWith(String.join(",", ExportColumns.ACTIVITIES.keySet()) + "\r\n"));
+        assertTrue(body.contains(",\"Export \"\"quoted\"\", with comma\","));
+        assertTrue(body.contains(",\"two\nlines\","));
+        // Header plus one line per row; the only embedded line break is a bare \n
+        assertEquals(421, body.split("\r\n").length);
+
+        String none = run(exportService.export("activities", "csv", ExportColumns.ACTIVITIES,
+                () -> activityRepository.streamBySearchTerm("no such subject", sort)));
+        assertEquals(1, none.split("\r\n").length);
+    }
+
+    @Test
+    void rejectsUnknownFormats() {
+        assertEquals(HttpStatus.BAD_REQUEST, exportService.export("activities", "xml", ExportColumns.ACTIVITIES,
+                () -> activityRepository.streamAll(Sort.unsorted())).getStatusCode());
+    }
+
+    private static String run(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
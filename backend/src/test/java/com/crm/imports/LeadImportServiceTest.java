@@ -0,0 +1,152 @@
+package com.crm.imports;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Lead;
+import com.crm.repository.LeadRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs imports with small batches on two workers, so rows cross several queued batches.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class LeadImportServiceTest {
+
+    @Autowired
+    private LeadImportService leadImportService;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Test
+    void importsValidRowsAndReportsDuplicatesAndErrors() throws Exception {
+        Lead existing = new Lead("Already", "Here", "Existing@Example.com", null);
+        leadRepository.save(existing);
+
+        StringBuilder csv = new StringBuilder("First Name,last_name,Email,Status,Score,Fax\r\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append("Import,Lead ").append(i).append(",import").append(i).append("@example.com,contacted,")
+                    .append(i).append(",x\r\n");
+        }
+        csv.append("Import,Again,IMPORT3@example.com ,,,\r\n");
+        csv.append("Import,Existing,Existing@Example.com,,,\r\n");
+        csv.append(",Nameless,nameless@example.com,,,\r\n");
+        csv.append("Import,Bad status,bad@example.com,maybe,,\r\n");
+        csv.append("\"Quoted, Name\",\"Multi\nline\",,,7,\r\n");
+
+        LeadImportService.ImportStatus status = await(leadImportService.startLeadImport("leads.csv",
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(105, status.getRowsRead());
+        assertEquals(101, status.getImported());
+        assertEquals(1, status.getDuplicatesInFile());
+        assertEquals(1, status.getDuplicatesExisting());
+        assertEquals(2, status.getRejected());
+        assertEquals(List.of("Fax"), status.getIgnoredColumns());
+        assertEquals(List.of(104L, 105L), status.getErrors().stream()
+                .map(LeadImportService.RowError::getLine).collect(Collectors.toList()));
+        assertEquals("firstName", status.getErrors().get(0).getField());
+        assertEquals("status", status.getErrors().get(1).getField());
+
+        Lead imported = leadRepository.findByEmail("import42@example.com").get();
+        assertEquals(Lead.LeadStatus.CONTACTED, imported.getStatus());
+        assertEquals(42, imported.getScore());
+        assertTrue(leadRepository.findByEmail("bad@example.com").isEmpty());
+        assertEquals(1, leadRepository.findAll().stream()
+                .filter(lead -> "Multi\nline".equals(lead.getLastName())).count());
+    }
+
+    @Test
+    void invalidRowDoesNotClaimItsEmail() throws Exception {
+        StringBuilder csv = new StringBuilder("firstName,lastName,email,status\n");
+        csv.append(",Rejected,claimed@example.com,\n");
+        csv.append("Kept,Lead,Claimed@Example.com,\n");
+        csv.append("Kept,Again,claimed@example.com,\n");
+        // Past the first batch, so the valid rows are handled by different workers
+        for (int i = 0; i < 10; i++) {
+            csv.append("Filler,Lead ").append(i).append(",filler").append(i).append("@example.com,\n");
+        }
+        csv.append("Also,Rejected,late@example.com,maybe\n");
+        csv.append("Late,Lead,late@example.com,\n");
+
+        LeadImportService.ImportStatus status = await(leadImportService.startLeadImport("leads.csv",
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(2, status.getRejected());
+        assertEquals(1, status.getDuplicatesInFile());
+        assertEquals(12, status.getImported());
+        assertTrue(leadRepository.findByEmail("late@example.com").isPresent());
+        assertEquals(1, leadRepository.findAll().stream()
+                .filter(lead -> "claimed@example.com".equalsIgnoreCase(lead.getEmail())).count());
+    }
+
+    @Test
+    void overlappingImportsStoreEachEmailOnce() throws Exception {
+        StringBuilder csv = new StringBuilder("firstName,lastName,email\n");
+        for (int i = 0; i < 60; i++) {
+            csv.append("Overlap,Lead ").append(i).append(",overlap").append(i).append("@example.com\n");
+        }
+        byte[] file = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Both run at once, so their batches check the same emails side by side
+        LeadImportService.ImportStatus first = leadImportService.startLeadImport("first.csv",
+                new ByteArrayInputStream(file));
+        LeadImportService.ImportStatus second = leadImportService.startLeadImport("second.csv",
+                new ByteArrayInputStream(file));
+        first = await(first);
+        second = await(second);
+
+        assertEquals("COMPLETED", first.getState());
+        assertEquals("COMPLETED", second.getState());
+        assertEquals(60, first.getImported() + second.getImported());
+        assertEquals(60, first.getDuplicatesExisting() + second.getDuplicatesExisting());
+        assertEquals(60, leadRepository.findAll().stream()
+                .filter(lead -> lead.getEmail() != null && lead.getEmail().startsWith("overlap")).count());
+    }
+
+    @Test
+    void failsWithoutTheRequiredColumns() throws Exception {
+        LeadImportService.ImportStatus status = await(leadImportService.startLeadImport("leads.csv",
+                new ByteArrayInputStream("email,company\na@example.com,Acme\n".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("FAILED", status.getState());
+        assertEquals(0, status.getImported());
+    }
+
+    @Test
+    void readsQuotedFieldsAcrossLines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\uFEFFa,\"b \"\"c\"\"\",\"d\r\ne\"\r\n\r\nf,,\n"));
+
+        assertEquals(List.of("a", "b \"c\"", "d\r\ne"), reader.next());
+        assertEquals(1, reader.getLine());
+        assertEquals(List.of("f", "", ""), reader.next());
+        assertEquals(4, reader.getLine());
+        assertNull(reader.next());
+    }
+
+    private LeadImportService.ImportStatus await(LeadImportService.ImportStatus started) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        LeadImportService.ImportStatus status = started;
+        while (status.getFinishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = leadImportService.getStatus(started.getId());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,164 @@
+package com.crm.paging;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Activity;
+import com.crm.model.Customer;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.search.SearchIndexService;
+import com.crm.service.ActivityListItem;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Walks every cursor chain to the end and checks it visits exactly the rows of a full
+ * sort, including ties, {@code NULL} sort values and search filters.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class KeysetPagerTest {
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SearchIndexService searchIndex;
+
+    @BeforeAll
+    void createRows() {
+        Random random = new Random(13);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < 150; i++) {
+            Activity activity = new Activity("Subject " + random.nextInt(20),
+                    Activity.ActivityType.values()[random.nextInt(8)], null);
+            // Few distinct values, so most rows tie on the sort key
+            activity.setStartDate(random.nextInt(4) == 0 ? null : base.plusDays(random.nextInt(10)));
+            activity.setPriority(Activity.ActivityPriority.values()[random.nextInt(Activity.ActivityPriority.values().length)]);
+            activityRepository.save(activity);
+        }
+    }
+
+    @Test
+    void cursorChainsVisitEveryRowInOrder() {
+        for (String sortBy : List.of("startDate", "priority", "subject", "id")) {
+            for (boolean descending : List.of(false, true)) {
+                for (int size : List.of(1, 7, 500)) {
+                    assertEquals(expected(sortBy, descending), walk(sortBy, descending, size),
+                            sortBy + (descending ? " desc" : " asc") + " by " + size);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsForeignAndMalformedCursors() {
+        String cursor = keysetPager.page(Activity.class, "startDate", true, "", 5).getNextCursor();
+        assertThrows(IllegalArgumentException.class,
+                () -> keysetPager.page(Activity.class, "subject", true, cursor, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> keysetPager.page(Activity.class, "startDate", false, cursor, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> keysetPager.page(Activity.class, "startDate", true, "not a cursor", 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> keysetPager.page(Activity.class, "customer", true, "", 5));
+    }
+
+    @Test
+    void projectedPagesFollowTheSameOrder() {
+        List<Long> ids = new ArrayList<>();
+        String after = "";
+        KeysetPage<ActivityListItem> page;
+        do {
+            page = keysetPager.page(Activity.class, ActivityListItem.class, ActivityListItem::selection,
+                    "startDate", true, after, 9);
+            page.getContent().forEach(item -> ids.add(item.getId()));
+            after = page.getNextCursor();
+        } while (page.isHasNext());
+
+        assertEquals(expected("startDate", true), ids);
+        // Only the list item's properties can be sorted on
+        assertThrows(IllegalArgumentException.class, () -> keysetPager.page(Activity.class, ActivityListItem.class,
+                ActivityListItem::selection, "description", true, "", 5));
+    }
+
+    @Test
+    void searchesPageOnlyTheMatchingRows() throws InterruptedException {
+        for (int i = 0; i < 12; i++) {
+            customerRepository.save(new Customer("Keyset Search " + i, i % 3 == 0 ? "Keyset" : "Retail", null));
+        }
+        for (int attempt = 0; attempt < 200 && !searchIndex.isReady(Customer.class); attempt++) {
+            Thread.sleep(50);
+        }
+        // "keyset" is narrowed by the index, "%" is a wildcard the index cannot narrow
+        for (String search : List.of("keyset", "KEYSET SEARCH 1", "%", "no such customer")) {
+            List<Long> expected = customerRepository.findBySearchTerm(search, Pageable.unpaged()).stream()
+                    .sorted(Comparator.comparing(Customer::getCompanyName).thenComparing(Customer::getId))
+                    .map(Customer::getId)
+                    .collect(Collectors.toList());
+            List<Long> ids = new ArrayList<>();
+            String after = "";
+            KeysetPage<Customer> page;
+            do {
+                page = keysetPager.page(Customer.class,
+                        searchIndex.searchCondition(Customer.class, search, CustomerRepository::searchTerm),
+                        "companyName", false, after, 5);
+                page.getContent().forEach(customer -> ids.add(customer.getId()));
+                after = page.getNextCursor();
+            } while (page.isHasNext());
+            assertEquals(expected, ids, search);
+        }
+        assertNull(searchIndex.searchCondition(Customer.class, "  ", CustomerRepository::searchTerm));
+    }
+
+    private List<Long> walk(String sortBy, boolean descending, int size) {
+        List<Long> ids = new ArrayList<>();
+        String after = "";
+        KeysetPage<Activity> page;
+        do {
+            page = keysetPager.page(Activity.class, sortBy, descending, after, size);
+            page.getContent().forEach(activity -> ids.add(activity.getId()));
+            after = page.getNextCursor();
+        } while (page.isHasNext());
+        return ids;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Long> expected(String sortBy, boolean descending) {
+        // Enums are stored by name, so the database orders them by name
+        Function<Activity, Comparable> key = activity -> {
+            Object value = PropertyAccessorFactory.forBeanPropertyAccess(activity).getPropertyValue(sortBy);
+            return value instanceof Enum ? ((Enum<?>) value).name() : (Comparable) value;
+        };
+        Comparator<Activity> byKey = Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+        Comparator<Activity> order = byKey.thenComparing(Activity::getId);
+        return activityRepository.findAll().stream()
+                .sorted(descending ? order.reversed() : order)
+                .map(Activity::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,125 @@
+package com.crm.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AutocompleteIndexTest {
+
+    private static final String[] WORDS = {
+            "acme", "acorn", "ace", "tech", "techno", "corp", "north", "nord", "john", "johnson", "jo", "smith",
+            "smithers", "café", "cafeteria", "global", "glo", "a"
+    };
+
+    @Test
+    void completesWordStartsByRecency() {
+        AutocompleteIndex index = new AutocompleteIndex(10);
+        index.put(1, "New Acme Corp", 100);
+        index.put(2, "Acme", 300);
+        index.put(3, "John Smith", 200);
+        index.put(4, "Acorn Ltd", 50);
+
+        assertEquals(List.of(2L, 1L, 4L), ids(index.complete("ac", 10)));
+        assertEquals(List.of(1L), ids(index.complete("new a", 10)));
+        assertEquals(List.of(3L), ids(index.complete("SMI", 10)));
+        assertEquals(List.of(2L, 3L), ids(index.complete("", 2)));
+
+        index.put(1, "New Acme Corp", 400);
+        index.remove(2);
+        assertEquals(List.of(1L, 4L), ids(index.complete("ac", 10)));
+        index.put(4, "Zenith", 50);
+        assertEquals(List.of(1L), ids(index.complete("ac", 10)));
+        assertEquals(List.of(4L), ids(index.complete("zen", 10)));
+    }
+
+    @Test
+    void matchesBruteForceUnderRandomWrites() {
+        Random random = new Random(42);
+        AutocompleteIndex index = new AutocompleteIndex(5);
+        Map<Long, String> labels = new HashMap<>();
+        Map<Long, Long> scores = new HashMap<>();
+
+        for (int step = 0; step < 4000; step++) {
+            long id = random.nextInt(300);
+            if (random.nextInt(5) == 0) {
+                index.remove(id);
+                labels.remove(id);
+                scores.remove(id);
+            } else {
+                String label = label(random);
+                long score = random.nextInt(50);
+                index.put(id, label, score);
+                labels.put(id, label);
+                scores.put(id, score);
+            }
+            if (step % 20 == 0) {
+                String prefix = prefix(random);
+                assertEquals(expected(labels, scores, prefix, 5), ids(index.complete(prefix, 5)),
+                        "prefix '" + prefix + "' at step " + step);
+            }
+        }
+    }
+
+    @Test
+    void keepsIdsBeyondIntRangeAcrossTextCompaction() {
+        Random random = new Random(7);
+        AutocompleteIndex index = new AutocompleteIndex(5);
+        Map<Long, String> labels = new HashMap<>();
+        Map<Long, Long> scores = new HashMap<>();
+
+        // Enough renames that the text of old labels outweighs the live text several times
+        for (int step = 0; step < 40_000; step++) {
+            long id = Integer.MAX_VALUE + 1L + random.nextInt(50);
+            String label = label(random) + " " + step;
+            index.put(id, label, step);
+            labels.put(id, label);
+            scores.put(id, (long) step);
+        }
+
+        assertEquals(50, index.size());
+        for (int i = 0; i < 200; i++) {
+            String prefix = prefix(random);
+            assertEquals(expected(labels, scores, prefix, 5), ids(index.complete(prefix, 5)), "prefix '" + prefix + "'");
+        }
+    }
+
+    private static List<Long> expected(Map<Long, String> labels, Map<Long, Long> scores,
+                                          String prefix, int limit) {
+        String folded = SearchText.fold(prefix).trim().replaceAll("\\s+", " ");
+        return labels.entrySet().stream()
+                .filter(entry -> AutocompleteIndex.keysOf(entry.getValue()).stream()
+                        .anyMatch(key -> key.startsWith(folded)))
+                .map(Map.Entry::getKey)
+                .sorted(Comparator.<Long>comparingLong(scores::get).reversed()
+                        .thenComparing(Comparator.<Long>reverseOrder()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static String label(Random random) {
+        List<String> words = new ArrayList<>();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            words.add(random.nextBoolean() ? word.toUpperCase(Locale.ROOT) : word);
+        }
+        return String.join(random.nextInt(4) == 0 ? "  " : " ", words);
+    }
+
+    private static String prefix(Random random) {
+        String label = label(random);
+        return label.substring(0, random.nextInt(label.length() + 1));
+    }
+
+    private static List<Long> ids(List<Object[]> suggestions) {
+        return suggestions.stream().map(s -> (Long) s[0]).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,113 @@
+package com.crm.search;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Customer;
+import com.crm.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The query builder on its own, and the fallback taken on H2, which has no MySQL
+ * full-text indexes even when the fulltext profile asks for them.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class FullTextSearchServiceTest {
+
+    @Autowired
+    private FullTextSearchService fullTextSearch;
+
+    @Autowired
+    private GlobalSearchService globalSearch;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void requiresEveryWordAsAPrefix() {
+        assertEquals("+acme*", FullTextSearchService.booleanQuery("Acme", 3));
+        assertEquals("+acme* +holdings*", FullTextSearchService.booleanQuery("  ACME   Holdings ", 3));
+        assertEquals("+cafe* +muller*", FullTextSearchService.booleanQuery("Café Müller", 3));
+        // Operators in the input are separators, never passed through
+        assertEquals("+acme* +ltd*", FullTextSearchService.booleanQuery("+acme -ltd*", 3));
+        assertEquals("+tech*", FullTextSearchService.booleanQuery("tech tech", 3));
+    }
+
+    @Test
+    void rejectsWordsShorterThanTheIndexedMinimum() {
+        assertNull(FullTextSearchService.booleanQuery("ab", 3));
+        assertNull(FullTextSearchService.booleanQuery("acme co", 3));
+        assertEquals("+acme* +co*", FullTextSearchService.booleanQuery("acme co", 2));
+    }
+
+    @Test
+    void rejectsTermsWithoutWords() {
+        assertNull(FullTextSearchService.booleanQuery("", 3));
+        assertNull(FullTextSearchService.booleanQuery("   ", 3));
+        assertNull(FullTextSearchService.booleanQuery("+-*\"()<>~@", 3));
+    }
+
+    @Test
+    void picksTheQueryByWhetherTheCallerSorts() {
+        FullTextSearchService enabled = new FullTextSearchService();
+        ReflectionTestUtils.setField(enabled, "enabled", true);
+        ReflectionTestUtils.setField(enabled, "minTokenLength", 3);
+        BiFunction<String, Pageable, String> matching = (query, pageable) -> "matching " + query;
+        BiFunction<String, Pageable, String> byRelevance = (query, pageable) -> "relevance " + query;
+
+        assertEquals("relevance +acme*", enabled.search("acme", PageRequest.of(0, 10), matching, byRelevance));
+        assertEquals("matching +acme*", enabled.search("acme", PageRequest.of(0, 10, Sort.by("id")),
+                matching, byRelevance));
+        assertNull(enabled.search("ab", PageRequest.of(0, 10), matching, byRelevance));
+    }
+
+    @Test
+    void staysDisabledUnlessRequested() {
+        assertFalse(fullTextSearch.isEnabled());
+
+        FullTextSearchService requested = new FullTextSearchService();
+        ReflectionTestUtils.setField(requested, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(requested, "requested", true);
+        requested.init();
+        assertFalse(requested.isEnabled());
+    }
+
+    @Test
+    void fallsBackToTheRegularSearchOnH2() {
+        assertFalse(fullTextSearch.isEnabled());
+        BiFunction<String, Pageable, String> unreachable = (query, pageable) -> {
+            throw new AssertionError("Full-text query run on H2: " + query);
+        };
+        assertNull(fullTextSearch.search("techcorp", PageRequest.of(0, 10), unreachable, unreachable));
+
+        Customer customer = customerRepository.save(new Customer("Fallback Fabrics", "Textiles", "fallback@example.com"));
+        GlobalSearchService.Result result = globalSearch.search("fallback fab", 10);
+        assertFalse(result.isPartial());
+        List<Long> customers = result.getHits().stream()
+                .filter(hit -> hit.getType().equals("customer"))
+                .map(GlobalSearchService.Hit::getId)
+                .collect(Collectors.toList());
+        assertEquals(List.of(customer.getId()), customers);
+        assertTrue(globalSearch.search("techcorp", 10).getHits().stream()
+                .anyMatch(hit -> hit.getType().equals("customer") && hit.getId() == 1L));
+    }
+}
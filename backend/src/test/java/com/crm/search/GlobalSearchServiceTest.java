@@ -0,0 +1,237 @@
+package com.crm.search;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Activity;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.paging.SlicePage;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityRepository;
+import com.crm.service.ActivityListItem;
+import com.crm.service.ContactListItem;
+import com.crm.service.OpportunityListItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a private search service whose per-entity searches are scripted, so each source
+ * can answer at once, wait on the others or hang past the deadline.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class GlobalSearchServiceTest {
+
+    private static final long TIMEOUT_MS = 300;
+
+    @Autowired
+    private FullTextSearchService fullTextSearch;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    private final Map<Class<?>, BiFunction<String, Pageable, List<?>>> sources = new ConcurrentHashMap<>();
+
+    private final CountDownLatch hung = new CountDownLatch(1);
+
+    private GlobalSearchService search;
+
+    @BeforeEach
+    void createService() {
+        SearchIndexService scripted = new SearchIndexService() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> SlicePage<T> searchSlice(Class<?> type, String term, Pageable pageable,
+                                                BiFunction<String, Pageable, Slice<T>> scan,
+                                                BiFunction<Collection<Long>, Pageable, Slice<T>> narrowed) {
+                List<T> content = (List<T>) sources.get(type).apply(term, pageable);
+                return new SlicePage<>(new SliceImpl<>(content, pageable, false), (long) content.size());
+            }
+        };
+        search = new GlobalSearchService();
+        ReflectionTestUtils.setField(search, "searchIndex", scripted);
+        ReflectionTestUtils.setField(search, "fullTextSearch", fullTextSearch);
+        ReflectionTestUtils.setField(search, "customerRepository", customerRepository);
+        ReflectionTestUtils.setField(search, "contactRepository", contactRepository);
+        ReflectionTestUtils.setField(search, "leadRepository", leadRepository);
+        ReflectionTestUtils.setField(search, "opportunityRepository", opportunityRepository);
+        ReflectionTestUtils.setField(search, "activityRepository", activityRepository);
+        ReflectionTestUtils.setField(search, "timeoutMs", TIMEOUT_MS);
+        ReflectionTestUtils.setField(search, "maxResults", 4);
+        ReflectionTestUtils.setField(search, "threads", 5);
+        ReflectionTestUtils.setField(search, "queueSize", 5);
+        search.init();
+    }
+
+    @AfterEach
+    void shutdown() {
+        hung.countDown();
+        search.shutdown();
+    }
+
+    @Test
+    void queriesEverySourceConcurrently() {
+        // Each source waits until all five have started, which only happens if they run side by side
+        CountDownLatch started = new CountDownLatch(5);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        sources.put(Customer.class, (term, pageable) -> rendezvous(started, threads, customer(1, "Acme")));
+        sources.put(Contact.class, (term, pageable) -> rendezvous(started, threads, contact(2, "Ann", "Acme")));
+        sources.put(Lead.class, (term, pageable) -> rendezvous(started, threads, lead(3, "Bo", "Acme")));
+        sources.put(Opportunity.class, (term, pageable) -> rendezvous(started, threads, opportunity(4, "Acme")));
+        sources.put(Activity.class, (term, pageable) -> rendezvous(started, threads, activity(5, "Call Acme")));
+
+        GlobalSearchService.Result result = search.search("acme", 10);
+
+        assertFalse(result.isPartial());
+        assertEquals(List.of("customers", "contacts", "leads", "opportunities", "activities"),
+                List.copyOf(result.getSources().keySet()));
+        result.getSources().values().forEach(status -> {
+            assertEquals("OK", status.getStatus());
+            assertEquals(1L, status.getApproximateTotal());
+        });
+        assertEquals(5, threads.size());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("global-search-")));
+    }
+
+    @Test
+    void returnsWhatArrivedWhenTheDeadlinePasses() {
+        sources.put(Customer.class, (term, pageable) -> List.of(customer(1, "Acme")));
+        sources.put(Contact.class, (term, pageable) -> hang());
+        sources.put(Lead.class, (term, pageable) -> hang());
+        sources.put(Opportunity.class, (term, pageable) -> hang());
+        sources.put(Activity.class, (term, pageable) -> List.of(activity(5, "Acme follow-up")));
+
+        long start = System.nanoTime();
+        GlobalSearchService.Result result = search.search("acme", 10);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Three hanging sources share one budget rather than each getting their own
+        assertTrue(elapsedMs >= TIMEOUT_MS, "returned after " + elapsedMs + " ms");
+        assertTrue(elapsedMs < 2 * TIMEOUT_MS, "returned after " + elapsedMs + " ms");
+        assertTrue(result.isPartial());
+        assertEquals("OK", result.getSources().get("customers").getStatus());
+        assertEquals("TIMED_OUT", result.getSources().get("contacts").getStatus());
+        assertEquals("TIMED_OUT", result.getSources().get("leads").getStatus());
+        assertEquals("TIMED_OUT", result.getSources().get("opportunities").getStatus());
+        assertEquals("OK", result.getSources().get("activities").getStatus());
+        assertEquals(List.of("customer 1", "activity 5"), keys(result));
+    }
+
+    @Test
+    void capsTheRankedHits() {
+        LocalDateTime now = LocalDateTime.now();
+        sources.put(Customer.class, (term, pageable) -> {
+            assertEquals(3, pageable.getPageSize());
+            return List.of(updated(customer(1, "Acme"), now.minusDays(3)),
+                    updated(customer(2, "Acme Holdings"), now.minusDays(2)),
+                    updated(customer(3, "Best Acme"), now));
+        });
+        sources.put(Contact.class, (term, pageable) -> List.of(updated(contact(4, "Dee", "Acme"), now)));
+        sources.put(Lead.class, (term, pageable) -> List.of());
+        sources.put(Opportunity.class, (term, pageable) -> List.of(updated(opportunity(5, "Acme"), now)));
+        sources.put(Activity.class, (term, pageable) -> List.of(updated(activity(6, "Acme renewal"), now)));
+
+        // The whole title first, then title prefixes by recency
+        assertEquals(List.of("opportunity 5", "customer 1", "activity 6"), keys(search.search("acme", 3)));
+
+        // Above the configured maximum of 4
+        sources.put(Customer.class, (term, pageable) -> {
+            assertEquals(4, pageable.getPageSize());
+            return List.of(customer(1, "Acme"), customer(2, "Acme Holdings"), customer(3, "Best Acme"));
+        });
+        assertEquals(4, search.search("acme", 100).getHits().size());
+    }
+
+    private static List<?> rendezvous(CountDownLatch started, Set<String> threads, Object entity) {
+        threads.add(Thread.currentThread().getName());
+        started.countDown();
+        try {
+            return started.await(5, TimeUnit.SECONDS) ? List.of(entity) : List.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+    }
+
+    private List<?> hang() {
+        try {
+            hung.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return List.of();
+    }
+
+    private static List<String> keys(GlobalSearchService.Result result) {
+        return result.getHits().stream().map(hit -> hit.getType() + " " + hit.getId()).collect(Collectors.toList());
+    }
+
+    private static Customer customer(long id, String name) {
+        Customer customer = new Customer(name, "Retail", null);
+        customer.setId(id);
+        return customer;
+    }
+
+    private static ContactListItem contact(long id, String firstName, String lastName) {
+        return new ContactListItem(id, firstName, lastName, null, null, null, null, null, null, null, null, null);
+    }
+
+    private static Lead lead(long id, String firstName, String company) {
+        Lead lead = new Lead(firstName, "Lead", null, company);
+        lead.setId(id);
+        return lead;
+    }
+
+    private static OpportunityListItem opportunity(long id, String name) {
+        return new OpportunityListItem(id, name, null, null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private static ActivityListItem activity(long id, String subject) {
+        return new ActivityListItem(id, subject, Activity.ActivityType.CALL, null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private static <T> T updated(T entity, LocalDateTime updatedAt) {
+        ReflectionTestUtils.setField(entity, "updatedAt", updatedAt);
+        return entity;
+    }
+}
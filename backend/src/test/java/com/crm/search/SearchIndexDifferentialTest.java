@@ -0,0 +1,274 @@
+package com.crm.search;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Activity;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that indexed searches return exactly the rows of the JPQL {@code LIKE} queries
+ * they replace, on a randomly generated corpus in H2.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SearchIndexDifferentialTest {
+
+    private static final Pageable ALL = PageRequest.of(0, 100_000, Sort.by("id"));
+
+    private static final String[] WORDS = {
+            "acme", "NewAcmeCorp", "tech", "Global", "data-tech", "Smith & Sons", "o'neil", "café",
+            "Zürich", "ÉCOLE", "naïve", "north", "east", "Q1 review", "follow_up", "50% off",
+            "back\\slash", "sales", "demo", "renewal", "partner", "x", "ab", "Über", "straße"
+    };
+
+    private static final String[] EDGE_TERMS = {
+            " ", "-", "@", ".", ".com", "'", "&", "e", "é", "É", "ue", "cafe", "CAFÉ", "ss", "%", "_",
+            "50%", "follow_up", "\\", "a b", "corp ", " tech", "q1 r", "zzzz", "ch & s"
+    };
+
+    @Autowired
+    private SearchIndexService searchIndex;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    private final Random random = new Random(20240611L);
+    private final List<String> corpus = new ArrayList<>();
+
+    @BeforeAll
+    void createCorpus() throws InterruptedException {
+        for (Class<?> type : List.of(Customer.class, Contact.class, Lead.class)) {
+            for (int attempt = 0; attempt < 200 && !searchIndex.isReady(type); attempt++) {
+                Thread.sleep(50);
+            }
+            assertTrue(searchIndex.isReady(type), type.getSimpleName() + " index was not built");
+        }
+
+        // Written after the initial build, so the index is kept current by change events
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Customer customer = new Customer(text(), text(), email());
+            customer.setCity(random.nextInt(4) == 0 ? null : text());
+            customers.add(customerRepository.save(customer));
+        }
+        for (int i = 0; i < 120; i++) {
+            Contact contact = new Contact(text(), text(), email());
+            contact.setJobTitle(random.nextBoolean() ? text() : null);
+            // Contacts without a customer never match, because the query inner-joins it
+            contact.setCustomer(random.nextInt(5) == 0 ? null : customers.get(random.nextInt(customers.size())));
+            contactRepository.save(contact);
+        }
+        for (int i = 0; i < 80; i++) {
+            Lead lead = new Lead(text(), text(), random.nextInt(6) == 0 ? null : email(), text());
+            lead.setJobTitle(random.nextBoolean() ? text() : null);
+            leadRepository.save(lead);
+        }
+        for (int i = 0; i < 60; i++) {
+            Opportunity opportunity = new Opportunity(text(), BigDecimal.valueOf(1000 + i),
+                    customers.get(random.nextInt(customers.size())));
+            opportunity.setDescription(random.nextBoolean() ? text() + " " + text() : null);
+            opportunityRepository.save(opportunity);
+        }
+        for (int i = 0; i < 80; i++) {
+            Activity activity = new Activity(text(), Activity.ActivityType.values()[i % 8], null);
+            activity.setDescription(random.nextBoolean() ? text() + " " + text() : null);
+            activityRepository.save(activity);
+        }
+    }
+
+    @Test
+    void customerSearchMatchesLike() {
+        for (String term : terms()) {
+            assertSameRows(Customer.class, term, customerRepository::findBySearchTerm,
+                    customerRepository::findBySearchTermAndIdIn, Customer::getId);
+        }
+    }
+
+    @Test
+    void contactSearchMatchesLike() {
+        for (String term : terms()) {
+            assertSameRows(Contact.class, term, contactRepository::findBySearchTerm,
+                    contactRepository::findBySearchTermAndIdIn, Contact::getId);
+        }
+    }
+
+    @Test
+    void leadSearchMatchesLike() {
+        for (String term : terms()) {
+            assertSameRows(Lead.class, term, leadRepository::findBySearchTerm,
+                    leadRepository::findBySearchTermAndIdIn, Lead::getId);
+        }
+    }
+
+    @Test
+    void opportunitySearchMatchesLike() {
+        for (String term : terms()) {
+            assertSameRows(Opportunity.class, term, opportunityRepository::findBySearchTerm,
+                    opportunityRepository::findBySearchTermAndIdIn, Opportunity::getId);
+        }
+    }
+
+    @Test
+    void activitySearchMatchesLike() {
+        for (String term : terms()) {
+            assertSameRows(Activity.class, term, activityRepository::findBySearchTerm,
+                    activityRepository::findBySearchTermAndIdIn, Activity::getId);
+        }
+    }
+
+    @Test
+    void indexFollowsCustomerRenamesAndDeletes() {
+        Customer customer = customerRepository.save(new Customer("Quuxbridge Holdings", "Retail", "q@quux.com"));
+        Contact contact = new Contact("Vera", "Lind", "vera@lind.com");
+        contact.setCustomer(customer);
+        contact = contactRepository.save(contact);
+
+        customer.setCompanyName("Zephyrine Partners");
+        customerRepository.save(customer);
+        for (String term : List.of("quuxbridge", "zephyrine", "rine part")) {
+            assertSameRows(Contact.class, term, contactRepository::findBySearchTerm,
+                    contactRepository::findBySearchTermAndIdIn, Contact::getId);
+        }
+
+        contactRepository.delete(contact);
+        assertSameRows(Contact.class, "vera@lind", contactRepository::findBySearchTerm,
+                contactRepository::findBySearchTermAndIdIn, Contact::getId);
+        assertEquals(List.of(), searchIndex.candidates(Contact.class, "vera@lind"));
+    }
+
+    @Test
+    void typesSearchingDescriptionsAreNotIndexed() {
+        assertFalse(searchIndex.isReady(Opportunity.class));
+        assertFalse(searchIndex.isReady(Activity.class));
+        assertNull(searchIndex.candidates(Opportunity.class, "renewal"));
+        assertNull(searchIndex.candidates(Activity.class, "renewal"));
+    }
+
+    @Test
+    void searchesMatchingTooManyRowsFallBackToTheScan() {
+        List<Long> candidates = searchIndex.candidates(Customer.class, "acme");
+        assertTrue(candidates != null && candidates.size() > 1, "corpus too small: " + candidates);
+
+        // The suite runs with a large cap, so this is the only check of the cap itself
+        int maxCandidates = (int) ReflectionTestUtils.getField(searchIndex, "maxCandidates");
+        ReflectionTestUtils.setField(searchIndex, "maxCandidates", candidates.size() - 1);
+        try {
+            assertNull(searchIndex.candidates(Customer.class, "acme"));
+            AtomicBoolean scanned = new AtomicBoolean();
+            Page<Customer> page = searchIndex.search(Customer.class, "acme", ALL, (term, pageable) -> {
+                scanned.set(true);
+                return customerRepository.findBySearchTerm(term, pageable);
+            }, (term, ids, pageable) -> {
+                throw new AssertionError("Narrowed search past the cap");
+            });
+            assertTrue(scanned.get());
+            assertEquals(ids(customerRepository.findBySearchTerm("acme", ALL), Customer::getId),
+                    ids(page, Customer::getId));
+        } finally {
+            ReflectionTestUtils.setField(searchIndex, "maxCandidates", maxCandidates);
+        }
+        assertEquals(candidates, searchIndex.candidates(Customer.class, "acme"));
+    }
+
+    private <T> void assertSameRows(Class<T> type, String term, BiFunction<String, Pageable, Page<T>> scan,
+                                    SearchIndexService.NarrowedSearch<T> narrowed, Function<T, Long> id) {
+        Page<T> expected = scan.apply(term, ALL);
+        Page<T> actual = searchIndex.search(type, term, ALL, scan, narrowed);
+        String description = type.getSimpleName() + " search for '" + term + "'";
+        assertEquals(ids(expected, id), ids(actual, id), description);
+        assertEquals(expected.getTotalElements(), actual.getTotalElements(), description);
+
+        List<Long> candidates = searchIndex.candidates(type, term);
+        if (candidates != null) {
+            assertTrue(candidates.containsAll(ids(expected, id)), description + " lost candidates");
+        }
+    }
+
+    private static <T> List<Long> ids(Page<T> page, Function<T, Long> id) {
+        return page.getContent().stream().map(id).collect(Collectors.toList());
+    }
+
+    private Set<String> terms() {
+        Set<String> terms = new LinkedHashSet<>(List.of(EDGE_TERMS));
+        for (int i = 0; i < 150; i++) {
+            String source = corpus.get(random.nextInt(corpus.size()));
+            int length = 1 + random.nextInt(Math.min(8, source.length()));
+            int start = random.nextInt(source.length() - length + 1);
+            String term = source.substring(start, start + length);
+            terms.add(random.nextBoolean() ? term.toUpperCase(Locale.ROOT) : term);
+        }
+        for (int i = 0; i < 30; i++) {
+            terms.add(Integer.toString(random.nextInt(1000), 36));
+        }
+        terms.removeIf(term -> term.trim().isEmpty() && !term.equals(" "));
+        return terms;
+    }
+
+    private String text() {
+        StringBuilder text = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            text.append(random.nextBoolean() ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextInt(3) == 0) {
+            text.append(random.nextInt(100));
+        }
+        String value = text.length() > 50 ? text.substring(0, 50) : text.toString();
+        corpus.add(value);
+        return value;
+    }
+
+    private String email() {
+        String email = Integer.toString(random.nextInt(100_000), 36) + "@"
+                + WORDS[random.nextInt(3)].toLowerCase(Locale.ROOT) + ".com";
+        corpus.add(email);
+        return email;
+    }
+}
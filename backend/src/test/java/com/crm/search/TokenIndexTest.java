@@ -0,0 +1,136 @@
+package com.crm.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TokenIndexTest {
+
+    @Test
+    void findsWordsWithinEditDistance() {
+        TokenIndex index = new TokenIndex();
+        index.put(1, "Johnson & Sons", "johnson@example.com");
+        index.put(2, "TechCorp Solutions", null);
+        index.put(3, "Global Manufacturing", "Detroit");
+
+        assertArrayEquals(new int[] {1}, index.similar("jonson"));
+        assertArrayEquals(new int[] {2}, index.similar("tehcorp soluttions"));
+        assertArrayEquals(new int[] {3}, index.similar("manufactoring"));
+        assertArrayEquals(new int[0], index.similar("gloabl detriot sons"));
+        assertArrayEquals(new int[0], index.similar("xy"));
+        assertNull(index.similar("--"));
+    }
+
+    @Test
+    void dropsTokensNoDocumentContains() {
+        TokenIndex index = new TokenIndex();
+        index.put(1, "Acme Corp");
+        index.put(2, "Acme Labs");
+        index.put(1, "Zenith Corp");
+        index.remove(2);
+
+        assertEquals(2, index.vocabularySize());
+        assertArrayEquals(new int[0], index.candidates("lab", 10));
+        assertArrayEquals(new int[0], index.similar("acme"));
+
+        // Freed token ids are reused by new tokens
+        index.put(3, "Labs North");
+        assertEquals(4, index.vocabularySize());
+        assertArrayEquals(new int[] {3}, index.candidates("no", 10));
+        assertArrayEquals(new int[] {1}, index.candidates("ze", 10));
+    }
+
+    @Test
+    void givesUpOnPiecesMatchingMoreDocumentsThanTheLimit() {
+        TokenIndex index = new TokenIndex();
+        for (int id = 0; id < 50; id++) {
+            index.put(id, "alpha" + id, id % 10 == 0 ? "zeta" : "beta");
+        }
+
+        assertNull(index.candidates("a", 49));
+        assertEquals(50, index.candidates("a", 50).length);
+        assertArrayEquals(new int[] {0, 10, 20, 30, 40}, index.candidates("ze", 5));
+        assertNull(index.candidates("ze", 4));
+        // "a" narrows nothing under this limit and is left out; "ze" still narrows
+        assertArrayEquals(new int[] {0, 10, 20, 30, 40}, index.candidates("ze a", 10));
+    }
+
+    @Test
+    void matchesBruteForceDistance() {
+        Random random = new Random(7);
+        TokenIndex index = new TokenIndex();
+        Map<Integer, String> documents = new HashMap<>();
+        for (int id = 0; id < 400; id++) {
+            String text = word(random) + " " + word(random);
+            index.put(id, text);
+            documents.put(id, text);
+        }
+        for (int query = 0; query < 300; query++) {
+            String term = random.nextBoolean() ? word(random) : mutate(random, documents.get(random.nextInt(400)));
+            assertArrayEquals(expected(documents, term), index.similar(term), "term '" + term + "'");
+        }
+    }
+
+    private static int[] expected(Map<Integer, String> documents, String term) {
+        List<String> words = TokenIndex.tokenize(term);
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < documents.size(); id++) {
+            List<String> tokens = TokenIndex.tokenize(documents.get(id));
+            boolean all = true;
+            for (String word : words) {
+                all &= tokens.stream().anyMatch(token -> distance(word, token) <= TokenIndex.maxEdits(word.length()));
+            }
+            if (all) {
+                ids.add(id);
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int distance(String a, String b) {
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int diagonal = row[0];
+            row[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int above = row[j];
+                row[j] = Math.min(diagonal + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1),
+                        Math.min(above + 1, row[j - 1] + 1));
+                diagonal = above;
+            }
+        }
+        return row[b.length()];
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 1 + random.nextInt(8); i > 0; i--) {
+            word.append("abcde".charAt(random.nextInt(5)));
+        }
+        return word.toString();
+    }
+
+    private static String mutate(Random random, String text) {
+        StringBuilder mutated = new StringBuilder(text);
+        for (int i = random.nextInt(3); i > 0 && mutated.length() > 1; i--) {
+            int at = random.nextInt(mutated.length());
+            switch (random.nextInt(3)) {
+                case 0: mutated.deleteCharAt(at); break;
+                case 1: mutated.insert(at, "abcde".charAt(random.nextInt(5))); break;
+                default: mutated.setCharAt(at, "abcde".charAt(random.nextInt(5)));
+            }
+        }
+        return mutated.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.crm.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TrigramIndexTest {
+
+    @Test
+    void neverMatchesAcrossFields() {
+        TrigramIndex index = new TrigramIndex(false);
+        index.put(1, "Acme", "Corp", null, "Café Müller");
+        index.put(2, "Acmecorp", null);
+
+        assertArrayEquals(new int[] {1, 2}, index.matches("acme"));
+        assertArrayEquals(new int[] {2}, index.matches("mecor"));
+        assertArrayEquals(new int[] {1}, index.matches("CAFE MUL"));
+        assertArrayEquals(new int[0], index.matches("corpcafe"));
+        assertNull(index.matches("ac"));
+        assertNull(index.matches("acme\u0000corp"));
+    }
+
+    @Test
+    void skipsDocumentsWithoutTheRequiredLastField() {
+        TrigramIndex index = new TrigramIndex(true);
+        index.put(1, "Vera", "Lind", "Quuxbridge");
+        index.put(2, "Vera", "Lind", null);
+
+        assertArrayEquals(new int[] {1}, index.matches("vera"));
+        index.put(1, "Vera", "Lind", null);
+        assertArrayEquals(new int[0], index.matches("vera"));
+        assertEquals(0, index.size());
+        assertEquals(0, index.trigramCount());
+    }
+
+    @Test
+    void keepsFindingDocumentsAsTheTablesGrowAndShrink() {
+        TrigramIndex index = new TrigramIndex(false);
+        for (int id = 0; id < 5000; id++) {
+            index.put(id * 7, "row" + id);
+        }
+        for (int id = 0; id < 5000; id += 2) {
+            index.remove(id * 7);
+        }
+
+        assertEquals(2500, index.size());
+        assertArrayEquals(new int[] {1234 * 7 + 7}, index.matches("row1235"));
+        assertArrayEquals(new int[0], index.matches("row1234"));
+        assertEquals(2500, index.matches("row").length);
+    }
+}
@@ -0,0 +1,94 @@
+package com.crm.service;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.LeadRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class BulkInsertServiceTest {
+
+    @Autowired
+    private BulkInsertService bulkInsertService;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void insertsInJdbcBatchesAfterTheSeededIds() {
+        long before = leadRepository.count();
+        List<Lead> leads = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            leads.add(new Lead("Bulk", "Lead " + i, "bulk" + i + "@example.com", "Bulk Co"));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ResponseEntity<BulkInsertService.BulkInsertResult> response = bulkInsertService.insertAll(leads);
+        // Three insert batches and three sequence calls, plus one refresh per after-commit
+        // listener for the whole batch, rather than 120 inserts and 120 refreshes
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertTrue(statements <= 25, statements + " statements");
+        List<Long> ids = response.getBody().getIds();
+        assertEquals(120, new HashSet<>(ids).size());
+        // data.sql inserts ids 1..5 directly; the sequence must have been moved past them
+        assertTrue(ids.stream().allMatch(id -> id > 5));
+        assertEquals(before + 120, leadRepository.count());
+    }
+
+    @Test
+    void rejectsInvalidRowsWithoutInsertingAny() {
+        long before = leadRepository.count();
+        List<Lead> leads = List.of(new Lead("Valid", "Lead", "valid@example.com", null),
+                new Lead("", "Lead", "not an email", null));
+
+        ResponseEntity<BulkInsertService.BulkInsertResult> response = bulkInsertService.insertAll(leads);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNull(response.getBody().getIds());
+        assertTrue(response.getBody().getErrors().stream().allMatch(error -> error.getIndex() == 1));
+        assertEquals(2, response.getBody().getErrors().size());
+        assertEquals(before, leadRepository.count());
+    }
+
+    @Test
+    void attachesAssociationsGivenById() {
+        Customer customer = new Customer();
+        customer.setId(2L);
+        Contact contact = new Contact("Bulk", "Contact", "bulk.contact@example.com");
+        contact.setCustomer(customer);
+
+        ResponseEntity<BulkInsertService.BulkInsertResult> response = bulkInsertService.insertAll(List.of(contact));
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(2L, contactRepository.findById(response.getBody().getIds().get(0)).get().getCustomer().getId());
+    }
+}
@@ -0,0 +1,133 @@
+package com.crm.service;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Activity;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class BulkUpdateServiceTest {
+
+    @Autowired
+    private BulkUpdateService bulkUpdateService;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CrmCounterStore counterStore;
+
+    @Autowired
+    private RecentActivityFeed recentActivityFeed;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void completesActivitiesWithOneUpdateAndPublishesTheChanges() {
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            activities.add(new Activity("Bulk " + i, Activity.ActivityType.TASK, null));
+        }
+        List<Long> ids = activityRepository.saveAll(activities).stream().map(Activity::getId).collect(Collectors.toList());
+        long completedBefore = counterStore.activities().countByStatus(Activity.ActivityStatus.COMPLETED);
+        BulkUpdateService.ActivitySelection selection = new BulkUpdateService.ActivitySelection();
+        selection.setIds(ids);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ResponseEntity<BulkUpdateService.BulkUpdateResult> response = bulkUpdateService.completeActivities(selection, "Done");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(40, response.getBody().getUpdated());
+        assertEquals(0, statistics.getEntityLoadCount());
+        Activity completed = activityRepository.findById(ids.get(7)).get();
+        assertEquals(Activity.ActivityStatus.COMPLETED, completed.getStatus());
+        assertEquals("Done", completed.getOutcome());
+        assertNotNull(completed.getCompletedAt());
+        assertEquals(completedBefore + 40, counterStore.activities().countByStatus(Activity.ActivityStatus.COMPLETED));
+        assertEquals(Activity.ActivityStatus.COMPLETED, recentActivityFeed.recent(1).get(0).getStatus());
+
+        // Already completed rows are not matched again
+        assertEquals(0, bulkUpdateService.completeActivities(selection, null).getBody().getUpdated());
+    }
+
+    @Test
+    void convertsLeadsMatchingAFilter() {
+        Lead hot = new Lead("Hot", "Lead", "hot@example.com", null);
+        hot.setSource(Lead.LeadSource.TRADE_SHOW);
+        hot.setScore(99);
+        Lead cold = new Lead("Cold", "Lead", "cold@example.com", null);
+        cold.setSource(Lead.LeadSource.TRADE_SHOW);
+        cold.setScore(1);
+        leadRepository.saveAll(List.of(hot, cold));
+        BulkUpdateService.LeadSelection selection = new BulkUpdateService.LeadSelection();
+        selection.setSource(Lead.LeadSource.TRADE_SHOW);
+        selection.setMinScore(99);
+
+        ResponseEntity<BulkUpdateService.BulkUpdateResult> response = bulkUpdateService.convertLeads(selection);
+
+        assertTrue(response.getBody().getIds().contains(hot.getId()));
+        Lead converted = leadRepository.findById(hot.getId()).get();
+        assertEquals(Lead.LeadStatus.CONVERTED, converted.getStatus());
+        assertNotNull(converted.getConvertedAt());
+        assertEquals(Lead.LeadStatus.NEW, leadRepository.findById(cold.getId()).get().getStatus());
+    }
+
+    @Test
+    void closingKeepsAnExistingCloseDate() {
+        Customer customer = customerRepository.findById(1L).get();
+        Opportunity open = new Opportunity("Open", BigDecimal.TEN, customer);
+        Opportunity dated = new Opportunity("Dated", BigDecimal.TEN, customer);
+        dated.setActualCloseDate(LocalDate.of(2020, 1, 31));
+        opportunityRepository.saveAll(List.of(open, dated));
+        BulkUpdateService.OpportunitySelection selection = new BulkUpdateService.OpportunitySelection();
+        selection.setIds(List.of(open.getId(), dated.getId()));
+
+        bulkUpdateService.moveOpportunities(selection, Opportunity.OpportunityStage.CLOSED_WON);
+
+        assertEquals(LocalDate.now(), opportunityRepository.findById(open.getId()).get().getActualCloseDate());
+        assertEquals(LocalDate.of(2020, 1, 31), opportunityRepository.findById(dated.getId()).get().getActualCloseDate());
+        assertEquals(Opportunity.OpportunityStage.CLOSED_WON, opportunityRepository.findById(dated.getId()).get().getStage());
+    }
+
+    @Test
+    void rejectsAnEmptySelection() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                bulkUpdateService.convertLeads(new BulkUpdateService.LeadSelection()).getStatusCode());
+    }
+}
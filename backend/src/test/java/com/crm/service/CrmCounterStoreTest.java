@@ -0,0 +1,155 @@
+package com.crm.service;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Activity;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the running counters with a fresh aggregation over the database after each
+ * kind of write.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class CrmCounterStoreTest {
+
+    @Autowired
+    private CrmCounterStore counterStore;
+
+    @Autowired
+    private DashboardAggregationService aggregationService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void countersFollowCreatesUpdatesAndDeletes() {
+        assertTrue(counterStore.isReady());
+
+        Customer customer = new Customer("Counter Co", "Retail", "counter@example.com");
+        customer.setStatus(Customer.CustomerStatus.PROSPECT);
+        customer = customerRepository.save(customer);
+        Lead lead = new Lead("Counter", "Lead", "counter.lead@example.com", null);
+        lead.setSource(Lead.LeadSource.EMAIL_CAMPAIGN);
+        lead.setScore(40);
+        lead = leadRepository.save(lead);
+        Opportunity opportunity = opportunityRepository.save(
+                new Opportunity("Counter deal", new BigDecimal("1250.50"), customer));
+        Activity overdue = activityRepository.save(
+                new Activity("Counter overdue", Activity.ActivityType.MEETING, LocalDateTime.now().minusHours(2)));
+        Activity upcoming = activityRepository.save(
+                new Activity("Counter upcoming", Activity.ActivityType.EMAIL, LocalDateTime.now().plusDays(2)));
+        assertCountersMatchDatabase();
+
+        customer.setStatus(Customer.CustomerStatus.ACTIVE);
+        customerRepository.save(customer);
+        lead.setStatus(Lead.LeadStatus.QUALIFIED);
+        lead.setSource(Lead.LeadSource.REFERRAL);
+        lead.setScore(75);
+        lead = leadRepository.save(lead);
+        opportunity.setStage(Opportunity.OpportunityStage.CLOSED_WON);
+        opportunity.setAmount(new BigDecimal("1400.00"));
+        opportunity = opportunityRepository.save(opportunity);
+        overdue.setStatus(Activity.ActivityStatus.COMPLETED);
+        overdue = activityRepository.save(overdue);
+        upcoming.setStartDate(LocalDateTime.now().minusMinutes(5));
+        upcoming = activityRepository.save(upcoming);
+        assertCountersMatchDatabase();
+
+        leadRepository.delete(lead);
+        opportunityRepository.delete(opportunity);
+        activityRepository.delete(upcoming);
+        assertCountersMatchDatabase();
+    }
+
+    @Test
+    void reconcileRepairsChangesThatBypassTheEntities() {
+        Lead lead = leadRepository.save(new Lead("Bypass", "Lead", "bypass@example.com", null));
+        assertCountersMatchDatabase();
+
+        jdbcTemplate.update("UPDATE leads SET status = 'LOST', source = 'OTHER' WHERE id = ?", lead.getId());
+        // Keeps the cleanup's delete from reading the stale status back out of the cache
+        entityManagerFactory.getCache().evictAll();
+        assertNotEquals(figures(aggregationService.aggregate()), figures(counterStore.dashboard()));
+
+        counterStore.reconcile();
+        assertCountersMatchDatabase();
+    }
+
+    private void assertCountersMatchDatabase() {
+        assertEquals(figures(aggregationService.aggregate()), figures(counterStore.dashboard()));
+    }
+
+    private static Map<String, Object> figures(DashboardAggregate aggregate) {
+        Map<String, Object> figures = new TreeMap<>();
+        figures.put("stats", aggregate.toStatsMap());
+        figures.put("leadSources", aggregate.getLeads().toSourceCounts());
+        figures.put("opportunityStages", aggregate.getOpportunities().toStageBreakdown());
+        for (Lead.LeadStatus status : Lead.LeadStatus.values()) {
+            figures.put("leads " + status, aggregate.getLeads().countByStatus(status));
+            figures.put("lead score " + status, aggregate.getLeads().averageScoreByStatus(status));
+        }
+        for (Customer.CustomerStatus status : Customer.CustomerStatus.values()) {
+            figures.put("customers " + status, aggregate.getCustomers().countByStatus(status));
+        }
+        for (Activity.ActivityStatus status : Activity.ActivityStatus.values()) {
+            figures.put("activities " + status, aggregate.getActivities().countByStatus(status));
+        }
+        for (Activity.ActivityType type : Activity.ActivityType.values()) {
+            figures.put("activities " + type, aggregate.getActivities().countByType(type));
+        }
+        figures.put("overdue", aggregate.getActivities().getOverdue());
+        return normalize(figures);
+    }
+
+    /**
+     * Sorts maps and strips BigDecimal scale, which differ between the two sources.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T normalize(T value) {
+        if (value instanceof BigDecimal) {
+            return (T) ((BigDecimal) value).stripTrailingZeros();
+        }
+        if (value instanceof Map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((key, entry) -> sorted.put(String.valueOf(key), normalize(entry)));
+            return (T) sorted;
+        }
+        return value;
+    }
+}
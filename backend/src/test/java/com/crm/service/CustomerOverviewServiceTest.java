@@ -0,0 +1,124 @@
+package com.crm.service;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Activity;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Opportunity;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.OpportunityRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CustomerOverviewServiceTest {
+
+    @Autowired
+    private CustomerOverviewService overviewService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    private Customer customer;
+
+    private final LocalDateTime lastActivity = LocalDateTime.now().minusDays(2).withNano(0);
+
+    private final LocalDateTime nextActivity = LocalDateTime.now().plusDays(3).withNano(0);
+
+    @BeforeAll
+    void createCustomer() {
+        customer = customerRepository.save(new Customer("Overview GmbH", "Manufacturing", "overview@example.com"));
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Contact contact = new Contact("Contact", "Anders" + i, "anders" + i + "@overview.example.com");
+            contact.setCustomer(customer);
+            contact.setIsPrimary(i == 7);
+            contacts.add(contact);
+        }
+        contactRepository.saveAll(contacts);
+
+        Opportunity open = new Opportunity("Open deal", new BigDecimal("1000.00"), customer);
+        open.setStage(Opportunity.OpportunityStage.PROPOSAL);
+        open.setProbability(50);
+        Opportunity alsoOpen = new Opportunity("Second deal", new BigDecimal("500.00"), customer);
+        alsoOpen.setStage(Opportunity.OpportunityStage.PROSPECTING);
+        alsoOpen.setProbability(10);
+        Opportunity won = new Opportunity("Won deal", new BigDecimal("9000.00"), customer);
+        won.setStage(Opportunity.OpportunityStage.CLOSED_WON);
+        opportunityRepository.saveAll(List.of(open, alsoOpen, won));
+
+        Activity past = new Activity("Kick-off", Activity.ActivityType.MEETING, lastActivity);
+        past.setCustomer(customer);
+        Activity older = new Activity("First call", Activity.ActivityType.CALL, lastActivity.minusDays(5));
+        older.setCustomer(customer);
+        Activity planned = new Activity("Follow-up", Activity.ActivityType.FOLLOW_UP, nextActivity);
+        planned.setCustomer(customer);
+        activityRepository.saveAll(List.of(past, older, planned));
+    }
+
+    @Test
+    void assemblesEverySectionWithSummaryFigures() {
+        CustomerOverviewService.Overview overview = overviewService.overview(customer.getId(), 5);
+
+        assertFalse(overview.isPartial());
+        assertEquals(List.of("customer", "contacts", "opportunities", "pipeline", "activities", "activityDates"),
+                new ArrayList<>(overview.getSections().keySet()));
+        assertEquals("Overview GmbH", overview.getCustomer().getCompanyName());
+        assertEquals(5, overview.getContacts().size());
+        assertNotNull(overview.getPrimaryContact());
+        assertEquals("Anders7", overview.getPrimaryContact().getLastName());
+        assertEquals(3, overview.getOpportunities().size());
+        assertEquals("Follow-up", overview.getRecentActivities().get(0).getSubject());
+
+        CustomerOverviewService.Summary summary = overview.getSummary();
+        assertEquals(12L, summary.getContactCount());
+        assertEquals(3L, summary.getOpportunityCount());
+        assertEquals(2L, summary.getOpenOpportunityCount());
+        assertEquals(0, new BigDecimal("1500").compareTo(summary.getOpenPipeline()));
+        assertEquals(0, new BigDecimal("550").compareTo(summary.getWeightedPipeline()));
+        assertEquals(3L, summary.getActivityCount());
+        assertEquals(lastActivity, summary.getLastActivityAt());
+        assertEquals(nextActivity, summary.getNextActivityAt());
+    }
+
+    @Test
+    void capsTheRowsPerList() {
+        CustomerOverviewService.Overview overview = overviewService.overview(customer.getId(), 10_000);
+
+        assertTrue(overview.getContacts().size() <= 50);
+        assertEquals(12, overview.getContacts().size());
+    }
+
+    @Test
+    void returnsNullForAnUnknownCustomer() {
+        assertNull(overviewService.overview(-1L, 10));
+    }
+}
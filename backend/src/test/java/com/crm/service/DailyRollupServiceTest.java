@@ -0,0 +1,198 @@
+package com.crm.service;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Activity;
+import com.crm.model.ActivityDailyRollup;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.LeadDailyRollup;
+import com.crm.model.Opportunity;
+import com.crm.model.OpportunityDailyRollup;
+import com.crm.repository.ActivityDailyRollupRepository;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadDailyRollupRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityDailyRollupRepository;
+import com.crm.repository.OpportunityRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the rollup tables with the same figures aggregated straight from the source
+ * tables in SQL.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class DailyRollupServiceTest {
+
+    @Autowired
+    private DailyRollupService rollupService;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LeadDailyRollupRepository leadRollupRepository;
+
+    @Autowired
+    private ActivityDailyRollupRepository activityRollupRepository;
+
+    @Autowired
+    private OpportunityDailyRollupRepository opportunityRollupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void writesRefreshTheDaysTheyTouch() {
+        Lead lead = new Lead("Rollup", "Lead", "rollup.lead@example.com", null);
+        lead.setSource(Lead.LeadSource.TRADE_SHOW);
+        lead = leadRepository.save(lead);
+        LocalDate created = lead.getCreatedAt().toLocalDate();
+        assertEquals(aggregated(created, created), rolledUp(created, created));
+
+        lead.setStatus(Lead.LeadStatus.CONVERTED);
+        lead = leadRepository.save(lead);
+        LocalDate converted = lead.getConvertedAt().toLocalDate();
+        assertTrue(rolledUp(converted, converted).containsKey(converted + " converted TRADE_SHOW"));
+        assertEquals(aggregated(converted, converted), rolledUp(converted, converted));
+
+        Activity activity = activityRepository.save(new Activity("Rollup call", Activity.ActivityType.CALL, null));
+        activity.setStatus(Activity.ActivityStatus.COMPLETED);
+        activity = activityRepository.save(activity);
+        LocalDate completed = activity.getCompletedAt().toLocalDate();
+        assertTrue(rolledUp(completed, completed).containsKey(completed + " completed CALL"));
+        assertEquals(aggregated(completed, completed), rolledUp(completed, completed));
+    }
+
+    @Test
+    void backfillMatchesTheSourceRows() throws InterruptedException {
+        LocalDate from = LocalDate.now().minusDays(45);
+        LocalDate to = LocalDate.now();
+        Customer customer = customerRepository.save(new Customer("Backfill Ltd", "Retail", "backfill@example.com"));
+        for (int i = 0; i < 6; i++) {
+            Lead lead = new Lead("Backfill", "Lead " + i, "backfill" + i + "@example.com", null);
+            lead.setSource(i % 2 == 0 ? Lead.LeadSource.WEBSITE : Lead.LeadSource.REFERRAL);
+            lead.setStatus(i < 3 ? Lead.LeadStatus.CONVERTED : Lead.LeadStatus.NEW);
+            lead = leadRepository.save(lead);
+            Activity activity = new Activity("Backfill " + i, i % 2 == 0 ? Activity.ActivityType.EMAIL
+                    : Activity.ActivityType.DEMO, null);
+            activity.setStatus(Activity.ActivityStatus.COMPLETED);
+            activity = activityRepository.save(activity);
+            Opportunity opportunity = new Opportunity("Backfill " + i, BigDecimal.valueOf(100 + i), customer);
+            opportunity.setStage(i < 4 ? Opportunity.OpportunityStage.CLOSED_WON : Opportunity.OpportunityStage.CLOSED_LOST);
+            opportunity = opportunityRepository.save(opportunity);
+
+            // Moved into the past behind the service's back, so only the backfill can see it
+            LocalDateTime past = from.plusDays(i * 7L).atTime(9 + i, 30);
+            jdbcTemplate.update("UPDATE leads SET created_at = ?, converted_at = CASE WHEN status = 'CONVERTED' "
+                    + "THEN ? END WHERE id = ?", Timestamp.valueOf(past), Timestamp.valueOf(past.plusDays(2)), lead.getId());
+            jdbcTemplate.update("UPDATE activities SET completed_at = ? WHERE id = ?",
+                    Timestamp.valueOf(past.plusDays(1)), activity.getId());
+            jdbcTemplate.update("UPDATE opportunities SET actual_close_date = ? WHERE id = ?",
+                    java.sql.Date.valueOf(past.toLocalDate().plusDays(3)), opportunity.getId());
+        }
+        entityManagerFactory.getCache().evictAll();
+
+        awaitBackfill();
+        rollupService.startBackfill(from, to);
+        DailyRollupService.BackfillStatus status = awaitBackfill();
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(2, status.getChunksTotal());
+        Map<String, Object> expected = aggregated(from, to);
+        assertTrue(expected.containsKey(from + " created WEBSITE"));
+        assertTrue(expected.containsKey(from.plusDays(8) + " completed DEMO"));
+        assertEquals(expected, rolledUp(from, to));
+    }
+
+    private DailyRollupService.BackfillStatus awaitBackfill() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        DailyRollupService.BackfillStatus status = rollupService.getBackfillStatus();
+        while (status != null && status.getFinishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = rollupService.getBackfillStatus();
+        }
+        return status;
+    }
+
+    private Map<String, Object> rolledUp(LocalDate from, LocalDate to) {
+        Map<String, Object> figures = new TreeMap<>();
+        for (LeadDailyRollup rollup : leadRollupRepository.findByDayBetweenOrderByDayAsc(from, to)) {
+            put(figures, rollup.getDay() + " created " + rollup.getSource(), rollup.getCreated());
+            put(figures, rollup.getDay() + " converted " + rollup.getSource(), rollup.getConverted());
+        }
+        for (ActivityDailyRollup rollup : activityRollupRepository.findByDayBetweenOrderByDayAsc(from, to)) {
+            put(figures, rollup.getDay() + " completed " + rollup.getType(), rollup.getCompleted());
+        }
+        for (OpportunityDailyRollup rollup : opportunityRollupRepository.findByDayBetweenOrderByDayAsc(from, to)) {
+            put(figures, rollup.getDay() + " closed " + rollup.getStage(), rollup.getCount());
+            figures.put(rollup.getDay() + " amount " + rollup.getStage(), rollup.getAmount().stripTrailingZeros());
+        }
+        return figures;
+    }
+
+    private Map<String, Object> aggregated(LocalDate from, LocalDate to) {
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+        Map<String, Object> figures = new TreeMap<>();
+        count(figures, "created", "SELECT CAST(created_at AS DATE), source, COUNT(*) FROM leads "
+                + "WHERE created_at >= ? AND created_at < ? GROUP BY CAST(created_at AS DATE), source", start, end);
+        count(figures, "converted", "SELECT CAST(converted_at AS DATE), source, COUNT(*) FROM leads "
+                + "WHERE status = 'CONVERTED' AND converted_at >= ? AND converted_at < ? "
+                + "GROUP BY CAST(converted_at AS DATE), source", start, end);
+        count(figures, "completed", "SELECT CAST(completed_at AS DATE), type, COUNT(*) FROM activities "
+                + "WHERE completed_at >= ? AND completed_at < ? GROUP BY CAST(completed_at AS DATE), type", start, end);
+        List<Object[]> closed = jdbcTemplate.query("SELECT actual_close_date, stage, COUNT(*), SUM(amount) "
+                        + "FROM opportunities WHERE stage IN ('CLOSED_WON', 'CLOSED_LOST') "
+                        + "AND actual_close_date BETWEEN ? AND ? GROUP BY actual_close_date, stage",
+                (rs, row) -> new Object[] {rs.getDate(1).toLocalDate(), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4)},
+                java.sql.Date.valueOf(from), java.sql.Date.valueOf(to));
+        for (Object[] row : closed) {
+            put(figures, row[0] + " closed " + row[1], (Long) row[2]);
+            figures.put(row[0] + " amount " + row[1], ((BigDecimal) row[3]).stripTrailingZeros());
+        }
+        return figures;
+    }
+
+    private void count(Map<String, Object> figures, String figure, String sql, Object... args) {
+        RowCallbackHandler handler = rs -> put(figures,
+                rs.getDate(1).toLocalDate() + " " + figure + " " + rs.getString(2), rs.getLong(3));
+        jdbcTemplate.query(sql, handler, args);
+    }
+
+    private static void put(Map<String, Object> figures, String key, long value) {
+        if (value != 0) {
+            figures.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.crm.service;
+
+import com.crm.SeedDataExtension;
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.Lead;
+import com.crm.repository.LeadRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a private instance of the stream over the shared counter store, flushing by hand
+ * and recording what each subscriber's emitter is sent.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class DashboardStreamServiceTest {
+
+    private static final int BUFFER_SIZE = 4;
+
+    @Autowired
+    private CrmCounterStore counterStore;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    private volatile CountDownLatch nextRelease;
+
+    private DashboardStreamService stream;
+
+    @BeforeEach
+    void createStream() {
+        stream = new DashboardStreamService() {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter(nextRelease);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(stream, "counterStore", counterStore);
+        ReflectionTestUtils.setField(stream, "bufferSize", BUFFER_SIZE);
+        ReflectionTestUtils.setField(stream, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(stream, "timeoutMillis", 60_000L);
+    }
+
+    @AfterEach
+    void shutdown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void coalescesABurstIntoOneDeltaOfTheChangedFigures() throws InterruptedException {
+        stream.subscribe();
+        RecordingEmitter emitter = emitters.get(0);
+        await(() -> emitter.frames().size() == 1);
+        Frame snapshot = emitter.frames().get(0);
+        assertEquals("snapshot", snapshot.name);
+        long leadsBefore = (Long) snapshot.data.get("stats").get("totalLeads");
+
+        for (int i = 0; i < 3; i++) {
+            Lead lead = new Lead("Stream", "Lead " + i, "stream" + i + "@example.com", null);
+            lead.setSource(Lead.LeadSource.COLD_CALL);
+            lead = leadRepository.save(lead);
+            stream.onEntityChange(new EntityChangeEvent(EntityChangeEvent.ChangeType.CREATED, Lead.class,
+                    lead.getId(), lead, null, null));
+        }
+        stream.flush();
+        stream.flush();
+        await(() -> emitter.frames().size() == 2);
+
+        Frame delta = emitter.frames().get(1);
+        assertEquals("delta", delta.name);
+        assertEquals(Set.of("stats", "leadSources"), delta.data.keySet());
+        assertEquals(Set.of("totalLeads", "newLeads"), delta.data.get("stats").keySet());
+        assertEquals(leadsBefore + 3, delta.data.get("stats").get("totalLeads"));
+        assertEquals(Set.of("COLD_CALL"), delta.data.get("leadSources").keySet());
+        assertEquals(1L, stream.getMetrics().get("framesPublished"));
+
+        // Marked dirty without a visible change: nothing is sent
+        stream.onEntityChange(new EntityChangeEvent(EntityChangeEvent.ChangeType.UPDATED, Lead.class, 1L, null,
+                null, null));
+        stream.flush();
+        Thread.sleep(50);
+        assertEquals(2, emitter.frames().size());
+        assertEquals(1L, stream.getMetrics().get("framesPublished"));
+    }
+
+    @Test
+    void disconnectsASubscriberWhoseBufferOverflows() {
+        CountDownLatch release = new CountDownLatch(1);
+        nextRelease = release;
+        stream.subscribe();
+        nextRelease = null;
+        stream.subscribe();
+        RecordingEmitter slow = emitters.get(0);
+        RecordingEmitter fast = emitters.get(1);
+        await(() -> fast.frames().size() == 1);
+
+        try {
+            // The slow subscriber's sender is stuck on the snapshot, so these fill its buffer exactly
+            for (int i = 0; i < BUFFER_SIZE; i++) {
+                stream.heartbeat();
+            }
+            await(() -> fast.frames().size() == 1 + BUFFER_SIZE);
+            assertEquals(0L, stream.getMetrics().get("slowConsumerEvictions"));
+            assertFalse(slow.completed);
+
+            stream.heartbeat();
+            assertTrue(slow.completed);
+            assertEquals(1L, stream.getMetrics().get("slowConsumerEvictions"));
+            assertEquals(1, stream.getMetrics().get("subscribers"));
+            await(() -> fast.frames().size() == 2 + BUFFER_SIZE);
+            assertEquals("heartbeat", fast.frames().get(1 + BUFFER_SIZE).name);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5 s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class Frame {
+        final String name;
+        final Map<String, Map<String, Object>> data;
+
+        Frame(String name, Map<String, Map<String, Object>> data) {
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Records the events it is sent, after waiting for {@code release} if there is one.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<Frame> frames = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void send(SseEventBuilder builder) throws IOException {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            String name = null;
+            Map<String, Map<String, Object>> data = null;
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                Object value = part.getData();
+                if (value instanceof Map) {
+                    data = (Map<String, Map<String, Object>>) value;
+                } else if (name == null && value.toString().startsWith("event:")) {
+                    name = value.toString().substring("event:".length()).split("\n")[0];
+                } else if (name == null && value.toString().startsWith(":")) {
+                    name = value.toString().substring(1).trim();
+                }
+            }
+            frames.add(new Frame(name, data));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+            super.complete();
+        }
+
+        List<Frame> frames() {
+            return frames;
+        }
+    }
+}
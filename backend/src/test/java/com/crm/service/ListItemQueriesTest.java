@@ -0,0 +1,131 @@
+package com.crm.service;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Activity;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.repository.ActivityRepository;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class ListItemQueriesTest {
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void selectsParentNamesWithoutLoadingEntities() {
+        Customer customer = customerRepository.findById(1L).get();
+        Contact withCustomer = new Contact("Ada", "Lovelace", "ada@example.com");
+        withCustomer.setCustomer(customer);
+        Contact orphan = new Contact("No", "Customer", "orphan@example.com");
+        contactRepository.saveAll(List.of(withCustomer, orphan));
+        Opportunity opportunity = new Opportunity("Engine", BigDecimal.TEN, customer);
+        opportunity.setPrimaryContact(withCustomer);
+        opportunityRepository.save(opportunity);
+        Lead lead = leadRepository.save(new Lead("Charles", "Babbage", "charles@example.com", null));
+        Activity activity = new Activity("Demo", Activity.ActivityType.MEETING, null);
+        activity.setLead(lead);
+        activity.setOpportunity(opportunity);
+        activityRepository.save(activity);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Map<Long, ContactListItem> contacts = contactRepository
+                .findListItemsByIdIn(List.of(withCustomer.getId(), orphan.getId())).stream()
+                .collect(Collectors.toMap(ContactListItem::getId, Function.identity()));
+        OpportunityListItem opportunityItem = opportunityRepository.findListItemsByIdIn(List.of(opportunity.getId())).get(0);
+        ActivityListItem activityItem = activityRepository.findListItemsByIdIn(List.of(activity.getId())).get(0);
+        Page<ContactListItem> page = contactRepository.findListItems(PageRequest.of(0, 3, Sort.by("firstName")));
+
+        assertEquals(customer.getCompanyName(), contacts.get(withCustomer.getId()).getCustomerName());
+        assertNull(contacts.get(orphan.getId()).getCustomerName());
+        assertEquals("Ada Lovelace", opportunityItem.getPrimaryContactName());
+        assertEquals(customer.getId(), opportunityItem.getCustomerId());
+        assertEquals("Charles Babbage", activityItem.getLeadName());
+        assertEquals("Engine", activityItem.getOpportunityName());
+        assertNull(activityItem.getCustomerName());
+        assertEquals(contactRepository.count(), page.getTotalElements());
+        assertEquals("Ada", page.getContent().get(0).getFirstName());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void searchesSelectListItemsDirectly() {
+        Customer customer = customerRepository.save(new Customer("Hopperfield Labs", "Research", "labs@example.com"));
+        Contact grace = new Contact("Grace", "Hopperfield", "grace@example.com");
+        grace.setCustomer(customer);
+        Contact other = new Contact("Other", "Hopperfield", "other@example.com");
+        other.setCustomer(customer);
+        contactRepository.saveAll(List.of(grace, other));
+        opportunityRepository.save(new Opportunity("Compiler", BigDecimal.ONE, customer));
+        Activity kickoff = activityRepository.save(new Activity("Hopperfield kickoff", Activity.ActivityType.CALL, null));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<ContactListItem> contacts = contactRepository.findListItemsBySearchTerm("hopperfield",
+                PageRequest.of(0, 1, Sort.by("firstName")));
+        Page<ContactListItem> narrowed = contactRepository.findListItemsBySearchTermAndIdIn("hopperfield",
+                List.of(other.getId()), PageRequest.of(0, 10));
+        Page<ContactListItem> byIds = contactRepository.findListItemsByIdIn(List.of(grace.getId(), other.getId()),
+                PageRequest.of(1, 1, Sort.by("firstName")));
+        // Found by the customer's company name
+        Slice<OpportunityListItem> opportunities = opportunityRepository.findListItemSliceBySearchTerm("hopperfield",
+                PageRequest.of(0, 10));
+        Slice<ActivityListItem> activities = activityRepository.findListItemSliceBySearchTermAndIdIn("kickoff",
+                List.of(1L, kickoff.getId()), PageRequest.of(0, 10));
+
+        assertEquals(2, contacts.getTotalElements());
+        assertEquals("Grace", contacts.getContent().get(0).getFirstName());
+        assertEquals("Hopperfield Labs", contacts.getContent().get(0).getCustomerName());
+        assertEquals(List.of(other.getId()), narrowed.map(ContactListItem::getId).getContent());
+        assertEquals("Other", byIds.getContent().get(0).getFirstName());
+        assertEquals(2, byIds.getTotalElements());
+        assertEquals("Compiler", opportunities.getContent().get(0).getName());
+        assertFalse(opportunities.hasNext());
+        assertEquals(List.of(kickoff.getId()), activities.map(ActivityListItem::getId).getContent());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
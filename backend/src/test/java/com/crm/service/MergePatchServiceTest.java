@@ -0,0 +1,128 @@
+package com.crm.service;
+
+import com.crm.SeedDataExtension;
+import com.crm.model.Contact;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import com.crm.model.Opportunity;
+import com.crm.repository.ContactRepository;
+import com.crm.repository.CustomerRepository;
+import com.crm.repository.LeadRepository;
+import com.crm.repository.OpportunityRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class MergePatchServiceTest {
+
+    private static final Set<String> LEAD_FIELDS = Set.of("firstName", "status", "score", "notes");
+
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void writesOnlyThePatchedColumns() throws Exception {
+        Lead lead = new Lead("Patch", "Me", "patch@example.com", "Acme");
+        lead.setNotes("Call back");
+        Long id = leadRepository.save(lead).getId();
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        JsonNode patch = json("{\"status\": \"CONVERTED\", \"notes\": null}");
+
+        // Another writer changes a column the patch does not touch after the patch has read
+        // the row; a full-row UPDATE would put the old company back
+        ResponseEntity<Lead> response = outer.execute(status -> {
+            leadRepository.findById(id);
+            concurrent.execute(inner -> jdbcTemplate.update("UPDATE leads SET company = ? WHERE id = ?", "Acme Holdings", id));
+            return mergePatchService.patch(Lead.class, id, patch, LEAD_FIELDS);
+        });
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Lead patched = leadRepository.findById(id).get();
+        assertEquals(Lead.LeadStatus.CONVERTED, patched.getStatus());
+        assertNotNull(patched.getConvertedAt());
+        assertNull(patched.getNotes());
+        assertEquals("Acme Holdings", patched.getCompany());
+        assertEquals("Patch", patched.getFirstName());
+    }
+
+    @Test
+    void rejectsFieldsOutsideThePatchableSetAndInvalidValues() throws Exception {
+        Lead lead = leadRepository.save(new Lead("Keep", "Me", "keep@example.com", null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, mergePatchService.patch(Lead.class, lead.getId(),
+                json("{\"status\": \"LOST\", \"email\": \"other@example.com\"}"), LEAD_FIELDS).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, mergePatchService.patch(Lead.class, lead.getId(),
+                json("{\"status\": \"LOST\", \"score\": \"high\"}"), LEAD_FIELDS).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, mergePatchService.patch(Lead.class, lead.getId(),
+                json("{\"status\": \"LOST\", \"firstName\": \"\"}"), LEAD_FIELDS).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, mergePatchService.patch(Lead.class, lead.getId(),
+                json("[]"), LEAD_FIELDS).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, mergePatchService.patch(Lead.class, -1L,
+                json("{\"status\": \"LOST\"}"), LEAD_FIELDS).getStatusCode());
+
+        Lead unchanged = leadRepository.findById(lead.getId()).get();
+        assertEquals(Lead.LeadStatus.NEW, unchanged.getStatus());
+        assertEquals("Keep", unchanged.getFirstName());
+    }
+
+    @Test
+    void patchesAnAssociationById() throws Exception {
+        Customer customer = customerRepository.findById(1L).get();
+        Contact contact = new Contact("Primary", "Contact", "primary@example.com");
+        contact.setCustomer(customer);
+        contact = contactRepository.save(contact);
+        Opportunity opportunity = opportunityRepository.save(new Opportunity("Deal", BigDecimal.TEN, customer));
+
+        mergePatchService.patch(Opportunity.class, opportunity.getId(),
+                json("{\"primaryContact\": {\"id\": " + contact.getId() + "}}"), Set.of("primaryContact"));
+
+        assertEquals(contact.getId(), opportunityRepository.findById(opportunity.getId()).get().getPrimaryContact().getId());
+        assertEquals(HttpStatus.BAD_REQUEST, mergePatchService.patch(Opportunity.class, opportunity.getId(),
+                json("{\"primaryContact\": {\"id\": -1}}"), Set.of("primaryContact")).getStatusCode());
+    }
+
+    private JsonNode json(String content) throws Exception {
+        return objectMapper.readTree(content);
+    }
+}
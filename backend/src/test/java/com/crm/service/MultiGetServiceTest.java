@@ -0,0 +1,72 @@
+package com.crm.service;
+
+import com.crm.SeedDataExtension;
+import com.crm.diagnostics.StatementGuard;
+import com.crm.model.Contact;
+import com.crm.repository.ContactRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class MultiGetServiceTest {
+
+    @Autowired
+    private MultiGetService multiGetService;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private StatementGuard statementGuard;
+
+    @Test
+    void returnsRowsInRequestOrderAndReportsMissingIds() throws Exception {
+        // Counted per thread by the guard, so background jobs of the test context are not included
+        List<ResponseEntity<MultiGetService.MultiGetResult<Contact>>> responses = new ArrayList<>();
+        int[] statements = new int[1];
+        statementGuard.doFilter(new MockHttpServletRequest("GET", "/api/contacts"), new MockHttpServletResponse(),
+                (request, servletResponse) -> {
+                    responses.add(multiGetService.findAll(Arrays.asList(4L, 99L, 2L, 4L, 5L, 1L),
+                            contactRepository::findWithCustomerByIdIn));
+                    statements[0] = statementGuard.currentCount();
+                });
+        ResponseEntity<MultiGetService.MultiGetResult<Contact>> response = responses.get(0);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        MultiGetService.MultiGetResult<Contact> result = response.getBody();
+        assertNotNull(result);
+        assertEquals(List.of(4L, 2L, 5L, 1L),
+                result.getItems().stream().map(Contact::getId).collect(Collectors.toList()));
+        assertEquals(List.of(99L), result.getMissing());
+        assertNotNull(result.getItems().get(0).getCustomer().getCompanyName());
+        // Five distinct ids in chunks of two
+        assertEquals(3, statements[0]);
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedIdLists() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                multiGetService.findAll(List.of(), contactRepository::findWithCustomerByIdIn).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                multiGetService.findAll(Arrays.asList(1L, null), contactRepository::findWithCustomerByIdIn).getStatusCode());
+        List<Long> tooMany = LongStream.rangeClosed(1, 11).boxed().collect(Collectors.toList());
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE,
+                multiGetService.findAll(tooMany, contactRepository::findWithCustomerByIdIn).getStatusCode());
+    }
+}
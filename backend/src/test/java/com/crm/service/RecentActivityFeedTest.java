@@ -0,0 +1,103 @@
+package com.crm.service;
+
+import com.crm.SeedDataExtension;
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.Activity;
+import com.crm.repository.ActivityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs a private feed of capacity 4 so a handful of writes wrap the ring.
+ */
+@SpringBootTest
+@ExtendWith(SeedDataExtension.class)
+class RecentActivityFeedTest {
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    private RecentActivityFeed feed;
+
+    @BeforeEach
+    void createFeed() {
+        feed = new RecentActivityFeed(4);
+        ReflectionTestUtils.setField(feed, "activityRepository", activityRepository);
+    }
+
+    @Test
+    void keepsTheNewestWritesWhenTheRingWraps() {
+        for (long id = 101; id <= 106; id++) {
+            write(id);
+        }
+
+        assertEquals(4, feed.getCapacity());
+        assertEquals(List.of(106L, 105L, 104L, 103L), ids(feed.recent(10)));
+        assertEquals(List.of(106L, 105L), ids(feed.recent(2)));
+    }
+
+    @Test
+    void showsARewrittenActivityOnceAtItsLatestPosition() {
+        write(101);
+        write(102);
+        write(103);
+        write(101);
+
+        assertEquals(List.of(101L, 103L, 102L), ids(feed.recent(10)));
+
+        // The first write of 101 is overwritten by this lap; the latest one still counts
+        write(104);
+        write(102);
+        assertEquals(List.of(102L, 104L, 101L, 103L), ids(feed.recent(10)));
+    }
+
+    @Test
+    void dropsDeletedActivities() {
+        write(101);
+        write(102);
+        write(103);
+        feed.onEntityChange(new EntityChangeEvent(EntityChangeEvent.ChangeType.DELETED, Activity.class, 102L,
+                activity(102), null, null));
+
+        assertEquals(List.of(103L, 101L), ids(feed.recent(10)));
+    }
+
+    @Test
+    void seedsTheNewestActivitiesOnStartup() {
+        for (int i = 0; i < 5; i++) {
+            activityRepository.save(new Activity("Feed seed " + i, Activity.ActivityType.TASK, null));
+        }
+
+        feed.seed();
+
+        List<ActivitySummary> newest = activityRepository.findRecentSummaries(PageRequest.of(0, 4));
+        assertEquals(ids(newest), ids(feed.recent(10)));
+        assertEquals("Feed seed 4", feed.recent(1).get(0).getSubject());
+    }
+
+    private void write(long id) {
+        Activity activity = activity(id);
+        feed.onEntityChange(new EntityChangeEvent(EntityChangeEvent.ChangeType.UPDATED, Activity.class, id,
+                activity, null, null));
+    }
+
+    private static Activity activity(long id) {
+        Activity activity = new Activity("Activity " + id, Activity.ActivityType.CALL, null);
+        activity.setId(id);
+        return activity;
+    }
+
+    private static List<Long> ids(List<ActivitySummary> summaries) {
+        return summaries.stream().map(ActivitySummary::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,159 @@
+package com.crm.service;
+
+import com.crm.event.EntityChangeEvent;
+import com.crm.model.Customer;
+import com.crm.model.Lead;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatsCacheTest {
+
+    private static final Set<Class<?>> LEADS = Set.of(Lead.class);
+    private static final Set<Class<?>> CUSTOMERS = Set.of(Customer.class);
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        StatsCache cache = new StatsCache(60_000, 16);
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get("leads", LEADS, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "figures";
+                })));
+            }
+            // The loader is held until every other caller is waiting on it
+            for (int attempt = 0; attempt < 500 && cache.getStats().getCoalescedWaiters() < callers - 1; attempt++) {
+                Thread.sleep(10);
+            }
+            assertEquals(callers - 1, cache.getStats().getCoalescedWaiters());
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("figures", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals("figures", cache.get("leads", LEADS, counting(loads, "again")));
+        assertEquals(1, loads.get());
+        StatsCache.CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(callers, stats.getMisses());
+        assertEquals(callers - 1, stats.getCoalescedWaiters());
+        assertEquals(0, stats.getInFlight());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void keepsAResultOutOfTheCacheWhenItsDependencyChangesDuringTheLoad() {
+        StatsCache cache = new StatsCache(60_000, 16);
+        AtomicInteger loads = new AtomicInteger();
+
+        String stale = cache.get("leads", LEADS, () -> {
+            loads.incrementAndGet();
+            cache.onEntityChange(changed(Lead.class));
+            return "stale";
+        });
+        assertEquals("stale", stale);
+        assertEquals(0, cache.getStats().getSize());
+
+        assertEquals("fresh", cache.get("leads", LEADS, counting(loads, "fresh")));
+        assertEquals(2, loads.get());
+        assertEquals("fresh", cache.get("leads", LEADS, counting(loads, "unused")));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void dropsOnlyTheEntriesThatDependOnTheChangedType() {
+        StatsCache cache = new StatsCache(60_000, 16);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("leads", LEADS, counting(loads, "leads"));
+        cache.get("customers", CUSTOMERS, counting(loads, "customers"));
+
+        cache.onEntityChange(changed(Lead.class));
+
+        assertEquals(1, cache.getStats().getInvalidations());
+        cache.get("customers", CUSTOMERS, counting(loads, "customers"));
+        assertEquals(2, loads.get());
+        cache.get("leads", LEADS, counting(loads, "leads"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void reloadsExpiredEntries() throws InterruptedException {
+        StatsCache cache = new StatsCache(200, 16);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("leads", LEADS, counting(loads, "first"));
+        assertEquals("first", cache.get("leads", LEADS, counting(loads, "second")));
+        Thread.sleep(300);
+        assertEquals("second", cache.get("leads", LEADS, counting(loads, "second")));
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(2, cache.getStats().getMisses());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryPastMaxEntries() {
+        StatsCache cache = new StatsCache(60_000, 2);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("a", LEADS, counting(loads, "a"));
+        cache.get("b", LEADS, counting(loads, "b"));
+        // Reading "a" makes "b" the least recently used
+        cache.get("a", LEADS, counting(loads, "a"));
+        cache.get("c", LEADS, counting(loads, "c"));
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(2, cache.getStats().getSize());
+
+        cache.get("a", LEADS, counting(loads, "a"));
+        cache.get("c", LEADS, counting(loads, "c"));
+        assertEquals(3, loads.get());
+        cache.get("b", LEADS, counting(loads, "b"));
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getStats().getEvictions());
+        assertEquals(3, cache.getStats().getHits());
+        assertEquals(4, cache.getStats().getMisses());
+        assertEquals(3.0 / 7, cache.getStats().getHitRatio(), 1e-9);
+    }
+
+    private static Supplier<String> counting(AtomicInteger loads, String value) {
+        return () -> {
+            loads.incrementAndGet();
+            return value;
+        };
+    }
+
+    private static EntityChangeEvent changed(Class<?> type) {
+        return new EntityChangeEvent(EntityChangeEvent.ChangeType.UPDATED, type, 1L, null, null, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+-- FULLTEXT indexes for databases created before they were added to mysql-setup.sql
+-- Needed by the fulltext profile; each statement rebuilds its table, so run it in a
+-- maintenance window. The column lists must match FullTextSearchService.INDEXES.
+
+USE crm_system;
+
+ALTER TABLE customers ADD FULLTEXT INDEX ft_customers_search (company_name, industry, email, city);
+ALTER TABLE customers ADD FULLTEXT INDEX ft_customers_company_name (company_name);
+ALTER TABLE contacts ADD FULLTEXT INDEX ft_contacts_search (first_name, last_name, email, job_title);
+ALTER TABLE leads ADD FULLTEXT INDEX ft_leads_search (first_name, last_name, email, company, job_title);
+ALTER TABLE opportunities ADD FULLTEXT INDEX ft_opportunities_search (name, description);
+ALTER TABLE activities ADD FULLTEXT INDEX ft_activities_search (subject, description);
@@ -20,12 +20,14 @@ CREATE TABLE customers (
     postal_code VARCHAR(20),
     country VARCHAR(50),
     status ENUM('ACTIVE', 'INACTIVE', 'PROSPECT') DEFAULT 'ACTIVE',
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     INDEX idx_company_name (company_name),
     INDEX idx_email (email),
     INDEX idx_status (status),
-    INDEX idx_industry (industry)
+    INDEX idx_industry (industry),
+    FULLTEXT INDEX ft_customers_search (company_name, industry, email, city),
+    FULLTEXT INDEX ft_customers_company_name (company_name)
 );
 
 -- Create contacts table
@@ -41,13 +43,14 @@ CREATE TABLE contacts (
     status ENUM('ACTIVE', 'INACTIVE', 'DO_NOT_CONTACT') DEFAULT 'ACTIVE',
     is_primary BOOLEAN DEFAULT FALSE,
     customer_id BIGINT,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE,
     INDEX idx_customer_id (customer_id),
     INDEX idx_email (email),
     INDEX idx_name (first_name, last_name),
-    INDEX idx_status (status)
+    INDEX idx_status (status),
+    FULLTEXT INDEX ft_contacts_search (first_name, last_name, email, job_title)
 );
 
 -- Create leads table
@@ -66,14 +69,15 @@ CREATE TABLE leads (
     notes TEXT,
     converted_at TIMESTAMP NULL,
     converted_customer_id BIGINT,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     FOREIGN KEY (converted_customer_id) REFERENCES customers(id) ON DELETE SET NULL,
     INDEX idx_status (status),
     INDEX idx_source (source),
     INDEX idx_score (score),
     INDEX idx_email (email),
-    INDEX idx_company (company)
+    INDEX idx_company (company),
+    FULLTEXT INDEX ft_leads_search (first_name, last_name, email, company, job_title)
 );
 
 -- Create opportunities table
@@ -90,15 +94,16 @@ CREATE TABLE opportunities (
     notes TEXT,
     customer_id BIGINT NOT NULL,
     primary_contact_id BIGINT,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE,
     FOREIGN KEY (primary_contact_id) REFERENCES contacts(id) ON DELETE SET NULL,
     INDEX idx_customer_id (customer_id),
     INDEX idx_stage (stage),
     INDEX idx_amount (amount),
     INDEX idx_expected_close_date (expected_close_date),
-    INDEX idx_primary_contact_id (primary_contact_id)
+    INDEX idx_primary_contact_id (primary_contact_id),
+    FULLTEXT INDEX ft_opportunities_search (name, description)
 );
 
 -- Create activities table
@@ -117,8 +122,8 @@ CREATE TABLE activities (
     contact_id BIGINT,
     opportunity_id BIGINT,
     lead_id BIGINT,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    created_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE,
     FOREIGN KEY (contact_id) REFERENCES contacts(id) ON DELETE CASCADE,
     FOREIGN KEY (opportunity_id) REFERENCES opportunities(id) ON DELETE CASCADE,
@@ -130,9 +135,23 @@ CREATE TABLE activities (
     INDEX idx_type (type),
     INDEX idx_status (status),
     INDEX idx_start_date (start_date),
-    INDEX idx_priority (priority)
+    INDEX idx_priority (priority),
+    FULLTEXT INDEX ft_activities_search (subject, description)
 );
 
+-- Id sequences (MySQL has no sequences, so Hibernate keeps each one in a table; the
+-- application advances them past the rows inserted below when it starts)
+CREATE TABLE customers_seq (next_val BIGINT);
+CREATE TABLE contacts_seq (next_val BIGINT);
+CREATE TABLE leads_seq (next_val BIGINT);
+CREATE TABLE opportunities_seq (next_val BIGINT);
+CREATE TABLE activities_seq (next_val BIGINT);
+INSERT INTO customers_seq VALUES (1);
+INSERT INTO contacts_seq VALUES (1);
+INSERT INTO leads_seq VALUES (1);
+INSERT INTO opportunities_seq VALUES (1);
+INSERT INTO activities_seq VALUES (1);
+
 -- Insert sample data
 INSERT INTO customers (company_name, industry, company_size, website, phone, email, address, city, state, postal_code, country, status) VALUES
 ('TechCorp Solutions', 'Technology', 'Medium', 'https://techcorp.com', '+1-555-0101', 'info@techcorp.com', '123 Tech Street', 'San Francisco', 'CA', '94105', 'USA', 'ACTIVE'),